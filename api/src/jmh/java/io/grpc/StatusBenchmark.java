@@ -28,6 +28,8 @@ import org.openjdk.jmh.annotations.State;
 /** StatusBenchmark. */
 @State(Scope.Benchmark)
 public class StatusBenchmark {
+  private static final Status NOT_FOUND =
+      Status.NOT_FOUND.withDescription("Could not find 'important_file.txt'");
 
   /**
    * Javadoc comment.
@@ -90,5 +92,24 @@ public class StatusBenchmark {
   public Status codeDecode() {
     return Status.CODE_KEY.parseBytes("15".getBytes(Charset.forName("US-ASCII")));
   }
-}
 
+  /**
+   * Javadoc comment.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public StatusRuntimeException asRuntimeException() {
+    return NOT_FOUND.asRuntimeException();
+  }
+
+  /**
+   * Javadoc comment.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public StatusRuntimeException runtimeExceptionWithoutStackTrace() {
+    return StatusRuntimeException.withoutStackTrace(NOT_FOUND, null);
+  }
+}
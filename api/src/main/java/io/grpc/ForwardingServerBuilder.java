@@ -186,6 +186,12 @@ public abstract class ForwardingServerBuilder<T extends ServerBuilder<T>> extend
     return thisT();
   }
 
+  @Override
+  public T inboundMemoryBudget(long bytes) {
+    delegate().inboundMemoryBudget(bytes);
+    return thisT();
+  }
+
   @Override
   public T setBinaryLog(BinaryLog binaryLog) {
     delegate().setBinaryLog(binaryLog);
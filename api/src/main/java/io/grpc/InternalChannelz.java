@@ -143,15 +143,9 @@ public final class InternalChannelz {
 
   /** Returns a {@link RootChannelList}. */
   public RootChannelList getRootChannels(long fromId, int maxPageSize) {
-    List<InternalInstrumented<ChannelStats>> channelList
-        = new ArrayList<>();
-    Iterator<InternalInstrumented<ChannelStats>> iterator
-        = rootChannels.tailMap(fromId).values().iterator();
-
-    while (iterator.hasNext() && channelList.size() < maxPageSize) {
-      channelList.add(iterator.next());
-    }
-    return new RootChannelList(channelList, !iterator.hasNext());
+    List<InternalInstrumented<ChannelStats>> channelList = new ArrayList<>();
+    boolean end = page(rootChannels, fromId, maxPageSize, channelList);
+    return new RootChannelList(channelList, end);
   }
 
   /** Returns a channel. */
@@ -168,15 +162,9 @@ public final class InternalChannelz {
 
   /** Returns a server list. */
   public ServerList getServers(long fromId, int maxPageSize) {
-    List<InternalInstrumented<ServerStats>> serverList
-        = new ArrayList<>(maxPageSize);
-    Iterator<InternalInstrumented<ServerStats>> iterator
-        = servers.tailMap(fromId).values().iterator();
-
-    while (iterator.hasNext() && serverList.size() < maxPageSize) {
-      serverList.add(iterator.next());
-    }
-    return new ServerList(serverList, !iterator.hasNext());
+    List<InternalInstrumented<ServerStats>> serverList = new ArrayList<>();
+    boolean end = page(servers, fromId, maxPageSize, serverList);
+    return new ServerList(serverList, end);
   }
 
   /** Returns a server. */
@@ -192,13 +180,24 @@ public final class InternalChannelz {
     if (serverSockets == null) {
       return null;
     }
-    List<InternalWithLogId> socketList = new ArrayList<>(maxPageSize);
-    Iterator<InternalInstrumented<SocketStats>> iterator
-        = serverSockets.tailMap(fromId).values().iterator();
-    while (socketList.size() < maxPageSize && iterator.hasNext()) {
-      socketList.add(iterator.next());
+    List<InternalWithLogId> socketList = new ArrayList<>();
+    boolean end = page(serverSockets, fromId, maxPageSize, socketList);
+    return new ServerSocketsList(socketList, end);
+  }
+
+  /**
+   * Adds up to {@code maxPageSize} values with keys from {@code fromId} on to {@code page}, and
+   * returns whether there are no more. The page isn't presized, as the service may be configured
+   * with a page size far larger than the number of entries.
+   */
+  private static <T> boolean page(
+      ConcurrentNavigableMap<Long, ? extends T> map, long fromId, int maxPageSize,
+      List<? super T> page) {
+    Iterator<? extends T> iterator = map.tailMap(fromId).values().iterator();
+    while (page.size() < maxPageSize && iterator.hasNext()) {
+      page.add(iterator.next());
     }
-    return new ServerSocketsList(socketList, !iterator.hasNext());
+    return !iterator.hasNext();
   }
 
   /** Returns a socket. */
@@ -295,6 +294,7 @@ public final class InternalChannelz {
     public final long callsFailed;
     public final long lastCallStartedNanos;
     public final List<InternalInstrumented<SocketStats>> listenSockets;
+    public final List<MethodStats> methodStats;
 
     /**
      * Creates an instance.
@@ -305,11 +305,31 @@ public final class InternalChannelz {
         long callsFailed,
         long lastCallStartedNanos,
         List<InternalInstrumented<SocketStats>> listenSockets) {
+      this(
+          callsStarted,
+          callsSucceeded,
+          callsFailed,
+          lastCallStartedNanos,
+          listenSockets,
+          Collections.<MethodStats>emptyList());
+    }
+
+    /**
+     * Creates an instance.
+     */
+    public ServerStats(
+        long callsStarted,
+        long callsSucceeded,
+        long callsFailed,
+        long lastCallStartedNanos,
+        List<InternalInstrumented<SocketStats>> listenSockets,
+        List<MethodStats> methodStats) {
       this.callsStarted = callsStarted;
       this.callsSucceeded = callsSucceeded;
       this.callsFailed = callsFailed;
       this.lastCallStartedNanos = lastCallStartedNanos;
       this.listenSockets = checkNotNull(listenSockets);
+      this.methodStats = checkNotNull(methodStats);
     }
 
     public static final class Builder {
@@ -318,6 +338,7 @@ public final class InternalChannelz {
       private long callsFailed;
       private long lastCallStartedNanos;
       public List<InternalInstrumented<SocketStats>> listenSockets = new ArrayList<>();
+      private List<MethodStats> methodStats = Collections.emptyList();
 
       public Builder setCallsStarted(long callsStarted) {
         this.callsStarted = callsStarted;
@@ -348,6 +369,12 @@ public final class InternalChannelz {
         return this;
       }
 
+      /** Sets the per-method stats. */
+      public Builder setMethodStats(List<MethodStats> methodStats) {
+        this.methodStats = Collections.unmodifiableList(checkNotNull(methodStats));
+        return this;
+      }
+
       /**
        * Builds an instance.
        */
@@ -357,7 +384,8 @@ public final class InternalChannelz {
             callsSucceeded,
             callsFailed,
             lastCallStartedNanos,
-            listenSockets);
+            listenSockets,
+            methodStats);
       }
     }
   }
@@ -376,6 +404,7 @@ public final class InternalChannelz {
     public final long lastCallStartedNanos;
     public final List<InternalWithLogId> subchannels;
     public final List<InternalWithLogId> sockets;
+    public final List<MethodStats> methodStats;
 
     /**
      * Creates an instance.
@@ -389,7 +418,8 @@ public final class InternalChannelz {
         long callsFailed,
         long lastCallStartedNanos,
         List<InternalWithLogId> subchannels,
-        List<InternalWithLogId> sockets) {
+        List<InternalWithLogId> sockets,
+        List<MethodStats> methodStats) {
       checkState(
           subchannels.isEmpty() || sockets.isEmpty(),
           "channels can have subchannels only, subchannels can have either sockets OR subchannels, "
@@ -403,6 +433,7 @@ public final class InternalChannelz {
       this.lastCallStartedNanos = lastCallStartedNanos;
       this.subchannels = checkNotNull(subchannels);
       this.sockets = checkNotNull(sockets);
+      this.methodStats = checkNotNull(methodStats);
     }
 
     public static final class Builder {
@@ -415,6 +446,7 @@ public final class InternalChannelz {
       private long lastCallStartedNanos;
       private List<InternalWithLogId> subchannels = Collections.emptyList();
       private List<InternalWithLogId> sockets = Collections.emptyList();
+      private List<MethodStats> methodStats = Collections.emptyList();
 
       public Builder setTarget(String target) {
         this.target = target;
@@ -465,6 +497,12 @@ public final class InternalChannelz {
         return this;
       }
 
+      /** Sets the per-method stats. */
+      public Builder setMethodStats(List<MethodStats> methodStats) {
+        this.methodStats = Collections.unmodifiableList(checkNotNull(methodStats));
+        return this;
+      }
+
       /**
        * Builds an instance.
        */
@@ -478,11 +516,93 @@ public final class InternalChannelz {
             callsFailed,
             lastCallStartedNanos,
             subchannels,
-            sockets);
+            sockets,
+            methodStats);
       }
     }
   }
 
+  /**
+   * A data class to represent the call stats of a single method.
+   */
+  @Immutable
+  public static final class MethodStats {
+    public final String fullMethodName;
+    public final long callsStarted;
+    public final long callsSucceeded;
+    public final long callsFailed;
+    public final Distribution latencyNanos;
+    public final Distribution sentMessageBytes;
+    public final Distribution receivedMessageBytes;
+
+    /**
+     * Creates an instance.
+     */
+    public MethodStats(
+        String fullMethodName,
+        long callsStarted,
+        long callsSucceeded,
+        long callsFailed,
+        Distribution latencyNanos,
+        Distribution sentMessageBytes,
+        Distribution receivedMessageBytes) {
+      this.fullMethodName = checkNotNull(fullMethodName, "fullMethodName");
+      this.callsStarted = callsStarted;
+      this.callsSucceeded = callsSucceeded;
+      this.callsFailed = callsFailed;
+      this.latencyNanos = checkNotNull(latencyNanos, "latencyNanos");
+      this.sentMessageBytes = checkNotNull(sentMessageBytes, "sentMessageBytes");
+      this.receivedMessageBytes = checkNotNull(receivedMessageBytes, "receivedMessageBytes");
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("fullMethodName", fullMethodName)
+          .add("callsStarted", callsStarted)
+          .add("callsSucceeded", callsSucceeded)
+          .add("callsFailed", callsFailed)
+          .add("latencyNanos", latencyNanos)
+          .add("sentMessageBytes", sentMessageBytes)
+          .add("receivedMessageBytes", receivedMessageBytes)
+          .toString();
+    }
+  }
+
+  /**
+   * A summary of the values recorded in a histogram. Percentiles are approximate.
+   */
+  @Immutable
+  public static final class Distribution {
+    public final long count;
+    public final long p50;
+    public final long p90;
+    public final long p99;
+    public final long max;
+
+    /**
+     * Creates an instance.
+     */
+    public Distribution(long count, long p50, long p90, long p99, long max) {
+      this.count = count;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.max = max;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("count", count)
+          .add("p50", p50)
+          .add("p90", p90)
+          .add("p99", p99)
+          .add("max", max)
+          .toString();
+    }
+  }
+
   @Immutable
   public static final class ChannelTrace {
     public final long numEventsLogged;
@@ -16,7 +16,9 @@
 
 package io.grpc;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -143,4 +145,62 @@ public abstract class ManagedChannel extends Channel {
    */
   @ExperimentalApi("https://github.com/grpc/grpc-java/issues/4056")
   public void enterIdle() {}
+
+  /**
+   * Connects ahead of the first RPCs, so that they don't pay for establishing connections. This
+   * exits idle mode and, once the load balancer has created its subchannels, connects the given
+   * fraction of them, rounded up. If {@code warmUpRpc} is non-{@code null}, it is called for each
+   * new connection to send RPCs warming it up, such as priming header compression tables and
+   * flow control windows, and the code paths on both ends.
+   *
+   * <p>{@code listener} is called once, in {@code executor}, when each of the chosen subchannels is
+   * ready and its warm-up RPCs are done, or it has failed to connect, or the load balancer has shut
+   * it down. The status is OK if at least one of them connected, or else the last connection
+   * error. It is UNAVAILABLE if the channel is shut down first, and DEADLINE_EXCEEDED if the
+   * warm-up isn't done by {@code deadline}, for example because the servers are unreachable.
+   *
+   * <p>The load balancer still decides which subchannels it uses and keeps. For example,
+   * pick_first shuts down the other subchannels once one is ready.
+   *
+   * @param fraction fraction of the subchannels to connect, greater than 0 and at most 1
+   * @param deadline when to stop waiting for the warm-up
+   * @param warmUpRpc sends warm-up RPCs on each new connection, or {@code null} to only connect
+   * @param executor runs {@code listener}
+   * @param listener called once the warm-up is done
+   * @throws UnsupportedOperationException if not supported by implementation
+   * @since 1.60.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/4359")
+  public void warmUp(
+      double fraction, Deadline deadline, @Nullable WarmUpRpc warmUpRpc, Executor executor,
+      WarmUpListener listener) {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
+  /**
+   * Sends RPCs warming up a new connection, for {@link #warmUp}.
+   *
+   * @since 1.60.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/4359")
+  public interface WarmUpRpc {
+    /**
+     * Sends warm-up RPCs on {@code connection}, a channel bound to the new connection, and runs
+     * {@code done} once they are done. The outcome of the RPCs is ignored.
+     */
+    void warmUp(Channel connection, Runnable done);
+  }
+
+  /**
+   * Receives the outcome of {@link #warmUp}.
+   *
+   * @since 1.60.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/4359")
+  public interface WarmUpListener {
+    /**
+     * Called once the warm-up is done, with OK if at least one connection was established.
+     */
+    void onComplete(Status status);
+  }
 }
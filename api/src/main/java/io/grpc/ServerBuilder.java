@@ -409,6 +409,23 @@ public abstract class ServerBuilder<T extends ServerBuilder<T>> {
     return thisT();
   }
 
+  /**
+   * Sets the maximum number of bytes of inbound messages the server may buffer, across all its
+   * connections, before the application requests them. While more is buffered the server stops
+   * returning flow control credit to the clients, so a slow application can't make the server run
+   * out of memory. By default, the buffered bytes are only bounded by the flow control windows.
+   *
+   * @param bytes the maximum number of buffered bytes
+   * @return this
+   * @throws IllegalArgumentException if bytes is non-positive
+   * @throws UnsupportedOperationException if unsupported
+   * @since 1.60.0
+   */
+  @ExperimentalApi("https://github.com/grpc/grpc-java/issues/9009")
+  public T inboundMemoryBudget(long bytes) {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * Sets the BinaryLog object that this server should log to. The server does not take
    * ownership of the object, and users are responsible for calling {@link BinaryLog#close()}.
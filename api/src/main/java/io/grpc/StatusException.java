@@ -48,6 +48,16 @@ public class StatusException extends Exception {
     this(status, trailers, /*fillInStackTrace=*/ true);
   }
 
+  /**
+   * Creates the exception for a status and trailers without filling in its stack trace, which is
+   * most of the cost of creating it. Meant for the errors that are expected, such as {@code
+   * NOT_FOUND}, whose stack traces are of no use. See also {@link Status#asException(Metadata)}.
+   */
+  @ExperimentalApi("Exceptions without stack traces are experimental")
+  public static StatusException withoutStackTrace(Status status, @Nullable Metadata trailers) {
+    return new StatusException(status, trailers, /*fillInStackTrace=*/ false);
+  }
+
   StatusException(Status status, @Nullable Metadata trailers, boolean fillInStackTrace) {
     super(Status.formatThrowableMessage(status), status.getCause());
     this.status = status;
@@ -145,6 +145,19 @@ public final class InternalChannelzTest {
     assertThat(page.servers).containsExactly(server1, server2);
   }
 
+  @Test
+  public void getServers_hugePageSize() {
+    InternalInstrumented<ServerStats> server1 = create();
+    channelz.addServer(server1);
+    ServerList page = channelz.getServers(/*fromId=*/ 0, /*maxPageSize=*/ Integer.MAX_VALUE);
+    assertTrue(page.end);
+    assertThat(page.servers).containsExactly(server1);
+    ServerSocketsList sockets = channelz.getServerSockets(
+        id(server1), /*fromId=*/ 0, /*maxPageSize=*/ Integer.MAX_VALUE);
+    assertTrue(sockets.end);
+    assertThat(sockets.sockets).isEmpty();
+  }
+
   @Test
   public void getServers_paginate() {
     InternalInstrumented<ServerStats> server1 = create();
@@ -36,6 +36,16 @@ public class StatusExceptionTest {
     assertThat(trace).isEmpty();
   }
 
+  @Test
+  public void withoutStackTrace() {
+    Metadata trailers = new Metadata();
+    StatusException error = StatusException.withoutStackTrace(Status.NOT_FOUND, trailers);
+
+    assertThat(error.getStackTrace()).isEmpty();
+    assertThat(error.getStatus()).isSameInstanceAs(Status.NOT_FOUND);
+    assertThat(error.getTrailers()).isSameInstanceAs(trailers);
+  }
+
   @Test
   public void normalCtorKeepsStack() {
     StackTraceElement[] trace =
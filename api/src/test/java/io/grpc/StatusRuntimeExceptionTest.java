@@ -36,6 +36,17 @@ public class StatusRuntimeExceptionTest {
     assertThat(trace).isEmpty();
   }
 
+  @Test
+  public void withoutStackTrace() {
+    Metadata trailers = new Metadata();
+    StatusRuntimeException error =
+        StatusRuntimeException.withoutStackTrace(Status.NOT_FOUND, trailers);
+
+    assertThat(error.getStackTrace()).isEmpty();
+    assertThat(error.getStatus()).isSameInstanceAs(Status.NOT_FOUND);
+    assertThat(error.getTrailers()).isSameInstanceAs(trailers);
+  }
+
   @Test
   public void normalCtorKeepsStack() {
     StackTraceElement[] trace =
@@ -48,21 +48,25 @@ import io.opencensus.stats.MeasureMap;
 import io.opencensus.stats.Stats;
 import io.opencensus.stats.StatsRecorder;
 import io.opencensus.tags.TagContext;
+import io.opencensus.tags.TagKey;
 import io.opencensus.tags.TagValue;
 import io.opencensus.tags.Tagger;
 import io.opencensus.tags.Tags;
 import io.opencensus.tags.propagation.TagContextBinarySerializer;
 import io.opencensus.tags.propagation.TagContextSerializationException;
 import io.opencensus.tags.unsafe.ContextUtils;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 
 /**
  * Provides factories for {@link StreamTracer} that records stats to Census.
@@ -79,6 +83,8 @@ import javax.annotation.concurrent.GuardedBy;
 final class CensusStatsModule {
   private static final Logger logger = Logger.getLogger(CensusStatsModule.class.getName());
   private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+  // Bounds the caches, as servers see the method names the clients send
+  private static final int MAX_CACHED_METHODS = 1000;
 
   private final Tagger tagger;
   private final StatsRecorder statsRecorder;
@@ -90,6 +96,11 @@ final class CensusStatsModule {
   private final boolean recordFinishedRpcs;
   private final boolean recordRealTimeMetrics;
   private final boolean recordRetryMetrics;
+  private final TagContext emptyCtx;
+  private final ConcurrentMap<String, MethodTagContexts> clientMethodTagContexts =
+      new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, MethodTagContexts> serverMethodTagContexts =
+      new ConcurrentHashMap<>();
 
   /**
    * Creates a {@link CensusStatsModule} with the default OpenCensus implementation.
@@ -124,6 +135,7 @@ final class CensusStatsModule {
     this.recordFinishedRpcs = recordFinishedRpcs;
     this.recordRealTimeMetrics = recordRealTimeMetrics;
     this.recordRetryMetrics = recordRetryMetrics;
+    this.emptyCtx = tagger.empty();
     this.statsHeader =
         Metadata.Key.of("grpc-tags-bin", new Metadata.BinaryMarshaller<TagContext>() {
             @Override
@@ -163,6 +175,60 @@ final class CensusStatsModule {
     return new StatsClientInterceptor();
   }
 
+  /**
+   * Returns the tag contexts of a method for calls without a parent tag context, which is the
+   * common case. Returns {@code null} if the parent tag context is not empty.
+   */
+  @Nullable
+  private MethodTagContexts getMethodTagContexts(
+      ConcurrentMap<String, MethodTagContexts> cache, TagContext parentCtx, String fullMethodName,
+      TagKey methodKey, TagKey statusKey) {
+    if (parentCtx != emptyCtx) {
+      return null;
+    }
+    MethodTagContexts contexts = cache.get(fullMethodName);
+    if (contexts == null) {
+      TagContext methodCtx = tagger.toBuilder(emptyCtx)
+          .putLocal(methodKey, TagValue.create(fullMethodName))
+          .build();
+      contexts = new MethodTagContexts(methodCtx, statusKey);
+      if (cache.size() < MAX_CACHED_METHODS) {
+        MethodTagContexts existing = cache.putIfAbsent(fullMethodName, contexts);
+        if (existing != null) {
+          contexts = existing;
+        }
+      }
+    }
+    return contexts;
+  }
+
+  /**
+   * The tag contexts of a method, with and without each status, so that calls don't need to build
+   * them.
+   */
+  private final class MethodTagContexts {
+    final TagContext methodCtx;
+    private final TagKey statusKey;
+    private final AtomicReferenceArray<TagContext> statusCtxs =
+        new AtomicReferenceArray<>(Code.values().length);
+
+    MethodTagContexts(TagContext methodCtx, TagKey statusKey) {
+      this.methodCtx = methodCtx;
+      this.statusKey = statusKey;
+    }
+
+    TagContext withStatus(Code code) {
+      TagContext ctx = statusCtxs.get(code.ordinal());
+      if (ctx == null) {
+        ctx = tagger.toBuilder(methodCtx)
+            .putLocal(statusKey, TagValue.create(code.toString()))
+            .build();
+        statusCtxs.set(code.ordinal(), ctx);
+      }
+      return ctx;
+    }
+  }
+
   private void recordRealTimeMetric(TagContext ctx, MeasureDouble measure, double value) {
     if (recordRealTimeMetrics) {
       MeasureMap measureMap = statsRecorder.newMeasureMap().put(measure, value);
@@ -178,8 +244,6 @@ final class CensusStatsModule {
   }
 
   private static final class ClientTracer extends ClientStreamTracer {
-    @Nullable private static final AtomicLongFieldUpdater<ClientTracer> outboundMessageCountUpdater;
-    @Nullable private static final AtomicLongFieldUpdater<ClientTracer> inboundMessageCountUpdater;
     @Nullable private static final AtomicLongFieldUpdater<ClientTracer> outboundWireSizeUpdater;
     @Nullable private static final AtomicLongFieldUpdater<ClientTracer> inboundWireSizeUpdater;
 
@@ -195,17 +259,11 @@ final class CensusStatsModule {
      * (potentially racy) direct updates of the volatile variables.
      */
     static {
-      AtomicLongFieldUpdater<ClientTracer> tmpOutboundMessageCountUpdater;
-      AtomicLongFieldUpdater<ClientTracer> tmpInboundMessageCountUpdater;
       AtomicLongFieldUpdater<ClientTracer> tmpOutboundWireSizeUpdater;
       AtomicLongFieldUpdater<ClientTracer> tmpInboundWireSizeUpdater;
       AtomicLongFieldUpdater<ClientTracer> tmpOutboundUncompressedSizeUpdater;
       AtomicLongFieldUpdater<ClientTracer> tmpInboundUncompressedSizeUpdater;
       try {
-        tmpOutboundMessageCountUpdater =
-            AtomicLongFieldUpdater.newUpdater(ClientTracer.class, "outboundMessageCount");
-        tmpInboundMessageCountUpdater =
-            AtomicLongFieldUpdater.newUpdater(ClientTracer.class, "inboundMessageCount");
         tmpOutboundWireSizeUpdater =
             AtomicLongFieldUpdater.newUpdater(ClientTracer.class, "outboundWireSize");
         tmpInboundWireSizeUpdater =
@@ -216,15 +274,11 @@ final class CensusStatsModule {
             AtomicLongFieldUpdater.newUpdater(ClientTracer.class, "inboundUncompressedSize");
       } catch (Throwable t) {
         logger.log(Level.SEVERE, "Creating atomic field updaters failed", t);
-        tmpOutboundMessageCountUpdater = null;
-        tmpInboundMessageCountUpdater = null;
         tmpOutboundWireSizeUpdater = null;
         tmpInboundWireSizeUpdater = null;
         tmpOutboundUncompressedSizeUpdater = null;
         tmpInboundUncompressedSizeUpdater = null;
       }
-      outboundMessageCountUpdater = tmpOutboundMessageCountUpdater;
-      inboundMessageCountUpdater = tmpInboundMessageCountUpdater;
       outboundWireSizeUpdater = tmpOutboundWireSizeUpdater;
       inboundWireSizeUpdater = tmpInboundWireSizeUpdater;
       outboundUncompressedSizeUpdater = tmpOutboundUncompressedSizeUpdater;
@@ -238,6 +292,7 @@ final class CensusStatsModule {
     final TagContext parentCtx;
     final TagContext startCtx;
     final StreamInfo info;
+    // The message counts are derived from the sequence numbers, which the stream reports in order
     volatile long outboundMessageCount;
     volatile long inboundMessageCount;
     volatile long outboundWireSize;
@@ -313,30 +368,20 @@ final class CensusStatsModule {
     }
 
     @Override
-    @SuppressWarnings("NonAtomicVolatileUpdate")
     public void inboundMessage(int seqNo) {
       if (inboundReceivedOrClosed.compareAndSet(false, true)) {
         // Because inboundUncompressedSize() might be called after streamClosed(),
         // we will report stats in callEnded(). Note that this attempt is already committed.
         attemptsState.inboundMetricTracer = this;
       }
-      if (inboundMessageCountUpdater != null) {
-        inboundMessageCountUpdater.getAndIncrement(this);
-      } else {
-        inboundMessageCount++;
-      }
+      inboundMessageCount = seqNo + 1L;
       module.recordRealTimeMetric(
           startCtx, RpcMeasureConstants.GRPC_CLIENT_RECEIVED_MESSAGES_PER_METHOD, 1);
     }
 
     @Override
-    @SuppressWarnings("NonAtomicVolatileUpdate")
     public void outboundMessage(int seqNo) {
-      if (outboundMessageCountUpdater != null) {
-        outboundMessageCountUpdater.getAndIncrement(this);
-      } else {
-        outboundMessageCount++;
-      }
+      outboundMessageCount = seqNo + 1L;
       module.recordRealTimeMetric(
           startCtx, RpcMeasureConstants.GRPC_CLIENT_SENT_MESSAGES_PER_METHOD, 1);
     }
@@ -390,6 +435,11 @@ final class CensusStatsModule {
       if (statusCode != Code.OK) {
         measureMap.put(DeprecatedCensusConstants.RPC_CLIENT_ERROR_COUNT, 1);
       }
+      MethodTagContexts methodTagContexts = attemptsState.methodTagContexts;
+      if (methodTagContexts != null) {
+        measureMap.record(methodTagContexts.withStatus(statusCode));
+        return;
+      }
       TagValue statusTag = TagValue.create(statusCode.toString());
       measureMap.record(
           module
@@ -413,29 +463,32 @@ final class CensusStatsModule {
         Measure.MeasureDouble.create(
             "grpc.io/client/retry_delay_per_call", "Retry delay per call", "ms");
 
+    // The state packs the number of active streams with these flags, so that starting and ending
+    // attempts doesn't need a lock
+    private static final int CALL_ENDED = 1 << 30;
+    private static final int CALL_RECORDED = 1 << 29;
+    private static final int ACTIVE_STREAMS_MASK = CALL_RECORDED - 1;
+
     ClientTracer inboundMetricTracer;
     private final CensusStatsModule module;
+    // Only used by the thread ending the last active stream, or starting the first one
     private final Stopwatch stopwatch;
     private final Stopwatch callStopwatch;
-    @GuardedBy("lock")
-    private boolean callEnded;
     private final TagContext parentCtx;
     private final TagContext startCtx;
+    @Nullable
+    final MethodTagContexts methodTagContexts;
     private final String fullMethodName;
 
     // TODO(zdapeng): optimize memory allocation using AtomicFieldUpdater.
     private final AtomicLong attemptsPerCall = new AtomicLong();
     private final AtomicLong transparentRetriesPerCall = new AtomicLong();
+    private final AtomicInteger state = new AtomicInteger();
     // write happens before read
     private Status status;
-    private final Object lock = new Object();
-    // write @GuardedBy("lock") and happens before read
+    // write happens before the state update that makes it read
     private long retryDelayNanos;
     private long callLatencyNanos;
-    @GuardedBy("lock")
-    private int activeStreams;
-    @GuardedBy("lock")
-    private boolean finishedCallToBeRecorded;
 
     CallAttemptsTracerFactory(
         CensusStatsModule module, TagContext parentCtx, String fullMethodName) {
@@ -444,10 +497,17 @@ final class CensusStatsModule {
       this.fullMethodName = checkNotNull(fullMethodName, "fullMethodName");
       this.stopwatch = module.stopwatchSupplier.get();
       this.callStopwatch = module.stopwatchSupplier.get().start();
-      TagValue methodTag = TagValue.create(fullMethodName);
-      startCtx = module.tagger.toBuilder(parentCtx)
-          .putLocal(RpcMeasureConstants.GRPC_CLIENT_METHOD, methodTag)
-          .build();
+      methodTagContexts = module.getMethodTagContexts(
+          module.clientMethodTagContexts, parentCtx, fullMethodName,
+          RpcMeasureConstants.GRPC_CLIENT_METHOD, RpcMeasureConstants.GRPC_CLIENT_STATUS);
+      if (methodTagContexts != null) {
+        startCtx = methodTagContexts.methodCtx;
+      } else {
+        TagValue methodTag = TagValue.create(fullMethodName);
+        startCtx = module.tagger.toBuilder(parentCtx)
+            .putLocal(RpcMeasureConstants.GRPC_CLIENT_METHOD, methodTag)
+            .build();
+      }
       if (module.recordStartedRpcs) {
         // Record here in case newClientStreamTracer() would never be called.
         module.statsRecorder.newMeasureMap()
@@ -458,15 +518,17 @@ final class CensusStatsModule {
 
     @Override
     public ClientStreamTracer newClientStreamTracer(StreamInfo info, Metadata metadata) {
-      synchronized (lock) {
-        if (finishedCallToBeRecorded) {
+      int previous;
+      do {
+        previous = state.get();
+        if ((previous & CALL_RECORDED) != 0) {
           // This can be the case when the called is cancelled but a retry attempt is created.
           return new ClientStreamTracer() {};
         }
-        if (++activeStreams == 1 && stopwatch.isRunning()) {
-          stopwatch.stop();
-          retryDelayNanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
-        }
+      } while (!state.compareAndSet(previous, previous + 1));
+      if ((previous & ACTIVE_STREAMS_MASK) == 0 && stopwatch.isRunning()) {
+        stopwatch.stop();
+        retryDelayNanos = stopwatch.elapsed(TimeUnit.NANOSECONDS);
       }
       if (module.recordStartedRpcs && attemptsPerCall.get() > 0) {
         module.statsRecorder.newMeasureMap()
@@ -486,17 +548,28 @@ final class CensusStatsModule {
       if (!module.recordFinishedRpcs) {
         return;
       }
-      boolean shouldRecordFinishedCall = false;
-      synchronized (lock) {
-        if (--activeStreams == 0) {
+      int previous;
+      int next;
+      while (true) {
+        previous = state.get();
+        next = previous - 1;
+        boolean last = (next & ACTIVE_STREAMS_MASK) == 0;
+        if (last) {
+          // Started before the state allows a new attempt to stop it
           stopwatch.start();
-          if (callEnded && !finishedCallToBeRecorded) {
-            shouldRecordFinishedCall = true;
-            finishedCallToBeRecorded = true;
+          if ((next & (CALL_ENDED | CALL_RECORDED)) == CALL_ENDED) {
+            next |= CALL_RECORDED;
           }
         }
+        if (state.compareAndSet(previous, next)) {
+          break;
+        }
+        if (last) {
+          // Another attempt started meanwhile
+          stopwatch.stop();
+        }
       }
-      if (shouldRecordFinishedCall) {
+      if ((previous & CALL_RECORDED) == 0 && (next & CALL_RECORDED) != 0) {
         recordFinishedCall();
       }
     }
@@ -507,19 +580,20 @@ final class CensusStatsModule {
       }
       callStopwatch.stop();
       this.status = status;
-      boolean shouldRecordFinishedCall = false;
-      synchronized (lock) {
-        if (callEnded) {
+      int previous;
+      int next;
+      do {
+        previous = state.get();
+        if ((previous & CALL_ENDED) != 0) {
           // TODO(https://github.com/grpc/grpc-java/issues/7921): this shouldn't happen
           return;
         }
-        callEnded = true;
-        if (activeStreams == 0 && !finishedCallToBeRecorded) {
-          shouldRecordFinishedCall = true;
-          finishedCallToBeRecorded = true;
+        next = previous | CALL_ENDED;
+        if ((previous & (ACTIVE_STREAMS_MASK | CALL_RECORDED)) == 0) {
+          next |= CALL_RECORDED;
         }
-      }
-      if (shouldRecordFinishedCall) {
+      } while (!state.compareAndSet(previous, next));
+      if ((next & CALL_RECORDED) != 0) {
         recordFinishedCall();
       }
     }
@@ -549,6 +623,10 @@ final class CensusStatsModule {
           .put(TRANSPARENT_RETRIES_PER_CALL, transparentRetriesPerCall.get())
           .put(RETRY_DELAY_PER_CALL, retryDelayNanos / NANOS_PER_MILLI)
           .put(API_LATENCY_PER_CALL, callLatencyNanos / NANOS_PER_MILLI);
+      if (methodTagContexts != null) {
+        measureMap.record(methodTagContexts.withStatus(status.getCode()));
+        return;
+      }
       TagValue methodTag = TagValue.create(fullMethodName);
       TagValue statusTag = TagValue.create(status.getCode().toString());
       measureMap.record(
@@ -562,8 +640,6 @@ final class CensusStatsModule {
 
   private static final class ServerTracer extends ServerStreamTracer {
     @Nullable private static final AtomicIntegerFieldUpdater<ServerTracer> streamClosedUpdater;
-    @Nullable private static final AtomicLongFieldUpdater<ServerTracer> outboundMessageCountUpdater;
-    @Nullable private static final AtomicLongFieldUpdater<ServerTracer> inboundMessageCountUpdater;
     @Nullable private static final AtomicLongFieldUpdater<ServerTracer> outboundWireSizeUpdater;
     @Nullable private static final AtomicLongFieldUpdater<ServerTracer> inboundWireSizeUpdater;
 
@@ -580,8 +656,6 @@ final class CensusStatsModule {
      */
     static {
       AtomicIntegerFieldUpdater<ServerTracer> tmpStreamClosedUpdater;
-      AtomicLongFieldUpdater<ServerTracer> tmpOutboundMessageCountUpdater;
-      AtomicLongFieldUpdater<ServerTracer> tmpInboundMessageCountUpdater;
       AtomicLongFieldUpdater<ServerTracer> tmpOutboundWireSizeUpdater;
       AtomicLongFieldUpdater<ServerTracer> tmpInboundWireSizeUpdater;
       AtomicLongFieldUpdater<ServerTracer> tmpOutboundUncompressedSizeUpdater;
@@ -589,10 +663,6 @@ final class CensusStatsModule {
       try {
         tmpStreamClosedUpdater =
             AtomicIntegerFieldUpdater.newUpdater(ServerTracer.class, "streamClosed");
-        tmpOutboundMessageCountUpdater =
-            AtomicLongFieldUpdater.newUpdater(ServerTracer.class, "outboundMessageCount");
-        tmpInboundMessageCountUpdater =
-            AtomicLongFieldUpdater.newUpdater(ServerTracer.class, "inboundMessageCount");
         tmpOutboundWireSizeUpdater =
             AtomicLongFieldUpdater.newUpdater(ServerTracer.class, "outboundWireSize");
         tmpInboundWireSizeUpdater =
@@ -604,16 +674,12 @@ final class CensusStatsModule {
       } catch (Throwable t) {
         logger.log(Level.SEVERE, "Creating atomic field updaters failed", t);
         tmpStreamClosedUpdater = null;
-        tmpOutboundMessageCountUpdater = null;
-        tmpInboundMessageCountUpdater = null;
         tmpOutboundWireSizeUpdater = null;
         tmpInboundWireSizeUpdater = null;
         tmpOutboundUncompressedSizeUpdater = null;
         tmpInboundUncompressedSizeUpdater = null;
       }
       streamClosedUpdater = tmpStreamClosedUpdater;
-      outboundMessageCountUpdater = tmpOutboundMessageCountUpdater;
-      inboundMessageCountUpdater = tmpInboundMessageCountUpdater;
       outboundWireSizeUpdater = tmpOutboundWireSizeUpdater;
       inboundWireSizeUpdater = tmpInboundWireSizeUpdater;
       outboundUncompressedSizeUpdater = tmpOutboundUncompressedSizeUpdater;
@@ -622,8 +688,11 @@ final class CensusStatsModule {
 
     private final CensusStatsModule module;
     private final TagContext parentCtx;
+    @Nullable
+    private final MethodTagContexts methodTagContexts;
     private volatile int streamClosed;
     private final Stopwatch stopwatch;
+    // The message counts are derived from the sequence numbers, which the stream reports in order
     private volatile long outboundMessageCount;
     private volatile long inboundMessageCount;
     private volatile long outboundWireSize;
@@ -633,9 +702,11 @@ final class CensusStatsModule {
 
     ServerTracer(
         CensusStatsModule module,
-        TagContext parentCtx) {
+        TagContext parentCtx,
+        @Nullable MethodTagContexts methodTagContexts) {
       this.module = checkNotNull(module, "module");
       this.parentCtx = checkNotNull(parentCtx, "parentCtx");
+      this.methodTagContexts = methodTagContexts;
       this.stopwatch = module.stopwatchSupplier.get().start();
       if (module.recordStartedRpcs) {
         module.statsRecorder.newMeasureMap()
@@ -689,25 +760,15 @@ final class CensusStatsModule {
     }
 
     @Override
-    @SuppressWarnings("NonAtomicVolatileUpdate")
     public void inboundMessage(int seqNo) {
-      if (inboundMessageCountUpdater != null) {
-        inboundMessageCountUpdater.getAndIncrement(this);
-      } else {
-        inboundMessageCount++;
-      }
+      inboundMessageCount = seqNo + 1L;
       module.recordRealTimeMetric(
           parentCtx, RpcMeasureConstants.GRPC_SERVER_RECEIVED_MESSAGES_PER_METHOD, 1);
     }
 
     @Override
-    @SuppressWarnings("NonAtomicVolatileUpdate")
     public void outboundMessage(int seqNo) {
-      if (outboundMessageCountUpdater != null) {
-        outboundMessageCountUpdater.getAndIncrement(this);
-      } else {
-        outboundMessageCount++;
-      }
+      outboundMessageCount = seqNo + 1L;
       module.recordRealTimeMetric(
           parentCtx, RpcMeasureConstants.GRPC_SERVER_SENT_MESSAGES_PER_METHOD, 1);
     }
@@ -759,6 +820,10 @@ final class CensusStatsModule {
       if (!status.isOk()) {
         measureMap.put(DeprecatedCensusConstants.RPC_SERVER_ERROR_COUNT, 1);
       }
+      if (methodTagContexts != null) {
+        measureMap.record(methodTagContexts.withStatus(status.getCode()));
+        return;
+      }
       TagValue statusTag = TagValue.create(status.getCode().toString());
       measureMap.record(
           module
@@ -780,7 +845,14 @@ final class CensusStatsModule {
     public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
       TagContext parentCtx = headers.get(statsHeader);
       if (parentCtx == null) {
-        parentCtx = tagger.empty();
+        parentCtx = emptyCtx;
+      }
+      MethodTagContexts methodTagContexts = getMethodTagContexts(
+          serverMethodTagContexts, parentCtx, fullMethodName,
+          RpcMeasureConstants.GRPC_SERVER_METHOD, RpcMeasureConstants.GRPC_SERVER_STATUS);
+      if (methodTagContexts != null) {
+        return new ServerTracer(
+            CensusStatsModule.this, methodTagContexts.methodCtx, methodTagContexts);
       }
       TagValue methodTag = TagValue.create(fullMethodName);
       parentCtx =
@@ -788,7 +860,7 @@ final class CensusStatsModule {
               .toBuilder(parentCtx)
               .putLocal(RpcMeasureConstants.GRPC_SERVER_METHOD, methodTag)
               .build();
-      return new ServerTracer(CensusStatsModule.this, parentCtx);
+      return new ServerTracer(CensusStatsModule.this, parentCtx, null);
     }
   }
 
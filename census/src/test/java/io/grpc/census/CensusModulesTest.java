@@ -1173,6 +1173,43 @@ public class CensusModulesTest {
     subtestServerBasicStatsNoHeaders(true, true, true);
   }
 
+  @Test
+  public void serverStatsNoHeaders_tagContextsReusedAcrossCalls() {
+    CensusStatsModule localCensusStats =
+        new CensusStatsModule(
+            tagger, tagCtxSerializer, statsRecorder, fakeClock.getStopwatchSupplier(),
+            true, false, true, false, false);
+    ServerStreamTracer.Factory tracerFactory = localCensusStats.getServerTracerFactory();
+    Status[] statuses = {Status.OK, Status.CANCELLED, Status.OK};
+    TagContext firstCtx = null;
+    for (Status status : statuses) {
+      ServerStreamTracer tracer =
+          tracerFactory.newServerStreamTracer(method.getFullMethodName(), new Metadata());
+      TagContext statsCtx =
+          io.opencensus.tags.unsafe.ContextUtils.getValue(tracer.filterContext(Context.ROOT));
+      if (firstCtx == null) {
+        firstCtx = statsCtx;
+      }
+      assertSame(firstCtx, statsCtx);
+      tracer.inboundMessage(0);
+      tracer.outboundMessage(0);
+      tracer.outboundMessage(1);
+      tracer.streamClosed(status);
+
+      StatsTestUtils.MetricsRecord record = statsRecorder.pollRecord();
+      assertEquals(
+          method.getFullMethodName(),
+          record.tags.get(RpcMeasureConstants.GRPC_SERVER_METHOD).asString());
+      assertEquals(
+          status.getCode().toString(),
+          record.tags.get(RpcMeasureConstants.GRPC_SERVER_STATUS).asString());
+      assertEquals(1, record.getMetricAsLongOrFail(
+          RpcMeasureConstants.GRPC_SERVER_RECEIVED_MESSAGES_PER_RPC));
+      assertEquals(2, record.getMetricAsLongOrFail(
+          RpcMeasureConstants.GRPC_SERVER_SENT_MESSAGES_PER_RPC));
+    }
+  }
+
   private void subtestServerBasicStatsNoHeaders(
       boolean recordStarts, boolean recordFinishes, boolean recordRealTime) {
     CensusStatsModule localCensusStats =
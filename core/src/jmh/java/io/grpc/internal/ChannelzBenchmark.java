@@ -16,8 +16,12 @@
 
 package io.grpc.internal;
 
+import static io.grpc.InternalChannelz.id;
+
 import com.google.common.util.concurrent.ListenableFuture;
 import io.grpc.InternalChannelz;
+import io.grpc.InternalChannelz.ServerList;
+import io.grpc.InternalChannelz.ServerSocketsList;
 import io.grpc.InternalChannelz.ServerStats;
 import io.grpc.InternalChannelz.SocketStats;
 import io.grpc.InternalInstrumented;
@@ -51,6 +55,9 @@ public class ChannelzBenchmark {
   public InternalInstrumented<SocketStats> serverSocketToAdd;
   public InternalInstrumented<SocketStats> serverSocketToRemove;
 
+  // Id of the server socket half way through the server's sockets
+  public long middleServerSocketId;
+
   /**
    * Javadoc.
    */
@@ -68,6 +75,9 @@ public class ChannelzBenchmark {
     channelz.addServerSocket(serverForServerSocket, serverSocketToRemove);
 
     populate(preexisting);
+    middleServerSocketId = channelz.getServerSockets(
+        id(serverForServerSocket), 0, preexisting / 2 + 1).sockets.get(preexisting / 2)
+        .getLogId().getId();
 
     serverToAdd = create();
     serverSocketToAdd = create();
@@ -130,6 +140,34 @@ public class ChannelzBenchmark {
     channelz.removeServerSocket(serverForServerSocket, serverSocketToRemove);
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public ServerSocketsList getServerSocketsFirstPage() {
+    return channelz.getServerSockets(id(serverForServerSocket), 0, 100);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public ServerSocketsList getServerSocketsMiddlePage() {
+    return channelz.getServerSockets(id(serverForServerSocket), middleServerSocketId, 100);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public ServerList getServersFirstPage() {
+    return channelz.getServers(0, 100);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public InternalInstrumented<SocketStats> getServerSocket() {
+    return channelz.getSocket(middleServerSocketId);
+  }
+
   private static <T> InternalInstrumented<T> create() {
     return new InternalInstrumented<T>() {
       final InternalLogId id = InternalLogId.allocate(getClass(), "fake-tag");
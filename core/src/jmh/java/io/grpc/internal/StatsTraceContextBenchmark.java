@@ -17,13 +17,21 @@
 package io.grpc.internal;
 
 import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
 import io.grpc.ClientStreamTracer;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import io.grpc.census.InternalCensusStatsAccessor;
+import io.grpc.testing.TestMethodDescriptors;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
@@ -43,6 +51,26 @@ public class StatsTraceContextBenchmark {
   private final List<ServerStreamTracer.Factory> serverStreamTracerFactories =
       Collections.emptyList();
 
+  private final MethodDescriptor<Void, Void> method =
+      TestMethodDescriptors.voidMethod().toBuilder().setFullMethodName(methodName).build();
+  private final ClientInterceptor censusClientInterceptor =
+      InternalCensusStatsAccessor.getClientInterceptor(true, true, false, false);
+  private final ServerStreamTracer.Factory censusServerTracerFactory =
+      InternalCensusStatsAccessor.getServerStreamTracerFactory(true, true, false);
+  private final ClientCall.Listener<Void> noopListener = new ClientCall.Listener<Void>() {};
+  private final Channel tracingChannel = new Channel() {
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+      return new TracingClientCall<>(callOptions);
+    }
+
+    @Override
+    public String authority() {
+      return "localhost";
+    }
+  };
+
   /**
    * Javadoc comment.
    */
@@ -64,4 +92,73 @@ public class StatsTraceContextBenchmark {
     return StatsTraceContext.newServerContext(
         serverStreamTracerFactories, methodName, emptyMetadata);
   }
+
+  /**
+   * A call with a single attempt through the census client stats tracers.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void censusClientCall() {
+    ClientCall<Void, Void> call =
+        censusClientInterceptor.interceptCall(method, CallOptions.DEFAULT, tracingChannel);
+    call.start(noopListener, new Metadata());
+  }
+
+  /**
+   * A call through the census server stats tracer.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public ServerStreamTracer censusServerCall() {
+    ServerStreamTracer tracer =
+        censusServerTracerFactory.newServerStreamTracer(methodName, emptyMetadata);
+    tracer.inboundMessage(0);
+    tracer.inboundWireSize(100);
+    tracer.inboundUncompressedSize(100);
+    tracer.outboundMessage(0);
+    tracer.outboundWireSize(100);
+    tracer.outboundUncompressedSize(100);
+    tracer.streamClosed(Status.OK);
+    return tracer;
+  }
+
+  /** Runs a single stream with a message each way through the tracers when started. */
+  private static final class TracingClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+    private final CallOptions callOptions;
+
+    TracingClientCall(CallOptions callOptions) {
+      this.callOptions = callOptions;
+    }
+
+    @Override
+    public void start(Listener<RespT> listener, Metadata headers) {
+      ClientStreamTracer.StreamInfo info =
+          ClientStreamTracer.StreamInfo.newBuilder().setCallOptions(callOptions).build();
+      ClientStreamTracer tracer =
+          callOptions.getStreamTracerFactories().get(0).newClientStreamTracer(info, headers);
+      tracer.streamCreated(Attributes.EMPTY, headers);
+      tracer.outboundMessage(0);
+      tracer.outboundWireSize(100);
+      tracer.outboundUncompressedSize(100);
+      tracer.inboundMessage(0);
+      tracer.inboundWireSize(100);
+      tracer.inboundUncompressedSize(100);
+      tracer.streamClosed(Status.OK);
+      listener.onClose(Status.OK, new Metadata());
+    }
+
+    @Override
+    public void request(int numMessages) {}
+
+    @Override
+    public void cancel(@Nullable String message, @Nullable Throwable cause) {}
+
+    @Override
+    public void halfClose() {}
+
+    @Override
+    public void sendMessage(ReqT message) {}
+  }
 }
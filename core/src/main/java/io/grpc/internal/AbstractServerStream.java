@@ -22,6 +22,7 @@ import io.grpc.Decompressor;
 import io.grpc.InternalStatus;
 import io.grpc.Metadata;
 import io.grpc.Status;
+import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 
 /**
@@ -194,6 +195,14 @@ public abstract class AbstractServerStream extends AbstractStream
     /** The status that the application used to close this stream. */
     @Nullable
     private Status closedStatus;
+    @Nullable
+    private InboundMemoryBudget inboundMemoryBudget;
+    private Executor wakeUpExecutor;
+    /** Bytes accounted in the inbound memory budget, not consumed by the deframer yet. */
+    private long bufferedBytes;
+    /** Flow control credit withheld while the inbound memory budget is exhausted. */
+    private int withheldBytes;
+    private boolean waitingForBudget;
 
     protected TransportState(
         int maxMessageSize,
@@ -215,6 +224,75 @@ public abstract class AbstractServerStream extends AbstractStream
       this.listener = Preconditions.checkNotNull(listener, "listener");
     }
 
+    /**
+     * Accounts the inbound messages of this stream in {@code budget}. Must be called in the
+     * context of the transport thread, before any data is received. Transports should pass the
+     * bytes reported to {@link #bytesRead} through {@link #admitProcessedBytes} before returning
+     * flow control credit for them. Once the budget is available again, the withheld credit is
+     * returned through {@link #runOnTransportThread}, called from {@code wakeUpExecutor}, which
+     * must not run tasks inline.
+     */
+    public final void setInboundMemoryBudget(
+        InboundMemoryBudget budget, Executor wakeUpExecutor) {
+      Preconditions.checkState(
+          this.inboundMemoryBudget == null, "setInboundMemoryBudget should be called only once");
+      this.inboundMemoryBudget = Preconditions.checkNotNull(budget, "budget");
+      this.wakeUpExecutor = Preconditions.checkNotNull(wakeUpExecutor, "wakeUpExecutor");
+    }
+
+    /**
+     * Returns how much flow control credit the transport should return for {@code processedBytes}
+     * consumed by the deframer. While the inbound memory budget is exhausted this is zero, and the
+     * credit withheld is returned later by calling {@code bytesRead(0)} from the transport thread.
+     * Must be called from the transport thread.
+     */
+    protected final int admitProcessedBytes(int processedBytes) {
+      if (inboundMemoryBudget == null) {
+        return processedBytes;
+      }
+      long consumed = Math.min(processedBytes, bufferedBytes);
+      bufferedBytes -= consumed;
+      inboundMemoryBudget.onConsumed(consumed);
+      int credit = withheldBytes + processedBytes;
+      if (!inboundMemoryBudget.isExhausted()) {
+        inboundMemoryBudget.onWithheld(-withheldBytes);
+        withheldBytes = 0;
+        return credit;
+      }
+      inboundMemoryBudget.onWithheld(processedBytes);
+      withheldBytes = credit;
+      if (!waitingForBudget) {
+        waitingForBudget = true;
+        inboundMemoryBudget.runWhenAvailable(new Runnable() {
+          @Override
+          public void run() {
+            runOnTransportThread(new Runnable() {
+              @Override
+              public void run() {
+                waitingForBudget = false;
+                if (withheldBytes > 0) {
+                  bytesRead(0);
+                }
+              }
+            });
+          }
+        }, wakeUpExecutor);
+      }
+      return 0;
+    }
+
+    private void releaseInboundMemory() {
+      InboundMemoryBudget budget = inboundMemoryBudget;
+      if (budget == null) {
+        return;
+      }
+      inboundMemoryBudget = null;
+      budget.onWithheld(-withheldBytes);
+      withheldBytes = 0;
+      budget.onConsumed(bufferedBytes);
+      bufferedBytes = 0;
+    }
+
     @Override
     public final void onStreamAllocated() {
       super.onStreamAllocated();
@@ -258,6 +336,11 @@ public abstract class AbstractServerStream extends AbstractStream
      */
     public void inboundDataReceived(ReadableBuffer frame, boolean endOfStream) {
       Preconditions.checkState(!this.endOfStream, "Past end of stream");
+      if (inboundMemoryBudget != null) {
+        int bytes = frame.readableBytes();
+        bufferedBytes += bytes;
+        inboundMemoryBudget.onReceived(bytes);
+      }
       // Deframe the message. If a failure occurs, deframeFailed will be called.
       deframe(frame);
       if (endOfStream) {
@@ -326,6 +409,7 @@ public abstract class AbstractServerStream extends AbstractStream
       // If newStatus non-OK, then the RPC ended some other way and the server application did
       // not initiate the termination.
       Preconditions.checkState(!newStatus.isOk() || closedStatus != null);
+      releaseInboundMemory();
       if (!listenerClosed) {
         if (!newStatus.isOk()) {
           statsTraceCtx.streamClosed(newStatus);
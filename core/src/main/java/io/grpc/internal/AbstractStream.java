@@ -25,8 +25,8 @@ import io.grpc.Compressor;
 import io.grpc.Decompressor;
 import io.perfmark.Link;
 import io.perfmark.PerfMark;
-import io.perfmark.TaskCloseable;
 import java.io.InputStream;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
 /**
@@ -142,6 +142,10 @@ public abstract class AbstractStream implements Stream {
      */
     @GuardedBy("onReadyLock")
     private boolean deallocated;
+    /** The ongoing stall of the stream, from when too many bytes got queued. */
+    @GuardedBy("onReadyLock")
+    @Nullable
+    private EventHooks.Span flowControlStall;
 
     protected TransportState(
         int maxMessageSize,
@@ -220,7 +224,7 @@ public abstract class AbstractStream implements Stream {
      */
     private void requestMessagesFromDeframer(final int numMessages) {
       if (deframer instanceof ThreadOptimizedDeframer) {
-        try (TaskCloseable ignore = PerfMark.traceTask("AbstractStream.request")) {
+        try (TraceRecorder.Task ignore = TraceRecorder.traceTask("AbstractStream.request")) {
           deframer.request(numMessages);
         }
         return;
@@ -228,7 +232,7 @@ public abstract class AbstractStream implements Stream {
       final Link link = PerfMark.linkOut();
       class RequestRunnable implements Runnable {
         @Override public void run() {
-          try (TaskCloseable ignore = PerfMark.traceTask("AbstractStream.request")) {
+          try (TraceRecorder.Task ignore = TraceRecorder.traceTask("AbstractStream.request")) {
             PerfMark.linkIn(link);
             deframer.request(numMessages);
           } catch (Throwable t) {
@@ -286,8 +290,14 @@ public abstract class AbstractStream implements Stream {
      * implicitly by {@link AbstractClientStream} and {@link AbstractServerStream}.
      */
     protected final void onStreamDeallocated() {
+      EventHooks.Span stall;
       synchronized (onReadyLock) {
         deallocated = true;
+        stall = flowControlStall;
+        flowControlStall = null;
+      }
+      if (stall != null) {
+        stall.close();
       }
     }
 
@@ -298,9 +308,28 @@ public abstract class AbstractStream implements Stream {
      * @param numBytes the number of bytes being sent.
      */
     private void onSendingBytes(int numBytes) {
+      boolean stalled;
       synchronized (onReadyLock) {
+        stalled = numSentBytesQueued < DEFAULT_ONREADY_THRESHOLD
+            && numSentBytesQueued + numBytes >= DEFAULT_ONREADY_THRESHOLD;
         numSentBytesQueued += numBytes;
       }
+      if (stalled && EventHooks.isInstalled()) {
+        EventHooks.Span stall = EventHooks.getInstance().flowControlStallStarted();
+        if (stall != null) {
+          synchronized (onReadyLock) {
+            if (flowControlStall == null && !deallocated
+                && numSentBytesQueued >= DEFAULT_ONREADY_THRESHOLD) {
+              flowControlStall = stall;
+              stall = null;
+            }
+          }
+          if (stall != null) {
+            // The stall is already over
+            stall.close();
+          }
+        }
+      }
     }
 
     /**
@@ -313,6 +342,7 @@ public abstract class AbstractStream implements Stream {
      */
     public final void onSentBytes(int numBytes) {
       boolean doNotify;
+      EventHooks.Span stall = null;
       synchronized (onReadyLock) {
         checkState(allocated,
             "onStreamAllocated was not called, but it seems the stream is active");
@@ -320,6 +350,13 @@ public abstract class AbstractStream implements Stream {
         numSentBytesQueued -= numBytes;
         boolean belowThresholdAfter = numSentBytesQueued < DEFAULT_ONREADY_THRESHOLD;
         doNotify = !belowThresholdBefore && belowThresholdAfter;
+        if (doNotify) {
+          stall = flowControlStall;
+          flowControlStall = null;
+        }
+      }
+      if (stall != null) {
+        stall.close();
       }
       if (doNotify) {
         notifyIfReady();
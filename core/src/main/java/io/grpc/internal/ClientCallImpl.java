@@ -53,7 +53,6 @@ import io.grpc.internal.ManagedChannelServiceConfig.MethodInfo;
 import io.perfmark.Link;
 import io.perfmark.PerfMark;
 import io.perfmark.Tag;
-import io.perfmark.TaskCloseable;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Locale;
@@ -189,7 +188,7 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
   @Override
   public void start(Listener<RespT> observer, Metadata headers) {
-    try (TaskCloseable ignore = PerfMark.traceTask("ClientCall.start")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ClientCall.start")) {
       PerfMark.attachTag(tag);
       startInternal(observer, headers);
     }
@@ -452,7 +451,7 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
   @Override
   public void request(int numMessages) {
-    try (TaskCloseable ignore = PerfMark.traceTask("ClientCall.request")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ClientCall.request")) {
       PerfMark.attachTag(tag);
       checkState(stream != null, "Not started");
       checkArgument(numMessages >= 0, "Number requested must be non-negative");
@@ -462,7 +461,7 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
   @Override
   public void cancel(@Nullable String message, @Nullable Throwable cause) {
-    try (TaskCloseable ignore = PerfMark.traceTask("ClientCall.cancel")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ClientCall.cancel")) {
       PerfMark.attachTag(tag);
       cancelInternal(message, cause);
     }
@@ -499,7 +498,7 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
   @Override
   public void halfClose() {
-    try (TaskCloseable ignore = PerfMark.traceTask("ClientCall.halfClose")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ClientCall.halfClose")) {
       PerfMark.attachTag(tag);
       halfCloseInternal();
     }
@@ -515,7 +514,7 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
   @Override
   public void sendMessage(ReqT message) {
-    try (TaskCloseable ignore = PerfMark.traceTask("ClientCall.sendMessage")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ClientCall.sendMessage")) {
       PerfMark.attachTag(tag);
       sendMessageInternal(message);
     }
@@ -601,7 +600,8 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
     @Override
     public void headersRead(final Metadata headers) {
-      try (TaskCloseable ignore = PerfMark.traceTask("ClientStreamListener.headersRead")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("ClientStreamListener.headersRead")) {
         PerfMark.attachTag(tag);
         final Link link = PerfMark.linkOut();
         final class HeadersRead extends ContextRunnable {
@@ -611,7 +611,8 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
           @Override
           public void runInContext() {
-            try (TaskCloseable ignore = PerfMark.traceTask("ClientCall$Listener.headersRead")) {
+            try (TraceRecorder.Task ignore =
+                     TraceRecorder.traceTask("ClientCall$Listener.headersRead")) {
               PerfMark.attachTag(tag);
               PerfMark.linkIn(link);
               runInternal();
@@ -637,7 +638,8 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
     @Override
     public void messagesAvailable(final MessageProducer producer) {
-      try (TaskCloseable ignore = PerfMark.traceTask("ClientStreamListener.messagesAvailable")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("ClientStreamListener.messagesAvailable")) {
         PerfMark.attachTag(tag);
         final Link link = PerfMark.linkOut();
         final class MessagesAvailable extends ContextRunnable {
@@ -647,8 +649,8 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
           @Override
           public void runInContext() {
-            try (TaskCloseable ignore =
-                     PerfMark.traceTask("ClientCall$Listener.messagesAvailable")) {
+            try (TraceRecorder.Task ignore =
+                     TraceRecorder.traceTask("ClientCall$Listener.messagesAvailable")) {
               PerfMark.attachTag(tag);
               PerfMark.linkIn(link);
               runInternal();
@@ -685,7 +687,7 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
     @Override
     public void closed(Status status, RpcProgress rpcProgress, Metadata trailers) {
-      try (TaskCloseable ignore = PerfMark.traceTask("ClientStreamListener.closed")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ClientStreamListener.closed")) {
         PerfMark.attachTag(tag);
         closedInternal(status, rpcProgress, trailers);
       }
@@ -717,7 +719,7 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
         @Override
         public void runInContext() {
-          try (TaskCloseable ignore = PerfMark.traceTask("ClientCall$Listener.onClose")) {
+          try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ClientCall$Listener.onClose")) {
             PerfMark.attachTag(tag);
             PerfMark.linkIn(link);
             runInternal();
@@ -755,7 +757,7 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
       if (method.getType().clientSendsOneMessage()) {
         return;
       }
-      try (TaskCloseable ignore = PerfMark.traceTask("ClientStreamListener.onReady")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ClientStreamListener.onReady")) {
         PerfMark.attachTag(tag);
         final Link link = PerfMark.linkOut();
 
@@ -766,7 +768,8 @@ final class ClientCallImpl<ReqT, RespT> extends ClientCall<ReqT, RespT> {
 
           @Override
           public void runInContext() {
-            try (TaskCloseable ignore = PerfMark.traceTask("ClientCall$Listener.onReady")) {
+            try (TraceRecorder.Task ignore =
+                     TraceRecorder.traceTask("ClientCall$Listener.onReady")) {
               PerfMark.attachTag(tag);
               PerfMark.linkIn(link);
               runInternal();
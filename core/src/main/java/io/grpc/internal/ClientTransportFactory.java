@@ -79,6 +79,17 @@ public interface ClientTransportFactory extends Closeable {
    */
   Collection<Class<? extends SocketAddress>> getSupportedSocketAddressTypes();
 
+  /**
+   * Returns a key that is equal for factories that create transports configured the same way, so
+   * that channels may share those transports, or {@code null} if the transports of this factory
+   * must not be shared. The key doesn't need to cover the {@link ChannelCredentials} the factory
+   * was built with, which the caller tells apart.
+   */
+  @Nullable
+  default Object getTransportSettingsKey() {
+    return null;
+  }
+
   /**
    * Options passed to {@link #newClientTransport}. Although it is safe to save this object if
    * received, it is generally expected that the useful fields are copied and then the options
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import io.grpc.InternalChannelz.Distribution;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A lock-free histogram of non-negative longs with log-linear buckets, in the style of
+ * HdrHistogram. Each power of two is split into {@value #SUB_BUCKETS} linear sub-buckets, so a
+ * reported percentile is never more than 12.5% above the recorded value. Values of
+ * 2<sup>40</sup> and above share the last bucket, but the maximum is always exact.
+ *
+ * <p>Recording is a single atomic increment plus, only for a new maximum, a CAS. The histogram
+ * takes about 2.5KiB.
+ */
+@ThreadSafe
+final class ConcurrentHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAX_EXPONENT = 39;
+  static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong max = new AtomicLong();
+
+  /** Records a value. */
+  void record(long value) {
+    checkArgument(value >= 0, "value must be non-negative: %s", value);
+    counts.incrementAndGet(bucketIndex(value));
+    long currentMax;
+    while (value > (currentMax = max.get())) {
+      if (max.compareAndSet(currentMax, value)) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Returns a summary of the values recorded so far. Recording may continue concurrently, in which
+   * case the summary may or may not reflect those values.
+   */
+  Distribution summarize() {
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    long max = this.max.get();
+    return new Distribution(
+        count,
+        valueAtPercentile(snapshot, count, max, 50),
+        valueAtPercentile(snapshot, count, max, 90),
+        valueAtPercentile(snapshot, count, max, 99),
+        max);
+  }
+
+  private static long valueAtPercentile(long[] snapshot, long count, long max, int percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (count * percentile + 99) / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(bucketUpperBound(i), max);
+      }
+    }
+    return max;
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    if (index == BUCKETS - 1) {
+      return Long.MAX_VALUE;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.InternalLogId;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import java.net.SocketAddress;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * Receives the RPC and transport events of interest to an event recorder, such as the JDK Flight
+ * Recorder. The implementation of {@value #IMPLEMENTATION_CLASS}, from {@code grpc-jfr}, is used
+ * when it is on the classpath. Otherwise, all the events are dropped.
+ *
+ * <p>The hooks are called from hot paths and must return quickly, doing nothing at all while the
+ * events are not being recorded.
+ */
+public abstract class EventHooks {
+  private static final Logger log = Logger.getLogger(EventHooks.class.getName());
+
+  @VisibleForTesting
+  static final String IMPLEMENTATION_CLASS = "io.grpc.jfr.JfrEventHooks";
+
+  private static final EventHooks NOOP = new EventHooks() {};
+  private static final EventHooks INSTANCE = load();
+
+  protected EventHooks() {}
+
+  /** Returns the hooks in use, which do nothing if no implementation is available. */
+  public static EventHooks getInstance() {
+    return INSTANCE;
+  }
+
+  /** Returns whether an implementation is in use, so that events may be recorded. */
+  public static boolean isInstalled() {
+    return INSTANCE != NOOP;
+  }
+
+  private static EventHooks load() {
+    try {
+      return Class.forName(IMPLEMENTATION_CLASS)
+          .asSubclass(EventHooks.class)
+          .getConstructor()
+          .newInstance();
+    } catch (ClassNotFoundException e) {
+      log.log(Level.FINE, "Event recording is not available", e);
+    } catch (Exception e) {
+      log.log(Level.WARNING, "Unable to load " + IMPLEMENTATION_CLASS, e);
+    } catch (LinkageError e) {
+      // The implementation needs a newer JDK
+      log.log(Level.FINE, "Event recording is not available", e);
+    }
+    return NOOP;
+  }
+
+  /**
+   * Returns a factory for the tracers recording the attempts of a client call, or {@code null}
+   * if the client calls are not being recorded.
+   */
+  @Nullable
+  public ClientStreamTracer.Factory getClientTracerFactory(String fullMethodName) {
+    return null;
+  }
+
+  /**
+   * Returns a factory for the tracers recording the server calls, or {@code null} if there is no
+   * implementation. It is called once per server.
+   */
+  @Nullable
+  public ServerStreamTracer.Factory getServerTracerFactory() {
+    return null;
+  }
+
+  /**
+   * Called when a stream stops being ready because too many of its bytes are queued, waiting for
+   * flow control. Returns the span to close once the stream is ready again, or {@code null} if the
+   * stalls are not being recorded.
+   */
+  @Nullable
+  public Span flowControlStallStarted() {
+    return null;
+  }
+
+  /** Called when a GOAWAY frame is sent or received. */
+  public void goAway(
+      @Nullable SocketAddress remoteAddress, boolean received, int lastStreamId, long errorCode,
+      String debugData) {}
+
+  /** Called when a RST_STREAM frame is received. */
+  public void rstStreamReceived(
+      @Nullable SocketAddress remoteAddress, int streamId, long errorCode) {}
+
+  /** Called when a subchannel changes state. */
+  public void subchannelStateChanged(
+      InternalLogId subchannelId, String addresses, ConnectivityStateInfo newState) {}
+
+  /**
+   * Called when the name resolver of a channel reports a result, with {@code status} being OK if
+   * it reported addresses.
+   */
+  public void nameResolved(
+      InternalLogId channelId, String target, int addressCount, Status status) {}
+
+  /** An ongoing period of time being recorded. */
+  public interface Span {
+    /** Ends the period. It must be called once, from any thread. */
+    void close();
+  }
+}
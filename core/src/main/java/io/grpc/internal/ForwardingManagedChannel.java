@@ -20,9 +20,12 @@ import com.google.common.base.MoreObjects;
 import io.grpc.CallOptions;
 import io.grpc.ClientCall;
 import io.grpc.ConnectivityState;
+import io.grpc.Deadline;
 import io.grpc.ManagedChannel;
 import io.grpc.MethodDescriptor;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 abstract class ForwardingManagedChannel extends ManagedChannel {
 
@@ -88,6 +91,13 @@ abstract class ForwardingManagedChannel extends ManagedChannel {
     delegate.enterIdle();
   }
 
+  @Override
+  public void warmUp(
+      double fraction, Deadline deadline, @Nullable WarmUpRpc warmUpRpc, Executor executor,
+      WarmUpListener listener) {
+    delegate.warmUp(fraction, deadline, warmUpRpc, executor, listener);
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this).add("delegate", delegate).toString();
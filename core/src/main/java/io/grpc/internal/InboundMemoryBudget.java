@@ -0,0 +1,131 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.InternalChannelz;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Bounds the bytes of inbound messages all the streams of a server may hold before the application
+ * requests them. Streams account the DATA frames they receive and the bytes the deframer consumes,
+ * and while more than the limit is buffered the transports stop returning flow control credit for
+ * consumed bytes, so the clients can't send more. The credit is returned once the buffered bytes
+ * fall back to the limit.
+ *
+ * <p>Streams are accounted by {@link AbstractServerStream.TransportState#setInboundMemoryBudget}.
+ */
+@ThreadSafe
+public final class InboundMemoryBudget {
+  @VisibleForTesting
+  static final String BUFFERED_BYTES_OPTION = "GRPC_SERVER_INBOUND_BUFFERED_BYTES";
+  @VisibleForTesting
+  static final String WITHHELD_BYTES_OPTION = "GRPC_SERVER_INBOUND_WITHHELD_BYTES";
+
+  private final long limit;
+  private final AtomicLong bufferedBytes = new AtomicLong();
+  private final AtomicLong withheldBytes = new AtomicLong();
+  private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Creates a budget allowing {@code limit} bytes to be buffered before flow control credit is
+   * withheld.
+   */
+  public InboundMemoryBudget(long limit) {
+    checkArgument(limit > 0, "limit must be positive");
+    this.limit = limit;
+  }
+
+  public long getLimit() {
+    return limit;
+  }
+
+  /** Returns the bytes received by the streams that the application did not consume yet. */
+  public long getBufferedBytes() {
+    return bufferedBytes.get();
+  }
+
+  /** Returns the flow control credit the streams are withholding because of this budget. */
+  public long getWithheldBytes() {
+    return withheldBytes.get();
+  }
+
+  /**
+   * Adds the buffered and withheld bytes to the channelz socket options of a transport of the
+   * server.
+   */
+  public void addSocketOptions(InternalChannelz.SocketOptions.Builder builder) {
+    builder.addOption(BUFFERED_BYTES_OPTION, String.valueOf(getBufferedBytes()));
+    builder.addOption(WITHHELD_BYTES_OPTION, String.valueOf(getWithheldBytes()));
+  }
+
+  boolean isExhausted() {
+    return bufferedBytes.get() > limit;
+  }
+
+  void onReceived(long bytes) {
+    bufferedBytes.addAndGet(bytes);
+  }
+
+  /** Accounts bytes no longer buffered, and wakes up the waiters if the budget is available. */
+  void onConsumed(long bytes) {
+    if (bufferedBytes.addAndGet(-bytes) <= limit && !waiters.isEmpty()) {
+      wakeUpWaiters();
+    }
+  }
+
+  void onWithheld(long bytes) {
+    withheldBytes.addAndGet(bytes);
+  }
+
+  /**
+   * Runs {@code waiter} in {@code executor} once the budget is no longer exhausted. The budget may
+   * be exhausted again by the time it runs. The waiter is never run by the thread consuming the
+   * bytes, which may be holding the lock of another transport.
+   */
+  void runWhenAvailable(Runnable waiter, Executor executor) {
+    waiters.add(new Waiter(waiter, executor));
+    // The bytes may have been consumed before the waiter was visible to onConsumed()
+    if (!isExhausted()) {
+      wakeUpWaiters();
+    }
+  }
+
+  private void wakeUpWaiters() {
+    Waiter waiter;
+    while (!isExhausted() && (waiter = waiters.poll()) != null) {
+      waiter.executor.execute(waiter.runnable);
+    }
+  }
+
+  private static final class Waiter {
+    final Runnable runnable;
+    final Executor executor;
+
+    Waiter(Runnable runnable, Executor executor) {
+      this.runnable = checkNotNull(runnable, "runnable");
+      this.executor = checkNotNull(executor, "executor");
+    }
+  }
+}
@@ -331,6 +331,10 @@ final class InternalSubchannel implements InternalInstrumented<ChannelStats>, Tr
       Preconditions.checkState(state.getState() != SHUTDOWN,
           "Cannot transition out of SHUTDOWN to " + newState);
       state = newState;
+      if (EventHooks.isInstalled()) {
+        EventHooks.getInstance().subchannelStateChanged(
+            logId, String.valueOf(addressGroups), newState);
+      }
       callback.onStateChange(InternalSubchannel.this, newState);
     }
   }
@@ -29,6 +29,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.Attributes;
@@ -234,6 +235,11 @@ final class ManagedChannelImpl extends ManagedChannel implements
   // switch to a ConcurrentHashMap.
   private final Set<InternalSubchannel> subchannels = new HashSet<>(16, .75f);
 
+  // Warm-ups waiting for subchannels to be created, and warm-ups waiting for their subchannels to
+  // connect. Must be accessed from syncContext.
+  private final List<WarmUp> pendingWarmUps = new ArrayList<>();
+  private final Set<WarmUp> activeWarmUps = new LinkedHashSet<>();
+
   // Must be accessed from syncContext
   @Nullable
   private Collection<RealChannel.PendingCall<?, ?>> pendingCalls;
@@ -274,6 +280,8 @@ final class ManagedChannelImpl extends ManagedChannel implements
 
   private final CallTracer.Factory callTracerFactory;
   private final CallTracer channelCallTracer;
+  @Nullable
+  private final MethodMetrics methodMetrics;
   private final ChannelTracer channelTracer;
   private final ChannelLogger channelLogger;
   private final InternalChannelz channelz;
@@ -331,6 +339,9 @@ final class ManagedChannelImpl extends ManagedChannel implements
         ChannelStats.Builder builder = new InternalChannelz.ChannelStats.Builder();
         channelCallTracer.updateBuilder(builder);
         channelTracer.updateBuilder(builder);
+        if (methodMetrics != null) {
+          builder.setMethodStats(methodMetrics.getMethodStats());
+        }
         builder.setTarget(target).setState(channelStateManager.getState());
         List<InternalWithLogId> children = new ArrayList<>();
         children.addAll(subchannels);
@@ -596,6 +607,10 @@ final class ManagedChannelImpl extends ManagedChannel implements
     this.executor = checkNotNull(executorPool.getObject(), "executor");
     this.originalChannelCreds = builder.channelCredentials;
     this.originalTransportFactory = clientTransportFactory;
+    if (builder.transportSharingEnabled) {
+      clientTransportFactory = SharedTransportPool.getInstance()
+          .newTransportFactory(clientTransportFactory, builder.channelCredentials);
+    }
     this.offloadExecutorHolder =
         new ExecutorHolder(checkNotNull(builder.offloadExecutorPool, "offloadExecutorPool"));
     this.transportFactory = new CallCredentialsApplyingTransportFactory(
@@ -693,6 +708,8 @@ final class ManagedChannelImpl extends ManagedChannel implements
 
     this.callTracerFactory = new ChannelCallTracerFactory();
     channelCallTracer = callTracerFactory.create();
+    methodMetrics =
+        builder.methodMetricsEnabled ? new MethodMetrics(Ticker.systemTicker()) : null;
     this.channelz = checkNotNull(builder.channelz);
     channelz.addRootChannel(this);
 
@@ -812,6 +829,11 @@ final class ManagedChannelImpl extends ManagedChannel implements
       public void run() {
         channelLogger.log(ChannelLogLevel.INFO, "Entering SHUTDOWN state");
         channelStateManager.gotoState(SHUTDOWN);
+        List<WarmUp> warmUps = new ArrayList<>(pendingWarmUps);
+        warmUps.addAll(activeWarmUps);
+        for (WarmUp warmUp : warmUps) {
+          warmUp.complete(SHUTDOWN_STATUS);
+        }
       }
     }
 
@@ -948,6 +970,17 @@ final class ManagedChannelImpl extends ManagedChannel implements
       @Override
       public <RequestT, ResponseT> ClientCall<RequestT, ResponseT> newCall(
           MethodDescriptor<RequestT, ResponseT> method, CallOptions callOptions) {
+        if (methodMetrics != null) {
+          callOptions = callOptions.withStreamTracerFactory(
+              methodMetrics.getClientTracerFactory(method.getFullMethodName()));
+        }
+        if (EventHooks.isInstalled()) {
+          ClientStreamTracer.Factory eventTracerFactory =
+              EventHooks.getInstance().getClientTracerFactory(method.getFullMethodName());
+          if (eventTracerFactory != null) {
+            callOptions = callOptions.withStreamTracerFactory(eventTracerFactory);
+          }
+        }
         return new ClientCallImpl<>(
             method,
             getCallExecutor(callOptions),
@@ -1374,6 +1407,57 @@ final class ManagedChannelImpl extends ManagedChannel implements
     syncContext.execute(new PrepareToLoseNetworkRunnable());
   }
 
+  @Override
+  public void warmUp(
+      double fraction, final Deadline deadline, @Nullable WarmUpRpc warmUpRpc, Executor executor,
+      WarmUpListener listener) {
+    checkArgument(fraction > 0 && fraction <= 1, "fraction must be in (0, 1]: %s", fraction);
+    checkNotNull(deadline, "deadline");
+    final WarmUp warmUp = new WarmUp(fraction, warmUpRpc, executor, listener);
+    final class StartWarmUp implements Runnable {
+      @Override
+      public void run() {
+        if (shutdown.get()) {
+          warmUp.complete(SHUTDOWN_STATUS);
+          return;
+        }
+        warmUp.scheduleDeadline(deadline);
+        exitIdleMode();
+        pendingWarmUps.add(warmUp);
+        // Subchannels created while exiting idle mode are only started once this task is done.
+        syncContext.execute(startPendingWarmUps);
+      }
+    }
+
+    syncContext.execute(new StartWarmUp());
+  }
+
+  // Must be run from syncContext
+  private final Runnable startPendingWarmUps = new Runnable() {
+    @Override
+    public void run() {
+      if (pendingWarmUps.isEmpty()) {
+        return;
+      }
+      List<InternalSubchannel> candidates = new ArrayList<>(subchannels.size());
+      for (InternalSubchannel subchannel : subchannels) {
+        if (subchannel.getState() != SHUTDOWN) {
+          candidates.add(subchannel);
+        }
+      }
+      // Keep waiting until the load balancer creates subchannels.
+      if (candidates.isEmpty()) {
+        return;
+      }
+      List<WarmUp> warmUps = new ArrayList<>(pendingWarmUps);
+      pendingWarmUps.clear();
+      for (WarmUp warmUp : warmUps) {
+        activeWarmUps.add(warmUp);
+        warmUp.start(candidates);
+      }
+    }
+  };
+
   /**
    * A registry that prevents channel shutdown from killing existing retry attempts that are in
    * backoff.
@@ -1752,6 +1836,9 @@ final class ManagedChannelImpl extends ManagedChannel implements
           }
 
           List<EquivalentAddressGroup> servers = resolutionResult.getAddresses();
+          if (EventHooks.isInstalled()) {
+            EventHooks.getInstance().nameResolved(getLogId(), target, servers.size(), Status.OK);
+          }
           channelLogger.log(
               ChannelLogLevel.DEBUG,
               "Resolved address: {0}, config={1}",
@@ -1902,6 +1989,9 @@ final class ManagedChannelImpl extends ManagedChannel implements
     private void handleErrorInSyncContext(Status error) {
       logger.log(Level.WARNING, "[{0}] Failed to resolve name. status={1}",
           new Object[] {getLogId(), error});
+      if (EventHooks.isInstalled()) {
+        EventHooks.getInstance().nameResolved(getLogId(), target, 0, error);
+      }
       realChannel.onConfigError();
       if (lastResolutionState != ResolutionState.ERROR) {
         channelLogger.log(ChannelLogLevel.WARNING, "Failed to resolve name: {0}", error);
@@ -1916,6 +2006,162 @@ final class ManagedChannelImpl extends ManagedChannel implements
     }
   }
 
+  /**
+   * Connects some of the subchannels, and sends the warm-up RPCs on each of them once ready. Must
+   * be accessed from syncContext.
+   */
+  private final class WarmUp {
+    final double fraction;
+    @Nullable
+    final WarmUpRpc warmUpRpc;
+    final Executor executor;
+    final WarmUpListener listener;
+    final Set<InternalSubchannel> connecting = new HashSet<>();
+    int runningRpcs;
+    boolean connected;
+    boolean completed;
+    @Nullable
+    Status lastError;
+    @Nullable
+    ScheduledHandle deadlineTimer;
+
+    WarmUp(
+        double fraction, @Nullable WarmUpRpc warmUpRpc, Executor executor,
+        WarmUpListener listener) {
+      this.fraction = fraction;
+      this.warmUpRpc = warmUpRpc;
+      this.executor = checkNotNull(executor, "executor");
+      this.listener = checkNotNull(listener, "listener");
+    }
+
+    void scheduleDeadline(Deadline deadline) {
+      final class WarmUpDeadlineExceeded implements Runnable {
+        @Override
+        public void run() {
+          complete(Status.DEADLINE_EXCEEDED.withDescription("Warm-up deadline exceeded"));
+        }
+      }
+
+      deadlineTimer = syncContext.schedule(
+          new WarmUpDeadlineExceeded(), deadline.timeRemaining(TimeUnit.NANOSECONDS),
+          TimeUnit.NANOSECONDS, transportFactory.getScheduledExecutorService());
+    }
+
+    void start(List<InternalSubchannel> candidates) {
+      List<InternalSubchannel> chosen = new ArrayList<>(candidates);
+      // Spread the connections of the channels warming up to the same servers.
+      Collections.shuffle(chosen);
+      chosen = chosen.subList(0, (int) Math.ceil(fraction * chosen.size()));
+      channelLogger.log(
+          ChannelLogLevel.DEBUG, "Warming up {0} of {1} subchannels",
+          chosen.size(), candidates.size());
+      connecting.addAll(chosen);
+      for (InternalSubchannel subchannel : chosen) {
+        if (subchannel.obtainActiveTransport() != null) {
+          onReady(subchannel);
+        }
+      }
+      maybeComplete();
+    }
+
+    void onSubchannelState(InternalSubchannel subchannel, ConnectivityStateInfo newState) {
+      switch (newState.getState()) {
+        case READY:
+          if (connecting.contains(subchannel)) {
+            onReady(subchannel);
+            maybeComplete();
+          }
+          break;
+        case TRANSIENT_FAILURE:
+          if (connecting.remove(subchannel)) {
+            lastError = newState.getStatus();
+            maybeComplete();
+          }
+          break;
+        case SHUTDOWN:
+          if (connecting.remove(subchannel)) {
+            maybeComplete();
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void onReady(InternalSubchannel subchannel) {
+      if (!connecting.remove(subchannel)) {
+        return;
+      }
+      connected = true;
+      if (warmUpRpc == null) {
+        return;
+      }
+      Channel connection = new SubchannelChannel(
+          subchannel, balancerRpcExecutorHolder.getExecutor(),
+          transportFactory.getScheduledExecutorService(),
+          callTracerFactory.create(),
+          new AtomicReference<InternalConfigSelector>(null));
+      final class WarmUpRpcsDone implements Runnable {
+        boolean done;
+
+        @Override
+        public void run() {
+          if (done) {
+            return;
+          }
+          done = true;
+          runningRpcs--;
+          maybeComplete();
+        }
+      }
+
+      final WarmUpRpcsDone rpcsDone = new WarmUpRpcsDone();
+      runningRpcs++;
+      try {
+        warmUpRpc.warmUp(connection, new Runnable() {
+          @Override
+          public void run() {
+            syncContext.execute(rpcsDone);
+          }
+        });
+      } catch (RuntimeException e) {
+        channelLogger.log(ChannelLogLevel.WARNING, "Warm-up RPCs failed: {0}", e);
+        syncContext.execute(rpcsDone);
+      }
+    }
+
+    private void maybeComplete() {
+      if (!connecting.isEmpty() || runningRpcs > 0) {
+        return;
+      }
+      if (connected) {
+        complete(Status.OK);
+      } else if (lastError != null) {
+        complete(lastError);
+      } else {
+        complete(Status.UNAVAILABLE.withDescription("Subchannels shut down before connecting"));
+      }
+    }
+
+    void complete(final Status status) {
+      if (completed) {
+        return;
+      }
+      completed = true;
+      pendingWarmUps.remove(this);
+      activeWarmUps.remove(this);
+      if (deadlineTimer != null) {
+        deadlineTimer.cancel();
+      }
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          listener.onComplete(status);
+        }
+      });
+    }
+  }
+
   private final class SubchannelImpl extends AbstractSubchannel {
     final CreateSubchannelArgs args;
     final InternalLogId subchannelLogId;
@@ -1963,6 +2209,11 @@ final class ManagedChannelImpl extends ManagedChannel implements
         void onStateChange(InternalSubchannel is, ConnectivityStateInfo newState) {
           checkState(listener != null, "listener is null");
           listener.onSubchannelState(newState);
+          if (!activeWarmUps.isEmpty()) {
+            for (WarmUp warmUp : new ArrayList<>(activeWarmUps)) {
+              warmUp.onSubchannelState(is, newState);
+            }
+          }
         }
 
         @Override
@@ -2002,6 +2253,10 @@ final class ManagedChannelImpl extends ManagedChannel implements
       this.subchannel = internalSubchannel;
       channelz.addSubchannel(internalSubchannel);
       subchannels.add(internalSubchannel);
+      if (!pendingWarmUps.isEmpty()) {
+        // Let the load balancer create all the subchannels it is about to, before choosing.
+        syncContext.execute(startPendingWarmUps);
+      }
     }
 
     @Override
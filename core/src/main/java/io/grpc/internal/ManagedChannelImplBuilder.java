@@ -188,6 +188,8 @@ public final class ManagedChannelImplBuilder
   private boolean recordRealTimeMetrics = false;
   private boolean recordRetryMetrics = true;
   private boolean tracingEnabled = true;
+  boolean transportSharingEnabled;
+  boolean methodMetricsEnabled = MethodMetrics.isEnabled();
 
   /**
    * An interface for Transport implementors to provide the {@link ClientTransportFactory}
@@ -630,6 +632,17 @@ public final class ManagedChannelImplBuilder
     tracingEnabled = value;
   }
 
+  /**
+   * Disable or enable sharing transports with other channels of this process. Channels share
+   * transports only if their transport settings are the same and they were created with the same
+   * {@link ChannelCredentials} instance, any {@link io.grpc.InsecureChannelCredentials}, or no
+   * credentials. Transports whose settings can't be compared, such as those using a custom
+   * protocol negotiator, aren't shared. Disabled by default.
+   */
+  public void setTransportSharingEnabled(boolean value) {
+    transportSharingEnabled = value;
+  }
+
   /**
    * Verifies the authority is valid.
    */
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import io.grpc.ClientStreamTracer;
+import io.grpc.InternalChannelz.MethodStats;
+import io.grpc.Metadata;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Per-method call counts, latency and message size distributions of a channel or a server, for
+ * channelz. Unlike census, this needs no extra library and costs a few atomic operations per
+ * message and per call.
+ *
+ * <p>On a channel every attempt, including retries and hedges, counts as a call. Sizes are the
+ * wire sizes of the individual messages.
+ *
+ * <p>Disabled unless the {@value #ENABLE_PROPERTY} system property is {@code true}.
+ */
+@ThreadSafe
+final class MethodMetrics {
+  static final String ENABLE_PROPERTY = "io.grpc.internal.MethodMetrics.enable";
+  /**
+   * Once this many methods are tracked, the calls to any other method are accumulated under
+   * {@link #OTHER_METHODS}. This keeps servers from tracking every method name a client makes up.
+   */
+  @VisibleForTesting
+  static final int MAX_METHODS = 1000;
+  @VisibleForTesting
+  static final String OTHER_METHODS = "<other>";
+
+  private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(ENABLE_PROPERTY));
+
+  private final Ticker ticker;
+  private final ConcurrentMap<String, MethodEntry> methods = new ConcurrentHashMap<>();
+  private final MethodEntry otherMethods;
+  private final ServerStreamTracer.Factory serverTracerFactory =
+      new ServerStreamTracer.Factory() {
+        @Override
+        public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+          MethodEntry entry = getMethodEntry(fullMethodName);
+          entry.callsStarted.incrementAndGet();
+          return new ServerTracer(entry, ticker.read());
+        }
+      };
+
+  static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  MethodMetrics(Ticker ticker) {
+    this.ticker = checkNotNull(ticker, "ticker");
+    this.otherMethods = new MethodEntry(OTHER_METHODS);
+  }
+
+  /**
+   * Returns the tracer factory recording the calls of the given method. It is meant to be added
+   * to the {@code CallOptions} of each call of a channel.
+   */
+  ClientStreamTracer.Factory getClientTracerFactory(String fullMethodName) {
+    return getMethodEntry(fullMethodName);
+  }
+
+  /** Returns the tracer factory recording the calls of a server. */
+  ServerStreamTracer.Factory getServerTracerFactory() {
+    return serverTracerFactory;
+  }
+
+  /** Returns the stats of each method that has been called, sorted by method name. */
+  List<MethodStats> getMethodStats() {
+    List<MethodStats> stats = new ArrayList<>(methods.size() + 1);
+    for (MethodEntry entry : methods.values()) {
+      stats.add(entry.toMethodStats());
+    }
+    if (otherMethods.callsStarted.get() != 0) {
+      stats.add(otherMethods.toMethodStats());
+    }
+    Collections.sort(stats, (s1, s2) -> s1.fullMethodName.compareTo(s2.fullMethodName));
+    return stats;
+  }
+
+  private MethodEntry getMethodEntry(String fullMethodName) {
+    MethodEntry entry = methods.get(fullMethodName);
+    if (entry != null) {
+      return entry;
+    }
+    if (methods.size() >= MAX_METHODS) {
+      return otherMethods;
+    }
+    entry = new MethodEntry(fullMethodName);
+    MethodEntry existing = methods.putIfAbsent(fullMethodName, entry);
+    return existing != null ? existing : entry;
+  }
+
+  private final class MethodEntry extends ClientStreamTracer.Factory {
+    final String fullMethodName;
+    final AtomicLong callsStarted = new AtomicLong();
+    final AtomicLong callsSucceeded = new AtomicLong();
+    final AtomicLong callsFailed = new AtomicLong();
+    final ConcurrentHistogram latencyNanos = new ConcurrentHistogram();
+    final ConcurrentHistogram sentMessageBytes = new ConcurrentHistogram();
+    final ConcurrentHistogram receivedMessageBytes = new ConcurrentHistogram();
+
+    MethodEntry(String fullMethodName) {
+      this.fullMethodName = fullMethodName;
+    }
+
+    @Override
+    public ClientStreamTracer newClientStreamTracer(
+        ClientStreamTracer.StreamInfo info, Metadata headers) {
+      callsStarted.incrementAndGet();
+      return new ClientTracer(this, ticker.read());
+    }
+
+    void recordSent(long wireSize) {
+      if (wireSize >= 0) {
+        sentMessageBytes.record(wireSize);
+      }
+    }
+
+    void recordReceived(long wireSize) {
+      if (wireSize >= 0) {
+        receivedMessageBytes.record(wireSize);
+      }
+    }
+
+    void recordClosed(Status status, long startNanos) {
+      latencyNanos.record(Math.max(0, ticker.read() - startNanos));
+      if (status.isOk()) {
+        callsSucceeded.incrementAndGet();
+      } else {
+        callsFailed.incrementAndGet();
+      }
+    }
+
+    MethodStats toMethodStats() {
+      return new MethodStats(
+          fullMethodName,
+          callsStarted.get(),
+          callsSucceeded.get(),
+          callsFailed.get(),
+          latencyNanos.summarize(),
+          sentMessageBytes.summarize(),
+          receivedMessageBytes.summarize());
+    }
+  }
+
+  private static final class ClientTracer extends ClientStreamTracer {
+    private final MethodEntry entry;
+    private final long startNanos;
+
+    ClientTracer(MethodEntry entry, long startNanos) {
+      this.entry = entry;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public void outboundMessageSent(
+        int seqNo, long optionalWireSize, long optionalUncompressedSize) {
+      entry.recordSent(optionalWireSize);
+    }
+
+    @Override
+    public void inboundMessageRead(
+        int seqNo, long optionalWireSize, long optionalUncompressedSize) {
+      entry.recordReceived(optionalWireSize);
+    }
+
+    @Override
+    public void streamClosed(Status status) {
+      entry.recordClosed(status, startNanos);
+    }
+  }
+
+  private static final class ServerTracer extends ServerStreamTracer {
+    private final MethodEntry entry;
+    private final long startNanos;
+
+    ServerTracer(MethodEntry entry, long startNanos) {
+      this.entry = entry;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public void outboundMessageSent(
+        int seqNo, long optionalWireSize, long optionalUncompressedSize) {
+      entry.recordSent(optionalWireSize);
+    }
+
+    @Override
+    public void inboundMessageRead(
+        int seqNo, long optionalWireSize, long optionalUncompressedSize) {
+      entry.recordReceived(optionalWireSize);
+    }
+
+    @Override
+    public void streamClosed(Status status) {
+      entry.recordClosed(status, startNanos);
+    }
+  }
+}
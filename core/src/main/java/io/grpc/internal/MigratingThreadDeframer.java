@@ -21,7 +21,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import io.grpc.Decompressor;
 import io.perfmark.Link;
 import io.perfmark.PerfMark;
-import io.perfmark.TaskCloseable;
 import java.io.Closeable;
 import java.io.InputStream;
 import java.util.ArrayDeque;
@@ -108,8 +107,8 @@ final class MigratingThreadDeframer implements ThreadOptimizedDeframer {
     } else {
       if (!alreadyEnqueued) {
         if (currentThreadIsTransportThread) {
-          try (TaskCloseable ignore =
-                   PerfMark.traceTask("MigratingThreadDeframer.messageAvailable")) {
+          try (TraceRecorder.Task ignore =
+                   TraceRecorder.traceTask("MigratingThreadDeframer.messageAvailable")) {
             transportListener.messagesAvailable(messageProducer);
           }
         } else {
@@ -118,8 +117,8 @@ final class MigratingThreadDeframer implements ThreadOptimizedDeframer {
           // MigratingThreadDeframer
           transportExecutor.runOnTransportThread(new Runnable() {
             @Override public void run() {
-              try (TaskCloseable ignore =
-                       PerfMark.traceTask("MigratingThreadDeframer.messageAvailable")) {
+              try (TraceRecorder.Task ignore =
+                       TraceRecorder.traceTask("MigratingThreadDeframer.messageAvailable")) {
                 PerfMark.linkIn(link);
                 transportListener.messagesAvailable(messageProducer);
               }
@@ -142,7 +141,8 @@ final class MigratingThreadDeframer implements ThreadOptimizedDeframer {
           // necessary processing
           transportExecutor.runOnTransportThread(new Runnable() {
             @Override public void run() {
-              try (TaskCloseable ignore = PerfMark.traceTask("MigratingThreadDeframer.request")) {
+              try (TraceRecorder.Task ignore =
+                       TraceRecorder.traceTask("MigratingThreadDeframer.request")) {
                 PerfMark.linkIn(link);
                 // Since processing continues from transport thread while this runnable was
                 // enqueued, the state may have changed since we ran runOnTransportThread. So we
@@ -153,7 +153,8 @@ final class MigratingThreadDeframer implements ThreadOptimizedDeframer {
           });
           return;
         }
-        try (TaskCloseable ignore = PerfMark.traceTask("MigratingThreadDeframer.request")) {
+        try (TraceRecorder.Task ignore =
+                 TraceRecorder.traceTask("MigratingThreadDeframer.request")) {
           deframer.request(numMessages);
         } catch (Throwable t) {
           appListener.deframeFailed(t);
@@ -196,7 +197,8 @@ final class MigratingThreadDeframer implements ThreadOptimizedDeframer {
   public void deframe(final ReadableBuffer data) {
     class DeframeOp implements Op, Closeable {
       @Override public void run(boolean isDeframerOnTransportThread) {
-        try (TaskCloseable ignore = PerfMark.traceTask("MigratingThreadDeframer.deframe")) {
+        try (TraceRecorder.Task ignore =
+                 TraceRecorder.traceTask("MigratingThreadDeframer.deframe")) {
           if (isDeframerOnTransportThread) {
             deframer.deframe(data);
             return;
@@ -44,7 +44,6 @@ import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.perfmark.PerfMark;
 import io.perfmark.Tag;
-import io.perfmark.TaskCloseable;
 import java.io.InputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -91,7 +90,7 @@ final class ServerCallImpl<ReqT, RespT> extends ServerCall<ReqT, RespT> {
 
   @Override
   public void request(int numMessages) {
-    try (TaskCloseable ignore = PerfMark.traceTask("ServerCall.request")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerCall.request")) {
       PerfMark.attachTag(tag);
       stream.request(numMessages);
     }
@@ -99,7 +98,7 @@ final class ServerCallImpl<ReqT, RespT> extends ServerCall<ReqT, RespT> {
 
   @Override
   public void sendHeaders(Metadata headers) {
-    try (TaskCloseable ignore = PerfMark.traceTask("ServerCall.sendHeaders")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerCall.sendHeaders")) {
       PerfMark.attachTag(tag);
       sendHeadersInternal(headers);
     }
@@ -147,7 +146,7 @@ final class ServerCallImpl<ReqT, RespT> extends ServerCall<ReqT, RespT> {
 
   @Override
   public void sendMessage(RespT message) {
-    try (TaskCloseable ignore = PerfMark.traceTask("ServerCall.sendMessage")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerCall.sendMessage")) {
       PerfMark.attachTag(tag);
       sendMessageInternal(message);
     }
@@ -203,7 +202,7 @@ final class ServerCallImpl<ReqT, RespT> extends ServerCall<ReqT, RespT> {
 
   @Override
   public void close(Status status, Metadata trailers) {
-    try (TaskCloseable ignore = PerfMark.traceTask("ServerCall.close")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerCall.close")) {
       PerfMark.attachTag(tag);
       closeInternal(status, trailers);
     }
@@ -309,7 +308,8 @@ final class ServerCallImpl<ReqT, RespT> extends ServerCall<ReqT, RespT> {
 
     @Override
     public void messagesAvailable(MessageProducer producer) {
-      try (TaskCloseable ignore = PerfMark.traceTask("ServerStreamListener.messagesAvailable")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("ServerStreamListener.messagesAvailable")) {
         PerfMark.attachTag(call.tag);
         messagesAvailableInternal(producer);
       }
@@ -342,7 +342,7 @@ final class ServerCallImpl<ReqT, RespT> extends ServerCall<ReqT, RespT> {
 
     @Override
     public void halfClosed() {
-      try (TaskCloseable ignore = PerfMark.traceTask("ServerStreamListener.halfClosed")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerStreamListener.halfClosed")) {
         PerfMark.attachTag(call.tag);
         if (call.cancelled) {
           return;
@@ -354,7 +354,7 @@ final class ServerCallImpl<ReqT, RespT> extends ServerCall<ReqT, RespT> {
 
     @Override
     public void closed(Status status) {
-      try (TaskCloseable ignore = PerfMark.traceTask("ServerStreamListener.closed")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerStreamListener.closed")) {
         PerfMark.attachTag(call.tag);
         closedInternal(status);
       }
@@ -382,7 +382,7 @@ final class ServerCallImpl<ReqT, RespT> extends ServerCall<ReqT, RespT> {
 
     @Override
     public void onReady() {
-      try (TaskCloseable ignore = PerfMark.traceTask("ServerStreamListener.onReady")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerStreamListener.onReady")) {
         PerfMark.attachTag(call.tag);
         if (call.cancelled) {
           return;
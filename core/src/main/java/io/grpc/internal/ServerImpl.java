@@ -58,7 +58,6 @@ import io.grpc.Status;
 import io.perfmark.Link;
 import io.perfmark.PerfMark;
 import io.perfmark.Tag;
-import io.perfmark.TaskCloseable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
@@ -75,6 +74,7 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
 /**
@@ -128,6 +128,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
   private final InternalChannelz channelz;
   private final CallTracer serverCallTracer;
+  @Nullable
+  private final MethodMetrics methodMetrics;
   private final Deadline.Ticker ticker;
   private final ServerCallExecutorSupplier executorSupplier;
 
@@ -142,6 +144,18 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
       ServerImplBuilder builder,
       InternalServer transportServer,
       Context rootContext) {
+    this(builder, transportServer, rootContext, null);
+  }
+
+  /**
+   * Construct a server whose per-method stats are recorded by {@code methodMetrics}, which must
+   * already be among the stream tracer factories of {@code transportServer}.
+   */
+  ServerImpl(
+      ServerImplBuilder builder,
+      InternalServer transportServer,
+      Context rootContext,
+      @Nullable MethodMetrics methodMetrics) {
     this.executorPool = Preconditions.checkNotNull(builder.executorPool, "executorPool");
     this.registry = Preconditions.checkNotNull(builder.registryBuilder.build(), "registryBuilder");
     this.fallbackRegistry =
@@ -162,6 +176,7 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
     this.binlog = builder.binlog;
     this.channelz = builder.channelz;
     this.serverCallTracer = builder.callTracerFactory.create();
+    this.methodMetrics = methodMetrics;
     this.ticker = checkNotNull(builder.ticker, "ticker");
     channelz.addServer(this);
     this.executorSupplier = builder.executorSupplier;
@@ -462,7 +477,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
     @Override
     public void streamCreated(ServerStream stream, String methodName, Metadata headers) {
       Tag tag = PerfMark.createTag(methodName, stream.streamId());
-      try (TaskCloseable ignore = PerfMark.traceTask("ServerTransportListener.streamCreated")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("ServerTransportListener.streamCreated")) {
         PerfMark.attachTag(tag);
         streamCreatedInternal(stream, methodName, headers, tag);
       }
@@ -522,8 +538,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
         @Override
         public void runInContext() {
-          try (TaskCloseable ignore =
-                   PerfMark.traceTask("ServerTransportListener$MethodLookup.startCall")) {
+          try (TraceRecorder.Task ignore =
+                   TraceRecorder.traceTask("ServerTransportListener$MethodLookup.startCall")) {
             PerfMark.attachTag(tag);
             PerfMark.linkIn(link);
             runInternal();
@@ -596,8 +612,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
         @Override
         public void runInContext() {
-          try (TaskCloseable ignore =
-                   PerfMark.traceTask("ServerTransportListener$HandleServerCall.startCall")) {
+          try (TraceRecorder.Task ignore =
+                   TraceRecorder.traceTask("ServerTransportListener$HandleServerCall.startCall")) {
             PerfMark.linkIn(link);
             PerfMark.attachTag(tag);
             runInternal();
@@ -720,6 +736,9 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
       builder.addListenSockets(stats);
     }
     serverCallTracer.updateBuilder(builder);
+    if (methodMetrics != null) {
+      builder.setMethodStats(methodMetrics.getMethodStats());
+    }
     SettableFuture<ServerStats> ret = SettableFuture.create();
     ret.set(builder.build());
     return ret;
@@ -815,7 +834,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
     @Override
     public void messagesAvailable(final MessageProducer producer) {
-      try (TaskCloseable ignore = PerfMark.traceTask("ServerStreamListener.messagesAvailable")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("ServerStreamListener.messagesAvailable")) {
         PerfMark.attachTag(tag);
         final Link link = PerfMark.linkOut();
         final class MessagesAvailable extends ContextRunnable {
@@ -826,8 +846,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
           @Override
           public void runInContext() {
-            try (TaskCloseable ignore =
-                     PerfMark.traceTask("ServerCallListener(app).messagesAvailable")) {
+            try (TraceRecorder.Task ignore =
+                     TraceRecorder.traceTask("ServerCallListener(app).messagesAvailable")) {
               PerfMark.attachTag(tag);
               PerfMark.linkIn(link);
               getListener().messagesAvailable(producer);
@@ -844,7 +864,7 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
     @Override
     public void halfClosed() {
-      try (TaskCloseable ignore = PerfMark.traceTask("ServerStreamListener.halfClosed")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerStreamListener.halfClosed")) {
         PerfMark.attachTag(tag);
         final Link link = PerfMark.linkOut();
         final class HalfClosed extends ContextRunnable {
@@ -854,7 +874,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
           @Override
           public void runInContext() {
-            try (TaskCloseable ignore = PerfMark.traceTask("ServerCallListener(app).halfClosed")) {
+            try (TraceRecorder.Task ignore =
+                     TraceRecorder.traceTask("ServerCallListener(app).halfClosed")) {
               PerfMark.attachTag(tag);
               PerfMark.linkIn(link);
               getListener().halfClosed();
@@ -871,7 +892,7 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
     @Override
     public void closed(final Status status) {
-      try (TaskCloseable ignore = PerfMark.traceTask("ServerStreamListener.closed")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerStreamListener.closed")) {
         PerfMark.attachTag(tag);
         closedInternal(status);
       }
@@ -903,7 +924,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
         @Override
         public void runInContext() {
-          try (TaskCloseable ignore = PerfMark.traceTask("ServerCallListener(app).closed")) {
+          try (TraceRecorder.Task ignore =
+                   TraceRecorder.traceTask("ServerCallListener(app).closed")) {
             PerfMark.attachTag(tag);
             PerfMark.linkIn(link);
             getListener().closed(status);
@@ -916,7 +938,7 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
     @Override
     public void onReady() {
-      try (TaskCloseable ignore = PerfMark.traceTask("ServerStreamListener.onReady")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("ServerStreamListener.onReady")) {
         PerfMark.attachTag(tag);
         final Link link = PerfMark.linkOut();
 
@@ -927,7 +949,8 @@ public final class ServerImpl extends io.grpc.Server implements InternalInstrume
 
           @Override
           public void runInContext() {
-            try (TaskCloseable ignore = PerfMark.traceTask("ServerCallListener(app).onReady")) {
+            try (TraceRecorder.Task ignore =
+                     TraceRecorder.traceTask("ServerCallListener(app).onReady")) {
               PerfMark.attachTag(tag);
               PerfMark.linkIn(link);
               getListener().onReady();
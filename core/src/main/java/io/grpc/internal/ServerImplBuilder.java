@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.errorprone.annotations.DoNotCall;
 import io.grpc.BinaryLog;
@@ -95,6 +96,7 @@ public final class ServerImplBuilder extends ServerBuilder<ServerImplBuilder> {
   @Nullable BinaryLog binlog;
   InternalChannelz channelz = InternalChannelz.instance();
   CallTracer.Factory callTracerFactory = CallTracer.getDefaultFactory();
+  boolean methodMetricsEnabled = MethodMetrics.isEnabled();
   @Nullable
   ServerCallExecutorSupplier executorSupplier;
 
@@ -239,13 +241,22 @@ public final class ServerImplBuilder extends ServerBuilder<ServerImplBuilder> {
 
   @Override
   public Server build() {
+    MethodMetrics methodMetrics =
+        methodMetricsEnabled ? new MethodMetrics(Ticker.systemTicker()) : null;
     return new ServerImpl(this,
-        clientTransportServersBuilder.buildClientTransportServers(getTracerFactories()),
-        Context.ROOT);
+        clientTransportServersBuilder.buildClientTransportServers(
+            getTracerFactories(methodMetrics)),
+        Context.ROOT,
+        methodMetrics);
   }
 
   @VisibleForTesting
   List<? extends ServerStreamTracer.Factory> getTracerFactories() {
+    return getTracerFactories(null);
+  }
+
+  private List<? extends ServerStreamTracer.Factory> getTracerFactories(
+      @Nullable MethodMetrics methodMetrics) {
     ArrayList<ServerStreamTracer.Factory> tracerFactories = new ArrayList<>();
     boolean isGlobalInterceptorsTracersSet = false;
     List<ServerInterceptor> globalServerInterceptors
@@ -313,6 +324,14 @@ public final class ServerImplBuilder extends ServerBuilder<ServerImplBuilder> {
       }
     }
     tracerFactories.addAll(streamTracerFactories);
+    if (methodMetrics != null) {
+      tracerFactories.add(methodMetrics.getServerTracerFactory());
+    }
+    ServerStreamTracer.Factory eventTracerFactory =
+        EventHooks.getInstance().getServerTracerFactory();
+    if (eventTracerFactory != null) {
+      tracerFactories.add(eventTracerFactory);
+    }
     tracerFactories.trimToSize();
     return Collections.unmodifiableList(tracerFactories);
   }
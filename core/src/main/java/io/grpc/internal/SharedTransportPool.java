@@ -0,0 +1,579 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ChannelCredentials;
+import io.grpc.ChannelLogger;
+import io.grpc.ClientStreamTracer;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.InternalChannelz.SocketStats;
+import io.grpc.InternalLogId;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A process-wide pool of client transports, which lets channels share connections to the same
+ * server instead of each opening their own.
+ *
+ * <p>Transports are shared between channels that opted in and whose transport factories are of the
+ * same kind and report equal {@link ClientTransportFactory#getTransportSettingsKey() settings},
+ * when connecting to the same address with equal {@link
+ * ClientTransportFactory.ClientTransportOptions}. Channels built with {@link ChannelCredentials}
+ * only share with channels built with the same instance, except for {@link
+ * InsecureChannelCredentials}, which all share; channels built without credentials, which configure
+ * security on their transport factory, share with each other. Each subchannel gets its own
+ * handle to the shared transport, and the transport is shut down once the last handle is. A
+ * transport that the server or the network shut down is taken out of the pool, so new subchannels
+ * connect again, while the existing handles see it shut down as if they owned it.
+ *
+ * <p>A shared transport is created by the factory of the first channel that connects. That factory
+ * is only closed once the transports it created have terminated.
+ */
+@ThreadSafe
+final class SharedTransportPool {
+  private static final SharedTransportPool instance = new SharedTransportPool();
+
+  private final Object lock = new Object();
+  @GuardedBy("lock")
+  private final Map<Key, SharedTransport> transports = new HashMap<>();
+
+  @VisibleForTesting
+  SharedTransportPool() {}
+
+  static SharedTransportPool getInstance() {
+    return instance;
+  }
+
+  /**
+   * Returns a factory that shares the transports it creates through this pool, or {@code delegate}
+   * itself if its transports must not be shared. The returned factory owns {@code delegate}.
+   */
+  ClientTransportFactory newTransportFactory(
+      ClientTransportFactory delegate, @Nullable ChannelCredentials credentials) {
+    Object settings = delegate.getTransportSettingsKey();
+    if (settings == null) {
+      return delegate;
+    }
+    if (credentials instanceof InsecureChannelCredentials) {
+      // Carries no state, so any instance secures transports the same way.
+      credentials = null;
+    }
+    return new SharingTransportFactory(delegate, credentials, settings);
+  }
+
+  @VisibleForTesting
+  int transportCount() {
+    synchronized (lock) {
+      return transports.size();
+    }
+  }
+
+  @VisibleForTesting
+  int startedHandleCount() {
+    synchronized (lock) {
+      int count = 0;
+      for (SharedTransport shared : transports.values()) {
+        count += shared.startedHandles.size();
+      }
+      return count;
+    }
+  }
+
+  private final class SharingTransportFactory implements ClientTransportFactory {
+    private final ClientTransportFactory delegate;
+    @Nullable
+    private final ChannelCredentials credentials;
+    private final Object settings;
+    @GuardedBy("lock")
+    private int liveTransports;
+    @GuardedBy("lock")
+    private boolean closed;
+
+    SharingTransportFactory(
+        ClientTransportFactory delegate, @Nullable ChannelCredentials credentials,
+        Object settings) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      this.credentials = credentials;
+      this.settings = checkNotNull(settings, "settings");
+    }
+
+    @Override
+    public ConnectionClientTransport newClientTransport(
+        SocketAddress serverAddress, ClientTransportOptions options, ChannelLogger channelLogger) {
+      Key key = new Key(credentials, delegate.getClass(), settings, serverAddress, options);
+      synchronized (lock) {
+        checkState(!closed, "Factory is closed");
+        SharedTransport shared = transports.get(key);
+        if (shared == null) {
+          shared = new SharedTransport(
+              key, this, delegate.newClientTransport(serverAddress, options, channelLogger));
+          transports.put(key, shared);
+          liveTransports++;
+        }
+        return shared.newHandle();
+      }
+    }
+
+    @Override
+    public ScheduledExecutorService getScheduledExecutorService() {
+      return delegate.getScheduledExecutorService();
+    }
+
+    @Nullable
+    @Override
+    public SwapChannelCredentialsResult swapChannelCredentials(ChannelCredentials channelCreds) {
+      return delegate.swapChannelCredentials(channelCreds);
+    }
+
+    @Override
+    public Collection<Class<? extends SocketAddress>> getSupportedSocketAddressTypes() {
+      return delegate.getSupportedSocketAddressTypes();
+    }
+
+    @Override
+    public void close() {
+      synchronized (lock) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        if (liveTransports > 0) {
+          return;
+        }
+      }
+      delegate.close();
+    }
+
+    void transportTerminated() {
+      synchronized (lock) {
+        if (--liveTransports > 0 || !closed) {
+          return;
+        }
+      }
+      delegate.close();
+    }
+  }
+
+  /** A transport in the pool, along with the handles to it. */
+  private final class SharedTransport implements ManagedClientTransport.Listener {
+    final Key key;
+    final SharingTransportFactory factory;
+    final ConnectionClientTransport transport;
+    @GuardedBy("lock")
+    private final List<PooledTransport> startedHandles = new ArrayList<>();
+    @GuardedBy("lock")
+    private int refs;
+    @GuardedBy("lock")
+    private boolean started;
+    @GuardedBy("lock")
+    private boolean ready;
+    @GuardedBy("lock")
+    private Status shutdownStatus;
+    @GuardedBy("lock")
+    private boolean terminated;
+
+    SharedTransport(
+        Key key, SharingTransportFactory factory, ConnectionClientTransport transport) {
+      this.key = key;
+      this.factory = factory;
+      this.transport = checkNotNull(transport, "transport");
+    }
+
+    @GuardedBy("lock")
+    PooledTransport newHandle() {
+      refs++;
+      return new PooledTransport(this);
+    }
+
+    @Nullable
+    Runnable start(final PooledTransport handle) {
+      final boolean readyNow;
+      final Status shutdownNow;
+      final boolean terminatedNow;
+      boolean startTransport = false;
+      synchronized (lock) {
+        if (!terminated) {
+          startedHandles.add(handle);
+        }
+        if (!started) {
+          started = true;
+          startTransport = true;
+        }
+        readyNow = ready;
+        shutdownNow = shutdownStatus;
+        terminatedNow = terminated;
+      }
+      if (startTransport) {
+        return transport.start(this);
+      }
+      // Like a transport would, report the current state after start() returns.
+      return new Runnable() {
+        @Override
+        public void run() {
+          if (shutdownNow != null) {
+            handle.onShutdown(shutdownNow);
+          } else if (readyNow) {
+            handle.onReady();
+          }
+          if (terminatedNow) {
+            handle.onTerminated();
+          }
+        }
+      };
+    }
+
+    /** Forgets a handle that terminated, so that it doesn't keep its subchannel reachable. */
+    void handleTerminated(PooledTransport handle) {
+      synchronized (lock) {
+        startedHandles.remove(handle);
+      }
+    }
+
+    void release(Status status, boolean now) {
+      boolean shutdown;
+      boolean terminated = false;
+      synchronized (lock) {
+        if (--refs > 0) {
+          return;
+        }
+        transports.remove(key, this);
+        shutdown = started;
+        if (!started) {
+          // Never started, so there is nothing to wait for.
+          terminated = true;
+          startedHandles.clear();
+        }
+      }
+      if (shutdown) {
+        if (now) {
+          transport.shutdownNow(status);
+        } else {
+          transport.shutdown(status);
+        }
+      }
+      if (terminated) {
+        factory.transportTerminated();
+      }
+    }
+
+    @Override
+    public void transportReady() {
+      List<PooledTransport> handles;
+      synchronized (lock) {
+        ready = true;
+        handles = new ArrayList<>(startedHandles);
+      }
+      for (PooledTransport handle : handles) {
+        handle.onReady();
+      }
+    }
+
+    @Override
+    public void transportShutdown(Status status) {
+      List<PooledTransport> handles;
+      synchronized (lock) {
+        shutdownStatus = status;
+        transports.remove(key, this);
+        handles = new ArrayList<>(startedHandles);
+      }
+      for (PooledTransport handle : handles) {
+        handle.onShutdown(status);
+      }
+    }
+
+    @Override
+    public void transportTerminated() {
+      List<PooledTransport> handles;
+      synchronized (lock) {
+        terminated = true;
+        handles = new ArrayList<>(startedHandles);
+        startedHandles.clear();
+      }
+      for (PooledTransport handle : handles) {
+        handle.onTerminated();
+      }
+      factory.transportTerminated();
+    }
+
+    @Override
+    public void transportInUse(boolean inUse) {
+      // Each handle reports its own streams instead.
+    }
+  }
+
+  /**
+   * The handle a subchannel gets to a shared transport. It behaves as a transport of its own: it
+   * tracks its streams to report being in use, and terminates once shut down and its streams are
+   * closed, even if the shared transport lives on.
+   */
+  private static final class PooledTransport implements ConnectionClientTransport {
+    private final SharedTransport shared;
+    private final InternalLogId logId;
+    private final Object lock = new Object();
+    @GuardedBy("lock")
+    private ManagedClientTransport.Listener listener;
+    @GuardedBy("lock")
+    private final Set<ClientStream> streams =
+        Collections.newSetFromMap(new IdentityHashMap<ClientStream, Boolean>());
+    @GuardedBy("lock")
+    private Status shutdownStatus;
+    @GuardedBy("lock")
+    private boolean released;
+    @GuardedBy("lock")
+    private boolean terminated;
+
+    PooledTransport(SharedTransport shared) {
+      this.shared = shared;
+      this.logId = InternalLogId.allocate(getClass(), shared.key.address.toString());
+    }
+
+    @Nullable
+    @Override
+    public Runnable start(ManagedClientTransport.Listener listener) {
+      synchronized (lock) {
+        this.listener = checkNotNull(listener, "listener");
+      }
+      return shared.start(this);
+    }
+
+    @Override
+    public ClientStream newStream(MethodDescriptor<?, ?> method, Metadata headers,
+        CallOptions callOptions, ClientStreamTracer[] tracers) {
+      synchronized (lock) {
+        if (shutdownStatus != null) {
+          return new FailingClientStream(shutdownStatus, tracers);
+        }
+      }
+      return new PooledStream(shared.transport.newStream(method, headers, callOptions, tracers));
+    }
+
+    @Override
+    public void ping(PingCallback callback, Executor executor) {
+      shared.transport.ping(callback, executor);
+    }
+
+    @Override
+    public void shutdown(Status status) {
+      shutdownInternal(status, false);
+    }
+
+    @Override
+    public void shutdownNow(Status status) {
+      shutdownInternal(status, true);
+      List<ClientStream> toCancel;
+      synchronized (lock) {
+        toCancel = new ArrayList<>(streams);
+      }
+      for (ClientStream stream : toCancel) {
+        stream.cancel(status);
+      }
+    }
+
+    private void shutdownInternal(Status status, boolean now) {
+      boolean release;
+      synchronized (lock) {
+        release = !released;
+        released = true;
+      }
+      onShutdown(status);
+      if (release) {
+        shared.release(status, now);
+      }
+    }
+
+    @Override
+    public Attributes getAttributes() {
+      return shared.transport.getAttributes();
+    }
+
+    @Override
+    public ListenableFuture<SocketStats> getStats() {
+      return shared.transport.getStats();
+    }
+
+    @Override
+    public InternalLogId getLogId() {
+      return logId;
+    }
+
+    void onReady() {
+      ManagedClientTransport.Listener listener;
+      synchronized (lock) {
+        if (shutdownStatus != null) {
+          return;
+        }
+        listener = this.listener;
+      }
+      listener.transportReady();
+    }
+
+    void onShutdown(Status status) {
+      ManagedClientTransport.Listener listener;
+      synchronized (lock) {
+        if (shutdownStatus != null) {
+          return;
+        }
+        shutdownStatus = status;
+        listener = this.listener;
+      }
+      if (listener != null) {
+        listener.transportShutdown(status);
+      }
+      maybeTerminate(false);
+    }
+
+    void onTerminated() {
+      maybeTerminate(true);
+    }
+
+    private void maybeTerminate(boolean sharedTerminated) {
+      ManagedClientTransport.Listener listener;
+      synchronized (lock) {
+        if (terminated || this.listener == null) {
+          return;
+        }
+        if (!sharedTerminated && (shutdownStatus == null || !streams.isEmpty())) {
+          return;
+        }
+        terminated = true;
+        listener = this.listener;
+      }
+      shared.handleTerminated(this);
+      listener.transportTerminated();
+    }
+
+    private void streamStarted(ClientStream stream) {
+      ManagedClientTransport.Listener listener;
+      synchronized (lock) {
+        if (!streams.add(stream) || streams.size() != 1) {
+          return;
+        }
+        listener = this.listener;
+      }
+      listener.transportInUse(true);
+    }
+
+    private void streamClosed(ClientStream stream) {
+      ManagedClientTransport.Listener listener;
+      synchronized (lock) {
+        if (!streams.remove(stream) || !streams.isEmpty()) {
+          return;
+        }
+        listener = this.listener;
+      }
+      listener.transportInUse(false);
+      maybeTerminate(false);
+    }
+
+    @Override
+    public String toString() {
+      return logId + "(" + shared.transport.getLogId() + ")";
+    }
+
+    private final class PooledStream extends ForwardingClientStream {
+      private final ClientStream delegate;
+
+      PooledStream(ClientStream delegate) {
+        this.delegate = delegate;
+      }
+
+      @Override
+      protected ClientStream delegate() {
+        return delegate;
+      }
+
+      @Override
+      public void start(final ClientStreamListener listener) {
+        streamStarted(this);
+        super.start(new ForwardingClientStreamListener() {
+          @Override
+          protected ClientStreamListener delegate() {
+            return listener;
+          }
+
+          @Override
+          public void closed(
+              Status status, RpcProgress rpcProgress, Metadata trailers) {
+            super.closed(status, rpcProgress, trailers);
+            streamClosed(PooledStream.this);
+          }
+        });
+      }
+    }
+  }
+
+  private static final class Key {
+    @Nullable
+    final ChannelCredentials credentials;
+    final Class<?> factoryClass;
+    final Object settings;
+    final SocketAddress address;
+    final ClientTransportFactory.ClientTransportOptions options;
+
+    Key(@Nullable ChannelCredentials credentials, Class<?> factoryClass, Object settings,
+        SocketAddress address, ClientTransportFactory.ClientTransportOptions options) {
+      this.credentials = credentials;
+      this.factoryClass = factoryClass;
+      this.settings = settings;
+      this.address = checkNotNull(address, "address");
+      this.options = checkNotNull(options, "options");
+    }
+
+    @Override
+    @SuppressWarnings("ReferenceEquality") // Credentials don't define equality
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return credentials == that.credentials
+          && factoryClass == that.factoryClass
+          && settings.equals(that.settings)
+          && address.equals(that.address)
+          && options.equals(that.options);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+          System.identityHashCode(credentials), factoryClass, settings, address, options);
+    }
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.perfmark.PerfMark;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import javax.annotation.Nullable;
+
+/**
+ * Records the PerfMark tasks of the gRPC hot paths in a small ring buffer per thread, so that
+ * the last moments before a latency spike can be dumped after the fact without running the
+ * PerfMark implementation.
+ *
+ * <p>Each task costs two {@link System#nanoTime} calls and a few plain stores into memory owned by
+ * the calling thread. Recording is off unless the {@value #ENABLE_PROPERTY} system property is
+ * {@code true}, in which case it is meant to stay on. Each thread keeps its last
+ * {@value #DEFAULT_BUFFER_SIZE} task starts and stops, unless {@value #BUFFER_SIZE_PROPERTY}
+ * says otherwise. The buffer of a thread that ended is kept until the next dump, or until another
+ * thread starts recording.
+ *
+ * <p>Tasks are traced with PerfMark as well, so the PerfMark agent works as before.
+ */
+public final class TraceRecorder {
+  static final String ENABLE_PROPERTY = "io.grpc.internal.TraceRecorder.enable";
+  static final String BUFFER_SIZE_PROPERTY = "io.grpc.internal.TraceRecorder.bufferSize";
+  static final int DEFAULT_BUFFER_SIZE = 2048;
+
+  private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty(ENABLE_PROPERTY));
+  @VisibleForTesting
+  static final int BUFFER_SIZE = Integer.highestOneBit(
+      Math.max(2, Integer.getInteger(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE)));
+
+  private static final ThreadLocal<Buffer> localBuffer = new ThreadLocal<Buffer>() {
+    @Override
+    protected Buffer initialValue() {
+      // Threads come and go in pools, while the events may never be dumped
+      for (Iterator<Buffer> it = buffers.iterator(); it.hasNext(); ) {
+        if (!it.next().isAlive()) {
+          it.remove();
+        }
+      }
+      Buffer buffer = new Buffer(Thread.currentThread(), BUFFER_SIZE);
+      buffers.add(buffer);
+      return buffer;
+    }
+  };
+  private static final ConcurrentLinkedQueue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+  private static final Task TASK = new Task();
+
+  private TraceRecorder() {}
+
+  /** Returns whether tasks are recorded. */
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  /**
+   * Starts a task, like {@link PerfMark#traceTask(String)}. The task ends when the returned
+   * {@link Task} is closed.
+   */
+  public static Task traceTask(String taskName) {
+    PerfMark.startTask(taskName);
+    if (ENABLED) {
+      record(taskName);
+    }
+    return TASK;
+  }
+
+  @VisibleForTesting
+  static void record(@Nullable String taskName) {
+    localBuffer.get().record(taskName, System.nanoTime());
+  }
+
+  /**
+   * Returns the recorded task starts and stops of all threads from the last {@code duration},
+   * sorted by time. Tasks still running on other threads may or may not be included.
+   */
+  public static List<Event> getEvents(long duration, TimeUnit unit) {
+    return getEventsSince(System.nanoTime() - unit.toNanos(duration));
+  }
+
+  /**
+   * Writes the events of the last {@code duration} in the Trace Event Format, as JSON that can be
+   * loaded into trace viewers such as {@code chrome://tracing}.
+   */
+  public static void writeTraceEvents(Appendable out, long duration, TimeUnit unit)
+      throws IOException {
+    out.append("{\"traceEvents\":[");
+    boolean first = true;
+    for (Event event : getEvents(duration, unit)) {
+      if (!first) {
+        out.append(',');
+      }
+      first = false;
+      out.append("{\"ph\":\"").append(event.taskName != null ? 'B' : 'E').append('"');
+      if (event.taskName != null) {
+        out.append(",\"name\":\"");
+        appendEscaped(out, event.taskName);
+        out.append('"');
+      }
+      long micros = TimeUnit.NANOSECONDS.toMicros(event.nanoTime);
+      out.append(",\"pid\":1,\"tid\":").append(String.valueOf(event.threadId))
+          .append(",\"ts\":").append(String.valueOf(micros))
+          .append('}');
+    }
+    out.append("]}");
+  }
+
+  @VisibleForTesting
+  static int bufferCount() {
+    return buffers.size();
+  }
+
+  @VisibleForTesting
+  static List<Event> getEventsSince(long sinceNanos) {
+    List<Event> events = new ArrayList<>();
+    for (Iterator<Buffer> it = buffers.iterator(); it.hasNext(); ) {
+      Buffer buffer = it.next();
+      Thread thread = buffer.thread.get();
+      buffer.addEventsSince(sinceNanos, thread, events);
+      if (thread == null || !thread.isAlive()) {
+        // Nothing records into the buffer any longer
+        it.remove();
+      }
+    }
+    Collections.sort(events, (e1, e2) -> Long.compare(e1.nanoTime, e2.nanoTime));
+    return events;
+  }
+
+  private static void appendEscaped(Appendable out, String value) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c < 0x20) {
+        out.append(String.format("\\u%04x", (int) c));
+      } else {
+        out.append(c);
+      }
+    }
+  }
+
+  /** Ends the task started by {@link #traceTask}. */
+  public static final class Task implements Closeable {
+    private Task() {}
+
+    @Override
+    public void close() {
+      if (ENABLED) {
+        record(null);
+      }
+      PerfMark.stopTask();
+    }
+  }
+
+  /** The start or the end of a task. */
+  public static final class Event {
+    public final String threadName;
+    public final long threadId;
+    /** The name of the task started, or {@code null} if this ends the innermost running task. */
+    @Nullable
+    public final String taskName;
+    /** The time of the event, in the terms of {@link System#nanoTime}. */
+    public final long nanoTime;
+
+    Event(String threadName, long threadId, @Nullable String taskName, long nanoTime) {
+      this.threadName = threadName;
+      this.threadId = threadId;
+      this.taskName = taskName;
+      this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public String toString() {
+      return threadName + (taskName != null ? " start " + taskName : " stop") + " @" + nanoTime;
+    }
+  }
+
+  /**
+   * A ring buffer written by a single thread and read by any. The writer publishes each entry by
+   * an ordered store of {@link #count}. A reader copies the entries and then discards those the
+   * writer may have overwritten meanwhile.
+   */
+  private static final class Buffer {
+    private static final AtomicLongFieldUpdater<Buffer> countUpdater =
+        AtomicLongFieldUpdater.newUpdater(Buffer.class, "count");
+
+    final WeakReference<Thread> thread;
+    final String threadName;
+    final long threadId;
+    private final int mask;
+    private final String[] taskNames;
+    private final long[] nanoTimes;
+    private volatile long count;
+
+    Buffer(Thread thread, int size) {
+      checkArgument(Integer.bitCount(size) == 1, "size must be a power of 2");
+      this.thread = new WeakReference<>(thread);
+      this.threadName = thread.getName();
+      this.threadId = thread.getId();
+      this.mask = size - 1;
+      this.taskNames = new String[size];
+      this.nanoTimes = new long[size];
+    }
+
+    boolean isAlive() {
+      Thread thread = this.thread.get();
+      return thread != null && thread.isAlive();
+    }
+
+    void record(@Nullable String taskName, long nanoTime) {
+      long index = count;
+      int slot = (int) index & mask;
+      taskNames[slot] = taskName;
+      nanoTimes[slot] = nanoTime;
+      countUpdater.lazySet(this, index + 1);
+    }
+
+    void addEventsSince(long sinceNanos, @Nullable Thread thread, List<Event> events) {
+      long end = count;
+      long start = Math.max(0, end - taskNames.length);
+      String[] names = new String[(int) (end - start)];
+      long[] times = new long[names.length];
+      for (long i = start; i < end; i++) {
+        int slot = (int) i & mask;
+        names[(int) (i - start)] = taskNames[slot];
+        times[(int) (i - start)] = nanoTimes[slot];
+      }
+      // The writer may have overwritten the entries up to one buffer length behind its count,
+      // including the one it may be writing right now
+      long firstValid = Math.max(start, count - taskNames.length + 1);
+      String name = thread != null ? thread.getName() : threadName;
+      for (long i = firstValid; i < end; i++) {
+        long nanoTime = times[(int) (i - start)];
+        if (nanoTime - sinceNanos >= 0) {
+          events.add(new Event(name, threadId, names[(int) (i - start)], nanoTime));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import io.grpc.InternalChannelz.Distribution;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ConcurrentHistogram}. */
+@RunWith(JUnit4.class)
+public class ConcurrentHistogramTest {
+  private final ConcurrentHistogram histogram = new ConcurrentHistogram();
+
+  @Test
+  public void empty() {
+    Distribution distribution = histogram.summarize();
+    assertThat(distribution.count).isEqualTo(0);
+    assertThat(distribution.p50).isEqualTo(0);
+    assertThat(distribution.p99).isEqualTo(0);
+    assertThat(distribution.max).isEqualTo(0);
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    for (long i = 1; i <= 10; i++) {
+      histogram.record(i);
+    }
+    Distribution distribution = histogram.summarize();
+    assertThat(distribution.count).isEqualTo(10);
+    assertThat(distribution.p50).isEqualTo(5);
+    assertThat(distribution.p90).isEqualTo(9);
+    assertThat(distribution.p99).isEqualTo(10);
+    assertThat(distribution.max).isEqualTo(10);
+  }
+
+  @Test
+  public void percentilesWithinRelativeError() {
+    for (long i = 1; i <= 100_000; i++) {
+      histogram.record(i * 1000);
+    }
+    Distribution distribution = histogram.summarize();
+    assertThat(distribution.count).isEqualTo(100_000);
+    assertThat((double) distribution.p50).isWithin(0.125 * 50_000_000).of(50_000_000);
+    assertThat(distribution.p50).isAtLeast(50_000_000);
+    assertThat((double) distribution.p99).isWithin(0.125 * 99_000_000).of(99_000_000);
+    assertThat(distribution.p99).isAtLeast(99_000_000);
+    assertThat(distribution.max).isEqualTo(100_000_000);
+  }
+
+  @Test
+  public void hugeValuesClampedToMax() {
+    histogram.record(1);
+    histogram.record(Long.MAX_VALUE);
+    Distribution distribution = histogram.summarize();
+    assertThat(distribution.p50).isEqualTo(1);
+    assertThat(distribution.p99).isEqualTo(Long.MAX_VALUE);
+    assertThat(distribution.max).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void bucketsCoverEveryValue() {
+    int lastIndex = -1;
+    for (long value = 0; value < (1L << 41); value = value * 2 + 1) {
+      int index = ConcurrentHistogram.bucketIndex(value);
+      assertThat(index).isAtLeast(lastIndex);
+      assertThat(ConcurrentHistogram.bucketUpperBound(index)).isAtLeast(value);
+      lastIndex = index;
+    }
+    assertThat(ConcurrentHistogram.bucketIndex(Long.MAX_VALUE))
+        .isEqualTo(ConcurrentHistogram.BUCKETS - 1);
+  }
+
+  @Test
+  public void negativeValueRejected() {
+    assertThrows(IllegalArgumentException.class, () -> histogram.record(-1));
+  }
+}
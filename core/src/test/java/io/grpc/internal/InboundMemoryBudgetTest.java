@@ -0,0 +1,109 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.InternalChannelz.SocketOptions;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link InboundMemoryBudget}. */
+@RunWith(JUnit4.class)
+public class InboundMemoryBudgetTest {
+  private final InboundMemoryBudget budget = new InboundMemoryBudget(100);
+  private final FakeClock executor = new FakeClock();
+  private final AtomicInteger wakeUps = new AtomicInteger();
+  private final Runnable waiter = new Runnable() {
+    @Override
+    public void run() {
+      wakeUps.incrementAndGet();
+    }
+  };
+
+  @Test
+  public void exhaustedOnlyAboveLimit() {
+    budget.onReceived(100);
+    assertThat(budget.isExhausted()).isFalse();
+    budget.onReceived(1);
+    assertThat(budget.isExhausted()).isTrue();
+    assertThat(budget.getBufferedBytes()).isEqualTo(101);
+
+    budget.onConsumed(1);
+    assertThat(budget.isExhausted()).isFalse();
+  }
+
+  @Test
+  public void waiterRunWhenBudgetAvailable() {
+    budget.onReceived(150);
+    budget.runWhenAvailable(waiter, executor.getScheduledExecutorService());
+    budget.runWhenAvailable(waiter, executor.getScheduledExecutorService());
+    budget.onConsumed(40);
+    assertThat(executor.runDueTasks()).isEqualTo(0);
+
+    budget.onConsumed(10);
+    // Not run by the thread consuming the bytes
+    assertThat(wakeUps.get()).isEqualTo(0);
+    assertThat(executor.runDueTasks()).isEqualTo(2);
+    assertThat(wakeUps.get()).isEqualTo(2);
+
+    // Waiters only run once
+    budget.onConsumed(50);
+    assertThat(executor.runDueTasks()).isEqualTo(0);
+  }
+
+  @Test
+  public void waiterRunImmediatelyWhenNotExhausted() {
+    budget.onReceived(50);
+    budget.runWhenAvailable(waiter, executor.getScheduledExecutorService());
+    assertThat(executor.runDueTasks()).isEqualTo(1);
+    assertThat(wakeUps.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void wakeUpStopsWhenExhaustedAgain() {
+    budget.onReceived(150);
+    budget.runWhenAvailable(new Runnable() {
+      @Override
+      public void run() {
+        budget.onReceived(100);
+      }
+    }, MoreExecutors.directExecutor());
+    budget.runWhenAvailable(waiter, MoreExecutors.directExecutor());
+
+    budget.onConsumed(100);
+    assertThat(wakeUps.get()).isEqualTo(0);
+
+    budget.onConsumed(100);
+    assertThat(wakeUps.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void socketOptions() {
+    budget.onReceived(150);
+    budget.onWithheld(30);
+    SocketOptions.Builder builder = new SocketOptions.Builder();
+    budget.addSocketOptions(builder);
+
+    SocketOptions options = builder.build();
+    assertThat(options.others).containsEntry(InboundMemoryBudget.BUFFERED_BYTES_OPTION, "150");
+    assertThat(options.others).containsEntry(InboundMemoryBudget.WITHHELD_BYTES_OPTION, "30");
+  }
+}
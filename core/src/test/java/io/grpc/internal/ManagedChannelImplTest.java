@@ -76,12 +76,14 @@ import io.grpc.CompositeChannelCredentials;
 import io.grpc.ConnectivityState;
 import io.grpc.ConnectivityStateInfo;
 import io.grpc.Context;
+import io.grpc.Deadline;
 import io.grpc.EquivalentAddressGroup;
 import io.grpc.InsecureChannelCredentials;
 import io.grpc.IntegerMarshaller;
 import io.grpc.InternalChannelz;
 import io.grpc.InternalChannelz.ChannelStats;
 import io.grpc.InternalChannelz.ChannelTrace;
+import io.grpc.InternalChannelz.MethodStats;
 import io.grpc.InternalConfigSelector;
 import io.grpc.InternalInstrumented;
 import io.grpc.LoadBalancer;
@@ -1976,6 +1978,124 @@ public class ManagedChannelImplTest {
         same(SubchannelChannel.NOT_READY_ERROR), any(Metadata.class));
   }
 
+  @Test
+  public void warmUp_connectsFractionOfSubchannels() {
+    createChannel();
+    for (int i = 0; i < 4; i++) {
+      createSubchannelSafely(helper, new EquivalentAddressGroup(new SocketAddress() {}),
+          Attributes.EMPTY, subchannelStateListener);
+    }
+
+    WarmUpStatus warmUpStatus = new WarmUpStatus();
+    channel.warmUp(0.5, warmUpDeadline(), null, MoreExecutors.directExecutor(), warmUpStatus);
+    assertThat(transports).hasSize(2);
+    assertThat(warmUpStatus.status).isNull();
+
+    transports.poll().listener.transportReady();
+    assertThat(warmUpStatus.status).isNull();
+    transports.poll().listener.transportReady();
+    assertThat(warmUpStatus.status).isSameInstanceAs(Status.OK);
+  }
+
+  @Test
+  public void warmUp_waitsForSubchannels() {
+    createChannel();
+    WarmUpStatus warmUpStatus = new WarmUpStatus();
+    channel.warmUp(1, warmUpDeadline(), null, MoreExecutors.directExecutor(), warmUpStatus);
+    assertThat(transports).isEmpty();
+
+    createSubchannelSafely(helper, addressGroup, Attributes.EMPTY, subchannelStateListener);
+    assertThat(transports).hasSize(1);
+    transports.poll().listener.transportReady();
+    assertThat(warmUpStatus.status).isSameInstanceAs(Status.OK);
+  }
+
+  @Test
+  public void warmUp_sendsRpcsOnEachConnection() {
+    createChannel();
+    createSubchannelSafely(helper, addressGroup, Attributes.EMPTY, subchannelStateListener);
+    final List<Channel> connections = new ArrayList<>();
+    final List<Runnable> rpcsDone = new ArrayList<>();
+    WarmUpStatus warmUpStatus = new WarmUpStatus();
+    channel.warmUp(1, warmUpDeadline(), new ManagedChannel.WarmUpRpc() {
+      @Override
+      public void warmUp(Channel connection, Runnable done) {
+        connections.add(connection);
+        rpcsDone.add(done);
+      }
+    }, MoreExecutors.directExecutor(), warmUpStatus);
+    MockClientTransportInfo transportInfo = transports.poll();
+    assertThat(connections).isEmpty();
+
+    transportInfo.listener.transportReady();
+    assertThat(connections).hasSize(1);
+    ClientCall<String, Integer> call = connections.get(0).newCall(method, CallOptions.DEFAULT);
+    call.start(mockCallListener, new Metadata());
+    verify(transportInfo.transport).newStream(
+        same(method), any(Metadata.class), any(CallOptions.class),
+        ArgumentMatchers.<ClientStreamTracer[]>any());
+    assertThat(warmUpStatus.status).isNull();
+
+    rpcsDone.get(0).run();
+    assertThat(warmUpStatus.status).isSameInstanceAs(Status.OK);
+  }
+
+  @Test
+  public void warmUp_failsWhenNoConnectionSucceeds() {
+    createChannel();
+    createSubchannelSafely(helper, addressGroup, Attributes.EMPTY, subchannelStateListener);
+    WarmUpStatus warmUpStatus = new WarmUpStatus();
+    channel.warmUp(1, warmUpDeadline(), null, MoreExecutors.directExecutor(), warmUpStatus);
+
+    transports.poll().listener.transportShutdown(Status.UNAVAILABLE.withDescription("refused"));
+    assertThat(warmUpStatus.status.getCode()).isEqualTo(Status.Code.UNAVAILABLE);
+    assertThat(warmUpStatus.status.getDescription()).isEqualTo("refused");
+  }
+
+  @Test
+  public void warmUp_failsOnShutdown() {
+    createChannel();
+    WarmUpStatus pending = new WarmUpStatus();
+    channel.warmUp(1, warmUpDeadline(), null, MoreExecutors.directExecutor(), pending);
+    channel.shutdown();
+    WarmUpStatus late = new WarmUpStatus();
+    channel.warmUp(1, warmUpDeadline(), null, MoreExecutors.directExecutor(), late);
+
+    assertThat(pending.status.getCode()).isEqualTo(Status.Code.UNAVAILABLE);
+    assertThat(late.status.getCode()).isEqualTo(Status.Code.UNAVAILABLE);
+  }
+
+  @Test
+  public void warmUp_failsOnDeadline() {
+    createChannel();
+    createSubchannelSafely(helper, addressGroup, Attributes.EMPTY, subchannelStateListener);
+    WarmUpStatus warmUpStatus = new WarmUpStatus();
+    channel.warmUp(1, warmUpDeadline(), null, MoreExecutors.directExecutor(), warmUpStatus);
+    MockClientTransportInfo transportInfo = transports.poll();
+
+    timer.forwardTime(59, TimeUnit.SECONDS);
+    assertThat(warmUpStatus.status).isNull();
+    timer.forwardTime(1, TimeUnit.SECONDS);
+    assertThat(warmUpStatus.status.getCode()).isEqualTo(Status.Code.DEADLINE_EXCEEDED);
+
+    // Connecting afterwards doesn't call the listener again.
+    transportInfo.listener.transportReady();
+  }
+
+  private Deadline warmUpDeadline() {
+    return Deadline.after(1, TimeUnit.MINUTES, timer.getDeadlineTicker());
+  }
+
+  private static final class WarmUpStatus implements ManagedChannel.WarmUpListener {
+    Status status;
+
+    @Override
+    public void onComplete(Status status) {
+      assertThat(this.status).isNull();
+      this.status = status;
+    }
+  }
+
   @Test
   public void subchannelChannel_failWaitForReady() {
     createChannel();
@@ -3334,6 +3454,40 @@ public class ManagedChannelImplTest {
     channelsAndSubchannels_oob_instrumented0(true);
   }
 
+  @Test
+  public void channelz_methodStats() throws Exception {
+    channelBuilder.methodMetricsEnabled = true;
+    ClientStream mockStream = mock(ClientStream.class);
+    createChannel();
+    Subchannel subchannel =
+        createSubchannelSafely(helper, addressGroup, Attributes.EMPTY, subchannelStateListener);
+    requestConnectionSafely(helper, subchannel);
+    MockClientTransportInfo transportInfo = transports.poll();
+    transportInfo.listener.transportReady();
+    when(transportInfo.transport.newStream(
+            any(MethodDescriptor.class), any(Metadata.class), any(CallOptions.class),
+            ArgumentMatchers.<ClientStreamTracer[]>any()))
+        .thenReturn(mockStream);
+    when(mockPicker.pickSubchannel(any(PickSubchannelArgs.class))).thenReturn(
+        PickResult.withSubchannel(subchannel));
+    updateBalancingStateSafely(helper, READY, mockPicker);
+    assertThat(getStats(channel).methodStats).isEmpty();
+
+    ClientCall<String, Integer> call = channel.newCall(method, CallOptions.DEFAULT);
+    call.start(mockCallListener, new Metadata());
+    verify(transportInfo.transport).newStream(
+        same(method), any(Metadata.class), any(CallOptions.class), tracersCaptor.capture());
+    ClientStreamTracer tracer = tracersCaptor.getValue()[0];
+    tracer.outboundMessageSent(0, 42, 42);
+    tracer.streamClosed(Status.OK);
+
+    List<MethodStats> methodStats = getStats(channel).methodStats;
+    assertThat(methodStats).hasSize(1);
+    assertEquals(method.getFullMethodName(), methodStats.get(0).fullMethodName);
+    assertEquals(1, methodStats.get(0).callsSucceeded);
+    assertEquals(42, methodStats.get(0).sentMessageBytes.max);
+  }
+
   @Test
   public void channelsAndSubchannels_oob_instrumented_fail() throws Exception {
     channelsAndSubchannels_oob_instrumented0(false);
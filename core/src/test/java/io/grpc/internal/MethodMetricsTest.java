@@ -0,0 +1,117 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.InternalChannelz.MethodStats;
+import io.grpc.Metadata;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MethodMetrics}. */
+@RunWith(JUnit4.class)
+public class MethodMetricsTest {
+  private static final ClientStreamTracer.StreamInfo STREAM_INFO =
+      ClientStreamTracer.StreamInfo.newBuilder().build();
+
+  private final FakeClock fakeClock = new FakeClock();
+  private final MethodMetrics methodMetrics = new MethodMetrics(fakeClock.getTicker());
+
+  @Test
+  public void clientCalls() {
+    ClientStreamTracer.Factory factory = methodMetrics.getClientTracerFactory("service/method");
+    assertThat(methodMetrics.getClientTracerFactory("service/method")).isSameInstanceAs(factory);
+
+    ClientStreamTracer tracer = factory.newClientStreamTracer(STREAM_INFO, new Metadata());
+    tracer.outboundMessageSent(0, 10, 20);
+    tracer.inboundMessageRead(0, 100, 200);
+    tracer.inboundMessageRead(1, -1, -1);
+    fakeClock.forwardTime(5, TimeUnit.MILLISECONDS);
+    tracer.streamClosed(Status.OK);
+    factory.newClientStreamTracer(STREAM_INFO, new Metadata())
+        .streamClosed(Status.UNAVAILABLE);
+
+    List<MethodStats> stats = methodMetrics.getMethodStats();
+    assertThat(stats).hasSize(1);
+    MethodStats methodStats = stats.get(0);
+    assertThat(methodStats.fullMethodName).isEqualTo("service/method");
+    assertThat(methodStats.callsStarted).isEqualTo(2);
+    assertThat(methodStats.callsSucceeded).isEqualTo(1);
+    assertThat(methodStats.callsFailed).isEqualTo(1);
+    assertThat(methodStats.latencyNanos.count).isEqualTo(2);
+    assertThat(methodStats.latencyNanos.p50).isEqualTo(0);
+    assertThat(methodStats.latencyNanos.max).isEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+    assertThat(methodStats.sentMessageBytes.count).isEqualTo(1);
+    assertThat(methodStats.sentMessageBytes.max).isEqualTo(10);
+    assertThat(methodStats.receivedMessageBytes.count).isEqualTo(1);
+    assertThat(methodStats.receivedMessageBytes.max).isEqualTo(100);
+  }
+
+  @Test
+  public void serverCalls() {
+    ServerStreamTracer.Factory factory = methodMetrics.getServerTracerFactory();
+    ServerStreamTracer tracer1 = factory.newServerStreamTracer("service/b", new Metadata());
+    ServerStreamTracer tracer2 = factory.newServerStreamTracer("service/a", new Metadata());
+    tracer1.inboundMessageRead(0, 7, 7);
+    tracer1.outboundMessageSent(0, 9, 9);
+    fakeClock.forwardTime(1, TimeUnit.SECONDS);
+    tracer1.streamClosed(Status.CANCELLED);
+
+    List<MethodStats> stats = methodMetrics.getMethodStats();
+    assertThat(stats).hasSize(2);
+    assertThat(stats.get(0).fullMethodName).isEqualTo("service/a");
+    assertThat(stats.get(0).callsStarted).isEqualTo(1);
+    assertThat(stats.get(0).latencyNanos.count).isEqualTo(0);
+    MethodStats methodStats = stats.get(1);
+    assertThat(methodStats.fullMethodName).isEqualTo("service/b");
+    assertThat(methodStats.callsFailed).isEqualTo(1);
+    assertThat(methodStats.latencyNanos.max).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    assertThat(methodStats.receivedMessageBytes.max).isEqualTo(7);
+    assertThat(methodStats.sentMessageBytes.max).isEqualTo(9);
+
+    tracer2.streamClosed(Status.OK);
+    assertThat(methodMetrics.getMethodStats().get(0).callsSucceeded).isEqualTo(1);
+  }
+
+  @Test
+  public void methodsBeyondLimitAccumulatedAsOther() {
+    ServerStreamTracer.Factory factory = methodMetrics.getServerTracerFactory();
+    for (int i = 0; i < MethodMetrics.MAX_METHODS; i++) {
+      factory.newServerStreamTracer("service/method" + i, new Metadata());
+    }
+    assertThat(methodMetrics.getMethodStats()).hasSize(MethodMetrics.MAX_METHODS);
+
+    factory.newServerStreamTracer("service/unknown1", new Metadata());
+    factory.newServerStreamTracer("service/unknown2", new Metadata());
+    factory.newServerStreamTracer("service/method0", new Metadata());
+
+    List<MethodStats> stats = methodMetrics.getMethodStats();
+    assertThat(stats).hasSize(MethodMetrics.MAX_METHODS + 1);
+    MethodStats other = stats.get(0);
+    assertThat(other.fullMethodName).isEqualTo(MethodMetrics.OTHER_METHODS);
+    assertThat(other.callsStarted).isEqualTo(2);
+    assertThat(stats.get(1).fullMethodName).isEqualTo("service/method0");
+    assertThat(stats.get(1).callsStarted).isEqualTo(2);
+  }
+}
@@ -56,6 +56,7 @@ import io.grpc.Grpc;
 import io.grpc.HandlerRegistry;
 import io.grpc.IntegerMarshaller;
 import io.grpc.InternalChannelz;
+import io.grpc.InternalChannelz.MethodStats;
 import io.grpc.InternalChannelz.ServerSocketsList;
 import io.grpc.InternalChannelz.SocketStats;
 import io.grpc.InternalInstrumented;
@@ -1511,6 +1512,28 @@ public class ServerImplTest {
     assertEquals(1, server.getStats().get().callsSucceeded);
   }
 
+  @Test
+  public void channelz_methodStats() throws Exception {
+    MethodMetrics methodMetrics = new MethodMetrics(timer.getTicker());
+    builder.fallbackHandlerRegistry(fallbackRegistry);
+    builder.executorPool = executorPool;
+    server = new ServerImpl(builder, transportServer, SERVER_CONTEXT, methodMetrics);
+    assertThat(server.getStats().get().methodStats).isEmpty();
+
+    StatsTraceContext statsTraceCtx = StatsTraceContext.newServerContext(
+        Arrays.asList(methodMetrics.getServerTracerFactory()), "Waiter/serve", new Metadata());
+    statsTraceCtx.inboundMessageRead(0, 10, 10);
+    timer.forwardNanos(100);
+    statsTraceCtx.streamClosed(Status.OK);
+
+    List<MethodStats> methodStats = server.getStats().get().methodStats;
+    assertThat(methodStats).hasSize(1);
+    assertEquals("Waiter/serve", methodStats.get(0).fullMethodName);
+    assertEquals(1, methodStats.get(0).callsSucceeded);
+    assertEquals(100, methodStats.get(0).latencyNanos.max);
+    assertEquals(10, methodStats.get(0).receivedMessageBytes.max);
+  }
+
   @Test
   public void channelz_transport_membershp() throws Exception {
     createAndStartServer();
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.grpc.CallOptions;
+import io.grpc.ChannelCredentials;
+import io.grpc.ChannelLogger;
+import io.grpc.ClientStreamTracer;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.TlsChannelCredentials;
+import io.grpc.internal.ClientTransportFactory.ClientTransportOptions;
+import io.grpc.internal.TestUtils.MockClientTransportInfo;
+import io.grpc.testing.TestMethodDescriptors;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.BlockingQueue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+/**
+ * Unit tests for {@link SharedTransportPool}.
+ */
+@RunWith(JUnit4.class)
+public class SharedTransportPoolTest {
+  private static final SocketAddress ADDRESS = InetSocketAddress.createUnresolved("server", 443);
+  private static final ClientTransportOptions OPTIONS =
+      new ClientTransportOptions().setAuthority("server:443");
+
+  @Rule
+  public final MockitoRule mocks = MockitoJUnit.rule();
+
+  @Mock
+  private ClientTransportFactory delegateFactory1;
+  @Mock
+  private ClientTransportFactory delegateFactory2;
+  @Mock
+  private ManagedClientTransport.Listener listener1;
+  @Mock
+  private ManagedClientTransport.Listener listener2;
+  @Mock
+  private ClientStreamListener streamListener;
+
+  private final SharedTransportPool pool = new SharedTransportPool();
+  private final ChannelCredentials credentials = TlsChannelCredentials.create();
+  private final ChannelLogger channelLogger = mock(ChannelLogger.class);
+  private BlockingQueue<MockClientTransportInfo> transports1;
+  private BlockingQueue<MockClientTransportInfo> transports2;
+  private ClientTransportFactory factory1;
+  private ClientTransportFactory factory2;
+
+  @Before
+  public void setUp() {
+    transports1 = TestUtils.captureTransports(delegateFactory1);
+    transports2 = TestUtils.captureTransports(delegateFactory2);
+    when(delegateFactory1.getTransportSettingsKey()).thenReturn("settings");
+    when(delegateFactory2.getTransportSettingsKey()).thenReturn("settings");
+    factory1 = pool.newTransportFactory(delegateFactory1, credentials);
+    factory2 = pool.newTransportFactory(delegateFactory2, credentials);
+  }
+
+  @Test
+  public void channelsShareTransport() {
+    ConnectionClientTransport handle1 = newTransport(factory1, listener1);
+    ConnectionClientTransport handle2 = newTransport(factory2, listener2);
+
+    assertThat(transports1).hasSize(1);
+    assertThat(transports2).isEmpty();
+    assertThat(pool.transportCount()).isEqualTo(1);
+    assertThat(handle1.getLogId()).isNotEqualTo(handle2.getLogId());
+
+    transports1.peek().listener.transportReady();
+    verify(listener1).transportReady();
+    verify(listener2).transportReady();
+
+    // A subchannel that connects later attaches to the ready transport.
+    ManagedClientTransport.Listener listener3 = mock(ManagedClientTransport.Listener.class);
+    newTransport(factory2, listener3);
+    verify(listener3).transportReady();
+    assertThat(transports1).hasSize(1);
+  }
+
+  @Test
+  public void differentCredentials_notShared() {
+    ClientTransportFactory otherFactory =
+        pool.newTransportFactory(delegateFactory2, TlsChannelCredentials.create());
+    newTransport(factory1, listener1);
+    newTransport(otherFactory, listener2);
+
+    assertThat(transports1).hasSize(1);
+    assertThat(transports2).hasSize(1);
+  }
+
+  @Test
+  public void insecureCredentials_shared() {
+    ClientTransportFactory insecureFactory1 =
+        pool.newTransportFactory(delegateFactory1, InsecureChannelCredentials.create());
+    ClientTransportFactory insecureFactory2 =
+        pool.newTransportFactory(delegateFactory2, InsecureChannelCredentials.create());
+    newTransport(insecureFactory1, listener1);
+    newTransport(insecureFactory2, listener2);
+
+    assertThat(transports1).hasSize(1);
+    assertThat(transports2).isEmpty();
+  }
+
+  @Test
+  public void noCredentials_shared() {
+    ClientTransportFactory plainFactory1 = pool.newTransportFactory(delegateFactory1, null);
+    ClientTransportFactory plainFactory2 = pool.newTransportFactory(delegateFactory2, null);
+    newTransport(plainFactory1, listener1);
+    newTransport(plainFactory2, listener2);
+
+    assertThat(transports1).hasSize(1);
+    assertThat(transports2).isEmpty();
+  }
+
+  @Test
+  public void differentSettings_notShared() {
+    when(delegateFactory2.getTransportSettingsKey()).thenReturn("other settings");
+    ClientTransportFactory otherFactory = pool.newTransportFactory(delegateFactory2, credentials);
+    newTransport(factory1, listener1);
+    newTransport(otherFactory, listener2);
+
+    assertThat(transports1).hasSize(1);
+    assertThat(transports2).hasSize(1);
+  }
+
+  @Test
+  public void noSettings_notPooled() {
+    when(delegateFactory2.getTransportSettingsKey()).thenReturn(null);
+
+    assertThat(pool.newTransportFactory(delegateFactory2, credentials))
+        .isSameInstanceAs(delegateFactory2);
+  }
+
+  @Test
+  public void differentOptions_notShared() {
+    newTransport(factory1, listener1);
+    ConnectionClientTransport handle =
+        factory2.newClientTransport(ADDRESS, new ClientTransportOptions(), channelLogger);
+    runIfNotNull(handle.start(listener2));
+
+    assertThat(transports1).hasSize(1);
+    assertThat(transports2).hasSize(1);
+  }
+
+  @Test
+  public void sharedTransportShutDownByLastHandle() {
+    ConnectionClientTransport handle1 = newTransport(factory1, listener1);
+    ConnectionClientTransport handle2 = newTransport(factory2, listener2);
+    MockClientTransportInfo info = transports1.poll();
+
+    handle1.shutdown(Status.UNAVAILABLE);
+    verify(listener1).transportShutdown(Status.UNAVAILABLE);
+    verify(listener1).transportTerminated();
+    verify(info.transport, never()).shutdown(any(Status.class));
+    assertThat(pool.transportCount()).isEqualTo(1);
+
+    handle2.shutdown(Status.UNAVAILABLE);
+    verify(listener2).transportShutdown(Status.UNAVAILABLE);
+    verify(info.transport).shutdown(Status.UNAVAILABLE);
+    assertThat(pool.transportCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void terminatedHandleReleasedBySharedTransport() {
+    ConnectionClientTransport handle1 = newTransport(factory1, listener1);
+    newTransport(factory2, listener2);
+    MockClientTransportInfo info = transports1.poll();
+    assertThat(pool.startedHandleCount()).isEqualTo(2);
+
+    handle1.shutdown(Status.UNAVAILABLE);
+    verify(listener1).transportTerminated();
+    assertThat(pool.startedHandleCount()).isEqualTo(1);
+
+    // The shared transport's events only reach the handle still in use.
+    info.listener.transportReady();
+    verify(listener1, never()).transportReady();
+    verify(listener2).transportReady();
+  }
+
+  @Test
+  public void handleTerminatesOnceItsStreamsClose() {
+    ConnectionClientTransport handle1 = newTransport(factory1, listener1);
+    newTransport(factory2, listener2);
+    MockClientTransportInfo info = transports1.poll();
+
+    ClientStream stream = handle1.newStream(
+        TestMethodDescriptors.voidMethod(), new Metadata(), CallOptions.DEFAULT,
+        new ClientStreamTracer[0]);
+    stream.start(streamListener);
+    verify(listener1).transportInUse(true);
+    verify(listener2, never()).transportInUse(true);
+    ArgumentCaptor<ClientStreamListener> streamListenerCaptor =
+        ArgumentCaptor.forClass(ClientStreamListener.class);
+    ClientStream delegateStream = info.transport.newStream(
+        TestMethodDescriptors.voidMethod(), new Metadata(), CallOptions.DEFAULT,
+        new ClientStreamTracer[0]);
+    verify(delegateStream).start(streamListenerCaptor.capture());
+
+    handle1.shutdown(Status.UNAVAILABLE);
+    verify(listener1, never()).transportTerminated();
+
+    // New streams fail once the handle is shut down.
+    ClientStream failed = handle1.newStream(
+        TestMethodDescriptors.voidMethod(), new Metadata(), CallOptions.DEFAULT,
+        new ClientStreamTracer[0]);
+    assertThat(failed).isInstanceOf(FailingClientStream.class);
+
+    streamListenerCaptor.getValue().closed(
+        Status.OK, ClientStreamListener.RpcProgress.PROCESSED, new Metadata());
+    verify(streamListener).closed(
+        same(Status.OK), same(ClientStreamListener.RpcProgress.PROCESSED), any(Metadata.class));
+    verify(listener1).transportInUse(false);
+    verify(listener1).transportTerminated();
+  }
+
+  @Test
+  public void transportShutDownByServer_removedFromPool() {
+    newTransport(factory1, listener1);
+    newTransport(factory2, listener2);
+    MockClientTransportInfo info = transports1.poll();
+
+    info.listener.transportShutdown(Status.UNAVAILABLE);
+    verify(listener1).transportShutdown(Status.UNAVAILABLE);
+    verify(listener2).transportShutdown(Status.UNAVAILABLE);
+    assertThat(pool.transportCount()).isEqualTo(0);
+
+    // New subchannels get a new transport.
+    newTransport(factory2, mock(ManagedClientTransport.Listener.class));
+    assertThat(transports2).hasSize(1);
+
+    info.listener.transportTerminated();
+    verify(listener1).transportTerminated();
+    verify(listener2).transportTerminated();
+  }
+
+  @Test
+  public void factoryClosedAfterItsTransportsTerminate() {
+    ConnectionClientTransport handle1 = newTransport(factory1, listener1);
+    newTransport(factory2, listener2);
+    MockClientTransportInfo info = transports1.poll();
+
+    // The channel that created the shared transport goes away first.
+    handle1.shutdown(Status.UNAVAILABLE);
+    factory1.close();
+    verify(delegateFactory1, never()).close();
+
+    info.listener.transportShutdown(Status.UNAVAILABLE);
+    info.listener.transportTerminated();
+    verify(delegateFactory1, times(1)).close();
+
+    factory2.close();
+    verify(delegateFactory2).close();
+  }
+
+  private ConnectionClientTransport newTransport(
+      ClientTransportFactory factory, ManagedClientTransport.Listener listener) {
+    ConnectionClientTransport transport =
+        factory.newClientTransport(ADDRESS, OPTIONS, channelLogger);
+    runIfNotNull(transport.start(listener));
+    return transport;
+  }
+
+  private static void runIfNotNull(Runnable runnable) {
+    if (runnable != null) {
+      runnable.run();
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.grpc.internal.TraceRecorder.Event;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link TraceRecorder}. */
+@RunWith(JUnit4.class)
+public class TraceRecorderTest {
+
+  @Test
+  public void recordsTasksOfEachThread() throws Exception {
+    runInThread("recorder-1", new Runnable() {
+      @Override
+      public void run() {
+        TraceRecorder.record("outer");
+        TraceRecorder.record("inner");
+        TraceRecorder.record(null);
+        TraceRecorder.record(null);
+      }
+    });
+
+    List<Event> events = eventsOf("recorder-1");
+    assertThat(events).hasSize(4);
+    assertThat(events.get(0).taskName).isEqualTo("outer");
+    assertThat(events.get(1).taskName).isEqualTo("inner");
+    assertThat(events.get(2).taskName).isNull();
+    assertThat(events.get(3).taskName).isNull();
+    for (int i = 1; i < events.size(); i++) {
+      assertThat(events.get(i).nanoTime).isAtLeast(events.get(i - 1).nanoTime);
+    }
+  }
+
+  @Test
+  public void keepsOnlyLatestEvents() throws Exception {
+    runInThread("recorder-2", new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < TraceRecorder.BUFFER_SIZE + 10; i++) {
+          TraceRecorder.record("task" + i);
+        }
+      }
+    });
+
+    List<Event> events = eventsOf("recorder-2");
+    // The oldest entry is skipped as the writer could be overwriting it
+    assertThat(events).hasSize(TraceRecorder.BUFFER_SIZE - 1);
+    assertThat(events.get(events.size() - 1).taskName)
+        .isEqualTo("task" + (TraceRecorder.BUFFER_SIZE + 9));
+  }
+
+  @Test
+  public void buffersOfEndedThreadsDroppedAfterDump() throws Exception {
+    runInThread("recorder-3", new Runnable() {
+      @Override
+      public void run() {
+        TraceRecorder.record("task");
+      }
+    });
+
+    assertThat(eventsOf("recorder-3")).hasSize(1);
+    assertThat(eventsOf("recorder-3")).isEmpty();
+  }
+
+  @Test
+  public void buffersOfEndedThreadsDroppedWithoutDump() throws Exception {
+    int buffers = TraceRecorder.bufferCount();
+    for (int i = 0; i < 100; i++) {
+      runInThread("churned-" + i, new Runnable() {
+        @Override
+        public void run() {
+          TraceRecorder.record("task");
+        }
+      });
+    }
+
+    // Only the buffer of the last thread is left, until another thread records
+    assertThat(TraceRecorder.bufferCount()).isAtMost(buffers + 1);
+  }
+
+  @Test
+  public void oldEventsExcluded() {
+    long sinceNanos = System.nanoTime() + TimeUnit.HOURS.toNanos(1);
+    TraceRecorder.record("task");
+    TraceRecorder.record(null);
+
+    String threadName = Thread.currentThread().getName();
+    for (Event event : TraceRecorder.getEventsSince(sinceNanos)) {
+      assertThat(event.threadName).isNotEqualTo(threadName);
+    }
+  }
+
+  @Test
+  public void writeTraceEvents() throws Exception {
+    runInThread("recorder-4", new Runnable() {
+      @Override
+      public void run() {
+        TraceRecorder.record("say \"hi\"");
+        TraceRecorder.record(null);
+      }
+    });
+
+    StringBuilder json = new StringBuilder();
+    TraceRecorder.writeTraceEvents(json, 1, TimeUnit.MINUTES);
+    assertThat(json.toString()).startsWith("{\"traceEvents\":[");
+    assertThat(json.toString()).endsWith("]}");
+    assertThat(json.toString()).contains("{\"ph\":\"B\",\"name\":\"say \\\"hi\\\"\",\"pid\":1");
+    assertThat(json.toString()).contains("{\"ph\":\"E\",\"pid\":1");
+  }
+
+  private static void runInThread(String name, Runnable runnable) throws InterruptedException {
+    Thread thread = new Thread(runnable, name);
+    thread.start();
+    thread.join();
+  }
+
+  private static List<Event> eventsOf(String threadName) {
+    List<Event> events = new ArrayList<>();
+    for (Event event : TraceRecorder.getEvents(1, TimeUnit.MINUTES)) {
+      if (event.threadName.equals(threadName)) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+}
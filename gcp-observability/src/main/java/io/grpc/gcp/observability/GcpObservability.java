@@ -33,6 +33,7 @@ import io.grpc.gcp.observability.interceptors.ConfigFilterHelper;
 import io.grpc.gcp.observability.interceptors.InternalLoggingChannelInterceptor;
 import io.grpc.gcp.observability.interceptors.InternalLoggingServerInterceptor;
 import io.grpc.gcp.observability.interceptors.LogHelper;
+import io.grpc.gcp.observability.logging.BatchingLogSink;
 import io.grpc.gcp.observability.logging.GcpLogSink;
 import io.grpc.gcp.observability.logging.Sink;
 import io.grpc.gcp.observability.logging.TraceLoggingHelper;
@@ -91,9 +92,11 @@ public final class GcpObservability implements AutoCloseable {
       ObservabilityConfigImpl observabilityConfig = ObservabilityConfigImpl.getInstance();
       TraceLoggingHelper traceLoggingHelper = new TraceLoggingHelper(
           observabilityConfig.getProjectId());
-      Sink sink = new GcpLogSink(observabilityConfig.getProjectId(), observabilityConfig,
-          SERVICES_TO_EXCLUDE, traceLoggingHelper);
-      LogHelper helper = new LogHelper(sink);
+      Sink sink = new BatchingLogSink(
+          new GcpLogSink(observabilityConfig.getProjectId(), observabilityConfig,
+              SERVICES_TO_EXCLUDE, traceLoggingHelper),
+          observabilityConfig.getLogBufferConfig());
+      LogHelper helper = new LogHelper(sink, true);
       ConfigFilterHelper configFilterHelper = ConfigFilterHelper.getInstance(observabilityConfig);
       instance = grpcInit(sink, observabilityConfig,
           new InternalLoggingChannelInterceptor.FactoryImpl(helper, configFilterHelper),
@@ -21,6 +21,7 @@ import io.opencensus.trace.Sampler;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.concurrent.ThreadSafe;
 
 @Internal
@@ -49,6 +50,9 @@ public interface ObservabilityConfig {
   /** Map of all custom tags used for logging, metrics and traces. */
   Map<String, String> getCustomTags();
 
+  /** Get the buffering of log entries waiting to be written to Cloud Logging. */
+  LogBufferConfig getLogBufferConfig();
+
   /**
    * POJO for representing a filter used in configuration.
    */
@@ -72,6 +76,9 @@ public interface ObservabilityConfig {
     /** Boolean to indicate if services and methods matching pattern needs to be excluded. */
     public final boolean excludePattern;
 
+    /** Fraction of the matching calls to log, decided when each call starts. */
+    public final double samplingRate;
+
     /**
      * Object used to represent filter used in configuration.
      * @param services Set of services derived from pattern
@@ -84,12 +91,75 @@ public interface ObservabilityConfig {
     public LogFilter(Set<String> services, Set<String> serviceMethods, boolean matchAll,
         int headerBytes, int messageBytes,
         boolean excludePattern) {
+      this(services, serviceMethods, matchAll, headerBytes, messageBytes, excludePattern, 1.0);
+    }
+
+    /**
+     * Object used to represent filter used in configuration.
+     * @param services Set of services derived from pattern
+     * @param serviceMethods Set of fullMethodNames derived from pattern
+     * @param matchAll If true, match all services and methods
+     * @param headerBytes Total number of bytes of header to log
+     * @param messageBytes Total number of bytes of  message to log
+     * @param excludePattern If true, services and methods matching pattern be excluded
+     * @param samplingRate Fraction of the matching calls to log, between 0.0 and 1.0
+     */
+    public LogFilter(Set<String> services, Set<String> serviceMethods, boolean matchAll,
+        int headerBytes, int messageBytes,
+        boolean excludePattern, double samplingRate) {
       this.services = services;
       this.methods = serviceMethods;
       this.matchAll = matchAll;
       this.headerBytes = headerBytes;
       this.messageBytes = messageBytes;
       this.excludePattern = excludePattern;
+      this.samplingRate = samplingRate;
+    }
+  }
+
+  /**
+   * POJO for representing the buffering of log entries used in configuration.
+   */
+  @ThreadSafe
+  class LogBufferConfig {
+    public static final LogBufferConfig DEFAULT = new LogBufferConfig(
+        10000, 1000, TimeUnit.SECONDS.toNanos(1), OverflowPolicy.DROP_NEWEST);
+
+    /** What to do with a log entry when the buffer is full. */
+    public enum OverflowPolicy {
+      /** Drop the new entry. */
+      DROP_NEWEST,
+      /** Drop the oldest entry in the buffer to make room. */
+      DROP_OLDEST,
+      /** Block the RPC until there is room. */
+      BLOCK
+    }
+
+    /** Number of log entries the buffer holds. */
+    public final int maxEntries;
+
+    /** Number of log entries after which they are flushed. */
+    public final int maxBatchEntries;
+
+    /** Time after which buffered log entries are flushed, in nanoseconds. */
+    public final long flushIntervalNanos;
+
+    /** What to do with log entries when the buffer is full. */
+    public final OverflowPolicy overflowPolicy;
+
+    /**
+     * Object used to represent the buffering used in configuration.
+     * @param maxEntries Number of log entries the buffer holds
+     * @param maxBatchEntries Number of log entries after which they are flushed
+     * @param flushIntervalNanos Time after which buffered log entries are flushed
+     * @param overflowPolicy What to do with log entries when the buffer is full
+     */
+    public LogBufferConfig(int maxEntries, int maxBatchEntries, long flushIntervalNanos,
+        OverflowPolicy overflowPolicy) {
+      this.maxEntries = maxEntries;
+      this.maxBatchEntries = maxBatchEntries;
+      this.flushIntervalNanos = flushIntervalNanos;
+      this.overflowPolicy = overflowPolicy;
     }
   }
 }
@@ -32,6 +32,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -61,6 +62,7 @@ final class ObservabilityConfigImpl implements ObservabilityConfig {
   private List<LogFilter> serverLogFilters;
   private Sampler sampler;
   private Map<String, String> customTags;
+  private LogBufferConfig logBufferConfig = LogBufferConfig.DEFAULT;
 
   static ObservabilityConfigImpl getInstance() throws IOException {
     ObservabilityConfigImpl config = new ObservabilityConfigImpl();
@@ -104,6 +106,10 @@ final class ObservabilityConfigImpl implements ObservabilityConfig {
       parseLoggingObject(rawCloudLoggingObject, clientFiltersBuilder, serverFiltersBuilder);
       clientLogFilters = clientFiltersBuilder.build();
       serverLogFilters = serverFiltersBuilder.build();
+      Map<String, ?> rawLogBufferObject = JsonUtil.getObject(rawCloudLoggingObject, "buffer");
+      if (rawLogBufferObject != null) {
+        logBufferConfig = parseLogBufferObject(rawLogBufferObject);
+      }
     }
 
     Map<String, ?> rawCloudMonitoringObject = JsonUtil.getObject(config, "cloud_monitoring");
@@ -153,6 +159,33 @@ final class ObservabilityConfigImpl implements ObservabilityConfig {
     parseRpcEvents(JsonUtil.getList(rawLoggingConfig, "server_rpc_events"), serverFilters);
   }
 
+  private static LogBufferConfig parseLogBufferObject(Map<String, ?> rawLogBufferConfig) {
+    LogBufferConfig defaults = LogBufferConfig.DEFAULT;
+    Integer maxEntries = JsonUtil.getNumberAsInteger(rawLogBufferConfig, "max_entries");
+    checkArgument(maxEntries == null || maxEntries > 0, "'max_entries' needs to be positive");
+    Integer maxBatchEntries =
+        JsonUtil.getNumberAsInteger(rawLogBufferConfig, "max_batch_entries");
+    checkArgument(maxBatchEntries == null || maxBatchEntries > 0,
+        "'max_batch_entries' needs to be positive");
+    Long flushIntervalNanos = JsonUtil.getStringAsDuration(rawLogBufferConfig, "flush_interval");
+    checkArgument(flushIntervalNanos == null || flushIntervalNanos > 0,
+        "'flush_interval' needs to be positive");
+    String overflowPolicy = JsonUtil.getString(rawLogBufferConfig, "overflow_policy");
+    LogBufferConfig.OverflowPolicy policy = defaults.overflowPolicy;
+    if (overflowPolicy != null) {
+      try {
+        policy = LogBufferConfig.OverflowPolicy.valueOf(overflowPolicy.toUpperCase(Locale.US));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("invalid 'overflow_policy' : " + overflowPolicy, e);
+      }
+    }
+    return new LogBufferConfig(
+        maxEntries != null ? maxEntries : defaults.maxEntries,
+        maxBatchEntries != null ? maxBatchEntries : defaults.maxBatchEntries,
+        flushIntervalNanos != null ? flushIntervalNanos : defaults.flushIntervalNanos,
+        policy);
+  }
+
   private static Sampler parseTracingObject(Map<String, ?> rawCloudTracingConfig) {
     Sampler defaultSampler = Samplers.probabilitySampler(0.0);
     Double samplingRate = JsonUtil.getNumberAsDouble(rawCloudTracingConfig, "sampling_rate");
@@ -203,6 +236,9 @@ final class ObservabilityConfigImpl implements ObservabilityConfig {
     }
     Integer maxHeaderBytes = JsonUtil.getNumberAsInteger(logFilterMap, "max_metadata_bytes");
     Integer maxMessageBytes = JsonUtil.getNumberAsInteger(logFilterMap, "max_message_bytes");
+    Double samplingRate = JsonUtil.getNumberAsDouble(logFilterMap, "sampling_rate");
+    checkArgument(samplingRate == null || (samplingRate >= 0.0 && samplingRate <= 1.0),
+        "'sampling_rate' needs to be between [0.0, 1.0]");
 
     return new LogFilter(
         servicesSetBuilder.build(),
@@ -210,7 +246,8 @@ final class ObservabilityConfigImpl implements ObservabilityConfig {
         wildCardFilter,
         maxHeaderBytes != null ? maxHeaderBytes.intValue() : 0,
         maxMessageBytes != null ? maxMessageBytes.intValue() : 0,
-        excludeFilter);
+        excludeFilter,
+        samplingRate != null ? samplingRate.doubleValue() : 1.0);
   }
 
   private static boolean extractMethodOrServicePattern(List<String> patternList, boolean exclude,
@@ -273,4 +310,9 @@ final class ObservabilityConfigImpl implements ObservabilityConfig {
   public Map<String, String> getCustomTags() {
     return customTags;
   }
+
+  @Override
+  public LogBufferConfig getLogBufferConfig() {
+    return logBufferConfig;
+  }
 }
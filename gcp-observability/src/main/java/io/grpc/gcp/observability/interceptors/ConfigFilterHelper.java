@@ -24,6 +24,9 @@ import io.grpc.Internal;
 import io.grpc.gcp.observability.ObservabilityConfig;
 import io.grpc.gcp.observability.ObservabilityConfig.LogFilter;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Parses gRPC GcpObservability configuration filters for interceptors usage.
@@ -32,8 +35,12 @@ import java.util.List;
 public class ConfigFilterHelper {
   public static final FilterParams NO_FILTER_PARAMS
       = FilterParams.create(false, 0, 0);
+  @VisibleForTesting
+  static final int MAX_CACHED_METHODS = 1024;
 
   private final ObservabilityConfig config;
+  private final ConcurrentMap<String, FilterParams> clientParams = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, FilterParams> serverParams = new ConcurrentHashMap<>();
 
   private ConfigFilterHelper(ObservabilityConfig config) {
     this.config = config;
@@ -53,7 +60,8 @@ public class ConfigFilterHelper {
   /**
    * Checks if the corresponding service/method passed needs to be logged according to user provided
    * observability configuration.
-   * Filters are evaluated in text order, first match is used.
+   * Filters are evaluated in text order, first match is used. The result is computed once per
+   * method and cached.
    *
    * @param fullMethodName the fully qualified name of the method
    * @param client set to true if method being checked is a client method; false otherwise
@@ -61,28 +69,38 @@ public class ConfigFilterHelper {
    *     (log field will be set to true) 2. values of payload limits retrieved from configuration
    */
   public FilterParams logRpcMethod(String fullMethodName, boolean client) {
-    FilterParams params = NO_FILTER_PARAMS;
+    checkNotNull(fullMethodName, "fullMethodName");
+    ConcurrentMap<String, FilterParams> cache = client ? clientParams : serverParams;
+    FilterParams params = cache.get(fullMethodName);
+    if (params == null) {
+      params = matchLogFilters(fullMethodName, client);
+      // A server with a fallback handler registry may see any method name
+      if (cache.size() < MAX_CACHED_METHODS) {
+        cache.putIfAbsent(fullMethodName, params);
+      }
+    }
+    return params;
+  }
 
-    int index = checkNotNull(fullMethodName, "fullMethodName").lastIndexOf('/');
+  private FilterParams matchLogFilters(String fullMethodName, boolean client) {
+    int index = fullMethodName.lastIndexOf('/');
     String serviceName = fullMethodName.substring(0, index);
 
     List<LogFilter> logFilters =
         client ? config.getClientLogFilters() : config.getServerLogFilters();
 
-    // TODO (dnvindhya): Optimize by caching results for fullMethodName.
     for (LogFilter logFilter : logFilters) {
       if (logFilter.matchAll
           || logFilter.services.contains(serviceName)
           || logFilter.methods.contains(fullMethodName)) {
         if (logFilter.excludePattern) {
-          return params;
+          return NO_FILTER_PARAMS;
         }
-        int currentHeaderBytes = logFilter.headerBytes;
-        int currentMessageBytes = logFilter.messageBytes;
-        return FilterParams.create(true, currentHeaderBytes, currentMessageBytes);
+        return FilterParams.create(
+            true, logFilter.headerBytes, logFilter.messageBytes, logFilter.samplingRate);
       }
     }
-    return params;
+    return NO_FILTER_PARAMS;
   }
 
   /**
@@ -98,10 +116,30 @@ public class ConfigFilterHelper {
 
     abstract int messageBytes();
 
+    abstract double samplingRate();
+
+    /**
+     * Makes the head sampling decision for a call of the method, returning {@code true} if the
+     * call is to be logged.
+     */
+    boolean sampleCall() {
+      if (!log()) {
+        return false;
+      }
+      double samplingRate = samplingRate();
+      return samplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < samplingRate;
+    }
+
     @VisibleForTesting
     public static FilterParams create(boolean log, int headerBytes, int messageBytes) {
+      return create(log, headerBytes, messageBytes, 1.0);
+    }
+
+    @VisibleForTesting
+    public static FilterParams create(
+        boolean log, int headerBytes, int messageBytes, double samplingRate) {
       return new AutoValue_ConfigFilterHelper_FilterParams(
-          log, headerBytes, messageBytes);
+          log, headerBytes, messageBytes, samplingRate);
     }
   }
 }
@@ -86,6 +86,11 @@ public final class InternalLoggingChannelInterceptor implements ClientIntercepto
   @Override
   public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
       CallOptions callOptions, Channel next) {
+    // Decide first, so that the calls not logged cost no more than a lookup
+    FilterParams filterParams = filterHelper.logRpcMethod(method.getFullMethodName(), true);
+    if (!filterParams.sampleCall()) {
+      return next.newCall(method, callOptions);
+    }
 
     final AtomicLong seq = new AtomicLong(1);
     final String callId = UUID.randomUUID().toString();
@@ -97,11 +102,6 @@ public final class InternalLoggingChannelInterceptor implements ClientIntercepto
         Context.current().getDeadline());
     final SpanContext clientSpanContext = callOptions.getOption(CLIENT_TRACE_SPAN_CONTEXT_KEY);
 
-    FilterParams filterParams = filterHelper.logRpcMethod(method.getFullMethodName(), true);
-    if (!filterParams.log()) {
-      return next.newCall(method, callOptions);
-    }
-
     final int maxHeaderBytes = filterParams.headerBytes();
     final int maxMessageBytes = filterParams.messageBytes();
 
@@ -85,6 +85,13 @@ public final class InternalLoggingServerInterceptor implements ServerInterceptor
   @Override
   public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
       Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+    // Decide first, so that the calls not logged cost no more than a lookup
+    FilterParams filterParams =
+        filterHelper.logRpcMethod(call.getMethodDescriptor().getFullMethodName(), false);
+    if (!filterParams.sampleCall()) {
+      return next.startCall(call, headers);
+    }
+
     final AtomicLong seq = new AtomicLong(1);
     final String callId = UUID.randomUUID().toString();
     final String authority = call.getAuthority();
@@ -97,12 +104,6 @@ public final class InternalLoggingServerInterceptor implements ServerInterceptor
     Span span = ContextHandleUtils.getValue(ContextHandleUtils.currentContext());
     final SpanContext serverSpanContext = span == null ? SpanContext.INVALID : span.getContext();
 
-    FilterParams filterParams =
-        filterHelper.logRpcMethod(call.getMethodDescriptor().getFullMethodName(), false);
-    if (!filterParams.log()) {
-      return next.startCall(call, headers);
-    }
-
     final int maxHeaderBytes = filterParams.headerBytes();
     final int maxMessageBytes = filterParams.messageBytes();
 
@@ -47,6 +47,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -65,6 +66,7 @@ public class LogHelper {
           Metadata.BINARY_BYTE_MARSHALLER);
 
   private final Sink sink;
+  private final boolean deferBuilding;
 
   /**
    * Creates a LogHelper instance.
@@ -72,7 +74,18 @@ public class LogHelper {
    *
    */
   public LogHelper(Sink sink) {
+    this(sink, false);
+  }
+
+  /**
+   * Creates a LogHelper instance.
+   *  @param sink sink
+   *  @param deferBuilding if true, the log records are given to the sink unbuilt, for sinks that
+   *      build them off the RPC thread
+   */
+  public LogHelper(Sink sink, boolean deferBuilding) {
     this.sink = sink;
+    this.deferBuilding = deferBuilding;
   }
 
   /**
@@ -98,25 +111,28 @@ public class LogHelper {
     checkArgument(
         peerAddress == null || eventLogger == GrpcLogRecord.EventLogger.SERVER,
         "peerAddress can only be specified by server");
-    PayloadBuilderHelper<Payload.Builder> pair =
-        createMetadataProto(metadata, maxHeaderBytes);
-    if (timeout != null) {
-      pair.payloadBuilder.setTimeout(timeout);
-    }
-    GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
-        .setSequenceId(seqId)
-        .setServiceName(serviceName)
-        .setMethodName(methodName)
-        .setAuthority(authority)
-        .setType(EventType.CLIENT_HEADER)
-        .setLogger(eventLogger)
-        .setPayload(pair.payloadBuilder)
-        .setPayloadTruncated(pair.truncated)
-        .setCallId(callId);
-    if (peerAddress != null) {
-      logEntryBuilder.setPeer(socketAddressToProto(peerAddress));
-    }
-    sink.write(logEntryBuilder.build(), spanContext);
+    Metadata capturedMetadata = capture(metadata);
+    write(() -> {
+      PayloadBuilderHelper<Payload.Builder> pair =
+          createMetadataProto(capturedMetadata, maxHeaderBytes);
+      if (timeout != null) {
+        pair.payloadBuilder.setTimeout(timeout);
+      }
+      GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
+          .setSequenceId(seqId)
+          .setServiceName(serviceName)
+          .setMethodName(methodName)
+          .setAuthority(authority)
+          .setType(EventType.CLIENT_HEADER)
+          .setLogger(eventLogger)
+          .setPayload(pair.payloadBuilder)
+          .setPayloadTruncated(pair.truncated)
+          .setCallId(callId);
+      if (peerAddress != null) {
+        logEntryBuilder.setPeer(socketAddressToProto(peerAddress));
+      }
+      return logEntryBuilder.build();
+    }, spanContext);
   }
 
   /**
@@ -143,22 +159,25 @@ public class LogHelper {
         peerAddress == null || eventLogger == GrpcLogRecord.EventLogger.CLIENT,
         "peerAddress can only be specified for client");
 
-    PayloadBuilderHelper<Payload.Builder> pair =
-        createMetadataProto(metadata, maxHeaderBytes);
-    GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
-        .setSequenceId(seqId)
-        .setServiceName(serviceName)
-        .setMethodName(methodName)
-        .setAuthority(authority)
-        .setType(EventType.SERVER_HEADER)
-        .setLogger(eventLogger)
-        .setPayload(pair.payloadBuilder)
-        .setPayloadTruncated(pair.truncated)
-        .setCallId(callId);
-    if (peerAddress != null) {
-      logEntryBuilder.setPeer(socketAddressToProto(peerAddress));
-    }
-    sink.write(logEntryBuilder.build(), spanContext);
+    Metadata capturedMetadata = capture(metadata);
+    write(() -> {
+      PayloadBuilderHelper<Payload.Builder> pair =
+          createMetadataProto(capturedMetadata, maxHeaderBytes);
+      GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
+          .setSequenceId(seqId)
+          .setServiceName(serviceName)
+          .setMethodName(methodName)
+          .setAuthority(authority)
+          .setType(EventType.SERVER_HEADER)
+          .setLogger(eventLogger)
+          .setPayload(pair.payloadBuilder)
+          .setPayloadTruncated(pair.truncated)
+          .setCallId(callId);
+      if (peerAddress != null) {
+        logEntryBuilder.setPeer(socketAddressToProto(peerAddress));
+      }
+      return logEntryBuilder.build();
+    }, spanContext);
   }
 
   /**
@@ -185,31 +204,34 @@ public class LogHelper {
         peerAddress == null || eventLogger == GrpcLogRecord.EventLogger.CLIENT,
         "peerAddress can only be specified for client");
 
-    PayloadBuilderHelper<Payload.Builder> pair =
-        createMetadataProto(metadata, maxHeaderBytes);
-    pair.payloadBuilder.setStatusCode(Code.forNumber(status.getCode().value()));
-    String statusDescription = status.getDescription();
-    if (statusDescription != null) {
-      pair.payloadBuilder.setStatusMessage(statusDescription);
-    }
-    byte[] statusDetailBytes = metadata.get(STATUS_DETAILS_KEY);
-    if (statusDetailBytes != null) {
-      pair.payloadBuilder.setStatusDetails(ByteString.copyFrom(statusDetailBytes));
-    }
-    GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
-        .setSequenceId(seqId)
-        .setServiceName(serviceName)
-        .setMethodName(methodName)
-        .setAuthority(authority)
-        .setType(EventType.SERVER_TRAILER)
-        .setLogger(eventLogger)
-        .setPayload(pair.payloadBuilder)
-        .setPayloadTruncated(pair.truncated)
-        .setCallId(callId);
-    if (peerAddress != null) {
-      logEntryBuilder.setPeer(socketAddressToProto(peerAddress));
-    }
-    sink.write(logEntryBuilder.build(), spanContext);
+    Metadata capturedMetadata = capture(metadata);
+    write(() -> {
+      PayloadBuilderHelper<Payload.Builder> pair =
+          createMetadataProto(capturedMetadata, maxHeaderBytes);
+      pair.payloadBuilder.setStatusCode(Code.forNumber(status.getCode().value()));
+      String statusDescription = status.getDescription();
+      if (statusDescription != null) {
+        pair.payloadBuilder.setStatusMessage(statusDescription);
+      }
+      byte[] statusDetailBytes = capturedMetadata.get(STATUS_DETAILS_KEY);
+      if (statusDetailBytes != null) {
+        pair.payloadBuilder.setStatusDetails(ByteString.copyFrom(statusDetailBytes));
+      }
+      GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
+          .setSequenceId(seqId)
+          .setServiceName(serviceName)
+          .setMethodName(methodName)
+          .setAuthority(authority)
+          .setType(EventType.SERVER_TRAILER)
+          .setLogger(eventLogger)
+          .setPayload(pair.payloadBuilder)
+          .setPayloadTruncated(pair.truncated)
+          .setCallId(callId);
+      if (peerAddress != null) {
+        logEntryBuilder.setPeer(socketAddressToProto(peerAddress));
+      }
+      return logEntryBuilder.build();
+    }, spanContext);
   }
 
   /**
@@ -236,36 +258,26 @@ public class LogHelper {
         "event type must correspond to client message or server message");
     checkNotNull(message, "message");
 
-    // TODO(DNVindhya): Implement conversion of generics to ByteString
-    // Following is a temporary workaround to log if message is of following types :
-    // 1. com.google.protobuf.Message
-    // 2. byte[]
-    byte[] messageBytesArray = null;
-    if (message instanceof com.google.protobuf.Message) {
-      messageBytesArray = ((com.google.protobuf.Message) message).toByteArray();
-    } else if (message instanceof byte[]) {
-      messageBytesArray = (byte[]) message;
-    } else {
-      logger.log(Level.WARNING, "message is of UNKNOWN type, message and payload_size fields "
-          + "of GrpcLogRecord proto will not be logged");
-    }
-    PayloadBuilderHelper<Payload.Builder> pair = null;
-    if (messageBytesArray != null) {
-      pair = createMessageProto(messageBytesArray, maxMessageBytes);
-    }
-    GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
-        .setSequenceId(seqId)
-        .setServiceName(serviceName)
-        .setMethodName(methodName)
-        .setAuthority(authority)
-        .setType(eventType)
-        .setLogger(eventLogger)
-        .setCallId(callId);
-    if (pair != null) {
-      logEntryBuilder.setPayload(pair.payloadBuilder)
-          .setPayloadTruncated(pair.truncated);
-    }
-    sink.write(logEntryBuilder.build(), spanContext);
+    byte[] messageBytesArray = messageBytes(message);
+    write(() -> {
+      PayloadBuilderHelper<Payload.Builder> pair = null;
+      if (messageBytesArray != null) {
+        pair = createMessageProto(messageBytesArray, maxMessageBytes);
+      }
+      GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
+          .setSequenceId(seqId)
+          .setServiceName(serviceName)
+          .setMethodName(methodName)
+          .setAuthority(authority)
+          .setType(eventType)
+          .setLogger(eventLogger)
+          .setCallId(callId);
+      if (pair != null) {
+        logEntryBuilder.setPayload(pair.payloadBuilder)
+            .setPayloadTruncated(pair.truncated);
+      }
+      return logEntryBuilder.build();
+    }, spanContext);
   }
 
   /**
@@ -284,15 +296,17 @@ public class LogHelper {
     checkNotNull(authority, "authority");
     checkNotNull(callId, "callId");
 
-    GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
-        .setSequenceId(seqId)
-        .setServiceName(serviceName)
-        .setMethodName(methodName)
-        .setAuthority(authority)
-        .setType(EventType.CLIENT_HALF_CLOSE)
-        .setLogger(eventLogger)
-        .setCallId(callId);
-    sink.write(logEntryBuilder.build(), spanContext);
+    write(() -> {
+      GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
+          .setSequenceId(seqId)
+          .setServiceName(serviceName)
+          .setMethodName(methodName)
+          .setAuthority(authority)
+          .setType(EventType.CLIENT_HALF_CLOSE)
+          .setLogger(eventLogger)
+          .setCallId(callId);
+      return logEntryBuilder.build();
+    }, spanContext);
   }
 
   /**
@@ -311,15 +325,61 @@ public class LogHelper {
     checkNotNull(authority, "authority");
     checkNotNull(callId, "callId");
 
-    GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
-        .setSequenceId(seqId)
-        .setServiceName(serviceName)
-        .setMethodName(methodName)
-        .setAuthority(authority)
-        .setType(EventType.CANCEL)
-        .setLogger(eventLogger)
-        .setCallId(callId);
-    sink.write(logEntryBuilder.build(), spanContext);
+    write(() -> {
+      GrpcLogRecord.Builder logEntryBuilder = GrpcLogRecord.newBuilder()
+          .setSequenceId(seqId)
+          .setServiceName(serviceName)
+          .setMethodName(methodName)
+          .setAuthority(authority)
+          .setType(EventType.CANCEL)
+          .setLogger(eventLogger)
+          .setCallId(callId);
+      return logEntryBuilder.build();
+    }, spanContext);
+  }
+
+  /**
+   * Returns the bytes of the message, taken on the RPC thread as the application may reuse or
+   * modify the message once the event returns, or {@code null} if its type is unknown.
+   */
+  @Nullable
+  private byte[] messageBytes(Object message) {
+    // TODO(DNVindhya): Implement conversion of generics to ByteString
+    // Following is a temporary workaround to log if message is of following types :
+    // 1. com.google.protobuf.Message
+    // 2. byte[]
+    if (message instanceof com.google.protobuf.Message) {
+      return ((com.google.protobuf.Message) message).toByteArray();
+    } else if (message instanceof byte[]) {
+      return deferBuilding ? ((byte[]) message).clone() : (byte[]) message;
+    }
+    logger.log(Level.WARNING, "message is of UNKNOWN type, message and payload_size fields "
+        + "of GrpcLogRecord proto will not be logged");
+    return null;
+  }
+
+  /**
+   * Writes the record, which the sink may build later on another thread if building is deferred.
+   * The record is then built from the immutable arguments of the event, and from copies of its
+   * metadata and message bytes taken on the RPC thread.
+   */
+  private void write(Supplier<GrpcLogRecord> record, SpanContext spanContext) {
+    if (deferBuilding) {
+      sink.write(record, spanContext);
+    } else {
+      sink.write(record.get(), spanContext);
+    }
+  }
+
+  /** Returns metadata that is safe to read after the event, if the sink needs it. */
+  private Metadata capture(Metadata metadata) {
+    if (!deferBuilding) {
+      return metadata;
+    }
+    // The values are not modified, but the metadata may be, once the call moves on
+    Metadata copy = new Metadata();
+    copy.merge(metadata);
+    return copy;
   }
 
   // TODO(DNVindhya): Evaluate if we need following clause for metadata logging in GcpObservability
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.gcp.observability.logging;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.grpc.Internal;
+import io.grpc.gcp.observability.ObservabilityConfig.LogBufferConfig;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.observabilitylog.v1.GrpcLogRecord;
+import io.opencensus.trace.SpanContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sink that hands the messages over to another sink in batches, from a background thread. The
+ * RPC threads only queue the messages, which are built and written by the background thread.
+ * The batches are flushed once they reach {@link LogBufferConfig#maxBatchEntries} messages, or
+ * {@link LogBufferConfig#flushIntervalNanos} after their first message.
+ */
+@Internal
+public final class BatchingLogSink implements Sink {
+  private static final Logger logger = Logger.getLogger(BatchingLogSink.class.getName());
+  private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+  /** Wakes up the writer thread when closing. */
+  private static final PendingMessage CLOSE_MARKER = new PendingMessage(null, null);
+
+  private final Sink delegate;
+  private final BlockingQueue<PendingMessage> queue;
+  private final int maxBatchEntries;
+  private final long flushIntervalNanos;
+  private final LogBufferConfig.OverflowPolicy overflowPolicy;
+  private final AtomicLong droppedMessages = new AtomicLong();
+  private final AtomicLong droppedAfterClose = new AtomicLong();
+  // Only accessed by the writer thread
+  private long reportedDroppedMessages;
+  private final Thread writerThread;
+  private volatile boolean closed;
+
+  /**
+   * Creates a sink writing to {@code delegate} as configured by {@code config}.
+   */
+  public BatchingLogSink(Sink delegate, LogBufferConfig config) {
+    this(delegate, config, GrpcUtil.getThreadFactory("grpc-gcp-log-writer-%d", true));
+  }
+
+  @VisibleForTesting
+  BatchingLogSink(Sink delegate, LogBufferConfig config, ThreadFactory threadFactory) {
+    this.delegate = checkNotNull(delegate, "delegate");
+    checkArgument(config.maxEntries > 0, "maxEntries must be positive");
+    checkArgument(config.maxBatchEntries > 0, "maxBatchEntries must be positive");
+    checkArgument(config.flushIntervalNanos > 0, "flushIntervalNanos must be positive");
+    this.queue = new ArrayBlockingQueue<>(config.maxEntries);
+    this.maxBatchEntries = config.maxBatchEntries;
+    this.flushIntervalNanos = config.flushIntervalNanos;
+    this.overflowPolicy = checkNotNull(config.overflowPolicy, "overflowPolicy");
+    this.writerThread = threadFactory.newThread(this::runWriter);
+    writerThread.start();
+  }
+
+  @Override
+  public void write(GrpcLogRecord message, SpanContext spanContext) {
+    enqueue(new PendingMessage(() -> message, spanContext));
+  }
+
+  @Override
+  public void write(Supplier<GrpcLogRecord> message, SpanContext spanContext) {
+    enqueue(new PendingMessage(message, spanContext));
+  }
+
+  private void enqueue(PendingMessage pending) {
+    if (closed) {
+      logger.log(Level.FINEST, "Attempt to write after BatchingLogSink is closed.");
+      droppedAfterClose.incrementAndGet();
+      return;
+    }
+    switch (overflowPolicy) {
+      case DROP_NEWEST:
+        if (!queue.offer(pending)) {
+          droppedMessages.incrementAndGet();
+        }
+        break;
+      case DROP_OLDEST:
+        while (!queue.offer(pending)) {
+          if (queue.poll() != null) {
+            droppedMessages.incrementAndGet();
+          }
+        }
+        break;
+      case BLOCK:
+        try {
+          while (!queue.offer(pending, flushIntervalNanos, TimeUnit.NANOSECONDS)) {
+            if (closed) {
+              droppedAfterClose.incrementAndGet();
+              return;
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          droppedMessages.incrementAndGet();
+        }
+        break;
+      default:
+        throw new AssertionError(overflowPolicy);
+    }
+  }
+
+  private void runWriter() {
+    List<PendingMessage> batch = new ArrayList<>(maxBatchEntries);
+    boolean done = false;
+    while (!done) {
+      // Whatever gets queued before noticing the close is still written
+      done = closed;
+      try {
+        fillBatch(batch);
+      } catch (InterruptedException e) {
+        done = true;
+      }
+      writeBatch(batch);
+    }
+  }
+
+  private void fillBatch(List<PendingMessage> batch) throws InterruptedException {
+    PendingMessage first =
+        closed ? queue.poll() : queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+    if (first == null) {
+      return;
+    }
+    batch.add(first);
+    long deadline = System.nanoTime() + flushIntervalNanos;
+    while (batch.size() < maxBatchEntries && !closed) {
+      queue.drainTo(batch, maxBatchEntries - batch.size());
+      long remainingNanos = deadline - System.nanoTime();
+      if (batch.size() >= maxBatchEntries || remainingNanos <= 0) {
+        break;
+      }
+      PendingMessage next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        break;
+      }
+      batch.add(next);
+    }
+    if (closed) {
+      queue.drainTo(batch);
+    }
+  }
+
+  private void writeBatch(List<PendingMessage> batch) {
+    boolean written = false;
+    for (PendingMessage pending : batch) {
+      if (pending == CLOSE_MARKER) {
+        continue;
+      }
+      try {
+        delegate.write(pending.message.get(), pending.spanContext);
+        written = true;
+      } catch (RuntimeException e) {
+        logger.log(Level.SEVERE, "Caught exception while writing log entry", e);
+      }
+    }
+    batch.clear();
+    if (written) {
+      try {
+        delegate.flush();
+      } catch (RuntimeException e) {
+        logger.log(Level.SEVERE, "Caught exception while flushing log entries", e);
+      }
+    }
+    long totalDropped = droppedMessages.get();
+    long dropped = totalDropped - reportedDroppedMessages;
+    reportedDroppedMessages = totalDropped;
+    if (dropped > 0) {
+      logger.log(Level.WARNING, "Dropped {0} log entries as the buffer was full", dropped);
+    }
+  }
+
+  /** Returns the number of messages dropped because the buffer was full. */
+  public long getDroppedMessages() {
+    return droppedMessages.get();
+  }
+
+  /** Returns the number of messages dropped because they were written after closing. */
+  public long getDroppedAfterClose() {
+    return droppedAfterClose.get();
+  }
+
+  @VisibleForTesting
+  boolean isWriterRunning() {
+    return writerThread.isAlive();
+  }
+
+  /**
+   * Writes the queued messages, and closes the sink this one writes to.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        logger.log(Level.WARNING, "Attempt to close after BatchingLogSink is closed.");
+        return;
+      }
+      closed = true;
+    }
+    queue.offer(CLOSE_MARKER);
+    try {
+      writerThread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + CLOSE_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    delegate.close();
+  }
+
+  private static final class PendingMessage {
+    final Supplier<GrpcLogRecord> message;
+    final SpanContext spanContext;
+
+    PendingMessage(Supplier<GrpcLogRecord> message, SpanContext spanContext) {
+      this.message = message;
+      this.spanContext = spanContext;
+    }
+  }
+}
@@ -184,6 +184,21 @@ public class GcpLogSink implements Sink {
     return (Map<String, Object>) JsonParser.parse(recordJson);
   }
 
+  /**
+   * Sends the log entries batched by the Cloud Logging Client.
+   */
+  @Override
+  public synchronized void flush() {
+    if (gcpLoggingClient == null) {
+      return;
+    }
+    try {
+      gcpLoggingClient.flush();
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "Caught exception while flushing", e);
+    }
+  }
+
   /**
    * Closes Cloud Logging Client.
    */
@@ -19,6 +19,7 @@ package io.grpc.gcp.observability.logging;
 import io.grpc.Internal;
 import io.grpc.observabilitylog.v1.GrpcLogRecord;
 import io.opencensus.trace.SpanContext;
+import java.util.function.Supplier;
 
 /**
  * Sink for GCP observability.
@@ -30,6 +31,19 @@ public interface Sink {
    */
   void write(GrpcLogRecord message, SpanContext spanContext);
 
+  /**
+   * Writes the message built by {@code message}. The sink may build it later on another thread,
+   * so it may only use objects that are not modified after this call.
+   */
+  default void write(Supplier<GrpcLogRecord> message, SpanContext spanContext) {
+    write(message.get(), spanContext);
+  }
+
+  /**
+   * Sends the messages written so far to the destination, if the sink batches them.
+   */
+  default void flush() {}
+
   /**
    * Closes the sink.
    */
@@ -93,6 +93,28 @@ public class ObservabilityConfigImplTest {
           + "    }\n"
           + "}";
 
+  private static final String SAMPLED_LOG_FILTERS = "{\n"
+      + "    \"project_id\": \"grpc-testing\",\n"
+      + "    \"cloud_logging\": {\n"
+      + "    \"client_rpc_events\": [{\n"
+      + "        \"methods\": [\"*\"],\n"
+      + "        \"sampling_rate\": 0.25\n"
+      + "    }"
+      + "    ]\n"
+      + "    }\n"
+      + "}";
+
+  private static final String BAD_SAMPLED_LOG_FILTERS = "{\n"
+      + "    \"project_id\": \"grpc-testing\",\n"
+      + "    \"cloud_logging\": {\n"
+      + "    \"server_rpc_events\": [{\n"
+      + "        \"methods\": [\"*\"],\n"
+      + "        \"sampling_rate\": 1.5\n"
+      + "    }"
+      + "    ]\n"
+      + "    }\n"
+      + "}";
+
   private static final String VALID_LOG_FILTERS = "{\n"
       + "    \"project_id\": \"grpc-testing\",\n"
       + "    \"cloud_logging\": {\n"
@@ -330,6 +352,29 @@ public class ObservabilityConfigImplTest {
     assertThat(logFilterList.get(1).methods).isEmpty();
   }
 
+  @Test
+  public void logFilterSamplingRate() throws IOException {
+    observabilityConfig.parse(SAMPLED_LOG_FILTERS);
+    List<LogFilter> logFilterList = observabilityConfig.getClientLogFilters();
+    assertThat(logFilterList).hasSize(1);
+    assertThat(logFilterList.get(0).samplingRate).isEqualTo(0.25);
+
+    ObservabilityConfigImpl defaultSamplingConfig = new ObservabilityConfigImpl();
+    defaultSamplingConfig.parse(LOG_FILTERS);
+    assertThat(defaultSamplingConfig.getServerLogFilters().get(0).samplingRate).isEqualTo(1.0);
+  }
+
+  @Test
+  public void badLogFilterSamplingRate_error() throws IOException {
+    try {
+      observabilityConfig.parse(BAD_SAMPLED_LOG_FILTERS);
+      fail("exception expected!");
+    } catch (IllegalArgumentException iae) {
+      assertThat(iae.getMessage()).isEqualTo(
+          "'sampling_rate' needs to be between [0.0, 1.0]");
+    }
+  }
+
   @Test
   public void enableCloudMonitoring() throws IOException {
     observabilityConfig.parse(ENABLE_CLOUD_MONITORING);
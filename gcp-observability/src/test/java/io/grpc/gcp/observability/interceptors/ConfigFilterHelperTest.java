@@ -18,6 +18,8 @@ package io.grpc.gcp.observability.interceptors;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
@@ -146,4 +148,58 @@ public class ConfigFilterHelperTest {
         = configFilterHelper.logRpcMethod("service4/method3", false);
     assertThat(serverResultParams).isEqualTo(excludeParams);
   }
+
+  @Test
+  public void filterParamsCachedPerMethod() {
+    when(mockConfig.getClientLogFilters()).thenReturn(configLogFilters);
+    when(mockConfig.getServerLogFilters()).thenReturn(configLogFilters);
+
+    FilterParams clientResultParams = configFilterHelper.logRpcMethod("service1/Method2", true);
+    assertThat(configFilterHelper.logRpcMethod("service1/Method2", true))
+        .isSameInstanceAs(clientResultParams);
+    verify(mockConfig, times(1)).getClientLogFilters();
+
+    // Client and server filters are cached separately
+    FilterParams serverResultParams = configFilterHelper.logRpcMethod("service1/Method2", false);
+    assertThat(configFilterHelper.logRpcMethod("service1/Method2", false))
+        .isSameInstanceAs(serverResultParams);
+    verify(mockConfig, times(1)).getServerLogFilters();
+  }
+
+  @Test
+  public void filterParamsNotCachedBeyondLimit() {
+    when(mockConfig.getServerLogFilters()).thenReturn(configLogFilters);
+    for (int i = 0; i < ConfigFilterHelper.MAX_CACHED_METHODS; i++) {
+      configFilterHelper.logRpcMethod("service5/method" + i, false);
+    }
+    verify(mockConfig, times(ConfigFilterHelper.MAX_CACHED_METHODS)).getServerLogFilters();
+
+    FilterParams expectedParams = FilterParams.create(true, 128, 128);
+    assertThat(configFilterHelper.logRpcMethod("service6/method", false))
+        .isEqualTo(expectedParams);
+    assertThat(configFilterHelper.logRpcMethod("service6/method", false))
+        .isEqualTo(expectedParams);
+    verify(mockConfig, times(ConfigFilterHelper.MAX_CACHED_METHODS + 2)).getServerLogFilters();
+  }
+
+  @Test
+  public void sampleCall() {
+    List<LogFilter> sampleLogFilters =
+        ImmutableList.of(
+            new LogFilter(Collections.emptySet(), Collections.singleton("service1/Method1"), false,
+                1024, 1024, false, 0.0),
+            new LogFilter(
+                Collections.emptySet(), Collections.emptySet(), true,
+                1024, 1024, false, 1.0));
+    when(mockConfig.getClientLogFilters()).thenReturn(sampleLogFilters);
+
+    FilterParams neverSampled = configFilterHelper.logRpcMethod("service1/Method1", true);
+    assertThat(neverSampled).isEqualTo(FilterParams.create(true, 1024, 1024, 0.0));
+    FilterParams alwaysSampled = configFilterHelper.logRpcMethod("service1/Method2", true);
+    for (int i = 0; i < 100; i++) {
+      assertThat(neverSampled.sampleCall()).isFalse();
+      assertThat(alwaysSampled.sampleCall()).isTrue();
+      assertThat(ConfigFilterHelper.NO_FILTER_PARAMS.sampleCall()).isFalse();
+    }
+  }
 }
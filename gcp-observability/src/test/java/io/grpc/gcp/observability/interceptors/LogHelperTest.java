@@ -24,6 +24,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import com.google.protobuf.ByteString;
@@ -58,10 +59,13 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.function.Supplier;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 
 /**
  * Tests for {@link LogHelper}.
@@ -455,6 +459,44 @@ public class LogHelperTest {
     }
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void deferBuilding_recordBuiltFromCapturedMetadata() throws Exception {
+    LogHelper deferringLogHelper = new LogHelper(sink, true);
+    Metadata metadata = new Metadata();
+    metadata.put(KEY_A, DATA_A);
+    deferringLogHelper.logServerHeader(
+        1, "service", "method", "authority", metadata, Integer.MAX_VALUE, EventLogger.SERVER,
+        "callId", null, SERVER_SPAN_CONTEXT);
+    // Modified once the call moves on
+    metadata.put(KEY_B, DATA_B);
+
+    ArgumentCaptor<Supplier<GrpcLogRecord>> captor = ArgumentCaptor.forClass(Supplier.class);
+    verify(sink).write(captor.capture(), ArgumentMatchers.same(SERVER_SPAN_CONTEXT));
+    verify(sink, never()).write(
+        ArgumentMatchers.any(GrpcLogRecord.class), ArgumentMatchers.any(SpanContext.class));
+    GrpcLogRecord record = captor.getValue().get();
+    assertThat(record.getType()).isEqualTo(EventType.SERVER_HEADER);
+    assertThat(record.getPayload().getMetadataMap()).containsExactly(KEY_A.name(), DATA_A);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void deferBuilding_recordBuiltFromCapturedMessage() {
+    LogHelper deferringLogHelper = new LogHelper(sink, true);
+    byte[] message = new byte[] {1, 2, 3};
+    deferringLogHelper.logRpcMessage(
+        1, "service", "method", "authority", EventType.SERVER_MESSAGE, message, MESSAGE_LIMIT,
+        EventLogger.SERVER, "callId", SERVER_SPAN_CONTEXT);
+    // Reused by the application once the event returns
+    message[0] = 4;
+
+    ArgumentCaptor<Supplier<GrpcLogRecord>> captor = ArgumentCaptor.forClass(Supplier.class);
+    verify(sink).write(captor.capture(), ArgumentMatchers.same(SERVER_SPAN_CONTEXT));
+    GrpcLogRecord record = captor.getValue().get();
+    assertThat(record.getPayload().getMessage().toByteArray()).isEqualTo(new byte[] {1, 2, 3});
+  }
+
   @Test
   public void logTrailer() throws Exception {
     long seqId = 1;
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.gcp.observability.logging;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.grpc.gcp.observability.ObservabilityConfig.LogBufferConfig;
+import io.grpc.gcp.observability.ObservabilityConfig.LogBufferConfig.OverflowPolicy;
+import io.grpc.observabilitylog.v1.GrpcLogRecord;
+import io.opencensus.trace.SpanContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link BatchingLogSink}.
+ */
+@RunWith(JUnit4.class)
+public class BatchingLogSinkTest {
+  private static final long LONG_INTERVAL_NANOS = TimeUnit.HOURS.toNanos(1);
+  private static final ThreadFactory THREAD_FACTORY = runnable -> {
+    Thread thread = new Thread(runnable, "log-writer");
+    thread.setDaemon(true);
+    return thread;
+  };
+
+  private final CountDownLatch writeBlocked = new CountDownLatch(1);
+  private final CountDownLatch unblockWrite = new CountDownLatch(1);
+  private final InMemoryLogSink delegate = new InMemoryLogSink();
+  /** Blocks writing the message with sequence id 0, until {@link #unblockWrite}. */
+  private final InMemoryLogSink blockingDelegate = new InMemoryLogSink() {
+    @Override
+    public void write(GrpcLogRecord message, SpanContext spanContext) {
+      if (message.getSequenceId() == 0) {
+        writeBlocked.countDown();
+        try {
+          unblockWrite.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      super.write(message, spanContext);
+    }
+  };
+  private BatchingLogSink sink;
+
+  @After
+  public void tearDown() {
+    unblockWrite.countDown();
+    if (sink != null && sink.isWriterRunning()) {
+      sink.close();
+    }
+  }
+
+  @Test
+  public void writesInBatchesOnWriterThread() throws Exception {
+    sink = newSink(delegate, 100, 3, LONG_INTERVAL_NANOS, OverflowPolicy.DROP_NEWEST);
+    List<String> buildingThreads = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      long seqId = i;
+      sink.write(() -> {
+        buildingThreads.add(Thread.currentThread().getName());
+        return message(seqId);
+      }, null);
+    }
+
+    assertThat(sequenceIds(delegate.awaitMessages(3, 5, TimeUnit.SECONDS)))
+        .containsExactly(0L, 1L, 2L).inOrder();
+    assertThat(buildingThreads).containsExactly("log-writer", "log-writer", "log-writer");
+    assertThat(delegate.getWriterThreads()).containsExactly(
+        "log-writer", "log-writer", "log-writer");
+    sink.close();
+    assertThat(delegate.getFlushes()).isEqualTo(1);
+  }
+
+  @Test
+  public void flushesAfterInterval() throws Exception {
+    sink = newSink(
+        delegate, 100, 100, TimeUnit.MILLISECONDS.toNanos(10), OverflowPolicy.DROP_NEWEST);
+    sink.write(message(0), null);
+
+    assertThat(sequenceIds(delegate.awaitMessages(1, 5, TimeUnit.SECONDS))).containsExactly(0L);
+  }
+
+  @Test
+  public void closeWritesQueuedMessages() throws Exception {
+    sink = newSink(delegate, 100, 100, LONG_INTERVAL_NANOS, OverflowPolicy.DROP_NEWEST);
+    sink.write(message(0), null);
+    sink.write(message(1), null);
+    sink.close();
+
+    assertThat(sequenceIds(delegate.getMessages())).containsExactly(0L, 1L).inOrder();
+    assertThat(delegate.isClosed()).isTrue();
+    assertThat(sink.isWriterRunning()).isFalse();
+
+    sink.write(message(2), null);
+    assertThat(delegate.getMessages()).hasSize(2);
+    assertThat(sink.getDroppedAfterClose()).isEqualTo(1);
+    assertThat(sink.getDroppedMessages()).isEqualTo(0);
+  }
+
+  @Test
+  public void overflow_dropNewest() throws Exception {
+    sink = newSink(blockingDelegate, 2, 1, LONG_INTERVAL_NANOS, OverflowPolicy.DROP_NEWEST);
+    fillWhileWriterBlocked();
+
+    assertThat(sequenceIds(blockingDelegate.awaitMessages(3, 5, TimeUnit.SECONDS)))
+        .containsExactly(0L, 1L, 2L).inOrder();
+    sink.close();
+    assertThat(blockingDelegate.getMessages()).hasSize(3);
+    // Still counted once the drop is reported
+    assertThat(sink.getDroppedMessages()).isEqualTo(1);
+    assertThat(sink.getDroppedAfterClose()).isEqualTo(0);
+  }
+
+  @Test
+  public void overflow_dropOldest() throws Exception {
+    sink = newSink(blockingDelegate, 2, 1, LONG_INTERVAL_NANOS, OverflowPolicy.DROP_OLDEST);
+    fillWhileWriterBlocked();
+
+    assertThat(sequenceIds(blockingDelegate.awaitMessages(3, 5, TimeUnit.SECONDS)))
+        .containsExactly(0L, 2L, 3L).inOrder();
+    sink.close();
+    assertThat(blockingDelegate.getMessages()).hasSize(3);
+    assertThat(sink.getDroppedMessages()).isEqualTo(1);
+  }
+
+  @Test
+  public void overflow_block() throws Exception {
+    sink = newSink(blockingDelegate, 2, 1, LONG_INTERVAL_NANOS, OverflowPolicy.BLOCK);
+    sink.write(message(0), null);
+    assertThat(writeBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+    sink.write(message(1), null);
+    sink.write(message(2), null);
+    Thread blockedThread = new Thread(() -> sink.write(message(3), null));
+    blockedThread.start();
+    blockedThread.join(100);
+    assertThat(blockedThread.isAlive()).isTrue();
+
+    unblockWrite.countDown();
+    blockedThread.join(5000);
+    assertThat(blockedThread.isAlive()).isFalse();
+    assertThat(sequenceIds(blockingDelegate.awaitMessages(4, 5, TimeUnit.SECONDS)))
+        .containsExactly(0L, 1L, 2L, 3L).inOrder();
+  }
+
+  /**
+   * Writes 4 messages to a sink holding 2, while the writer is blocked writing the first.
+   */
+  private void fillWhileWriterBlocked() throws InterruptedException {
+    sink.write(message(0), null);
+    assertThat(writeBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+    sink.write(message(1), null);
+    sink.write(message(2), null);
+    sink.write(message(3), null);
+    unblockWrite.countDown();
+  }
+
+  private static BatchingLogSink newSink(Sink delegate, int maxEntries, int maxBatchEntries,
+      long flushIntervalNanos, OverflowPolicy overflowPolicy) {
+    return new BatchingLogSink(
+        delegate,
+        new LogBufferConfig(maxEntries, maxBatchEntries, flushIntervalNanos, overflowPolicy),
+        THREAD_FACTORY);
+  }
+
+  private static GrpcLogRecord message(long seqId) {
+    return GrpcLogRecord.newBuilder().setSequenceId(seqId).build();
+  }
+
+  private static List<Long> sequenceIds(List<GrpcLogRecord> messages) {
+    List<Long> seqIds = new ArrayList<>();
+    for (GrpcLogRecord message : messages) {
+      seqIds.add(message.getSequenceId());
+    }
+    return seqIds;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.gcp.observability.logging;
+
+import io.grpc.observabilitylog.v1.GrpcLogRecord;
+import io.opencensus.trace.SpanContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Local stand-in for {@link GcpLogSink} that keeps the messages in memory.
+ */
+class InMemoryLogSink implements Sink {
+  @GuardedBy("this")
+  private final List<GrpcLogRecord> messages = new ArrayList<>();
+  @GuardedBy("this")
+  private final List<String> writerThreads = new ArrayList<>();
+  @GuardedBy("this")
+  private int flushes;
+  @GuardedBy("this")
+  private boolean closed;
+
+  @Override
+  public synchronized void write(GrpcLogRecord message, SpanContext spanContext) {
+    messages.add(message);
+    writerThreads.add(Thread.currentThread().getName());
+    notifyAll();
+  }
+
+  @Override
+  public synchronized void flush() {
+    flushes++;
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+  }
+
+  synchronized List<GrpcLogRecord> getMessages() {
+    return new ArrayList<>(messages);
+  }
+
+  synchronized List<String> getWriterThreads() {
+    return new ArrayList<>(writerThreads);
+  }
+
+  synchronized int getFlushes() {
+    return flushes;
+  }
+
+  synchronized boolean isClosed() {
+    return closed;
+  }
+
+  /** Waits until at least {@code count} messages are written. */
+  synchronized List<GrpcLogRecord> awaitMessages(int count, long timeout, TimeUnit unit)
+      throws InterruptedException, TimeoutException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (messages.size() < count) {
+      long remainingNanos = deadline - System.nanoTime();
+      if (remainingNanos <= 0) {
+        throw new TimeoutException("Got " + messages.size() + " messages, wanted " + count);
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+    }
+    return new ArrayList<>(messages);
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.jfr;
+
+import io.grpc.internal.EventHooks;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A stream not being ready, from when too many of its bytes got queued until enough of them were
+ * sent. It usually waits for the flow control window of the peer.
+ */
+@Name("io.grpc.FlowControlStall")
+@Label("gRPC Flow Control Stall")
+@Description("A stream not being ready because too many of its bytes are queued for sending")
+@Category({"gRPC", "Transport"})
+@StackTrace(false)
+@Threshold("20 ms")
+final class FlowControlStallEvent extends Event implements EventHooks.Span {
+  @Override
+  public void close() {
+    end();
+    if (shouldCommit()) {
+      commit();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** An HTTP/2 GOAWAY frame sent or received. */
+@Name("io.grpc.GoAway")
+@Label("gRPC GOAWAY")
+@Description("An HTTP/2 GOAWAY frame sent or received")
+@Category({"gRPC", "Transport"})
+@StackTrace(false)
+final class GoAwayEvent extends Event {
+  @Label("Remote Address")
+  String remoteAddress;
+
+  @Label("Received")
+  @Description("Whether the frame was received from the remote address")
+  boolean received;
+
+  @Label("Last Stream Id")
+  int lastStreamId;
+
+  @Label("Error Code")
+  long errorCode;
+
+  @Label("Debug Data")
+  String debugData;
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.jfr;
+
+import io.grpc.Attributes;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.Grpc;
+import io.grpc.Internal;
+import io.grpc.InternalLogId;
+import io.grpc.Metadata;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import io.grpc.internal.EventHooks;
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import javax.annotation.Nullable;
+
+/**
+ * Records the gRPC events with the JDK Flight Recorder. It is found by {@link EventHooks} when
+ * this library is on the classpath, and the events are enabled and given thresholds by the
+ * recording settings, like any other JFR event. Disabled events cost a check each.
+ */
+@Internal
+public final class JfrEventHooks extends EventHooks {
+  private static final ServerStreamTracer NOOP_SERVER_TRACER = new ServerStreamTracer() {};
+
+  private final ServerStreamTracer.Factory serverTracerFactory = new ServerStreamTracer.Factory() {
+    @Override
+    public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+      ServerCallEvent event = new ServerCallEvent();
+      if (!event.isEnabled()) {
+        return NOOP_SERVER_TRACER;
+      }
+      event.begin();
+      return new ServerCallTracer(event, fullMethodName);
+    }
+  };
+
+  public JfrEventHooks() {}
+
+  @Nullable
+  @Override
+  public ClientStreamTracer.Factory getClientTracerFactory(final String fullMethodName) {
+    if (!new ClientCallEvent().isEnabled()) {
+      return null;
+    }
+    return new ClientStreamTracer.Factory() {
+      @Override
+      public ClientStreamTracer newClientStreamTracer(
+          ClientStreamTracer.StreamInfo info, Metadata headers) {
+        ClientCallEvent event = new ClientCallEvent();
+        event.begin();
+        return new ClientCallTracer(event, fullMethodName, info.getPreviousAttempts());
+      }
+    };
+  }
+
+  @Override
+  public ServerStreamTracer.Factory getServerTracerFactory() {
+    return serverTracerFactory;
+  }
+
+  @Nullable
+  @Override
+  public Span flowControlStallStarted() {
+    FlowControlStallEvent event = new FlowControlStallEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public void goAway(
+      @Nullable SocketAddress remoteAddress, boolean received, int lastStreamId, long errorCode,
+      String debugData) {
+    GoAwayEvent event = new GoAwayEvent();
+    if (event.isEnabled()) {
+      event.remoteAddress = String.valueOf(remoteAddress);
+      event.received = received;
+      event.lastStreamId = lastStreamId;
+      event.errorCode = errorCode;
+      event.debugData = debugData;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void rstStreamReceived(
+      @Nullable SocketAddress remoteAddress, int streamId, long errorCode) {
+    RstStreamEvent event = new RstStreamEvent();
+    if (event.isEnabled()) {
+      event.remoteAddress = String.valueOf(remoteAddress);
+      event.streamId = streamId;
+      event.errorCode = errorCode;
+      event.commit();
+    }
+  }
+
+  @Override
+  public void subchannelStateChanged(
+      InternalLogId subchannelId, String addresses, ConnectivityStateInfo newState) {
+    SubchannelStateEvent event = new SubchannelStateEvent();
+    if (event.isEnabled()) {
+      event.subchannel = subchannelId.toString();
+      event.addresses = addresses;
+      event.state = newState.getState().name();
+      event.status = newState.getStatus().getCode().name();
+      event.statusDescription = newState.getStatus().getDescription();
+      event.commit();
+    }
+  }
+
+  @Override
+  public void nameResolved(
+      InternalLogId channelId, String target, int addressCount, Status status) {
+    NameResolutionEvent event = new NameResolutionEvent();
+    if (event.isEnabled()) {
+      event.channel = channelId.toString();
+      event.target = target;
+      event.addressCount = addressCount;
+      event.status = status.getCode().name();
+      event.statusDescription = status.getDescription();
+      event.commit();
+    }
+  }
+
+  /** Counts the messages of a stream, whose callbacks may come from different threads. */
+  private static final class MessageCounts {
+    private static final AtomicLongFieldUpdater<MessageCounts> messagesSentUpdater =
+        AtomicLongFieldUpdater.newUpdater(MessageCounts.class, "messagesSent");
+    private static final AtomicLongFieldUpdater<MessageCounts> bytesSentUpdater =
+        AtomicLongFieldUpdater.newUpdater(MessageCounts.class, "bytesSent");
+    private static final AtomicLongFieldUpdater<MessageCounts> messagesReceivedUpdater =
+        AtomicLongFieldUpdater.newUpdater(MessageCounts.class, "messagesReceived");
+    private static final AtomicLongFieldUpdater<MessageCounts> bytesReceivedUpdater =
+        AtomicLongFieldUpdater.newUpdater(MessageCounts.class, "bytesReceived");
+
+    volatile long messagesSent;
+    volatile long bytesSent;
+    volatile long messagesReceived;
+    volatile long bytesReceived;
+
+    void outboundMessage() {
+      messagesSentUpdater.getAndIncrement(this);
+    }
+
+    void outboundWireSize(long bytes) {
+      bytesSentUpdater.getAndAdd(this, bytes);
+    }
+
+    void inboundMessage() {
+      messagesReceivedUpdater.getAndIncrement(this);
+    }
+
+    void inboundWireSize(long bytes) {
+      bytesReceivedUpdater.getAndAdd(this, bytes);
+    }
+  }
+
+  private static final class ClientCallTracer extends ClientStreamTracer {
+    private final ClientCallEvent event;
+    private final MessageCounts counts = new MessageCounts();
+    private volatile SocketAddress remoteAddress;
+
+    ClientCallTracer(ClientCallEvent event, String fullMethodName, int previousAttempts) {
+      this.event = event;
+      event.method = fullMethodName;
+      event.previousAttempts = previousAttempts;
+    }
+
+    @Override
+    public void streamCreated(Attributes transportAttrs, Metadata headers) {
+      remoteAddress = transportAttrs.get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+    }
+
+    @Override
+    public void outboundMessage(int seqNo) {
+      counts.outboundMessage();
+    }
+
+    @Override
+    public void outboundWireSize(long bytes) {
+      counts.outboundWireSize(bytes);
+    }
+
+    @Override
+    public void inboundMessage(int seqNo) {
+      counts.inboundMessage();
+    }
+
+    @Override
+    public void inboundWireSize(long bytes) {
+      counts.inboundWireSize(bytes);
+    }
+
+    @Override
+    public void streamClosed(Status status) {
+      event.end();
+      if (event.shouldCommit()) {
+        event.remoteAddress = String.valueOf(remoteAddress);
+        event.status = status.getCode().name();
+        event.statusDescription = status.getDescription();
+        event.messagesSent = counts.messagesSent;
+        event.bytesSent = counts.bytesSent;
+        event.messagesReceived = counts.messagesReceived;
+        event.bytesReceived = counts.bytesReceived;
+        event.commit();
+      }
+    }
+  }
+
+  private static final class ServerCallTracer extends ServerStreamTracer {
+    private final ServerCallEvent event;
+    private final MessageCounts counts = new MessageCounts();
+    private volatile SocketAddress remoteAddress;
+
+    ServerCallTracer(ServerCallEvent event, String fullMethodName) {
+      this.event = event;
+      event.method = fullMethodName;
+    }
+
+    @Override
+    public void serverCallStarted(ServerCallInfo<?, ?> callInfo) {
+      remoteAddress = callInfo.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+    }
+
+    @Override
+    public void outboundMessage(int seqNo) {
+      counts.outboundMessage();
+    }
+
+    @Override
+    public void outboundWireSize(long bytes) {
+      counts.outboundWireSize(bytes);
+    }
+
+    @Override
+    public void inboundMessage(int seqNo) {
+      counts.inboundMessage();
+    }
+
+    @Override
+    public void inboundWireSize(long bytes) {
+      counts.inboundWireSize(bytes);
+    }
+
+    @Override
+    public void streamClosed(Status status) {
+      event.end();
+      if (event.shouldCommit()) {
+        event.remoteAddress = String.valueOf(remoteAddress);
+        event.status = status.getCode().name();
+        event.statusDescription = status.getDescription();
+        event.messagesSent = counts.messagesSent;
+        event.bytesSent = counts.bytesSent;
+        event.messagesReceived = counts.messagesReceived;
+        event.bytesReceived = counts.bytesReceived;
+        event.commit();
+      }
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A name resolver reporting addresses or an error to its channel. */
+@Name("io.grpc.NameResolution")
+@Label("gRPC Name Resolution")
+@Description("A name resolver reporting addresses or an error to its channel")
+@Category({"gRPC", "Channels"})
+@StackTrace(false)
+final class NameResolutionEvent extends Event {
+  @Label("Channel")
+  String channel;
+
+  @Label("Target")
+  String target;
+
+  @Label("Address Count")
+  int addressCount;
+
+  @Label("Status")
+  String status;
+
+  @Label("Status Description")
+  String statusDescription;
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** An HTTP/2 RST_STREAM frame received. */
+@Name("io.grpc.RstStream")
+@Label("gRPC RST_STREAM")
+@Description("An HTTP/2 RST_STREAM frame received")
+@Category({"gRPC", "Transport"})
+@StackTrace(false)
+final class RstStreamEvent extends Event {
+  @Label("Remote Address")
+  String remoteAddress;
+
+  @Label("Stream Id")
+  int streamId;
+
+  @Label("Error Code")
+  long errorCode;
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/** A server call, from the creation of its stream until it closed. */
+@Name("io.grpc.ServerCall")
+@Label("gRPC Server Call")
+@Description("A server call, from the creation of its stream until it closed")
+@Category({"gRPC", "Calls"})
+@StackTrace(false)
+@Threshold("20 ms")
+final class ServerCallEvent extends Event {
+  @Label("Method")
+  String method;
+
+  @Label("Remote Address")
+  String remoteAddress;
+
+  @Label("Status")
+  String status;
+
+  @Label("Status Description")
+  String statusDescription;
+
+  @Label("Messages Sent")
+  long messagesSent;
+
+  @Label("Bytes Sent")
+  @DataAmount
+  long bytesSent;
+
+  @Label("Messages Received")
+  long messagesReceived;
+
+  @Label("Bytes Received")
+  @DataAmount
+  long bytesReceived;
+}
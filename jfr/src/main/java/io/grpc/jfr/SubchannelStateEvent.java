@@ -0,0 +1,47 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A subchannel changing its connectivity state. */
+@Name("io.grpc.SubchannelState")
+@Label("gRPC Subchannel State Change")
+@Description("A subchannel changing its connectivity state")
+@Category({"gRPC", "Channels"})
+@StackTrace(false)
+final class SubchannelStateEvent extends Event {
+  @Label("Subchannel")
+  String subchannel;
+
+  @Label("Addresses")
+  String addresses;
+
+  @Label("State")
+  String state;
+
+  @Label("Status")
+  String status;
+
+  @Label("Status Description")
+  String statusDescription;
+}
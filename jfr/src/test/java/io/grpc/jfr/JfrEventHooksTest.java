@@ -0,0 +1,252 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.jfr;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.Grpc;
+import io.grpc.InternalLogId;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.internal.EventHooks;
+import io.grpc.stub.ClientCalls;
+import io.grpc.testing.GrpcCleanupRule;
+import io.grpc.testing.TestMethodDescriptors;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link JfrEventHooks}. */
+@RunWith(JUnit4.class)
+public class JfrEventHooksTest {
+  private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 8080);
+
+  @Rule
+  public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+
+  private final EventHooks hooks = new JfrEventHooks();
+  private final Recording recording = new Recording();
+
+  @After
+  public void tearDown() {
+    recording.close();
+  }
+
+  @Test
+  public void installed() {
+    assertThat(EventHooks.isInstalled()).isTrue();
+    assertThat(EventHooks.getInstance()).isInstanceOf(JfrEventHooks.class);
+  }
+
+  @Test
+  public void callThroughChannel() throws Exception {
+    startRecording("io.grpc.ClientCall", "io.grpc.ServerCall", "io.grpc.NameResolution");
+    String serverName = InProcessServerBuilder.generateName();
+    grpcCleanup.register(InProcessServerBuilder.forName(serverName)
+        .addService(ServerServiceDefinition.builder("service_foo")
+            .addMethod(TestMethodDescriptors.voidMethod(), new ServerCallHandler<Void, Void>() {
+              @Override
+              public ServerCall.Listener<Void> startCall(ServerCall<Void, Void> call,
+                  Metadata headers) {
+                call.close(Status.ABORTED, new Metadata());
+                return new ServerCall.Listener<Void>() {};
+              }
+            })
+            .build())
+        .directExecutor()
+        .build()
+        .start());
+    ManagedChannel channel = grpcCleanup.register(
+        InProcessChannelBuilder.forName(serverName).directExecutor().build());
+    try {
+      ClientCalls.blockingUnaryCall(
+          channel, TestMethodDescriptors.voidMethod(), CallOptions.DEFAULT, null);
+    } catch (StatusRuntimeException e) {
+      assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.ABORTED);
+    }
+
+    String methodName = TestMethodDescriptors.voidMethod().getFullMethodName();
+    RecordedEvent clientCall = getOnlyEvent("io.grpc.ClientCall");
+    assertThat(clientCall.getString("method")).isEqualTo(methodName);
+    assertThat(clientCall.getString("status")).isEqualTo("ABORTED");
+    RecordedEvent serverCall = getOnlyEvent("io.grpc.ServerCall");
+    assertThat(serverCall.getString("method")).isEqualTo(methodName);
+    assertThat(serverCall.getString("status")).isEqualTo("ABORTED");
+    RecordedEvent nameResolution = getOnlyEvent("io.grpc.NameResolution");
+    assertThat(nameResolution.getInt("addressCount")).isEqualTo(1);
+  }
+
+  @Test
+  public void notRecording_nothingCreated() {
+    assertThat(hooks.getClientTracerFactory("service/method")).isNull();
+    assertThat(hooks.flowControlStallStarted()).isNull();
+    ServerStreamTracer.Factory factory = hooks.getServerTracerFactory();
+    assertThat(factory.newServerStreamTracer("service/method", new Metadata()))
+        .isSameInstanceAs(factory.newServerStreamTracer("service/other", new Metadata()));
+  }
+
+  @Test
+  public void clientCall() throws Exception {
+    startRecording("io.grpc.ClientCall");
+    ClientStreamTracer.Factory factory = hooks.getClientTracerFactory("service/method");
+    ClientStreamTracer tracer = factory.newClientStreamTracer(
+        ClientStreamTracer.StreamInfo.newBuilder().setPreviousAttempts(1).build(),
+        new Metadata());
+    tracer.streamCreated(
+        Attributes.newBuilder().set(Grpc.TRANSPORT_ATTR_REMOTE_ADDR, ADDRESS).build(),
+        new Metadata());
+    tracer.outboundMessage(0);
+    tracer.outboundWireSize(10);
+    tracer.inboundMessage(0);
+    tracer.inboundWireSize(20);
+    tracer.inboundMessage(1);
+    tracer.inboundWireSize(30);
+    tracer.streamClosed(Status.UNAVAILABLE.withDescription("gone"));
+
+    RecordedEvent event = getOnlyEvent("io.grpc.ClientCall");
+    assertThat(event.getString("method")).isEqualTo("service/method");
+    assertThat(event.getString("remoteAddress")).isEqualTo(ADDRESS.toString());
+    assertThat(event.getInt("previousAttempts")).isEqualTo(1);
+    assertThat(event.getString("status")).isEqualTo("UNAVAILABLE");
+    assertThat(event.getString("statusDescription")).isEqualTo("gone");
+    assertThat(event.getLong("messagesSent")).isEqualTo(1);
+    assertThat(event.getLong("bytesSent")).isEqualTo(10);
+    assertThat(event.getLong("messagesReceived")).isEqualTo(2);
+    assertThat(event.getLong("bytesReceived")).isEqualTo(50);
+  }
+
+  @Test
+  public void serverCall() throws Exception {
+    startRecording("io.grpc.ServerCall");
+    ServerStreamTracer tracer =
+        hooks.getServerTracerFactory().newServerStreamTracer("service/method", new Metadata());
+    tracer.inboundMessage(0);
+    tracer.inboundWireSize(7);
+    tracer.outboundMessage(0);
+    tracer.outboundWireSize(9);
+    tracer.streamClosed(Status.OK);
+
+    RecordedEvent event = getOnlyEvent("io.grpc.ServerCall");
+    assertThat(event.getString("method")).isEqualTo("service/method");
+    assertThat(event.getString("status")).isEqualTo("OK");
+    assertThat(event.getLong("bytesReceived")).isEqualTo(7);
+    assertThat(event.getLong("bytesSent")).isEqualTo(9);
+  }
+
+  @Test
+  public void flowControlStall() throws Exception {
+    startRecording("io.grpc.FlowControlStall");
+    EventHooks.Span stall = hooks.flowControlStallStarted();
+    Thread.sleep(5);
+    stall.close();
+
+    RecordedEvent event = getOnlyEvent("io.grpc.FlowControlStall");
+    assertThat(event.getDuration()).isAtLeast(Duration.ofMillis(5));
+  }
+
+  @Test
+  public void transportEvents() throws Exception {
+    startRecording("io.grpc.GoAway", "io.grpc.RstStream");
+    hooks.goAway(ADDRESS, true, 5, 11, "too_many_pings");
+    hooks.rstStreamReceived(ADDRESS, 3, 8);
+
+    RecordedEvent goAway = getOnlyEvent("io.grpc.GoAway");
+    assertThat(goAway.getString("remoteAddress")).isEqualTo(ADDRESS.toString());
+    assertThat(goAway.getBoolean("received")).isTrue();
+    assertThat(goAway.getInt("lastStreamId")).isEqualTo(5);
+    assertThat(goAway.getLong("errorCode")).isEqualTo(11);
+    assertThat(goAway.getString("debugData")).isEqualTo("too_many_pings");
+    RecordedEvent rstStream = getOnlyEvent("io.grpc.RstStream");
+    assertThat(rstStream.getInt("streamId")).isEqualTo(3);
+    assertThat(rstStream.getLong("errorCode")).isEqualTo(8);
+  }
+
+  @Test
+  public void channelEvents() throws Exception {
+    startRecording("io.grpc.SubchannelState", "io.grpc.NameResolution");
+    InternalLogId subchannelId = InternalLogId.allocate("Subchannel", "localhost");
+    hooks.subchannelStateChanged(subchannelId, "[addrs]",
+        ConnectivityStateInfo.forTransientFailure(Status.UNAVAILABLE.withDescription("refused")));
+    InternalLogId channelId = InternalLogId.allocate("Channel", "localhost");
+    hooks.nameResolved(channelId, "dns:///localhost", 2, Status.OK);
+
+    RecordedEvent subchannelState = getOnlyEvent("io.grpc.SubchannelState");
+    assertThat(subchannelState.getString("subchannel")).isEqualTo(subchannelId.toString());
+    assertThat(subchannelState.getString("addresses")).isEqualTo("[addrs]");
+    assertThat(subchannelState.getString("state"))
+        .isEqualTo(ConnectivityState.TRANSIENT_FAILURE.name());
+    assertThat(subchannelState.getString("status")).isEqualTo("UNAVAILABLE");
+    assertThat(subchannelState.getString("statusDescription")).isEqualTo("refused");
+    RecordedEvent nameResolution = getOnlyEvent("io.grpc.NameResolution");
+    assertThat(nameResolution.getString("channel")).isEqualTo(channelId.toString());
+    assertThat(nameResolution.getString("target")).isEqualTo("dns:///localhost");
+    assertThat(nameResolution.getInt("addressCount")).isEqualTo(2);
+    assertThat(nameResolution.getString("status")).isEqualTo("OK");
+  }
+
+  private void startRecording(String... eventNames) {
+    for (String eventName : eventNames) {
+      recording.enable(eventName).withThreshold(Duration.ZERO);
+    }
+    recording.start();
+  }
+
+  private RecordedEvent getOnlyEvent(String eventName) throws Exception {
+    if (recording.getState() == RecordingState.RUNNING) {
+      recording.stop();
+    }
+    Path file = Files.createTempFile("grpc", ".jfr");
+    try {
+      recording.dump(file);
+      List<RecordedEvent> events = new ArrayList<>();
+      for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+        if (event.getEventType().getName().equals(eventName)) {
+          events.add(event);
+        }
+      }
+      assertThat(events).hasSize(1);
+      return events.get(0);
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -18,20 +18,26 @@ package io.grpc.netty;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.netty.handler.codec.http2.Http2CodecUtil.getEmbeddedHttp2Exception;
+import static io.netty.util.CharsetUtil.UTF_8;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Ticker;
 import io.grpc.ChannelLogger;
+import io.grpc.internal.EventHooks;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http2.Http2ConnectionAdapter;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
 import io.netty.handler.codec.http2.Http2Exception;
 import io.netty.handler.codec.http2.Http2LocalFlowController;
 import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.codec.http2.Http2Stream;
+import java.net.SocketAddress;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 /**
  * Base class for all Netty gRPC handlers. This class standardizes exception handling (always
@@ -73,6 +79,21 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
     }
     this.flowControlPing = new FlowControlPinger(pingLimiter);
     this.ticker = checkNotNull(ticker, "ticker");
+    if (EventHooks.isInstalled()) {
+      connection().addListener(new Http2ConnectionAdapter() {
+        @Override
+        public void onGoAwaySent(int lastStreamId, long errorCode, ByteBuf debugData) {
+          EventHooks.getInstance().goAway(
+              remoteAddress(), false, lastStreamId, errorCode, debugData.toString(UTF_8));
+        }
+
+        @Override
+        public void onGoAwayReceived(int lastStreamId, long errorCode, ByteBuf debugData) {
+          EventHooks.getInstance().goAway(
+              remoteAddress(), true, lastStreamId, errorCode, debugData.toString(UTF_8));
+        }
+      });
+    }
   }
 
   @Override
@@ -106,6 +127,18 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
     return ctx;
   }
 
+  /** Records an inbound RST_STREAM frame, when events are being recorded. */
+  protected final void rstStreamReceived(int streamId, long errorCode) {
+    if (EventHooks.isInstalled()) {
+      EventHooks.getInstance().rstStreamReceived(remoteAddress(), streamId, errorCode);
+    }
+  }
+
+  @Nullable
+  private SocketAddress remoteAddress() {
+    return ctx == null ? null : ctx.channel().remoteAddress();
+  }
+
   /**
    * Sends initial connection window to the remote endpoint if necessary.
    */
@@ -120,6 +153,20 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
     }
   }
 
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    flowControlPing.releaseWindow();
+    super.channelInactive(ctx);
+  }
+
+  /**
+   * Returns the inbound flow control window of the connection, which auto flow control tuning
+   * adjusts. Must be called from the event loop.
+   */
+  int inboundFlowControlWindow() {
+    return decoder().flowController().initialWindowSize(connection().connectionStream());
+  }
+
   @VisibleForTesting
   FlowControlPinger flowControlPing() {
     return flowControlPing;
@@ -132,13 +179,26 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
 
   /**
    * Class for handling flow control pinging and flow control window updates as necessary.
+   *
+   * <p>The window grows to twice the bandwidth-delay product (BDP) measured with each ping, as
+   * long as the bandwidth grows too. It shrinks back once {@link #SHRINK_SAMPLES} measurements in
+   * a row find it more than twice as large as needed, but never below the initial window. Growing
+   * reserves memory from a {@link FlowControlWindowBudget} shared by all connections, so a burst
+   * on many connections can't make them buffer more than the budget allows.
    */
   final class FlowControlPinger {
 
     private static final int MAX_WINDOW_SIZE = 8 * 1024 * 1024;
     public static final int MAX_BACKOFF = 10;
+    @VisibleForTesting
+    static final int SHRINK_SAMPLES = 3;
 
     private final PingLimiter pingLimiter;
+    private FlowControlWindowBudget budget = FlowControlWindowBudget.getDefault();
+    // The window before any tuning, and how much it has grown beyond that.
+    private int minWindow;
+    private int reservedWindow;
+    private int shrinkSamples;
     private int pingCount;
     private int pingReturn;
     private boolean pinging;
@@ -201,22 +261,71 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
       long bandwidth = (getDataSincePing() * TimeUnit.SECONDS.toNanos(1)) / elapsedTime;
       // Calculate new window size by doubling the observed BDP, but cap at max window
       int targetWindow = Math.min(getDataSincePing() * 2, MAX_WINDOW_SIZE);
-      Http2LocalFlowController fc = decoder().flowController();
-      int currentWindow = fc.initialWindowSize(connection().connectionStream());
-      if (bandwidth <= lastBandwidth || targetWindow <= currentWindow) {
-        pingFrequencyMultiplier = Math.min(pingFrequencyMultiplier + 1, MAX_BACKOFF);
+      int currentWindow = inboundFlowControlWindow();
+      if (minWindow == 0) {
+        minWindow = currentWindow;
+      }
+      if (bandwidth > lastBandwidth && targetWindow > currentWindow) {
+        shrinkSamples = 0;
+        int increase = budget.reserve(targetWindow - currentWindow);
+        if (increase == 0) {
+          pingFrequencyMultiplier = Math.min(pingFrequencyMultiplier + 1, MAX_BACKOFF);
+          return;
+        }
+        reservedWindow += increase;
+        pingFrequencyMultiplier = 0; // react quickly when size is changing
+        lastBandwidth = bandwidth;
+        setWindow(currentWindow, currentWindow + increase);
         return;
       }
 
-      pingFrequencyMultiplier = 0; // react quickly when size is changing
-      lastBandwidth = bandwidth;
-      lastTargetWindow = targetWindow;
-      int increase = targetWindow - currentWindow;
-      fc.incrementWindowSize(connection().connectionStream(), increase);
-      fc.initialWindowSize(targetWindow);
+      if (currentWindow > minWindow && targetWindow * 2 < currentWindow
+          && ++shrinkSamples >= SHRINK_SAMPLES) {
+        // Throughput dropped for a while; give back what isn't needed anymore.
+        shrinkSamples = 0;
+        int newWindow = Math.max(targetWindow, minWindow);
+        budget.release(currentWindow - newWindow);
+        reservedWindow -= currentWindow - newWindow;
+        pingFrequencyMultiplier = 0;
+        // Growing again requires the bandwidth to exceed the current one, not the peak.
+        lastBandwidth = bandwidth;
+        setWindow(currentWindow, newWindow);
+        return;
+      }
+      if (targetWindow * 2 >= currentWindow) {
+        shrinkSamples = 0;
+      }
+      pingFrequencyMultiplier = Math.min(pingFrequencyMultiplier + 1, MAX_BACKOFF);
+    }
+
+    /**
+     * Changes the window of the connection and the initial window of streams.
+     *
+     * <p>A larger window is used right away. A smaller one can't take back the credit the peer
+     * already has, so the connection window only drains as received data is consumed, by sending
+     * WINDOW_UPDATEs for less than was consumed, and the stream windows only shrink once the peer
+     * acknowledges the SETTINGS, when the encoder applies them.
+     */
+    private void setWindow(int currentWindow, int newWindow) throws Http2Exception {
+      lastTargetWindow = newWindow;
+      Http2LocalFlowController fc = decoder().flowController();
+      // Changes the size WINDOW_UPDATEs restore the connection window to. When growing, this sends
+      // one right away.
+      fc.incrementWindowSize(connection().connectionStream(), newWindow - currentWindow);
+      if (newWindow > currentWindow) {
+        fc.initialWindowSize(newWindow);
+      }
       Http2Settings settings = new Http2Settings();
-      settings.initialWindowSize(targetWindow);
-      frameWriter().writeSettings(ctx(), settings, ctx().newPromise());
+      settings.initialWindowSize(newWindow);
+      // Through the encoder, so that the settings are applied in order as the peer acknowledges
+      // them.
+      encoder().writeSettings(ctx(), settings, ctx().newPromise());
+    }
+
+    /** Returns the memory reserved from the budget, once the connection is gone. */
+    void releaseWindow() {
+      budget.release(reservedWindow);
+      reservedWindow = 0;
     }
 
     private boolean isPinging() {
@@ -244,6 +353,16 @@ abstract class AbstractNettyHandler extends GrpcHttp2ConnectionHandler {
       return pingCount;
     }
 
+    @VisibleForTesting
+    void setBudget(FlowControlWindowBudget budget) {
+      this.budget = checkNotNull(budget, "budget");
+    }
+
+    @VisibleForTesting
+    int getReservedWindow() {
+      return reservedWindow;
+    }
+
     @VisibleForTesting
     int getPingReturn() {
       return pingReturn;
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Bounds how much auto flow control tuning may grow the inbound windows of all the connections,
+ * beyond their initial windows. This bounds the memory the peers may make the process buffer.
+ *
+ * <p>The default budget is 1 GiB, and may be changed with the {@code
+ * io.grpc.netty.flowControlWindowBudget} system property, in bytes.
+ */
+@ThreadSafe
+final class FlowControlWindowBudget {
+  private static final long DEFAULT_LIMIT = 1024L * 1024 * 1024;
+  private static final FlowControlWindowBudget DEFAULT = new FlowControlWindowBudget(
+      Long.getLong("io.grpc.netty.flowControlWindowBudget", DEFAULT_LIMIT));
+
+  private final long limit;
+  private final AtomicLong reserved = new AtomicLong();
+
+  @VisibleForTesting
+  FlowControlWindowBudget(long limit) {
+    checkArgument(limit >= 0, "limit must be non-negative");
+    this.limit = limit;
+  }
+
+  static FlowControlWindowBudget getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Reserves up to {@code bytes} of window, and returns how much was reserved. This is less than
+   * asked for when the budget is nearly exhausted.
+   */
+  int reserve(int bytes) {
+    checkArgument(bytes >= 0, "bytes must be non-negative");
+    while (true) {
+      long current = reserved.get();
+      long granted = Math.min(bytes, limit - current);
+      if (granted <= 0) {
+        return 0;
+      }
+      if (reserved.compareAndSet(current, current + granted)) {
+        return (int) granted;
+      }
+    }
+  }
+
+  /** Returns window reserved by {@link #reserve}. */
+  void release(int bytes) {
+    checkArgument(bytes >= 0, "bytes must be non-negative");
+    reserved.addAndGet(-bytes);
+  }
+
+  long getReserved() {
+    return reserved.get();
+  }
+
+  long getLimit() {
+    return limit;
+  }
+}
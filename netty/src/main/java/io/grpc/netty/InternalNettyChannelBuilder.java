@@ -79,6 +79,10 @@ public final class InternalNettyChannelBuilder {
     builder.setTracingEnabled(value);
   }
 
+  public static void setTransportSharingEnabled(NettyChannelBuilder builder, boolean value) {
+    builder.setTransportSharingEnabled(value);
+  }
+
   public static void setStatsRecordStartedRpcs(NettyChannelBuilder builder, boolean value) {
     builder.setStatsRecordStartedRpcs(value);
   }
@@ -59,6 +59,7 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.ssl.SslContext;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -572,12 +573,29 @@ public final class NettyChannelBuilder extends ForwardingChannelBuilder2<NettyCh
 
     ProtocolNegotiator negotiator = protocolNegotiatorFactory.newNegotiator();
     return new NettyTransportFactory(
-        negotiator, channelFactory, channelOptions,
+        negotiator, securitySettings(), channelFactory, channelOptions,
         eventLoopGroupPool, autoFlowControl, flowControlWindow, maxInboundMessageSize,
         maxHeaderListSize, keepAliveTimeNanos, keepAliveTimeoutNanos, keepAliveWithoutCalls,
         transportTracerFactory, localSocketPicker, useGetForSafeMethods, transportSocketType);
   }
 
+  /**
+   * Returns what tells apart how the transports of this builder are secured, or {@code null} if
+   * that can't be told because a custom protocol negotiator is used.
+   */
+  @Nullable
+  private Object securitySettings() {
+    if (freezeProtocolNegotiatorFactory) {
+      // Configured by the channel credentials, which the shared transport pool tells apart.
+      return ChannelCredentials.class;
+    }
+    if (protocolNegotiatorFactory instanceof DefaultProtocolNegotiator) {
+      DefaultProtocolNegotiator negotiator = (DefaultProtocolNegotiator) protocolNegotiatorFactory;
+      return Arrays.asList(negotiator.negotiationType, negotiator.sslContext);
+    }
+    return null;
+  }
+
   @VisibleForTesting
   void assertEventLoopAndChannelType() {
     boolean bothProvided = channelFactory != DEFAULT_CHANNEL_FACTORY
@@ -637,6 +655,10 @@ public final class NettyChannelBuilder extends ForwardingChannelBuilder2<NettyCh
     this.managedChannelImplBuilder.setStatsEnabled(value);
   }
 
+  void setTransportSharingEnabled(boolean value) {
+    this.managedChannelImplBuilder.setTransportSharingEnabled(value);
+  }
+
   void setStatsRecordStartedRpcs(boolean value) {
     this.managedChannelImplBuilder.setStatsRecordStartedRpcs(value);
   }
@@ -716,12 +738,14 @@ public final class NettyChannelBuilder extends ForwardingChannelBuilder2<NettyCh
     private final TransportTracer.Factory transportTracerFactory;
     private final LocalSocketPicker localSocketPicker;
     private final boolean useGetForSafeMethods;
+    @Nullable
+    private final Object transportSettingsKey;
 
     private boolean closed;
     private final Class<? extends SocketAddress> transportSocketType;
 
     NettyTransportFactory(
-        ProtocolNegotiator protocolNegotiator,
+        ProtocolNegotiator protocolNegotiator, @Nullable Object securitySettings,
         ChannelFactory<? extends Channel> channelFactory,
         Map<ChannelOption<?>, ?> channelOptions, ObjectPool<? extends EventLoopGroup> groupPool,
         boolean autoFlowControl, int flowControlWindow, int maxMessageSize, int maxHeaderListSize,
@@ -746,6 +770,11 @@ public final class NettyChannelBuilder extends ForwardingChannelBuilder2<NettyCh
           localSocketPicker != null ? localSocketPicker : new LocalSocketPicker();
       this.useGetForSafeMethods = useGetForSafeMethods;
       this.transportSocketType = transportSocketType;
+      this.transportSettingsKey = securitySettings == null ? null : Arrays.asList(
+          securitySettings, channelFactory, this.channelOptions, group, autoFlowControl,
+          flowControlWindow, maxMessageSize, maxHeaderListSize, keepAliveTimeNanos,
+          keepAliveTimeoutNanos, keepAliveWithoutCalls, transportTracerFactory, localSocketPicker,
+          useGetForSafeMethods, transportSocketType);
     }
 
     @Override
@@ -796,13 +825,19 @@ public final class NettyChannelBuilder extends ForwardingChannelBuilder2<NettyCh
         return null;
       }
       ClientTransportFactory factory = new NettyTransportFactory(
-          result.negotiator.newNegotiator(), channelFactory, channelOptions, groupPool,
+          result.negotiator.newNegotiator(), null, channelFactory, channelOptions, groupPool,
           autoFlowControl, flowControlWindow, maxMessageSize, maxHeaderListSize, keepAliveTimeNanos,
           keepAliveTimeoutNanos, keepAliveWithoutCalls, transportTracerFactory,  localSocketPicker,
           useGetForSafeMethods, transportSocketType);
       return new SwapChannelCredentialsResult(factory, result.callCredentials);
     }
 
+    @Nullable
+    @Override
+    public Object getTransportSettingsKey() {
+      return transportSettingsKey;
+    }
+
     @Override
     public void close() {
       if (closed) {
@@ -38,6 +38,7 @@ import io.grpc.internal.GrpcUtil;
 import io.grpc.internal.Http2Ping;
 import io.grpc.internal.InUseStateAggregator;
 import io.grpc.internal.KeepAliveManager;
+import io.grpc.internal.TraceRecorder;
 import io.grpc.internal.TransportTracer;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2ClientHeadersDecoder;
 import io.netty.buffer.ByteBuf;
@@ -79,7 +80,6 @@ import io.netty.handler.codec.http2.WeightedFairQueueByteDistributor;
 import io.netty.handler.logging.LogLevel;
 import io.perfmark.PerfMark;
 import io.perfmark.Tag;
-import io.perfmark.TaskCloseable;
 import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.Executor;
 import java.util.logging.Level;
@@ -401,6 +401,7 @@ class NettyClientHandler extends AbstractNettyHandler {
    * Handler for an inbound HTTP/2 RST_STREAM frame, terminating a stream.
    */
   private void onRstStreamRead(int streamId, long errorCode) {
+    rstStreamReceived(streamId, errorCode);
     NettyClientStream.TransportState stream = clientStream(connection().stream(streamId));
     if (stream != null) {
       PerfMark.event("NettyClientHandler.onRstStreamRead", stream.tag());
@@ -593,7 +594,7 @@ class NettyClientHandler extends AbstractNettyHandler {
     Http2Headers headers = command.headers();
     stream.setId(streamId);
 
-    try (TaskCloseable ignore = PerfMark.traceTask("NettyClientHandler.createStream")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyClientHandler.createStream")) {
       PerfMark.linkIn(command.getLink());
       PerfMark.attachTag(stream.tag());
       createStreamTraced(
@@ -669,7 +670,7 @@ class NettyClientHandler extends AbstractNettyHandler {
   private void cancelStream(ChannelHandlerContext ctx, CancelClientStreamCommand cmd,
       ChannelPromise promise) {
     NettyClientStream.TransportState stream = cmd.stream();
-    try (TaskCloseable ignore = PerfMark.traceTask("NettyClientHandler.cancelStream")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyClientHandler.cancelStream")) {
       PerfMark.attachTag(stream.tag());
       PerfMark.linkIn(cmd.getLink());
       Status reason = cmd.reason();
@@ -689,7 +690,7 @@ class NettyClientHandler extends AbstractNettyHandler {
    */
   private void sendGrpcFrame(ChannelHandlerContext ctx, SendGrpcFrameCommand cmd,
       ChannelPromise promise) {
-    try (TaskCloseable ignore = PerfMark.traceTask("NettyClientHandler.sendGrpcFrame")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyClientHandler.sendGrpcFrame")) {
       PerfMark.attachTag(cmd.stream().tag());
       PerfMark.linkIn(cmd.getLink());
       // Call the base class to write the HTTP/2 DATA frame.
@@ -700,7 +701,7 @@ class NettyClientHandler extends AbstractNettyHandler {
 
   private void sendPingFrame(ChannelHandlerContext ctx, SendPingCommand msg,
       ChannelPromise promise) {
-    try (TaskCloseable ignore = PerfMark.traceTask("NettyClientHandler.sendPingFrame")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyClientHandler.sendPingFrame")) {
       PerfMark.linkIn(msg.getLink());
       sendPingFrameTraced(ctx, msg, promise);
     }
@@ -780,7 +781,8 @@ class NettyClientHandler extends AbstractNettyHandler {
       public boolean visit(Http2Stream stream) throws Http2Exception {
         NettyClientStream.TransportState clientStream = clientStream(stream);
         Tag tag = clientStream != null ? clientStream.tag() : PerfMark.createTag();
-        try (TaskCloseable ignore = PerfMark.traceTask("NettyClientHandler.forcefulClose")) {
+        try (TraceRecorder.Task ignore =
+                 TraceRecorder.traceTask("NettyClientHandler.forcefulClose")) {
           PerfMark.linkIn(msg.getLink());
           PerfMark.attachTag(tag);
           if (clientStream != null) {
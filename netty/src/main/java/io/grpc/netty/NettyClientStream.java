@@ -34,6 +34,7 @@ import io.grpc.internal.AbstractClientStream;
 import io.grpc.internal.ClientStreamListener.RpcProgress;
 import io.grpc.internal.Http2ClientStreamTransportState;
 import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.TraceRecorder;
 import io.grpc.internal.TransportTracer;
 import io.grpc.internal.WritableBuffer;
 import io.netty.buffer.ByteBuf;
@@ -46,7 +47,6 @@ import io.netty.handler.codec.http2.Http2Stream;
 import io.netty.util.AsciiString;
 import io.perfmark.PerfMark;
 import io.perfmark.Tag;
-import io.perfmark.TaskCloseable;
 import javax.annotation.Nullable;
 
 /**
@@ -118,8 +118,8 @@ class NettyClientStream extends AbstractClientStream {
 
     @Override
     public void writeHeaders(Metadata headers, byte[] requestPayload) {
-      try (TaskCloseable ignore =
-               PerfMark.traceTask("NettyClientStream$Sink.writeHeaders")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("NettyClientStream$Sink.writeHeaders")) {
         writeHeadersInternal(headers, requestPayload);
       }
     }
@@ -206,14 +206,15 @@ class NettyClientStream extends AbstractClientStream {
     @Override
     public void writeFrame(
         WritableBuffer frame, boolean endOfStream, boolean flush, int numMessages) {
-      try (TaskCloseable ignore = PerfMark.traceTask("NettyClientStream$Sink.writeFrame")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("NettyClientStream$Sink.writeFrame")) {
         writeFrameInternal(frame, endOfStream, flush, numMessages);
       }
     }
 
     @Override
     public void cancel(Status status) {
-      try (TaskCloseable ignore = PerfMark.traceTask("NettyClientStream$Sink.cancel")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyClientStream$Sink.cancel")) {
         writeQueue.enqueue(new CancelClientStreamCommand(transportState(), status), true);
       }
     }
@@ -23,9 +23,9 @@ import static io.netty.channel.ChannelOption.SO_KEEPALIVE;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
 import com.google.common.base.Ticker;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.Attributes;
 import io.grpc.CallOptions;
 import io.grpc.ChannelLogger;
@@ -56,8 +56,6 @@ import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.handler.codec.http2.StreamBufferingEncoder.Http2ChannelClosedException;
 import io.netty.util.AsciiString;
-import io.netty.util.concurrent.Future;
-import io.netty.util.concurrent.GenericFutureListener;
 import java.net.SocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.util.Map;
@@ -365,30 +363,12 @@ class NettyClientTransport implements ConnectionClientTransport {
 
   @Override
   public ListenableFuture<SocketStats> getStats() {
-    final SettableFuture<SocketStats> result = SettableFuture.create();
-    if (channel.eventLoop().inEventLoop()) {
-      // This is necessary, otherwise we will block forever if we get the future from inside
-      // the event loop.
-      result.set(getStatsHelper(channel));
-      return result;
-    }
-    channel.eventLoop().submit(
-        new Runnable() {
-          @Override
-          public void run() {
-            result.set(getStatsHelper(channel));
-          }
-        })
-        .addListener(
-            new GenericFutureListener<Future<Object>>() {
-              @Override
-              public void operationComplete(Future<Object> future) throws Exception {
-                if (!future.isSuccess()) {
-                  result.setException(future.cause());
-                }
-              }
-            });
-    return result;
+    return SocketStatsBatcher.getStats(channel.eventLoop(), new Supplier<SocketStats>() {
+      @Override
+      public SocketStats get() {
+        return getStatsHelper(channel);
+      }
+    });
   }
 
   private SocketStats getStatsHelper(Channel ch) {
@@ -397,7 +377,7 @@ class NettyClientTransport implements ConnectionClientTransport {
         transportTracer.getStats(),
         channel.localAddress(),
         channel.remoteAddress(),
-        Utils.getSocketOptions(ch),
+        Utils.getSocketOptions(ch, handler),
         handler == null ? null : handler.getSecurityInfo());
   }
 
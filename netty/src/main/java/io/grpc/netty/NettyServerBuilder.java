@@ -37,6 +37,7 @@ import io.grpc.ServerCredentials;
 import io.grpc.ServerStreamTracer;
 import io.grpc.internal.FixedObjectPool;
 import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.InboundMemoryBudget;
 import io.grpc.internal.InternalServer;
 import io.grpc.internal.KeepAliveManager;
 import io.grpc.internal.ObjectPool;
@@ -106,6 +107,7 @@ public final class NettyServerBuilder extends ForwardingServerBuilder<NettyServe
   private int flowControlWindow = DEFAULT_FLOW_CONTROL_WINDOW;
   private int maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
   private int maxHeaderListSize = GrpcUtil.DEFAULT_MAX_HEADER_LIST_SIZE;
+  private long inboundMemoryBudget;
   private long keepAliveTimeInNanos = DEFAULT_SERVER_KEEPALIVE_TIME_NANOS;
   private long keepAliveTimeoutInNanos = DEFAULT_SERVER_KEEPALIVE_TIMEOUT_NANOS;
   private long maxConnectionIdleInNanos = MAX_CONNECTION_IDLE_NANOS_DISABLED;
@@ -494,6 +496,15 @@ public final class NettyServerBuilder extends ForwardingServerBuilder<NettyServe
     return this;
   }
 
+  /** {@inheritDoc} */
+  @CanIgnoreReturnValue
+  @Override
+  public NettyServerBuilder inboundMemoryBudget(long bytes) {
+    checkArgument(bytes > 0, "inboundMemoryBudget must be positive: %s", bytes);
+    this.inboundMemoryBudget = bytes;
+    return this;
+  }
+
   /**
    * Sets a custom keepalive time, the delay time for sending next keepalive ping. An unreasonably
    * small value might be increased, and {@code Long.MAX_VALUE} nano seconds or an unreasonably
@@ -664,6 +675,7 @@ public final class NettyServerBuilder extends ForwardingServerBuilder<NettyServe
         keepAliveTimeInNanos, keepAliveTimeoutInNanos,
         maxConnectionIdleInNanos, maxConnectionAgeInNanos,
         maxConnectionAgeGraceInNanos, permitKeepAliveWithoutCalls, permitKeepAliveTimeInNanos,
+        inboundMemoryBudget > 0 ? new InboundMemoryBudget(inboundMemoryBudget) : null,
         eagAttributes, this.serverImplBuilder.getChannelz());
   }
 
@@ -45,12 +45,14 @@ import io.grpc.Metadata;
 import io.grpc.ServerStreamTracer;
 import io.grpc.Status;
 import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.InboundMemoryBudget;
 import io.grpc.internal.KeepAliveEnforcer;
 import io.grpc.internal.KeepAliveManager;
 import io.grpc.internal.LogExceptionRunnable;
 import io.grpc.internal.MaxConnectionIdleManager;
 import io.grpc.internal.ServerTransportListener;
 import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.TraceRecorder;
 import io.grpc.internal.TransportTracer;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2ServerHeadersDecoder;
 import io.netty.buffer.ByteBuf;
@@ -93,7 +95,6 @@ import io.netty.util.AsciiString;
 import io.netty.util.ReferenceCountUtil;
 import io.perfmark.PerfMark;
 import io.perfmark.Tag;
-import io.perfmark.TaskCloseable;
 import java.text.MessageFormat;
 import java.util.List;
 import java.util.concurrent.Future;
@@ -128,6 +129,8 @@ class NettyServerHandler extends AbstractNettyHandler {
   private final List<? extends ServerStreamTracer.Factory> streamTracerFactories;
   private final TransportTracer transportTracer;
   private final KeepAliveEnforcer keepAliveEnforcer;
+  @Nullable
+  private final InboundMemoryBudget inboundMemoryBudget;
   private final Attributes eagAttributes;
   /** Incomplete attributes produced by negotiator. */
   private Attributes negotiationAttributes;
@@ -164,6 +167,7 @@ class NettyServerHandler extends AbstractNettyHandler {
       long maxConnectionAgeGraceInNanos,
       boolean permitKeepAliveWithoutCalls,
       long permitKeepAliveTimeInNanos,
+      @Nullable InboundMemoryBudget inboundMemoryBudget,
       Attributes eagAttributes) {
     Preconditions.checkArgument(maxHeaderListSize > 0, "maxHeaderListSize must be positive: %s",
         maxHeaderListSize);
@@ -192,6 +196,7 @@ class NettyServerHandler extends AbstractNettyHandler {
         maxConnectionAgeGraceInNanos,
         permitKeepAliveWithoutCalls,
         permitKeepAliveTimeInNanos,
+        inboundMemoryBudget,
         eagAttributes,
         Ticker.systemTicker());
   }
@@ -215,6 +220,7 @@ class NettyServerHandler extends AbstractNettyHandler {
       long maxConnectionAgeGraceInNanos,
       boolean permitKeepAliveWithoutCalls,
       long permitKeepAliveTimeInNanos,
+      @Nullable InboundMemoryBudget inboundMemoryBudget,
       Attributes eagAttributes,
       Ticker ticker) {
     Preconditions.checkArgument(maxStreams > 0, "maxStreams must be positive: %s", maxStreams);
@@ -266,6 +272,7 @@ class NettyServerHandler extends AbstractNettyHandler {
         maxConnectionAgeInNanos, maxConnectionAgeGraceInNanos,
         keepAliveEnforcer,
         autoFlowControl,
+        inboundMemoryBudget,
         eagAttributes, ticker);
   }
 
@@ -286,6 +293,7 @@ class NettyServerHandler extends AbstractNettyHandler {
       long maxConnectionAgeGraceInNanos,
       final KeepAliveEnforcer keepAliveEnforcer,
       boolean autoFlowControl,
+      @Nullable InboundMemoryBudget inboundMemoryBudget,
       Attributes eagAttributes,
       Ticker ticker) {
     super(channelUnused, decoder, encoder, settings, new ServerChannelLogger(),
@@ -328,6 +336,7 @@ class NettyServerHandler extends AbstractNettyHandler {
     this.maxConnectionAgeInNanos = maxConnectionAgeInNanos;
     this.maxConnectionAgeGraceInNanos = maxConnectionAgeGraceInNanos;
     this.keepAliveEnforcer = checkNotNull(keepAliveEnforcer, "keepAliveEnforcer");
+    this.inboundMemoryBudget = inboundMemoryBudget;
     this.eagAttributes = checkNotNull(eagAttributes, "eagAttributes");
 
     streamKey = encoder.connection().newKey();
@@ -473,8 +482,12 @@ class NettyServerHandler extends AbstractNettyHandler {
           statsTraceCtx,
           transportTracer,
           method);
+      if (inboundMemoryBudget != null) {
+        state.setInboundMemoryBudget(inboundMemoryBudget, ctx.channel().eventLoop());
+      }
 
-      try (TaskCloseable ignore = PerfMark.traceTask("NettyServerHandler.onHeadersRead")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("NettyServerHandler.onHeadersRead")) {
         PerfMark.attachTag(state.tag());
         String authority = getOrUpdateAuthority((AsciiString) headers.authority());
         NettyServerStream stream = new NettyServerStream(
@@ -515,7 +528,7 @@ class NettyServerHandler extends AbstractNettyHandler {
       if (stream == null) {
         return;
       }
-      try (TaskCloseable ignore = PerfMark.traceTask("NettyServerHandler.onDataRead")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyServerHandler.onDataRead")) {
         PerfMark.attachTag(stream.tag());
         stream.inboundDataReceived(data, endOfStream);
       }
@@ -527,10 +540,12 @@ class NettyServerHandler extends AbstractNettyHandler {
   }
 
   private void onRstStreamRead(int streamId, long errorCode) throws Http2Exception {
+    rstStreamReceived(streamId, errorCode);
     try {
       NettyServerStream.TransportState stream = serverStream(connection().stream(streamId));
       if (stream != null) {
-        try (TaskCloseable ignore = PerfMark.traceTask("NettyServerHandler.onRstStreamRead")) {
+        try (TraceRecorder.Task ignore =
+                 TraceRecorder.traceTask("NettyServerHandler.onRstStreamRead")) {
           PerfMark.attachTag(stream.tag());
           stream.transportReportStatus(
               Status.CANCELLED.withDescription("RST_STREAM received for code " + errorCode));
@@ -562,7 +577,7 @@ class NettyServerHandler extends AbstractNettyHandler {
     }
     logger.log(level, "Stream Error", cause);
     Tag tag = serverStream != null ? serverStream.tag() : PerfMark.createTag();
-    try (TaskCloseable ignore = PerfMark.traceTask("NettyServerHandler.onStreamError")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyServerHandler.onStreamError")) {
       PerfMark.attachTag(tag);
       if (serverStream != null) {
         serverStream.transportReportStatus(Utils.statusFromThrowable(cause));
@@ -669,6 +684,11 @@ class NettyServerHandler extends AbstractNettyHandler {
     ctx.flush();
   }
 
+  @Nullable
+  InboundMemoryBudget getInboundMemoryBudget() {
+    return inboundMemoryBudget;
+  }
+
   /**
    * Returns the given processed bytes back to inbound flow control.
    */
@@ -697,7 +717,7 @@ class NettyServerHandler extends AbstractNettyHandler {
    */
   private void sendGrpcFrame(ChannelHandlerContext ctx, SendGrpcFrameCommand cmd,
       ChannelPromise promise) throws Http2Exception {
-    try (TaskCloseable ignore = PerfMark.traceTask("NettyServerHandler.sendGrpcFrame")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyServerHandler.sendGrpcFrame")) {
       PerfMark.attachTag(cmd.stream().tag());
       PerfMark.linkIn(cmd.getLink());
       if (cmd.endStream()) {
@@ -713,7 +733,8 @@ class NettyServerHandler extends AbstractNettyHandler {
    */
   private void sendResponseHeaders(ChannelHandlerContext ctx, SendResponseHeadersCommand cmd,
       ChannelPromise promise) throws Http2Exception {
-    try (TaskCloseable ignore = PerfMark.traceTask("NettyServerHandler.sendResponseHeaders")) {
+    try (TraceRecorder.Task ignore =
+             TraceRecorder.traceTask("NettyServerHandler.sendResponseHeaders")) {
       PerfMark.attachTag(cmd.stream().tag());
       PerfMark.linkIn(cmd.getLink());
       // TODO(carl-mastrangelo): remove this check once https://github.com/netty/netty/issues/6296
@@ -733,7 +754,7 @@ class NettyServerHandler extends AbstractNettyHandler {
 
   private void cancelStream(ChannelHandlerContext ctx, CancelServerStreamCommand cmd,
       ChannelPromise promise) {
-    try (TaskCloseable ignore = PerfMark.traceTask("NettyServerHandler.cancelStream")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyServerHandler.cancelStream")) {
       PerfMark.attachTag(cmd.stream().tag());
       PerfMark.linkIn(cmd.getLink());
       // Notify the listener if we haven't already.
@@ -766,7 +787,8 @@ class NettyServerHandler extends AbstractNettyHandler {
       public boolean visit(Http2Stream stream) throws Http2Exception {
         NettyServerStream.TransportState serverStream = serverStream(stream);
         if (serverStream != null) {
-          try (TaskCloseable ignore = PerfMark.traceTask("NettyServerHandler.forcefulClose")) {
+          try (TraceRecorder.Task ignore =
+                   TraceRecorder.traceTask("NettyServerHandler.forcefulClose")) {
             PerfMark.attachTag(serverStream.tag());
             PerfMark.linkIn(msg.getLink());
             serverStream.transportReportStatus(msg.getStatus());
@@ -24,6 +24,7 @@ import io.grpc.Metadata;
 import io.grpc.Status;
 import io.grpc.internal.AbstractServerStream;
 import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.TraceRecorder;
 import io.grpc.internal.TransportTracer;
 import io.grpc.internal.WritableBuffer;
 import io.netty.buffer.ByteBuf;
@@ -36,7 +37,6 @@ import io.netty.handler.codec.http2.Http2Stream;
 import io.perfmark.Link;
 import io.perfmark.PerfMark;
 import io.perfmark.Tag;
-import io.perfmark.TaskCloseable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -95,7 +95,8 @@ class NettyServerStream extends AbstractServerStream {
   private class Sink implements AbstractServerStream.Sink {
     @Override
     public void writeHeaders(Metadata headers, boolean flush) {
-      try (TaskCloseable ignore = PerfMark.traceTask("NettyServerStream$Sink.writeHeaders")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("NettyServerStream$Sink.writeHeaders")) {
         writeQueue.enqueue(
             SendResponseHeadersCommand.createHeaders(
                 transportState(),
@@ -126,14 +127,16 @@ class NettyServerStream extends AbstractServerStream {
 
     @Override
     public void writeFrame(WritableBuffer frame, boolean flush, final int numMessages) {
-      try (TaskCloseable ignore = PerfMark.traceTask("NettyServerStream$Sink.writeFrame")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("NettyServerStream$Sink.writeFrame")) {
         writeFrameInternal(frame, flush, numMessages);
       }
     }
 
     @Override
     public void writeTrailers(Metadata trailers, boolean headersSent, Status status) {
-      try (TaskCloseable ignore = PerfMark.traceTask("NettyServerStream$Sink.writeTrailers")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("NettyServerStream$Sink.writeTrailers")) {
         Http2Headers http2Trailers = Utils.convertTrailers(trailers, headersSent);
         writeQueue.enqueue(
             SendResponseHeadersCommand.createTrailers(transportState(), http2Trailers, status),
@@ -143,7 +146,7 @@ class NettyServerStream extends AbstractServerStream {
 
     @Override
     public void cancel(Status status) {
-      try (TaskCloseable ignore = PerfMark.traceTask("NettyServerStream$Sink.cancel")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("NettyServerStream$Sink.cancel")) {
         writeQueue.enqueue(new CancelServerStreamCommand(transportState(), status), true);
       }
     }
@@ -181,8 +184,8 @@ class NettyServerStream extends AbstractServerStream {
         eventLoop.execute(new Runnable() {
           @Override
           public void run() {
-            try (TaskCloseable ignore =
-                     PerfMark.traceTask("NettyServerStream$TransportState.runOnTransportThread")) {
+            try (TraceRecorder.Task ignore = TraceRecorder.traceTask(
+                     "NettyServerStream$TransportState.runOnTransportThread")) {
               PerfMark.attachTag(tag);
               PerfMark.linkIn(link);
               r.run();
@@ -194,7 +197,11 @@ class NettyServerStream extends AbstractServerStream {
 
     @Override
     public void bytesRead(int processedBytes) {
-      handler.returnProcessedBytes(http2Stream, processedBytes);
+      int credit = admitProcessedBytes(processedBytes);
+      if (credit == 0) {
+        return;
+      }
+      handler.returnProcessedBytes(http2Stream, credit);
       handler.getWriteQueue().scheduleFlush();
     }
 
@@ -19,14 +19,15 @@ package io.grpc.netty;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.Attributes;
 import io.grpc.InternalChannelz.SocketStats;
 import io.grpc.InternalLogId;
 import io.grpc.ServerStreamTracer;
 import io.grpc.Status;
+import io.grpc.internal.InboundMemoryBudget;
 import io.grpc.internal.ServerTransport;
 import io.grpc.internal.ServerTransportListener;
 import io.grpc.internal.TransportTracer;
@@ -35,8 +36,6 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelPromise;
-import io.netty.util.concurrent.Future;
-import io.netty.util.concurrent.GenericFutureListener;
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.net.SocketException;
@@ -44,6 +43,7 @@ import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * The Netty-based server transport.
@@ -77,6 +77,8 @@ class NettyServerTransport implements ServerTransport {
   private final long maxConnectionAgeGraceInNanos;
   private final boolean permitKeepAliveWithoutCalls;
   private final long permitKeepAliveTimeInNanos;
+  @Nullable
+  private final InboundMemoryBudget inboundMemoryBudget;
   private final Attributes eagAttributes;
   private final List<? extends ServerStreamTracer.Factory> streamTracerFactories;
   private final TransportTracer transportTracer;
@@ -99,6 +101,7 @@ class NettyServerTransport implements ServerTransport {
       long maxConnectionAgeGraceInNanos,
       boolean permitKeepAliveWithoutCalls,
       long permitKeepAliveTimeInNanos,
+      @Nullable InboundMemoryBudget inboundMemoryBudget,
       Attributes eagAttributes) {
     this.channel = Preconditions.checkNotNull(channel, "channel");
     this.channelUnused = channelUnused;
@@ -118,6 +121,7 @@ class NettyServerTransport implements ServerTransport {
     this.maxConnectionAgeGraceInNanos = maxConnectionAgeGraceInNanos;
     this.permitKeepAliveWithoutCalls = permitKeepAliveWithoutCalls;
     this.permitKeepAliveTimeInNanos = permitKeepAliveTimeInNanos;
+    this.inboundMemoryBudget = inboundMemoryBudget;
     this.eagAttributes = Preconditions.checkNotNull(eagAttributes, "eagAttributes");
     SocketAddress remote = channel.remoteAddress();
     this.logId = InternalLogId.allocate(getClass(), remote != null ? remote.toString() : null);
@@ -210,30 +214,12 @@ class NettyServerTransport implements ServerTransport {
 
   @Override
   public ListenableFuture<SocketStats> getStats() {
-    final SettableFuture<SocketStats> result = SettableFuture.create();
-    if (channel.eventLoop().inEventLoop()) {
-      // This is necessary, otherwise we will block forever if we get the future from inside
-      // the event loop.
-      result.set(getStatsHelper(channel));
-      return result;
-    }
-    channel.eventLoop().submit(
-        new Runnable() {
-          @Override
-          public void run() {
-            result.set(getStatsHelper(channel));
-          }
-        })
-        .addListener(
-            new GenericFutureListener<Future<Object>>() {
-              @Override
-              public void operationComplete(Future<Object> future) throws Exception {
-                if (!future.isSuccess()) {
-                  result.setException(future.cause());
-                }
-              }
-            });
-    return result;
+    return SocketStatsBatcher.getStats(channel.eventLoop(), new Supplier<SocketStats>() {
+      @Override
+      public SocketStats get() {
+        return getStatsHelper(channel);
+      }
+    });
   }
 
   private SocketStats getStatsHelper(Channel ch) {
@@ -242,7 +228,7 @@ class NettyServerTransport implements ServerTransport {
         transportTracer.getStats(),
         channel.localAddress(),
         channel.remoteAddress(),
-        Utils.getSocketOptions(ch),
+        Utils.getSocketOptions(ch, grpcHandler),
         grpcHandler == null ? null : grpcHandler.getSecurityInfo());
 
   }
@@ -277,6 +263,7 @@ class NettyServerTransport implements ServerTransport {
         maxConnectionAgeGraceInNanos,
         permitKeepAliveWithoutCalls,
         permitKeepAliveTimeInNanos,
+        inboundMemoryBudget,
         eagAttributes);
   }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.InternalChannelz.SocketStats;
+import io.netty.channel.EventLoop;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Collects the channelz stats of sockets on their event loops. The requests made for sockets of
+ * the same event loop while an earlier one is still queued are served by the same task, so
+ * querying thousands of sockets adds one task per event loop instead of one per socket.
+ */
+final class SocketStatsBatcher {
+  private static final ConcurrentMap<EventLoop, Batch> pendingBatches =
+      new ConcurrentHashMap<>();
+
+  private SocketStatsBatcher() {}
+
+  /**
+   * Returns the stats computed by {@code stats} on {@code eventLoop}. If called from the event
+   * loop, the stats are computed immediately.
+   */
+  static ListenableFuture<SocketStats> getStats(
+      EventLoop eventLoop, Supplier<SocketStats> stats) {
+    SettableFuture<SocketStats> result = SettableFuture.create();
+    if (eventLoop.inEventLoop()) {
+      // This is necessary, otherwise we will block forever if we get the future from inside
+      // the event loop.
+      result.set(stats.get());
+      return result;
+    }
+    Request request = new Request(stats, result);
+    while (true) {
+      Batch batch = pendingBatches.get(eventLoop);
+      if (batch == null) {
+        Batch newBatch = new Batch(eventLoop);
+        batch = pendingBatches.putIfAbsent(eventLoop, newBatch);
+        if (batch == null) {
+          newBatch.add(request);
+          newBatch.schedule();
+          return result;
+        }
+      }
+      if (batch.add(request)) {
+        return result;
+      }
+      // The batch started running, so it can't take more requests. Make a new one.
+    }
+  }
+
+  @VisibleForTesting
+  static int getPendingBatches() {
+    return pendingBatches.size();
+  }
+
+  private static final class Request {
+    final Supplier<SocketStats> stats;
+    final SettableFuture<SocketStats> result;
+
+    Request(Supplier<SocketStats> stats, SettableFuture<SocketStats> result) {
+      this.stats = stats;
+      this.result = result;
+    }
+  }
+
+  private static final class Batch implements Runnable {
+    final EventLoop eventLoop;
+    @GuardedBy("this")
+    private List<Request> requests = new ArrayList<>();
+
+    Batch(EventLoop eventLoop) {
+      this.eventLoop = eventLoop;
+    }
+
+    /** Returns {@code false} if the batch has already run. */
+    synchronized boolean add(Request request) {
+      if (requests == null) {
+        return false;
+      }
+      requests.add(request);
+      return true;
+    }
+
+    private synchronized List<Request> drain() {
+      List<Request> drained = requests;
+      requests = null;
+      return drained;
+    }
+
+    void schedule() {
+      try {
+        eventLoop.execute(this);
+      } catch (RuntimeException e) {
+        pendingBatches.remove(eventLoop, this);
+        for (Request request : drain()) {
+          request.result.setException(e);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      pendingBatches.remove(eventLoop, this);
+      for (Request request : drain()) {
+        try {
+          request.result.set(request.stats.get());
+        } catch (RuntimeException e) {
+          request.result.setException(e);
+        }
+      }
+    }
+  }
+}
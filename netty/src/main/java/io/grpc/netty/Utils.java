@@ -31,6 +31,7 @@ import io.grpc.InternalMetadata;
 import io.grpc.Metadata;
 import io.grpc.Status;
 import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.InboundMemoryBudget;
 import io.grpc.internal.SharedResourceHolder.Resource;
 import io.grpc.internal.TransportTracer;
 import io.grpc.netty.GrpcHttp2HeadersUtils.GrpcHttp2InboundHeaders;
@@ -87,6 +88,8 @@ class Utils {
   public static final AsciiString TE_HEADER = AsciiString.of(GrpcUtil.TE_HEADER.name());
   public static final AsciiString TE_TRAILERS = AsciiString.of(GrpcUtil.TE_TRAILERS);
   public static final AsciiString USER_AGENT = AsciiString.of(GrpcUtil.USER_AGENT_KEY.name());
+  /** Channelz socket option with the inbound flow control window of the connection. */
+  static final String INBOUND_FLOW_CONTROL_WINDOW_OPTION = "GRPC_INBOUND_FLOW_CONTROL_WINDOW";
   public static final Resource<EventLoopGroup> NIO_BOSS_EVENT_LOOP_GROUP
       = new DefaultEventLoopGroupResource(1, "grpc-nio-boss-ELG", EventLoopGroupType.NIO);
   public static final Resource<EventLoopGroup> NIO_WORKER_EVENT_LOOP_GROUP
@@ -497,6 +500,31 @@ class Utils {
   }
 
   static InternalChannelz.SocketOptions getSocketOptions(Channel channel) {
+    return socketOptionsBuilder(channel).build();
+  }
+
+  /**
+   * Returns the socket options of the channel, along with the inbound flow control window of its
+   * gRPC handler as {@link #INBOUND_FLOW_CONTROL_WINDOW_OPTION} and, for servers, the gauges of the
+   * {@link InboundMemoryBudget}. Must be called from the event loop.
+   */
+  static InternalChannelz.SocketOptions getSocketOptions(
+      Channel channel, @Nullable AbstractNettyHandler handler) {
+    InternalChannelz.SocketOptions.Builder b = socketOptionsBuilder(channel);
+    if (handler != null) {
+      b.addOption(
+          INBOUND_FLOW_CONTROL_WINDOW_OPTION, String.valueOf(handler.inboundFlowControlWindow()));
+    }
+    if (handler instanceof NettyServerHandler) {
+      InboundMemoryBudget budget = ((NettyServerHandler) handler).getInboundMemoryBudget();
+      if (budget != null) {
+        budget.addSocketOptions(b);
+      }
+    }
+    return b.build();
+  }
+
+  private static InternalChannelz.SocketOptions.Builder socketOptionsBuilder(Channel channel) {
     ChannelConfig config = channel.config();
     InternalChannelz.SocketOptions.Builder b = new InternalChannelz.SocketOptions.Builder();
 
@@ -532,7 +560,7 @@ class Utils {
         b.addOption(entry.getKey(), entry.getValue());
       }
     }
-    return b.build();
+    return b;
   }
 
   private enum EventLoopGroupType {
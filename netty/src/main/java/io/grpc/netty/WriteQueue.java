@@ -19,12 +19,12 @@ package io.grpc.netty;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import io.grpc.internal.TraceRecorder;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelPromise;
 import io.perfmark.Link;
 import io.perfmark.PerfMark;
-import io.perfmark.TaskCloseable;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -120,7 +120,7 @@ class WriteQueue {
    * called in the event loop
    */
   private void flush() {
-    try (TaskCloseable ignore = PerfMark.traceTask("WriteQueue.periodicFlush")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("WriteQueue.periodicFlush")) {
       QueuedCommand cmd;
       int i = 0;
       boolean flushedOnce = false;
@@ -131,7 +131,7 @@ class WriteQueue {
           // Flush each chunk so we are releasing buffers periodically. In theory this loop
           // might never end as new events are continuously added to the queue, if we never
           // flushed in that case we would be guaranteed to OOM.
-          try (TaskCloseable ignore2 = PerfMark.traceTask("WriteQueue.flush0")) {
+          try (TraceRecorder.Task ignore2 = TraceRecorder.traceTask("WriteQueue.flush0")) {
             channel.flush();
           }
           flushedOnce = true;
@@ -139,7 +139,7 @@ class WriteQueue {
       }
       // Must flush at least once, even if there were no writes.
       if (i != 0 || !flushedOnce) {
-        try (TaskCloseable ignore2 = PerfMark.traceTask("WriteQueue.flush1")) {
+        try (TraceRecorder.Task ignore2 = TraceRecorder.traceTask("WriteQueue.flush1")) {
           channel.flush();
         }
       }
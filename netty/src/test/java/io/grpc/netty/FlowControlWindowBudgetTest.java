@@ -0,0 +1,57 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link FlowControlWindowBudget}. */
+@RunWith(JUnit4.class)
+public class FlowControlWindowBudgetTest {
+  private final FlowControlWindowBudget budget = new FlowControlWindowBudget(1000);
+
+  @Test
+  public void reserveWithinLimit() {
+    assertThat(budget.reserve(400)).isEqualTo(400);
+    assertThat(budget.reserve(400)).isEqualTo(400);
+    assertThat(budget.getReserved()).isEqualTo(800);
+  }
+
+  @Test
+  public void reservePartiallyWhenNearlyExhausted() {
+    assertThat(budget.reserve(800)).isEqualTo(800);
+    assertThat(budget.reserve(400)).isEqualTo(200);
+    assertThat(budget.reserve(1)).isEqualTo(0);
+    assertThat(budget.getReserved()).isEqualTo(1000);
+  }
+
+  @Test
+  public void releaseMakesRoom() {
+    budget.reserve(1000);
+    budget.release(300);
+    assertThat(budget.getReserved()).isEqualTo(700);
+    assertThat(budget.reserve(500)).isEqualTo(300);
+  }
+
+  @Test
+  public void defaultBudget() {
+    assertThat(FlowControlWindowBudget.getDefault().getLimit()).isEqualTo(1024L * 1024 * 1024);
+  }
+}
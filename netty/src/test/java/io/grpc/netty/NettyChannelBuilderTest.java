@@ -317,6 +317,37 @@ public class NettyChannelBuilderTest {
     builder.assertEventLoopAndChannelType();
   }
 
+  @Test
+  public void transportSettingsKey_equalForSameSettings() {
+    ClientTransportFactory factory1 = NettyChannelBuilder.forTarget("foo")
+        .usePlaintext().maxInboundMessageSize(1000).buildTransportFactory();
+    ClientTransportFactory factory2 = NettyChannelBuilder.forTarget("foo")
+        .usePlaintext().maxInboundMessageSize(1000).buildTransportFactory();
+    ClientTransportFactory factory3 = NettyChannelBuilder.forTarget("foo")
+        .usePlaintext().maxInboundMessageSize(2000).buildTransportFactory();
+    ClientTransportFactory factory4 = NettyChannelBuilder.forTarget("foo")
+        .maxInboundMessageSize(1000).buildTransportFactory();
+
+    assertThat(factory1.getTransportSettingsKey()).isNotNull();
+    assertThat(factory1.getTransportSettingsKey()).isEqualTo(factory2.getTransportSettingsKey());
+    assertThat(factory1.getTransportSettingsKey()).isNotEqualTo(factory3.getTransportSettingsKey());
+    assertThat(factory1.getTransportSettingsKey()).isNotEqualTo(factory4.getTransportSettingsKey());
+    factory1.close();
+    factory2.close();
+    factory3.close();
+    factory4.close();
+  }
+
+  @Test
+  public void transportSettingsKey_nullForCustomNegotiator() {
+    NettyChannelBuilder builder = NettyChannelBuilder.forTarget("foo");
+    builder.protocolNegotiatorFactory(new PlaintextProtocolNegotiatorClientFactory());
+    ClientTransportFactory factory = builder.buildTransportFactory();
+
+    assertThat(factory.getTransportSettingsKey()).isNull();
+    factory.close();
+  }
+
   @Test
   public void transportFactorySupportsNettyChannelCreds() {
     NettyChannelBuilder builder = NettyChannelBuilder.forTarget("foo");
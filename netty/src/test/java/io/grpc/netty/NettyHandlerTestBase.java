@@ -21,10 +21,13 @@ import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.AdditionalAnswers.delegatesTo;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -73,6 +76,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.Invocation;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.mockito.verification.VerificationMode;
@@ -606,10 +610,162 @@ public abstract class NettyHandlerTestBase<T extends Http2ConnectionHandler> {
     Assert.assertNotEquals(windowSizeA, windowSizeB);
   }
 
+  @Test
+  public void bdpPingWindowShrinksWhenThroughputDrops() throws Exception {
+    this.flowControlWindow = 1024 * 8;
+    manualSetUp();
+    makeStream();
+
+    AbstractNettyHandler handler = (AbstractNettyHandler) handler();
+    handler.setAutoTuneFlowControl(true);
+    FlowControlWindowBudget budget = new FlowControlWindowBudget(1024 * 1024);
+    handler.flowControlPing().setBudget(budget);
+    long pingData = handler.flowControlPing().payload();
+    int initialWindowSize = handler.inboundFlowControlWindow();
+    byte[] data10Kb = initXkbBuffer(10);
+
+    readXCopies(6, data10Kb); // initiate ping on first
+    fakeClock().forwardNanos(100);
+    readPingAck(pingData); // should resize window
+    int grownWindowSize = handler.inboundFlowControlWindow();
+    Assert.assertTrue(grownWindowSize > initialWindowSize);
+    assertEquals(grownWindowSize - initialWindowSize, budget.getReserved());
+
+    for (int i = 1; i < AbstractNettyHandler.FlowControlPinger.SHRINK_SAMPLES; i++) {
+      readUntilBdpPing(handler, data10Kb);
+      fakeClock().forwardNanos(100);
+      readPingAck(pingData); // should not resize window until the drop is sustained
+      assertEquals(grownWindowSize, handler.inboundFlowControlWindow());
+    }
+    readUntilBdpPing(handler, data10Kb);
+    fakeClock().forwardNanos(100);
+    readPingAck(pingData); // should shrink window
+    int shrunkWindowSize = handler.inboundFlowControlWindow();
+    Assert.assertTrue(shrunkWindowSize < grownWindowSize / 2);
+    Assert.assertTrue(shrunkWindowSize >= initialWindowSize);
+    assertEquals(shrunkWindowSize - initialWindowSize, budget.getReserved());
+    // Streams keep the larger window until the peer acknowledges the new settings.
+    assertEquals(grownWindowSize, connection().local().flowController().initialWindowSize());
+    readSettingsAcks();
+    assertEquals(shrunkWindowSize, connection().local().flowController().initialWindowSize());
+  }
+
+  @Test
+  public void bdpPingWindowShrink_peerMayUseCreditAlreadyGranted() throws Exception {
+    this.flowControlWindow = 1024 * 8;
+    manualSetUp();
+    makeStream();
+
+    AbstractNettyHandler handler = (AbstractNettyHandler) handler();
+    handler.setAutoTuneFlowControl(true);
+    handler.flowControlPing().setBudget(new FlowControlWindowBudget(1024 * 1024));
+    long pingData = handler.flowControlPing().payload();
+    byte[] data10Kb = initXkbBuffer(10);
+    Http2LocalFlowController flowController = connection().local().flowController();
+    Http2Stream connectionStream = connection().connectionStream();
+    Http2Stream stream = connection().stream(STREAM_ID);
+
+    readXCopies(6, data10Kb); // initiate ping on first
+    fakeClock().forwardNanos(100);
+    readPingAck(pingData); // should resize window
+    int grownWindowSize = handler.inboundFlowControlWindow();
+    for (int i = 1; i < AbstractNettyHandler.FlowControlPinger.SHRINK_SAMPLES; i++) {
+      readUntilBdpPing(handler, data10Kb);
+      fakeClock().forwardNanos(100);
+      readPingAck(pingData);
+    }
+    readUntilBdpPing(handler, data10Kb);
+    fakeClock().forwardNanos(100);
+    // The credit of the peer, which doesn't know about the smaller window until it gets the
+    // SETTINGS.
+    int streamCredit = flowController.windowSize(stream) - windowUpdates(STREAM_ID);
+    int connectionCredit = flowController.windowSize(connectionStream) - windowUpdates(0);
+    readPingAck(pingData); // should shrink window
+    Assert.assertTrue(handler.inboundFlowControlWindow() < grownWindowSize);
+
+    for (int i = 0; i < 3; i++) {
+      // The peer sends all it may, getting more credit as the data is consumed.
+      int sent = 0;
+      while (true) {
+        int length = Math.min(
+            streamCredit + windowUpdates(STREAM_ID), connectionCredit + windowUpdates(0)) - sent;
+        if (length <= 0) {
+          break;
+        }
+        length = Math.min(length, Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE);
+        channelRead(dataFrame(STREAM_ID, false, Unpooled.wrappedBuffer(new byte[length])));
+        sent += length;
+      }
+      streamCredit -= sent;
+      connectionCredit -= sent;
+      flowController.consumeBytes(stream, flowController.unconsumedBytes(stream));
+    }
+
+    verifyWrite(never()).writeRstStream(
+        any(ChannelHandlerContext.class), anyInt(), anyLong(), any(ChannelPromise.class));
+    verifyWrite(never()).writeGoAway(
+        any(ChannelHandlerContext.class), anyInt(), anyLong(), any(ByteBuf.class),
+        any(ChannelPromise.class));
+  }
+
+  @Test
+  public void bdpPingWindowGrowthLimitedByBudget() throws Exception {
+    this.flowControlWindow = 1024 * 8;
+    manualSetUp();
+    makeStream();
+
+    AbstractNettyHandler handler = (AbstractNettyHandler) handler();
+    handler.setAutoTuneFlowControl(true);
+    FlowControlWindowBudget budget = new FlowControlWindowBudget(10000);
+    handler.flowControlPing().setBudget(budget);
+    long pingData = handler.flowControlPing().payload();
+    int initialWindowSize = handler.inboundFlowControlWindow();
+
+    readXCopies(6, initXkbBuffer(10)); // initiate ping on first
+    fakeClock().forwardNanos(100);
+    readPingAck(pingData); // should resize window within the budget
+    assertEquals(initialWindowSize + 10000, handler.inboundFlowControlWindow());
+    assertEquals(10000, budget.getReserved());
+
+    channel().pipeline().fireChannelInactive();
+    assertEquals(0, budget.getReserved());
+  }
+
   private void readPingAck(long pingData) throws Exception {
     channelRead(pingFrame(true, pingData));
   }
 
+  /** Returns the sum of the WINDOW_UPDATEs the handler has sent for the stream. */
+  private int windowUpdates(int streamId) {
+    int sum = 0;
+    for (Invocation invocation : mockingDetails(frameWriter).getInvocations()) {
+      if (invocation.getMethod().getName().equals("writeWindowUpdate")
+          && invocation.<Integer>getArgument(1) == streamId) {
+        sum += invocation.<Integer>getArgument(2);
+      }
+    }
+    return sum;
+  }
+
+  /** Acknowledges each SETTINGS frame the handler has sent. */
+  private void readSettingsAcks() throws Exception {
+    ArgumentCaptor<Http2Settings> settings = ArgumentCaptor.forClass(Http2Settings.class);
+    verifyWrite(atLeastOnce()).writeSettings(
+        any(ChannelHandlerContext.class), settings.capture(), any(ChannelPromise.class));
+    for (int i = 0; i < settings.getAllValues().size(); i++) {
+      ChannelHandlerContext ctx = newMockContext();
+      new DefaultHttp2FrameWriter().writeSettingsAck(ctx, newPromise());
+      channelRead(captureWrite(ctx));
+    }
+  }
+
+  private void readUntilBdpPing(AbstractNettyHandler handler, byte[] data) throws Exception {
+    int pingCount = handler.flowControlPing().getPingCount();
+    while (handler.flowControlPing().getPingCount() == pingCount) {
+      readXCopies(1, data);
+    }
+  }
+
   private void readXCopies(int copies, byte[] data) throws Exception {
     for (int i = 0; i < copies; i++) {
       channelRead(grpcDataFrame(STREAM_ID, false, data)); // buffer it
@@ -62,6 +62,7 @@ import io.grpc.Status.Code;
 import io.grpc.StreamTracer;
 import io.grpc.internal.AbstractStream;
 import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.InboundMemoryBudget;
 import io.grpc.internal.KeepAliveEnforcer;
 import io.grpc.internal.KeepAliveManager;
 import io.grpc.internal.ServerStream;
@@ -143,6 +144,7 @@ public class NettyServerHandlerTest extends NettyHandlerTestBase<NettyServerHand
   private long maxConnectionAgeGraceInNanos = MAX_CONNECTION_AGE_GRACE_NANOS_INFINITE;
   private long keepAliveTimeInNanos = DEFAULT_SERVER_KEEPALIVE_TIME_NANOS;
   private long keepAliveTimeoutInNanos = DEFAULT_SERVER_KEEPALIVE_TIMEOUT_NANOS;
+  private InboundMemoryBudget inboundMemoryBudget;
 
   private class ServerTransportListenerImpl implements ServerTransportListener {
 
@@ -273,6 +275,49 @@ public class NettyServerHandlerTest extends NettyHandlerTestBase<NettyServerHand
     verifyNoMoreInteractions(streamListener);
   }
 
+  @Test
+  public void inboundMemoryBudget_withholdsCreditWhileExhausted() throws Exception {
+    inboundMemoryBudget = new InboundMemoryBudget(1);
+    manualSetUp();
+    createStream();
+    Http2Stream http2Stream = connection().stream(STREAM_ID);
+    Http2LocalFlowController localFlowController = connection().local().flowController();
+
+    ByteBuf frame = grpcDataFrame(STREAM_ID, false, contentAsArray());
+    int messageLength = frame.readableBytes() - Http2CodecUtil.FRAME_HEADER_LENGTH;
+    channelRead(frame);
+    channelRead(grpcDataFrame(STREAM_ID, false, contentAsArray()));
+    assertEquals(2 * messageLength, inboundMemoryBudget.getBufferedBytes());
+
+    // The second message is still buffered, so the credit for the first is withheld
+    stream.request(1);
+    assertEquals(messageLength, inboundMemoryBudget.getBufferedBytes());
+    assertEquals(messageLength, inboundMemoryBudget.getWithheldBytes());
+    assertEquals(2 * messageLength, localFlowController.unconsumedBytes(http2Stream));
+
+    stream.request(1);
+    assertEquals(0, inboundMemoryBudget.getBufferedBytes());
+    assertEquals(0, inboundMemoryBudget.getWithheldBytes());
+    assertEquals(0, localFlowController.unconsumedBytes(http2Stream));
+  }
+
+  @Test
+  public void inboundMemoryBudget_releasedWhenStreamCloses() throws Exception {
+    inboundMemoryBudget = new InboundMemoryBudget(1);
+    manualSetUp();
+    createStream();
+
+    channelRead(grpcDataFrame(STREAM_ID, false, contentAsArray()));
+    channelRead(grpcDataFrame(STREAM_ID, false, contentAsArray()));
+    stream.request(1);
+    Truth.assertThat(inboundMemoryBudget.getBufferedBytes()).isGreaterThan(0L);
+    Truth.assertThat(inboundMemoryBudget.getWithheldBytes()).isGreaterThan(0L);
+
+    channelRead(rstStreamFrame(STREAM_ID, (int) Http2Error.CANCEL.code()));
+    assertEquals(0, inboundMemoryBudget.getBufferedBytes());
+    assertEquals(0, inboundMemoryBudget.getWithheldBytes());
+  }
+
   @Test
   public void clientHalfCloseShouldForwardToStreamListener() throws Exception {
     manualSetUp();
@@ -1296,6 +1341,7 @@ public class NettyServerHandlerTest extends NettyHandlerTestBase<NettyServerHand
         maxConnectionAgeGraceInNanos,
         permitKeepAliveWithoutCalls,
         permitKeepAliveTimeInNanos,
+        inboundMemoryBudget,
         Attributes.EMPTY,
         fakeClock().getTicker());
   }
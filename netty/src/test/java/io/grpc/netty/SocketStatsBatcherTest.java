@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.netty;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.InternalChannelz.SocketStats;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link SocketStatsBatcher}. */
+@RunWith(JUnit4.class)
+public class SocketStatsBatcherTest {
+  private final EventLoop eventLoop = new DefaultEventLoop();
+  private final AtomicInteger collected = new AtomicInteger();
+  private final Supplier<SocketStats> stats = new Supplier<SocketStats>() {
+    @Override
+    public SocketStats get() {
+      assertThat(eventLoop.inEventLoop()).isTrue();
+      collected.incrementAndGet();
+      return null;
+    }
+  };
+
+  @After
+  public void tearDown() {
+    eventLoop.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void requestsWhileQueuedShareOneTask() throws Exception {
+    final CountDownLatch blocked = new CountDownLatch(1);
+    eventLoop.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+
+    List<ListenableFuture<SocketStats>> results = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      results.add(SocketStatsBatcher.getStats(eventLoop, stats));
+    }
+    assertThat(SocketStatsBatcher.getPendingBatches()).isEqualTo(1);
+    final AtomicInteger collectedBeforeLaterTask = new AtomicInteger(-1);
+    eventLoop.execute(new Runnable() {
+      @Override
+      public void run() {
+        collectedBeforeLaterTask.set(collected.get());
+      }
+    });
+    blocked.countDown();
+
+    for (ListenableFuture<SocketStats> result : results) {
+      result.get(5, TimeUnit.SECONDS);
+    }
+    eventLoop.submit(new Runnable() {
+      @Override
+      public void run() {}
+    }).get(5, TimeUnit.SECONDS);
+    // All the stats were collected by the one task queued before the later task
+    assertThat(collectedBeforeLaterTask.get()).isEqualTo(100);
+    assertThat(SocketStatsBatcher.getPendingBatches()).isEqualTo(0);
+
+    // A later request gets a new batch
+    SocketStatsBatcher.getStats(eventLoop, stats).get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void inEventLoop_statsComputedImmediately() throws Exception {
+    eventLoop.submit(new Runnable() {
+      @Override
+      public void run() {
+        assertThat(SocketStatsBatcher.getStats(eventLoop, stats).isDone()).isTrue();
+      }
+    }).get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void statsFailure_propagated() throws Exception {
+    final RuntimeException failure = new RuntimeException("boom");
+    ListenableFuture<SocketStats> result =
+        SocketStatsBatcher.getStats(eventLoop, new Supplier<SocketStats>() {
+          @Override
+          public SocketStats get() {
+            throw failure;
+          }
+        });
+    try {
+      result.get(5, TimeUnit.SECONDS);
+      fail("Expected exception");
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isSameInstanceAs(failure);
+    }
+  }
+
+  @Test
+  public void eventLoopShutDown_fails() throws Exception {
+    eventLoop.shutdownGracefully(0, 0, TimeUnit.SECONDS).await(5, TimeUnit.SECONDS);
+    ListenableFuture<SocketStats> result = SocketStatsBatcher.getStats(eventLoop, stats);
+    try {
+      result.get(5, TimeUnit.SECONDS);
+      fail("Expected exception");
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(RejectedExecutionException.class);
+    }
+    assertThat(SocketStatsBatcher.getPendingBatches()).isEqualTo(0);
+  }
+}
@@ -20,13 +20,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 import io.grpc.internal.SerializingExecutor;
+import io.grpc.internal.TraceRecorder;
 import io.grpc.okhttp.ExceptionHandlingFrameWriter.TransportExceptionHandler;
 import io.grpc.okhttp.internal.framed.ErrorCode;
 import io.grpc.okhttp.internal.framed.FrameWriter;
 import io.grpc.okhttp.internal.framed.Settings;
 import io.perfmark.Link;
 import io.perfmark.PerfMark;
-import io.perfmark.TaskCloseable;
 import java.io.IOException;
 import java.net.Socket;
 import javax.annotation.Nullable;
@@ -101,7 +101,7 @@ final class AsyncSink implements Sink {
     if (closed) {
       throw new IOException("closed");
     }
-    try (TaskCloseable ignore = PerfMark.traceTask("AsyncSink.write")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("AsyncSink.write")) {
       boolean closeSocket = false;
       synchronized (lock) {
         buffer.write(source, byteCount);
@@ -131,7 +131,7 @@ final class AsyncSink implements Sink {
         @Override
         public void doRun() throws IOException {
           Buffer buf = new Buffer();
-          try (TaskCloseable ignore = PerfMark.traceTask("WriteRunnable.runWrite")) {
+          try (TraceRecorder.Task ignore = TraceRecorder.traceTask("WriteRunnable.runWrite")) {
             PerfMark.linkIn(link);
             int writingControlFrames;
             synchronized (lock) {
@@ -156,7 +156,7 @@ final class AsyncSink implements Sink {
     if (closed) {
       throw new IOException("closed");
     }
-    try (TaskCloseable ignore = PerfMark.traceTask("AsyncSink.flush")) {
+    try (TraceRecorder.Task ignore = TraceRecorder.traceTask("AsyncSink.flush")) {
       synchronized (lock) {
         if (flushEnqueued) {
           return;
@@ -168,7 +168,7 @@ final class AsyncSink implements Sink {
         @Override
         public void doRun() throws IOException {
           Buffer buf = new Buffer();
-          try (TaskCloseable ignore = PerfMark.traceTask("WriteRunnable.runFlush")) {
+          try (TraceRecorder.Task ignore = TraceRecorder.traceTask("WriteRunnable.runFlush")) {
             PerfMark.linkIn(link);
             synchronized (lock) {
               buf.write(buffer, buffer.size());
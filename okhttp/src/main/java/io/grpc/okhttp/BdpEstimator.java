@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.okhttp;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimates the bandwidth-delay product (BDP) of a connection by timing a PING against the data
+ * received meanwhile, and picks an inbound flow control window of twice the estimate. This is the
+ * same algorithm, with the same limits, as the Netty transport's auto flow control.
+ *
+ * <p>Not thread-safe, only used by the thread reading the frames of the connection.
+ */
+final class BdpEstimator {
+  static final long PING_PAYLOAD = 1234;
+  static final int MAX_WINDOW_SIZE = 8 * 1024 * 1024;
+  static final int MAX_BACKOFF = 10;
+
+  private final Ticker ticker;
+  private boolean pinging;
+  private int dataSincePing;
+  private long lastBandwidth; // bytes per second
+  private long lastPingTime;
+  private int lastTargetWindow;
+  private int pingFrequencyMultiplier;
+  private int pingCount;
+
+  BdpEstimator(int initialWindowSize, Ticker ticker) {
+    this.lastTargetWindow = initialWindowSize;
+    this.ticker = checkNotNull(ticker, "ticker");
+  }
+
+  /**
+   * Records a DATA frame being received. Returns {@code true} if a PING with {@link
+   * #PING_PAYLOAD} should be sent to measure the BDP.
+   */
+  boolean onDataRead(int paddedLength) {
+    boolean sendPing = false;
+    // Double the data to account for the target window being twice the data below. The current
+    // frame is counted both here and after the ping, which makes startup faster.
+    long dataForCheck = (long) dataSincePing + paddedLength;
+    if (!pinging && dataForCheck * 2 >= (long) lastTargetWindow * pingFrequencyMultiplier) {
+      pinging = true;
+      dataSincePing = 0;
+      lastPingTime = ticker.read();
+      pingCount++;
+      sendPing = true;
+    }
+    dataSincePing += paddedLength;
+    return sendPing;
+  }
+
+  /** Returns {@code true} if a PING sent for {@link #onDataRead} has not been acknowledged yet. */
+  boolean isPinging() {
+    return pinging;
+  }
+
+  /**
+   * Handles the acknowledgement of the PING and returns the window to use from now on, which is
+   * {@code currentWindow} unless both the bandwidth and the BDP have grown since the last increase.
+   */
+  int onPingAck(int currentWindow) {
+    pinging = false;
+    long elapsedTime = Math.max(ticker.read() - lastPingTime, 1);
+    long bandwidth = dataSincePing * TimeUnit.SECONDS.toNanos(1) / elapsedTime;
+    int targetWindow = (int) Math.min(dataSincePing * 2L, MAX_WINDOW_SIZE);
+    if (bandwidth <= lastBandwidth || targetWindow <= currentWindow) {
+      pingFrequencyMultiplier = Math.min(pingFrequencyMultiplier + 1, MAX_BACKOFF);
+      return currentWindow;
+    }
+    pingFrequencyMultiplier = 0; // react quickly while the window is growing
+    lastBandwidth = bandwidth;
+    lastTargetWindow = targetWindow;
+    return targetWindow;
+  }
+
+  @VisibleForTesting
+  int getPingCount() {
+    return pingCount;
+  }
+
+  @VisibleForTesting
+  int getDataSincePing() {
+    return dataSincePing;
+  }
+}
@@ -29,6 +29,10 @@ public final class InternalOkHttpChannelBuilder {
     builder.setStatsEnabled(value);
   }
 
+  public static void setTransportSharingEnabled(OkHttpChannelBuilder builder, boolean value) {
+    builder.setTransportSharingEnabled(value);
+  }
+
   public static void disableCheckAuthority(OkHttpChannelBuilder builder) {
     builder.disableCheckAuthority();
   }
@@ -60,6 +60,7 @@ import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -188,6 +189,7 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
   private long keepAliveTimeNanos = KEEPALIVE_TIME_NANOS_DISABLED;
   private long keepAliveTimeoutNanos = DEFAULT_KEEPALIVE_TIMEOUT_NANOS;
   private int flowControlWindow = DEFAULT_FLOW_CONTROL_WINDOW;
+  private boolean autoFlowControl;
   private boolean keepAliveWithoutCalls;
   private int maxInboundMessageSize = GrpcUtil.DEFAULT_MAX_MESSAGE_SIZE;
   private int maxInboundMetadataSize = Integer.MAX_VALUE;
@@ -336,12 +338,30 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
   }
 
   /**
-   * Sets the flow control window in bytes. If not called, the default value
-   * is {@link #DEFAULT_FLOW_CONTROL_WINDOW}).
+   * Sets the initial flow control window in bytes. Setting initial flow control window enables auto
+   * flow control tuning using bandwidth-delay product algorithm, which grows the window up to 8 MiB
+   * on connections with a high bandwidth or latency. To disable auto flow control tuning, use
+   * {@link #flowControlWindow(int)}.
+   *
+   * @since 1.60.0
+   */
+  public OkHttpChannelBuilder initialFlowControlWindow(int initialFlowControlWindow) {
+    Preconditions.checkState(
+        initialFlowControlWindow > 0, "initialFlowControlWindow must be positive");
+    this.flowControlWindow = initialFlowControlWindow;
+    this.autoFlowControl = true;
+    return this;
+  }
+
+  /**
+   * Sets the flow control window in bytes. Setting flowControlWindow disables auto flow control
+   * tuning; use {@link #initialFlowControlWindow(int)} to enable it. If not called, the default
+   * value is {@link #DEFAULT_FLOW_CONTROL_WINDOW}) with auto flow control tuning disabled.
    */
   public OkHttpChannelBuilder flowControlWindow(int flowControlWindow) {
     Preconditions.checkState(flowControlWindow > 0, "flowControlWindow must be positive");
     this.flowControlWindow = flowControlWindow;
+    this.autoFlowControl = false;
     return this;
   }
 
@@ -520,7 +540,10 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
 
   OkHttpTransportFactory buildTransportFactory() {
     boolean enableKeepAlive = keepAliveTimeNanos != KEEPALIVE_TIME_NANOS_DISABLED;
+    // Computed first, as creating the default SSLSocketFactory sets it.
+    Object securitySettings = securitySettings();
     return new OkHttpTransportFactory(
+        securitySettings,
         transportExecutorPool,
         scheduledExecutorServicePool,
         socketFactory,
@@ -532,12 +555,24 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
         keepAliveTimeNanos,
         keepAliveTimeoutNanos,
         flowControlWindow,
+        autoFlowControl,
         keepAliveWithoutCalls,
         maxInboundMetadataSize,
         transportTracerFactory,
         useGetForSafeMethods);
   }
 
+  /**
+   * Returns what tells apart how the transports of this builder are secured.
+   */
+  private Object securitySettings() {
+    if (freezeSecurityConfiguration) {
+      // Configured by the channel credentials, which the shared transport pool tells apart.
+      return ChannelCredentials.class;
+    }
+    return Arrays.asList(negotiationType, sslSocketFactory, hostnameVerifier);
+  }
+
   OkHttpChannelBuilder disableCheckAuthority() {
     this.managedChannelImplBuilder.disableCheckAuthority();
     return this;
@@ -563,6 +598,10 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
     this.managedChannelImplBuilder.setStatsEnabled(value);
   }
 
+  void setTransportSharingEnabled(boolean value) {
+    this.managedChannelImplBuilder.setTransportSharingEnabled(value);
+  }
+
   @VisibleForTesting
   @Nullable
   SSLSocketFactory createSslSocketFactory() {
@@ -789,12 +828,16 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
     private final AtomicBackoff keepAliveBackoff;
     private final long keepAliveTimeoutNanos;
     final int flowControlWindow;
+    final boolean autoFlowControl;
     private final boolean keepAliveWithoutCalls;
     final int maxInboundMetadataSize;
     final boolean useGetForSafeMethods;
+    @Nullable
+    private final Object transportSettingsKey;
     private boolean closed;
 
     private OkHttpTransportFactory(
+        @Nullable Object securitySettings,
         ObjectPool<Executor> executorPool,
         ObjectPool<ScheduledExecutorService> scheduledExecutorServicePool,
         @Nullable SocketFactory socketFactory,
@@ -806,6 +849,7 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
         long keepAliveTimeNanos,
         long keepAliveTimeoutNanos,
         int flowControlWindow,
+        boolean autoFlowControl,
         boolean keepAliveWithoutCalls,
         int maxInboundMetadataSize,
         TransportTracer.Factory transportTracerFactory,
@@ -824,12 +868,18 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
       this.keepAliveBackoff = new AtomicBackoff("keepalive time nanos", keepAliveTimeNanos);
       this.keepAliveTimeoutNanos = keepAliveTimeoutNanos;
       this.flowControlWindow = flowControlWindow;
+      this.autoFlowControl = autoFlowControl;
       this.keepAliveWithoutCalls = keepAliveWithoutCalls;
       this.maxInboundMetadataSize = maxInboundMetadataSize;
       this.useGetForSafeMethods = useGetForSafeMethods;
 
       this.transportTracerFactory =
           Preconditions.checkNotNull(transportTracerFactory, "transportTracerFactory");
+      this.transportSettingsKey = securitySettings == null ? null : Arrays.asList(
+          securitySettings, executor, scheduledExecutorService, socketFactory, connectionSpec,
+          maxMessageSize, enableKeepAlive, keepAliveTimeNanos, keepAliveTimeoutNanos,
+          flowControlWindow, autoFlowControl, keepAliveWithoutCalls, maxInboundMetadataSize,
+          transportTracerFactory, useGetForSafeMethods);
     }
 
     @Override
@@ -876,6 +926,7 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
         return null;
       }
       ClientTransportFactory factory = new OkHttpTransportFactory(
+          null,
           executorPool,
           scheduledExecutorServicePool,
           socketFactory,
@@ -887,6 +938,7 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
           keepAliveTimeNanos,
           keepAliveTimeoutNanos,
           flowControlWindow,
+          autoFlowControl,
           keepAliveWithoutCalls,
           maxInboundMetadataSize,
           transportTracerFactory,
@@ -894,6 +946,12 @@ public final class OkHttpChannelBuilder extends ForwardingChannelBuilder2<OkHttp
       return new SwapChannelCredentialsResult(factory, result.callCredentials);
     }
 
+    @Nullable
+    @Override
+    public Object getTransportSettingsKey() {
+      return transportSettingsKey;
+    }
+
     @Override
     public void close() {
       if (closed) {
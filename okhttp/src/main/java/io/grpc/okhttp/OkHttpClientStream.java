@@ -29,13 +29,13 @@ import io.grpc.Status;
 import io.grpc.internal.AbstractClientStream;
 import io.grpc.internal.Http2ClientStreamTransportState;
 import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.TraceRecorder;
 import io.grpc.internal.TransportTracer;
 import io.grpc.internal.WritableBuffer;
 import io.grpc.okhttp.internal.framed.ErrorCode;
 import io.grpc.okhttp.internal.framed.Header;
 import io.perfmark.PerfMark;
 import io.perfmark.Tag;
-import io.perfmark.TaskCloseable;
 import java.util.List;
 import javax.annotation.concurrent.GuardedBy;
 import okio.Buffer;
@@ -140,7 +140,8 @@ class OkHttpClientStream extends AbstractClientStream {
   class Sink implements AbstractClientStream.Sink {
     @Override
     public void writeHeaders(Metadata metadata, byte[] payload) {
-      try (TaskCloseable ignore = PerfMark.traceTask("OkHttpClientStream$Sink.writeHeaders")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("OkHttpClientStream$Sink.writeHeaders")) {
         String defaultPath = "/" + method.getFullMethodName();
         if (payload != null) {
           useGet = true;
@@ -155,7 +156,8 @@ class OkHttpClientStream extends AbstractClientStream {
     @Override
     public void writeFrame(
         WritableBuffer frame, boolean endOfStream, boolean flush, int numMessages) {
-      try (TaskCloseable ignore = PerfMark.traceTask("OkHttpClientStream$Sink.writeFrame")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("OkHttpClientStream$Sink.writeFrame")) {
         Buffer buffer;
         if (frame == null) {
           buffer = EMPTY_BUFFER;
@@ -176,7 +178,7 @@ class OkHttpClientStream extends AbstractClientStream {
 
     @Override
     public void cancel(Status reason) {
-      try (TaskCloseable ignore = PerfMark.traceTask("OkHttpClientStream$Sink.cancel")) {
+      try (TraceRecorder.Task ignore = TraceRecorder.traceTask("OkHttpClientStream$Sink.cancel")) {
         synchronized (state.lock) {
           state.cancel(reason, true, null);
         }
@@ -186,7 +188,8 @@ class OkHttpClientStream extends AbstractClientStream {
 
   class TransportState extends Http2ClientStreamTransportState
       implements OutboundFlowController.Stream {
-    private final int initialWindowSize;
+    @GuardedBy("lock")
+    private int initialWindowSize;
     private final Object lock;
     @GuardedBy("lock")
     private List<Header> requestHeaders;
@@ -290,6 +293,18 @@ class OkHttpClientStream extends AbstractClientStream {
       }
     }
 
+    /**
+     * Grows the inbound window after the transport increased the initial window size of its
+     * streams.
+     */
+    @GuardedBy("lock")
+    void updateInitialWindowSize(int newInitialWindowSize) {
+      int delta = newInitialWindowSize - initialWindowSize;
+      initialWindowSize = newInitialWindowSize;
+      window += delta;
+      processedWindow += delta;
+    }
+
     @Override
     @GuardedBy("lock")
     public void deframerClosed(boolean hasPartialMessage) {
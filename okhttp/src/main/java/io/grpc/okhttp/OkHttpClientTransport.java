@@ -25,6 +25,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.grpc.Attributes;
@@ -146,7 +147,11 @@ class OkHttpClientTransport implements ConnectionClientTransport, TransportExcep
   private final Random random = new Random();
   // Returns new unstarted stopwatches
   private final Supplier<Stopwatch> stopwatchFactory;
-  private final int initialWindowSize;
+  // The inbound flow control window of the connection and the initial one of streams. Only
+  // modified by ClientFrameHandler, while holding lock.
+  private int initialWindowSize;
+  @Nullable
+  private final BdpEstimator bdpEstimator;
   private final Variant variant;
   private Listener listener;
   @GuardedBy("lock")
@@ -262,6 +267,8 @@ class OkHttpClientTransport implements ConnectionClientTransport, TransportExcep
     this.defaultAuthority = authority;
     this.maxMessageSize = transportFactory.maxMessageSize;
     this.initialWindowSize = transportFactory.flowControlWindow;
+    this.bdpEstimator = transportFactory.autoFlowControl
+        ? new BdpEstimator(initialWindowSize, Ticker.systemTicker()) : null;
     this.executor = Preconditions.checkNotNull(transportFactory.executor, "executor");
     serializingExecutor = new SerializingExecutor(transportFactory.executor);
     this.scheduler = Preconditions.checkNotNull(
@@ -433,6 +440,8 @@ class OkHttpClientTransport implements ConnectionClientTransport, TransportExcep
     setInUse(stream);
     // TODO(b/145386688): This access should be guarded by 'stream.transportState().lock'; instead
     // found: 'this.lock'
+    // The window may have grown since the stream was created.
+    stream.transportState().updateInitialWindowSize(initialWindowSize);
     stream.transportState().start(nextStreamId);
     // For unary and server streaming, there will be a data frame soon, no need to flush the header.
     if ((stream.getType() != MethodType.UNARY && stream.getType() != MethodType.SERVER_STREAMING)
@@ -1171,6 +1180,13 @@ class OkHttpClientTransport implements ConnectionClientTransport, TransportExcep
         }
       }
 
+      if (bdpEstimator != null && bdpEstimator.onDataRead(paddedLength)) {
+        synchronized (lock) {
+          frameWriter.ping(false, (int) (BdpEstimator.PING_PAYLOAD >>> 32),
+              (int) BdpEstimator.PING_PAYLOAD);
+        }
+      }
+
       // connection window update
       connectionUnacknowledgedBytesRead += paddedLength;
       if (connectionUnacknowledgedBytesRead >= initialWindowSize * DEFAULT_WINDOW_UPDATE_RATIO) {
@@ -1181,6 +1197,28 @@ class OkHttpClientTransport implements ConnectionClientTransport, TransportExcep
       }
     }
 
+    /**
+     * Grows the inbound flow control window of the connection and the initial one of streams,
+     * applying it to the existing streams right away. The server does the same once it receives
+     * the SETTINGS, so it never sends more than allowed.
+     */
+    @SuppressWarnings("GuardedBy")
+    private void increaseInitialWindowSize(int newWindow) {
+      synchronized (lock) {
+        int delta = newWindow - initialWindowSize;
+        initialWindowSize = newWindow;
+        Settings settings = new Settings();
+        OkHttpSettingsUtil.set(settings, OkHttpSettingsUtil.INITIAL_WINDOW_SIZE, newWindow);
+        frameWriter.settings(settings);
+        frameWriter.windowUpdate(Utils.CONNECTION_STREAM_ID, delta);
+        for (OkHttpClientStream stream : streams.values()) {
+          // TODO(b/145386688): This access should be guarded by 'stream.transportState().lock';
+          // instead found: 'OkHttpClientTransport.this.lock'
+          stream.transportState().updateInitialWindowSize(newWindow);
+        }
+      }
+    }
+
     /**
      * Handle HTTP2 HEADER and CONTINUATION frames.
      */
@@ -1308,6 +1346,12 @@ class OkHttpClientTransport implements ConnectionClientTransport, TransportExcep
         synchronized (lock) {
           frameWriter.ping(true, payload1, payload2);
         }
+      } else if (bdpEstimator != null && ackPayload == BdpEstimator.PING_PAYLOAD
+          && bdpEstimator.isPinging()) {
+        int newWindow = bdpEstimator.onPingAck(initialWindowSize);
+        if (newWindow > initialWindowSize) {
+          increaseInitialWindowSize(newWindow);
+        }
       } else {
         Http2Ping p = null;
         synchronized (lock) {
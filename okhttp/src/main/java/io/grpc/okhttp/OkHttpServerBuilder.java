@@ -122,8 +122,10 @@ public final class OkHttpServerBuilder extends ForwardingServerBuilder<OkHttpSer
   long keepAliveTimeNanos = GrpcUtil.DEFAULT_SERVER_KEEPALIVE_TIME_NANOS;
   long keepAliveTimeoutNanos = GrpcUtil.DEFAULT_SERVER_KEEPALIVE_TIMEOUT_NANOS;
   int flowControlWindow = DEFAULT_FLOW_CONTROL_WINDOW;
+  boolean autoFlowControl;
   int maxInboundMetadataSize = GrpcUtil.DEFAULT_MAX_HEADER_LIST_SIZE;
   int maxInboundMessageSize = GrpcUtil.DEFAULT_MAX_MESSAGE_SIZE;
+  long inboundMemoryBudget;
   long maxConnectionIdleInNanos = MAX_CONNECTION_IDLE_NANOS_DISABLED;
   boolean permitKeepAliveWithoutCalls;
   long permitKeepAliveTimeInNanos = TimeUnit.MINUTES.toNanos(5);
@@ -309,11 +311,31 @@ public final class OkHttpServerBuilder extends ForwardingServerBuilder<OkHttpSer
   }
 
   /**
-   * Sets the flow control window in bytes. If not called, the default value is 64 KiB.
+   * Sets the initial flow control window in bytes. Setting initial flow control window enables auto
+   * flow control tuning using bandwidth-delay product algorithm, which grows the window up to 8 MiB
+   * on connections with a high bandwidth or latency. To disable auto flow control tuning, use
+   * {@link #flowControlWindow(int)}.
+   *
+   * @since 1.60.0
+   */
+  @CanIgnoreReturnValue
+  public OkHttpServerBuilder initialFlowControlWindow(int initialFlowControlWindow) {
+    Preconditions.checkState(
+        initialFlowControlWindow > 0, "initialFlowControlWindow must be positive");
+    this.flowControlWindow = initialFlowControlWindow;
+    this.autoFlowControl = true;
+    return this;
+  }
+
+  /**
+   * Sets the flow control window in bytes. Setting flowControlWindow disables auto flow control
+   * tuning; use {@link #initialFlowControlWindow(int)} to enable it. If not called, the default
+   * value is 64 KiB with auto flow control tuning disabled.
    */
   public OkHttpServerBuilder flowControlWindow(int flowControlWindow) {
     Preconditions.checkState(flowControlWindow > 0, "flowControlWindow must be positive");
     this.flowControlWindow = flowControlWindow;
+    this.autoFlowControl = false;
     return this;
   }
 
@@ -367,6 +389,22 @@ public final class OkHttpServerBuilder extends ForwardingServerBuilder<OkHttpSer
     return this;
   }
 
+  /**
+   * Sets the maximum number of bytes of inbound messages the server may buffer before the
+   * application requests them. While more is buffered, the server stops sending WINDOW_UPDATEs for
+   * the streams. Unlimited by default.
+   *
+   * @param bytes the maximum number of buffered bytes
+   * @return this
+   * @throws IllegalArgumentException if bytes is non-positive
+   */
+  @Override
+  public OkHttpServerBuilder inboundMemoryBudget(long bytes) {
+    Preconditions.checkArgument(bytes > 0, "inboundMemoryBudget must be > 0");
+    this.inboundMemoryBudget = bytes;
+    return this;
+  }
+
   void setStatsEnabled(boolean value) {
     this.serverImplBuilder.setStatsEnabled(value);
   }
@@ -22,13 +22,13 @@ import io.grpc.Metadata;
 import io.grpc.Status;
 import io.grpc.internal.AbstractServerStream;
 import io.grpc.internal.StatsTraceContext;
+import io.grpc.internal.TraceRecorder;
 import io.grpc.internal.TransportTracer;
 import io.grpc.internal.WritableBuffer;
 import io.grpc.okhttp.internal.framed.ErrorCode;
 import io.grpc.okhttp.internal.framed.Header;
 import io.perfmark.PerfMark;
 import io.perfmark.Tag;
-import io.perfmark.TaskCloseable;
 import java.util.List;
 import javax.annotation.concurrent.GuardedBy;
 import okio.Buffer;
@@ -84,8 +84,8 @@ class OkHttpServerStream extends AbstractServerStream {
   class Sink implements AbstractServerStream.Sink {
     @Override
     public void writeHeaders(Metadata metadata, boolean flush) {
-      try (TaskCloseable ignore =
-               PerfMark.traceTask("OkHttpServerStream$Sink.writeHeaders")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("OkHttpServerStream$Sink.writeHeaders")) {
         List<Header> responseHeaders = Headers.createResponseHeaders(metadata);
         synchronized (state.lock) {
           state.sendHeaders(responseHeaders);
@@ -95,8 +95,8 @@ class OkHttpServerStream extends AbstractServerStream {
 
     @Override
     public void writeFrame(WritableBuffer frame, boolean flush, int numMessages) {
-      try (TaskCloseable ignore =
-               PerfMark.traceTask("OkHttpServerStream$Sink.writeFrame")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("OkHttpServerStream$Sink.writeFrame")) {
         Buffer buffer = ((OkHttpWritableBuffer) frame).buffer();
         int size = (int) buffer.size();
         if (size > 0) {
@@ -111,8 +111,8 @@ class OkHttpServerStream extends AbstractServerStream {
 
     @Override
     public void writeTrailers(Metadata trailers, boolean headersSent, Status status) {
-      try (TaskCloseable ignore =
-               PerfMark.traceTask("OkHttpServerStream$Sink.writeTrailers")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("OkHttpServerStream$Sink.writeTrailers")) {
         List<Header> responseTrailers = Headers.createResponseTrailers(trailers, headersSent);
         synchronized (state.lock) {
           state.sendTrailers(responseTrailers);
@@ -122,8 +122,8 @@ class OkHttpServerStream extends AbstractServerStream {
 
     @Override
     public void cancel(Status reason) {
-      try (TaskCloseable ignore =
-               PerfMark.traceTask("OkHttpServerStream$Sink.cancel")) {
+      try (TraceRecorder.Task ignore =
+               TraceRecorder.traceTask("OkHttpServerStream$Sink.cancel")) {
         synchronized (state.lock) {
           state.cancel(ErrorCode.CANCEL, reason);
         }
@@ -136,7 +136,8 @@ class OkHttpServerStream extends AbstractServerStream {
     @GuardedBy("lock")
     private final OkHttpServerTransport transport;
     private final int streamId;
-    private final int initialWindowSize;
+    @GuardedBy("lock")
+    private int initialWindowSize;
     private final Object lock;
     @GuardedBy("lock")
     private boolean cancelSent = false;
@@ -186,7 +187,8 @@ class OkHttpServerStream extends AbstractServerStream {
     @Override
     @GuardedBy("lock")
     public void bytesRead(int processedBytes) {
-      processedWindow -= processedBytes;
+      int credit = admitProcessedBytes(processedBytes);
+      processedWindow -= credit;
       if (processedWindow <= initialWindowSize * Utils.DEFAULT_WINDOW_UPDATE_RATIO) {
         int delta = initialWindowSize - processedWindow;
         window += delta;
@@ -244,6 +246,17 @@ class OkHttpServerStream extends AbstractServerStream {
       }
     }
 
+    /** Must be called with holding the transport lock. */
+    @Override
+    public void updateInitialWindowSize(int newInitialWindowSize) {
+      synchronized (lock) {
+        int delta = newInitialWindowSize - initialWindowSize;
+        initialWindowSize = newInitialWindowSize;
+        window += delta;
+        processedWindow += delta;
+      }
+    }
+
     @GuardedBy("lock")
     private void sendBuffer(Buffer buffer, boolean flush) {
       if (cancelSent) {
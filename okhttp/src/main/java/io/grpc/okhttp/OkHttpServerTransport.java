@@ -20,6 +20,7 @@ import static io.grpc.okhttp.OkHttpServerBuilder.MAX_CONNECTION_AGE_NANOS_DISABL
 import static io.grpc.okhttp.OkHttpServerBuilder.MAX_CONNECTION_IDLE_NANOS_DISABLED;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.grpc.Attributes;
@@ -30,6 +31,7 @@ import io.grpc.Metadata;
 import io.grpc.ServerStreamTracer;
 import io.grpc.Status;
 import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.InboundMemoryBudget;
 import io.grpc.internal.KeepAliveEnforcer;
 import io.grpc.internal.KeepAliveManager;
 import io.grpc.internal.LogExceptionRunnable;
@@ -138,6 +140,11 @@ final class OkHttpServerTransport implements ServerTransport,
   private ScheduledFuture<?> forcefulCloseTimer;
   @GuardedBy("lock")
   private Long gracefulShutdownPeriod = null;
+  /**
+   * The inbound flow control window of the connection and the initial one of streams. Only
+   * modified by the FrameHandler, while holding 'lock'.
+   */
+  private int flowControlWindow;
 
   public OkHttpServerTransport(Config config, Socket bareSocket) {
     this.config = Preconditions.checkNotNull(config, "config");
@@ -150,6 +157,7 @@ final class OkHttpServerTransport implements ServerTransport,
     scheduledExecutorService = config.scheduledExecutorServicePool.getObject();
     keepAliveEnforcer = new KeepAliveEnforcer(config.permitKeepAliveWithoutCalls,
         config.permitKeepAliveTimeInNanos, TimeUnit.NANOSECONDS);
+    flowControlWindow = config.flowControlWindow;
   }
 
   public void start(ServerTransportListener listener) {
@@ -216,13 +224,13 @@ final class OkHttpServerTransport implements ServerTransport,
         frameWriter.connectionPreface();
         Settings settings = new Settings();
         OkHttpSettingsUtil.set(settings,
-            OkHttpSettingsUtil.INITIAL_WINDOW_SIZE, config.flowControlWindow);
+            OkHttpSettingsUtil.INITIAL_WINDOW_SIZE, flowControlWindow);
         OkHttpSettingsUtil.set(settings,
             OkHttpSettingsUtil.MAX_HEADER_LIST_SIZE, config.maxInboundMetadataSize);
         frameWriter.settings(settings);
-        if (config.flowControlWindow > Utils.DEFAULT_WINDOW_SIZE) {
+        if (flowControlWindow > Utils.DEFAULT_WINDOW_SIZE) {
           frameWriter.windowUpdate(
-              Utils.CONNECTION_STREAM_ID, config.flowControlWindow - Utils.DEFAULT_WINDOW_SIZE);
+              Utils.CONNECTION_STREAM_ID, flowControlWindow - Utils.DEFAULT_WINDOW_SIZE);
         }
         frameWriter.flush();
       }
@@ -405,7 +413,7 @@ final class OkHttpServerTransport implements ServerTransport,
           tracer.getStats(),
           socket.getLocalSocketAddress(),
           socket.getRemoteSocketAddress(),
-          Utils.getSocketOptions(socket),
+          Utils.getSocketOptions(socket, config.inboundMemoryBudget),
           securityInfo));
     }
   }
@@ -415,7 +423,7 @@ final class OkHttpServerTransport implements ServerTransport,
       long local = outboundFlow == null ? -1 : outboundFlow.windowUpdate(null, 0);
       // connectionUnacknowledgedBytesRead is only readable by FrameHandler, so we provide a lower
       // bound.
-      long remote = (long) (config.flowControlWindow * Utils.DEFAULT_WINDOW_UPDATE_RATIO);
+      long remote = (long) (flowControlWindow * Utils.DEFAULT_WINDOW_UPDATE_RATIO);
       return new TransportTracer.FlowControlWindows(local, remote);
     }
   }
@@ -513,6 +521,7 @@ final class OkHttpServerTransport implements ServerTransport,
     final long keepAliveTimeNanos;
     final long keepAliveTimeoutNanos;
     final int flowControlWindow;
+    final boolean autoFlowControl;
     final int maxInboundMessageSize;
     final int maxInboundMetadataSize;
     final long maxConnectionIdleNanos;
@@ -520,6 +529,8 @@ final class OkHttpServerTransport implements ServerTransport,
     final long permitKeepAliveTimeInNanos;
     final long maxConnectionAgeInNanos;
     final long maxConnectionAgeGraceInNanos;
+    @Nullable
+    final InboundMemoryBudget inboundMemoryBudget;
 
     public Config(
         OkHttpServerBuilder builder,
@@ -537,6 +548,7 @@ final class OkHttpServerTransport implements ServerTransport,
       keepAliveTimeNanos = builder.keepAliveTimeNanos;
       keepAliveTimeoutNanos = builder.keepAliveTimeoutNanos;
       flowControlWindow = builder.flowControlWindow;
+      autoFlowControl = builder.autoFlowControl;
       maxInboundMessageSize = builder.maxInboundMessageSize;
       maxInboundMetadataSize = builder.maxInboundMetadataSize;
       maxConnectionIdleNanos = builder.maxConnectionIdleInNanos;
@@ -544,6 +556,8 @@ final class OkHttpServerTransport implements ServerTransport,
       permitKeepAliveTimeInNanos = builder.permitKeepAliveTimeInNanos;
       maxConnectionAgeInNanos = builder.maxConnectionAgeInNanos;
       maxConnectionAgeGraceInNanos = builder.maxConnectionAgeGraceInNanos;
+      inboundMemoryBudget = builder.inboundMemoryBudget > 0
+          ? new InboundMemoryBudget(builder.inboundMemoryBudget) : null;
     }
   }
 
@@ -556,6 +570,9 @@ final class OkHttpServerTransport implements ServerTransport,
     private final FrameReader frameReader;
     private boolean receivedSettings;
     private int connectionUnacknowledgedBytesRead;
+    @Nullable
+    private final BdpEstimator bdpEstimator = config.autoFlowControl
+        ? new BdpEstimator(config.flowControlWindow, Ticker.systemTicker()) : null;
 
     public FrameHandler(FrameReader frameReader) {
       this.frameReader = frameReader;
@@ -780,9 +797,12 @@ final class OkHttpServerTransport implements ServerTransport,
             lock,
             frameWriter,
             outboundFlow,
-            config.flowControlWindow,
+            flowControlWindow,
             tracer,
             method);
+        if (config.inboundMemoryBudget != null) {
+          stream.setInboundMemoryBudget(config.inboundMemoryBudget, transportExecutor);
+        }
         OkHttpServerStream streamForApp = new OkHttpServerStream(
             stream,
             attributes,
@@ -865,10 +885,18 @@ final class OkHttpServerTransport implements ServerTransport,
         stream.inboundDataReceived(buf, length, paddedLength - length, inFinished);
       }
 
+      if (bdpEstimator != null && bdpEstimator.onDataRead(paddedLength)) {
+        synchronized (lock) {
+          frameWriter.ping(false, (int) (BdpEstimator.PING_PAYLOAD >>> 32),
+              (int) BdpEstimator.PING_PAYLOAD);
+          frameWriter.flush();
+        }
+      }
+
       // connection window update
       connectionUnacknowledgedBytesRead += paddedLength;
       if (connectionUnacknowledgedBytesRead
-          >= config.flowControlWindow * Utils.DEFAULT_WINDOW_UPDATE_RATIO) {
+          >= flowControlWindow * Utils.DEFAULT_WINDOW_UPDATE_RATIO) {
         synchronized (lock) {
           frameWriter.windowUpdate(0, connectionUnacknowledgedBytesRead);
           frameWriter.flush();
@@ -877,6 +905,26 @@ final class OkHttpServerTransport implements ServerTransport,
       }
     }
 
+    /**
+     * Grows the inbound flow control window of the connection and the initial one of streams,
+     * applying it to the existing streams right away. The peer does the same once it receives
+     * the SETTINGS, so it never sends more than allowed.
+     */
+    private void increaseFlowControlWindow(int newWindow) {
+      synchronized (lock) {
+        int delta = newWindow - flowControlWindow;
+        flowControlWindow = newWindow;
+        Settings settings = new Settings();
+        OkHttpSettingsUtil.set(settings, OkHttpSettingsUtil.INITIAL_WINDOW_SIZE, newWindow);
+        frameWriter.settings(settings);
+        frameWriter.windowUpdate(Utils.CONNECTION_STREAM_ID, delta);
+        frameWriter.flush();
+        for (StreamState stream : streams.values()) {
+          stream.updateInitialWindowSize(newWindow);
+        }
+      }
+    }
+
     @Override
     public void rstStream(int streamId, ErrorCode errorCode) {
       frameLogger.logRstStream(OkHttpFrameLogger.Direction.INBOUND, streamId, errorCode);
@@ -928,12 +976,22 @@ final class OkHttpServerTransport implements ServerTransport,
 
     @Override
     public void ping(boolean ack, int payload1, int payload2) {
+      long payload = (((long) payload1) << 32) | (payload2 & 0xffffffffL);
+      if (ack && bdpEstimator != null && BdpEstimator.PING_PAYLOAD == payload
+          && bdpEstimator.isPinging()) {
+        // Our own PING, that shouldn't count against the client's keepalive policy.
+        frameLogger.logPingAck(OkHttpFrameLogger.Direction.INBOUND, payload);
+        int newWindow = bdpEstimator.onPingAck(flowControlWindow);
+        if (newWindow > flowControlWindow) {
+          increaseFlowControlWindow(newWindow);
+        }
+        return;
+      }
       if (!keepAliveEnforcer.pingAcceptable()) {
         abruptShutdown(ErrorCode.ENHANCE_YOUR_CALM, "too_many_pings",
             Status.RESOURCE_EXHAUSTED.withDescription("Too many pings from client"), false);
         return;
       }
-      long payload = (((long) payload1) << 32) | (payload2 & 0xffffffffL);
       if (!ack) {
         frameLogger.logPing(OkHttpFrameLogger.Direction.INBOUND, payload);
         synchronized (lock) {
@@ -1056,7 +1114,7 @@ final class OkHttpServerTransport implements ServerTransport,
 
       synchronized (lock) {
         Http2ErrorStreamState stream =
-            new Http2ErrorStreamState(streamId, lock, outboundFlow, config.flowControlWindow);
+            new Http2ErrorStreamState(streamId, lock, outboundFlow, flowControlWindow);
         if (streams.isEmpty()) {
           keepAliveEnforcer.onTransportActive();
           if (maxConnectionIdleManager != null) {
@@ -1131,6 +1189,12 @@ final class OkHttpServerTransport implements ServerTransport,
     /** Must be holding 'lock' when calling. */
     int inboundWindowAvailable();
 
+    /**
+     * Grows the inbound window after the initial window size of streams was increased. Must be
+     * holding 'lock' when calling.
+     */
+    void updateInitialWindowSize(int newInitialWindowSize);
+
     /** Must be holding 'lock' when calling. */
     void transportReportStatus(Status status);
 
@@ -1145,6 +1209,8 @@ final class OkHttpServerTransport implements ServerTransport,
     private final Object lock;
     private final OutboundFlowController.StreamState outboundFlowState;
     @GuardedBy("lock")
+    private int initialWindowSize;
+    @GuardedBy("lock")
     private int window;
     @GuardedBy("lock")
     private boolean receivedEndOfStream;
@@ -1154,6 +1220,7 @@ final class OkHttpServerTransport implements ServerTransport,
       this.streamId = streamId;
       this.lock = lock;
       this.outboundFlowState = outboundFlow.createState(this, streamId);
+      this.initialWindowSize = initialWindowSize;
       this.window = initialWindowSize;
     }
 
@@ -1186,6 +1253,13 @@ final class OkHttpServerTransport implements ServerTransport,
       }
     }
 
+    @Override public void updateInitialWindowSize(int newInitialWindowSize) {
+      synchronized (lock) {
+        window += newInitialWindowSize - initialWindowSize;
+        initialWindowSize = newInitialWindowSize;
+      }
+    }
+
     @Override public void transportReportStatus(Status status) {}
 
     @Override public void inboundRstReceived(Status status) {}
@@ -20,6 +20,7 @@ import com.google.common.base.Preconditions;
 import io.grpc.InternalChannelz;
 import io.grpc.InternalMetadata;
 import io.grpc.Metadata;
+import io.grpc.internal.InboundMemoryBudget;
 import io.grpc.internal.TransportFrameUtil;
 import io.grpc.okhttp.internal.CipherSuite;
 import io.grpc.okhttp.internal.ConnectionSpec;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
 
 /**
  * Common utility methods for OkHttp transport.
@@ -99,6 +101,23 @@ class Utils {
    * log the error to the logger and report the value as an error in the response.
    */
   static InternalChannelz.SocketOptions getSocketOptions(Socket socket) {
+    return socketOptionsBuilder(socket).build();
+  }
+
+  /**
+   * Like {@link #getSocketOptions(Socket)}, along with the gauges of the server's inbound memory
+   * budget, if any.
+   */
+  static InternalChannelz.SocketOptions getSocketOptions(
+      Socket socket, @Nullable InboundMemoryBudget inboundMemoryBudget) {
+    InternalChannelz.SocketOptions.Builder builder = socketOptionsBuilder(socket);
+    if (inboundMemoryBudget != null) {
+      inboundMemoryBudget.addSocketOptions(builder);
+    }
+    return builder.build();
+  }
+
+  private static InternalChannelz.SocketOptions.Builder socketOptionsBuilder(Socket socket) {
     InternalChannelz.SocketOptions.Builder builder = new InternalChannelz.SocketOptions.Builder();
     try {
       builder.setSocketOptionLingerSeconds(socket.getSoLinger());
@@ -162,7 +181,7 @@ class Utils {
       log.log(Level.SEVERE, "Exception caught while reading socket option", e);
       builder.addOption("IP_TOS", "channelz_internal_error");
     }
-    return builder.build();
+    return builder;
   }
 
   private Utils() {
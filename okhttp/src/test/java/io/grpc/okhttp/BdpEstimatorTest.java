@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.okhttp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import io.grpc.internal.FakeClock;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link BdpEstimator}. */
+@RunWith(JUnit4.class)
+public class BdpEstimatorTest {
+  private static final int INITIAL_WINDOW_SIZE = 64 * 1024;
+
+  private final FakeClock fakeClock = new FakeClock();
+  private final BdpEstimator estimator =
+      new BdpEstimator(INITIAL_WINDOW_SIZE, fakeClock.getTicker());
+
+  @Test
+  public void firstDataStartsPing() {
+    assertThat(estimator.onDataRead(100)).isTrue();
+    assertThat(estimator.isPinging()).isTrue();
+    assertThat(estimator.getPingCount()).isEqualTo(1);
+    assertThat(estimator.getDataSincePing()).isEqualTo(100);
+  }
+
+  @Test
+  public void onlyOnePingOutstanding() {
+    assertThat(estimator.onDataRead(100)).isTrue();
+    assertThat(estimator.onDataRead(100)).isFalse();
+    assertThat(estimator.onDataRead(100)).isFalse();
+    assertThat(estimator.getPingCount()).isEqualTo(1);
+    assertThat(estimator.getDataSincePing()).isEqualTo(300);
+
+    estimator.onPingAck(INITIAL_WINDOW_SIZE);
+    assertThat(estimator.isPinging()).isFalse();
+    assertThat(estimator.onDataRead(INITIAL_WINDOW_SIZE)).isTrue();
+    assertThat(estimator.getPingCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void windowMatchesTarget() {
+    estimator.onDataRead(50000);
+    estimator.onDataRead(50000);
+    fakeClock.forwardTime(10, TimeUnit.MILLISECONDS);
+
+    assertThat(estimator.onPingAck(INITIAL_WINDOW_SIZE)).isEqualTo(200000);
+  }
+
+  @Test
+  public void windowUnchangedWhenBdpFits() {
+    estimator.onDataRead(1000);
+    fakeClock.forwardTime(10, TimeUnit.MILLISECONDS);
+
+    assertThat(estimator.onPingAck(INITIAL_WINDOW_SIZE)).isEqualTo(INITIAL_WINDOW_SIZE);
+  }
+
+  @Test
+  public void windowShouldNotExceedMaxWindowSize() {
+    estimator.onDataRead(BdpEstimator.MAX_WINDOW_SIZE);
+    fakeClock.forwardTime(10, TimeUnit.MILLISECONDS);
+
+    assertThat(estimator.onPingAck(INITIAL_WINDOW_SIZE)).isEqualTo(BdpEstimator.MAX_WINDOW_SIZE);
+  }
+
+  @Test
+  public void windowUnchangedWhenBandwidthDrops() {
+    estimator.onDataRead(100000);
+    fakeClock.forwardTime(10, TimeUnit.MILLISECONDS);
+    int window = estimator.onPingAck(INITIAL_WINDOW_SIZE);
+    assertThat(window).isEqualTo(200000);
+
+    // More data, but over a much longer time.
+    estimator.onDataRead(150000);
+    fakeClock.forwardTime(1, TimeUnit.SECONDS);
+    assertThat(estimator.onPingAck(window)).isEqualTo(window);
+  }
+
+  @Test
+  public void pingBacksOff() {
+    estimator.onDataRead(1000);
+    estimator.onPingAck(INITIAL_WINDOW_SIZE);
+
+    // The next ping waits for half the window to be received since the last one.
+    int data = INITIAL_WINDOW_SIZE / 2 - estimator.getDataSincePing();
+    assertThat(estimator.onDataRead(data - 1)).isFalse();
+    assertThat(estimator.onDataRead(1)).isTrue();
+
+    for (int i = 0; i < BdpEstimator.MAX_BACKOFF + 2; i++) {
+      estimator.onPingAck(INITIAL_WINDOW_SIZE);
+    }
+    // Backed off to at most MAX_BACKOFF times half the window.
+    data = INITIAL_WINDOW_SIZE / 2 * BdpEstimator.MAX_BACKOFF - estimator.getDataSincePing();
+    assertThat(estimator.onDataRead(data - 1)).isFalse();
+    assertThat(estimator.onDataRead(1)).isTrue();
+  }
+}
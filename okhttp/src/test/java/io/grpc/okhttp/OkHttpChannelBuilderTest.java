@@ -471,6 +471,27 @@ public class OkHttpChannelBuilderTest {
     clientTransportFactory.close();
   }
 
+  @Test
+  public void transportSettingsKey_equalForSameSettings() {
+    ClientTransportFactory factory1 = OkHttpChannelBuilder.forTarget("foo")
+        .usePlaintext().maxInboundMessageSize(1000).buildTransportFactory();
+    ClientTransportFactory factory2 = OkHttpChannelBuilder.forTarget("foo")
+        .usePlaintext().maxInboundMessageSize(1000).buildTransportFactory();
+    ClientTransportFactory factory3 = OkHttpChannelBuilder.forTarget("foo")
+        .usePlaintext().maxInboundMessageSize(2000).buildTransportFactory();
+    ClientTransportFactory factory4 = OkHttpChannelBuilder.forTarget("foo")
+        .maxInboundMessageSize(1000).buildTransportFactory();
+
+    assertThat(factory1.getTransportSettingsKey()).isNotNull();
+    assertThat(factory1.getTransportSettingsKey()).isEqualTo(factory2.getTransportSettingsKey());
+    assertThat(factory1.getTransportSettingsKey()).isNotEqualTo(factory3.getTransportSettingsKey());
+    assertThat(factory1.getTransportSettingsKey()).isNotEqualTo(factory4.getTransportSettingsKey());
+    factory1.close();
+    factory2.close();
+    factory3.close();
+    factory4.close();
+  }
+
   @Test
   public void socketFactory_default() {
     OkHttpChannelBuilder builder = OkHttpChannelBuilder.forTarget("foo");
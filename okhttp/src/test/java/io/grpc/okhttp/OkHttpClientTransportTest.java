@@ -413,6 +413,36 @@ public class OkHttpClientTransportTest {
     verify(frameWriter, timeout(TIME_OUT_MS)).windowUpdate(0, 10000);
   }
 
+  @Test
+  public void autoFlowControl_windowGrowsOnBdpPingAck() throws Exception {
+    channelBuilder.initialFlowControlWindow(INITIAL_WINDOW_SIZE);
+    initTransport();
+    MockStreamListener listener = new MockStreamListener();
+    OkHttpClientStream stream =
+        clientTransport.newStream(method, new Metadata(), CallOptions.DEFAULT, tracers);
+    stream.start(listener);
+    stream.request(1);
+    frameHandler().headers(false, false, 3, 0, grpcResponseHeaders(), HeadersMode.HTTP_20_HEADERS);
+
+    // The first DATA frame starts measuring the bandwidth-delay product.
+    Buffer buffer = createMessageFrame(new String(new char[49147])); // length = 49152
+    frameHandler().data(false, 3, buffer, (int) buffer.size(), (int) buffer.size());
+    verify(frameWriter, timeout(TIME_OUT_MS)).ping(false, 0, (int) BdpEstimator.PING_PAYLOAD);
+
+    frameHandler().ping(true, 0, (int) BdpEstimator.PING_PAYLOAD);
+    ArgumentCaptor<Settings> settings = ArgumentCaptor.forClass(Settings.class);
+    verify(frameWriter, timeout(TIME_OUT_MS).times(2)).settings(settings.capture());
+    assertEquals(49152 * 2, settings.getValue().get(7));
+    verify(frameWriter, timeout(TIME_OUT_MS)).windowUpdate(0, 49152 * 2 - INITIAL_WINDOW_SIZE);
+
+    // Only 16383 bytes were left of the initial stream window.
+    buffer = createMessageFrame(new String(new char[30000]));
+    frameHandler().data(false, 3, buffer, (int) buffer.size(), (int) buffer.size());
+    verify(frameWriter, never()).rstStream(eq(3), any(ErrorCode.class));
+    getStream(3).cancel(Status.CANCELLED);
+    shutdownAndVerify();
+  }
+
   /**
    * When nextFrame throws IOException, the transport should be aborted.
    */
@@ -27,11 +27,13 @@ import static org.mockito.AdditionalAnswers.delegatesTo;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import com.google.common.io.ByteStreams;
@@ -1069,6 +1071,108 @@ public class OkHttpServerTransportTest {
     shutdownAndTerminate(/*lastStreamId=*/ 3);
   }
 
+  @Test
+  public void autoFlowControl_windowGrowsOnBdpPingAck() throws Exception {
+    serverBuilder.initialFlowControlWindow(100);
+    initTransport();
+    handshake();
+
+    clientFrameWriter.headers(1, Arrays.asList(
+        HTTP_SCHEME_HEADER,
+        METHOD_HEADER,
+        new Header(Header.TARGET_AUTHORITY, "example.com:80"),
+        new Header(Header.TARGET_PATH, "/com.example/SimpleService.doit"),
+        CONTENT_TYPE_HEADER,
+        TE_HEADER));
+    Buffer requestMessageFrame = createMessageFrame(new String(new char[75])); // length = 80
+    clientFrameWriter.data(false, 1, requestMessageFrame, 80);
+    clientFrameWriter.flush();
+
+    // The first DATA frame starts measuring the bandwidth-delay product.
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    verify(clientFramesRead).ping(false, 0, (int) BdpEstimator.PING_PAYLOAD);
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    verify(clientFramesRead).windowUpdate(0, 80);
+
+    clientFrameWriter.ping(true, 0, (int) BdpEstimator.PING_PAYLOAD);
+    clientFrameWriter.flush();
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    ArgumentCaptor<Settings> settingsCaptor = ArgumentCaptor.forClass(Settings.class);
+    verify(clientFramesRead, times(2))
+        .settings(eq(false), settingsCaptor.capture());
+    assertThat(OkHttpSettingsUtil.get(
+        settingsCaptor.getValue(), OkHttpSettingsUtil.INITIAL_WINDOW_SIZE)).isEqualTo(160);
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    verify(clientFramesRead).windowUpdate(0, 60);
+
+    // Only 20 bytes were left of the initial stream window.
+    requestMessageFrame = createMessageFrame(new String(new char[75]));
+    clientFrameWriter.data(false, 1, requestMessageFrame, 80);
+    clientFrameWriter.flush();
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    pingPong();
+    verify(clientFramesRead, never()).rstStream(anyInt(), any(ErrorCode.class));
+
+    clientFrameWriter.rstStream(1, ErrorCode.CANCEL);
+    pingPong();
+    shutdownAndTerminate(/*lastStreamId=*/ 1);
+  }
+
+  @Test
+  public void inboundMemoryBudget_withholdsWindowUpdatesWhileExhausted() throws Exception {
+    serverBuilder.flowControlWindow(100).inboundMemoryBudget(40);
+    initTransport();
+    handshake();
+
+    List<Header> headers = Arrays.asList(
+        HTTP_SCHEME_HEADER,
+        METHOD_HEADER,
+        new Header(Header.TARGET_AUTHORITY, "example.com:80"),
+        new Header(Header.TARGET_PATH, "/com.example/SimpleService.doit"),
+        CONTENT_TYPE_HEADER,
+        TE_HEADER);
+    clientFrameWriter.headers(1, new ArrayList<>(headers));
+    clientFrameWriter.headers(3, new ArrayList<>(headers));
+    String message = new String(new char[45]); // length = 45, add buffer length = 5
+    writeDataDirectly(clientWriterSink, FLAG_NONE, 1, message, 0);
+    writeDataDirectly(clientWriterSink, FLAG_NONE, 3, message, 0);
+    clientFrameWriter.flush();
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    verify(clientFramesRead, times(2)).windowUpdate(0, 50);
+    pingPong();
+
+    MockStreamListener streamListener = mockTransportListener.newStreams.pop();
+    MockStreamListener streamListener2 = mockTransportListener.newStreams.pop();
+    // Stream 1 still buffers more than the budget, so stream 3 gets no more credit.
+    streamListener2.stream.request(1);
+    pingPong();
+    assertThat(streamListener2.messages.pop()).isEqualTo(message);
+    verify(clientFramesRead, never()).windowUpdate(eq(3), anyLong());
+    SocketStats stats = serverTransport.getStats().get();
+    assertThat(stats.socketOptions.others)
+        .containsEntry("GRPC_SERVER_INBOUND_BUFFERED_BYTES", "50");
+    assertThat(stats.socketOptions.others)
+        .containsEntry("GRPC_SERVER_INBOUND_WITHHELD_BYTES", "50");
+
+    streamListener.stream.request(1);
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    verify(clientFramesRead).windowUpdate(3, 50);
+    assertThat(clientFrameReader.nextFrame(clientFramesRead)).isTrue();
+    verify(clientFramesRead).windowUpdate(1, 50);
+    stats = serverTransport.getStats().get();
+    assertThat(stats.socketOptions.others)
+        .containsEntry("GRPC_SERVER_INBOUND_BUFFERED_BYTES", "0");
+    assertThat(stats.socketOptions.others)
+        .containsEntry("GRPC_SERVER_INBOUND_WITHHELD_BYTES", "0");
+
+    clientFrameWriter.rstStream(1, ErrorCode.CANCEL);
+    clientFrameWriter.rstStream(3, ErrorCode.CANCEL);
+    pingPong();
+    shutdownAndTerminate(/*lastStreamId=*/ 3);
+  }
+
   @Test
   public void dataForStream0_failsWithGoAway() throws Exception {
     initTransport();
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.rls;
+
+import com.google.common.base.Ticker;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark for concurrent lookups in the route lookup cache while entries are added, comparing
+ * {@link LinkedHashLruCache} with {@link TinyLfuCache}. Keys follow a skewed distribution, so most
+ * lookups hit a small set of hot keys.
+ */
+@State(Scope.Group)
+public class RlsCacheBenchmark {
+
+  private static final int KEY_COUNT = 10_000;
+  private static final int SAMPLE_COUNT = 1 << 16;
+
+  @Param({"linkedHash", "tinyLfu"})
+  public String cacheType;
+
+  private LruCache<Integer, String> cache;
+  private ScheduledExecutorService ses;
+  private final int[] samples = new int[SAMPLE_COUNT];
+
+  /**
+   * Setup.
+   */
+  @Setup
+  public void setUp() {
+    ses = Executors.newSingleThreadScheduledExecutor();
+    Object lock = new Object();
+    long maxSize = KEY_COUNT / 10;
+    if (cacheType.equals("linkedHash")) {
+      cache = new LinkedHashLruCache<Integer, String>(
+          maxSize, null, 1, TimeUnit.MINUTES, ses, Ticker.systemTicker(), lock) {
+        @Override
+        protected boolean isExpired(Integer key, String value, long nowNanos) {
+          return false;
+        }
+      };
+    } else {
+      cache = new TinyLfuCache<Integer, String>(
+          maxSize, null, 1, TimeUnit.MINUTES, ses, Ticker.systemTicker(), lock) {
+        @Override
+        protected boolean isExpired(Integer key, String value, long nowNanos) {
+          return false;
+        }
+      };
+    }
+    Random random = new Random(1);
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      // roughly Zipfian: small keys are much more likely
+      samples[i] = (int) Math.pow(KEY_COUNT, random.nextDouble()) - 1;
+    }
+    for (int i = 0; i < maxSize; i++) {
+      cache.cache(samples[i], "value");
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    cache.close();
+    ses.shutdownNow();
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    int index = new Random().nextInt(SAMPLE_COUNT);
+
+    int nextKey(int[] samples) {
+      index = (index + 1) & (SAMPLE_COUNT - 1);
+      return samples[index];
+    }
+  }
+
+  /**
+   * Looks up a key, as every RLS pick does.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Group("rls")
+  @GroupThreads(7)
+  public String read(ThreadState state) {
+    return cache.read(state.nextKey(samples));
+  }
+
+  /**
+   * Caches the result of a lookup, as done when an RLS response arrives.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Group("rls")
+  @GroupThreads(1)
+  public String write(ThreadState state) {
+    return cache.cache(state.nextKey(samples), "value");
+  }
+}
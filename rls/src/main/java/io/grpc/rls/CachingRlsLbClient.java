@@ -62,6 +62,7 @@ import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.CheckReturnValue;
@@ -86,11 +87,22 @@ final class CachingRlsLbClient {
   public static final int STRING_OVERHEAD_BYTES = 38;
   /** Minimum bytes for a Java Object. */
   public static final int OBJ_OVERHEAD_B = 16;
+  /** Picks an entry needs before it is refreshed ahead of its stale time. */
+  @VisibleForTesting
+  static final int REFRESH_AHEAD_MIN_ACCESSES = 3;
+  /**
+   * Earliest and latest point of the stale age, as a fraction, at which a hot entry is refreshed.
+   * The point is chosen randomly per entry, so entries created together aren't refreshed together.
+   */
+  @VisibleForTesting
+  static final double REFRESH_AHEAD_MIN_FRACTION = 0.8;
+  @VisibleForTesting
+  static final double REFRESH_AHEAD_MAX_FRACTION = 0.9;
 
   // All cache status changes (pending, backoff, success) must be under this lock
   private final Object lock = new Object();
-  // LRU cache based on access order (BACKOFF and actual data will be here)
-  @GuardedBy("lock")
+  // W-TinyLFU cache (BACKOFF and actual data will be here), modified under the lock and read
+  // without it
   private final RlsAsyncLruCache linkedHashLruCache;
   // any RPC on the fly will cached in this map
   @GuardedBy("lock")
@@ -99,6 +111,7 @@ final class CachingRlsLbClient {
   private final SynchronizationContext synchronizationContext;
   private final ScheduledExecutorService scheduledExecutorService;
   private final Ticker ticker;
+  private final Random random;
   private final Throttler throttler;
 
   private final LbPolicyConfiguration lbPolicyConfig;
@@ -125,6 +138,7 @@ final class CachingRlsLbClient {
     staleAgeNanos = rlsConfig.staleAgeInNanos();
     callTimeoutNanos = rlsConfig.lookupServiceTimeoutInNanos();
     ticker = checkNotNull(builder.ticker, "ticker");
+    random = checkNotNull(builder.random, "random");
     throttler = checkNotNull(builder.throttler, "throttler");
     linkedHashLruCache =
         new RlsAsyncLruCache(
@@ -237,9 +251,19 @@ final class CachingRlsLbClient {
    */
   @CheckReturnValue
   final CachedRouteLookupResponse get(final RouteLookupRequest request) {
+    // Fast path: a fresh data entry needs no status change, so it is returned without the lock.
+    CacheEntry cacheEntry = linkedHashLruCache.read(request);
+    if (cacheEntry instanceof DataCacheEntry) {
+      DataCacheEntry dataEntry = (DataCacheEntry) cacheEntry;
+      long now = ticker.read();
+      if (!dataEntry.isStaled(now)) {
+        dataEntry.recordAccess(now);
+        return CachedRouteLookupResponse.dataEntry(dataEntry);
+      }
+    }
     synchronized (lock) {
-      final CacheEntry cacheEntry;
-      cacheEntry = linkedHashLruCache.read(request);
+      // the entry may have changed since the read
+      cacheEntry = linkedHashLruCache.peek(request);
       if (cacheEntry == null) {
         return handleNewRequest(request);
       }
@@ -257,6 +281,11 @@ final class CachingRlsLbClient {
     }
   }
 
+  /** Returns the hit, miss and eviction counts of the route lookup cache. */
+  TinyLfuCache.CacheStats getCacheStats() {
+    return linkedHashLruCache.stats();
+  }
+
   /** Performs any pending maintenance operations needed by the cache. */
   void close() {
     logger.log(ChannelLogLevel.DEBUG, "CachingRlsLbClient closed");
@@ -449,6 +478,7 @@ final class CachingRlsLbClient {
     private final ListenableFuture<RouteLookupResponse> pendingCall;
     private final RouteLookupRequest request;
     private final BackoffPolicy backoffPolicy;
+    private final boolean keepData;
 
     PendingCacheEntry(
         RouteLookupRequest request, ListenableFuture<RouteLookupResponse> pendingCall) {
@@ -459,9 +489,22 @@ final class CachingRlsLbClient {
         RouteLookupRequest request,
         ListenableFuture<RouteLookupResponse> pendingCall,
         @Nullable BackoffPolicy backoffPolicy) {
+      this(request, pendingCall, backoffPolicy, false);
+    }
+
+    /**
+     * Creates a pending entry. If {@code keepData} is {@code true}, a failed lookup leaves a cached
+     * data entry that hasn't expired in place instead of replacing it with a backoff entry.
+     */
+    PendingCacheEntry(
+        RouteLookupRequest request,
+        ListenableFuture<RouteLookupResponse> pendingCall,
+        @Nullable BackoffPolicy backoffPolicy,
+        boolean keepData) {
       this.request = checkNotNull(request, "request");
       this.pendingCall = pendingCall;
       this.backoffPolicy = backoffPolicy == null ? backoffProvider.get() : backoffPolicy;
+      this.keepData = keepData;
       pendingCall.addListener(
           new Runnable() {
             @Override
@@ -503,6 +546,10 @@ final class CachingRlsLbClient {
 
     private void transitionToBackOff(Status status) {
       synchronized (lock) {
+        if (keepData && linkedHashLruCache.peek(request) instanceof DataCacheEntry) {
+          logger.log(ChannelLogLevel.DEBUG, "Refresh failed, keeping data: status={0}", status);
+          return;
+        }
         logger.log(ChannelLogLevel.DEBUG, "Transition to back off: status={0}", status);
         linkedHashLruCache.cacheAndClean(request,
             new BackoffCacheEntry(request, status, backoffPolicy));
@@ -551,7 +598,13 @@ final class CachingRlsLbClient {
     private final long minEvictionTime;
     private final long expireTime;
     private final long staleTime;
+    private final long refreshAheadTime;
     private final List<ChildPolicyWrapper> childPolicyWrappers;
+    // Racy increments may lose picks, which only delays the refresh. Stops at
+    // REFRESH_AHEAD_MIN_ACCESSES, so hot entries aren't written on every pick.
+    private volatile int accesses;
+    // GuardedBy CachingRlsLbClient.lock for writes
+    private volatile boolean refreshAheadStarted;
 
     // GuardedBy CachingRlsLbClient.lock
     DataCacheEntry(RouteLookupRequest request, final RouteLookupResponse response) {
@@ -565,6 +618,54 @@ final class CachingRlsLbClient {
       minEvictionTime = now + MIN_EVICTION_TIME_DELTA_NANOS;
       expireTime = now + maxAgeNanos;
       staleTime = now + staleAgeNanos;
+      double refreshAheadFraction = REFRESH_AHEAD_MIN_FRACTION
+          + (REFRESH_AHEAD_MAX_FRACTION - REFRESH_AHEAD_MIN_FRACTION) * random.nextDouble();
+      refreshAheadTime = now + (long) (staleAgeNanos * refreshAheadFraction);
+    }
+
+    /**
+     * Records a pick using this entry. Once the entry was used {@link #REFRESH_AHEAD_MIN_ACCESSES}
+     * times, the first pick after its refresh ahead time refreshes it, so that picks of hot keys
+     * never see a stale or expired entry and never wait for the RLS server.
+     */
+    void recordAccess(long now) {
+      int count = accesses;
+      if (count < REFRESH_AHEAD_MIN_ACCESSES) {
+        accesses = count + 1;
+        return;
+      }
+      if (!refreshAheadStarted && refreshAheadTime - now <= 0) {
+        refreshAhead();
+      }
+    }
+
+    private void refreshAhead() {
+      synchronized (lock) {
+        if (refreshAheadStarted) {
+          return;
+        }
+        refreshAheadStarted = true;
+        if (linkedHashLruCache.peek(request) != this || pendingCallCache.containsKey(request)) {
+          return;
+        }
+        logger.log(ChannelLogLevel.DEBUG, "Refreshing hot cache entry ahead of its stale time");
+        ListenableFuture<RouteLookupResponse> asyncCall = asyncRlsCall(request);
+        if (!asyncCall.isDone()) {
+          pendingCallCache.put(
+              request, new PendingCacheEntry(request, asyncCall, null, /* keepData= */ true));
+        } else {
+          // async call returned finished future is most likely throttled, keep using this entry
+          // until it is stale
+          try {
+            RouteLookupResponse response = asyncCall.get();
+            linkedHashLruCache.cacheAndClean(request, new DataCacheEntry(request, response));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (Exception e) {
+            logger.log(ChannelLogLevel.DEBUG, "Refresh ahead failed: {0}", e);
+          }
+        }
+      }
     }
 
     /**
@@ -792,6 +893,7 @@ final class CachingRlsLbClient {
     private Throttler throttler = new HappyThrottler();
     private ResolvedAddressFactory resolvedAddressFactory;
     private Ticker ticker = Ticker.systemTicker();
+    private Random random = new Random();
     private EvictionListener<RouteLookupRequest, CacheEntry> evictionListener;
     private BackoffPolicy.Provider backoffProvider = new ExponentialBackoffPolicy.Provider();
 
@@ -825,6 +927,12 @@ final class CachingRlsLbClient {
       return this;
     }
 
+    /** Sets the source of the refresh ahead jitter. */
+    Builder setRandom(Random random) {
+      this.random = checkNotNull(random, "random");
+      return this;
+    }
+
     Builder setEvictionListener(
         @Nullable EvictionListener<RouteLookupRequest, CacheEntry> evictionListener) {
       this.evictionListener = evictionListener;
@@ -879,9 +987,9 @@ final class CachingRlsLbClient {
     }
   }
 
-  /** Implementation of {@link LinkedHashLruCache} for RLS. */
+  /** Implementation of {@link TinyLfuCache} for RLS. */
   private static final class RlsAsyncLruCache
-      extends LinkedHashLruCache<RouteLookupRequest, CacheEntry> {
+      extends TinyLfuCache<RouteLookupRequest, CacheEntry> {
 
     RlsAsyncLruCache(long maxEstimatedSizeBytes,
         @Nullable EvictionListener<RouteLookupRequest, CacheEntry> evictionListener,
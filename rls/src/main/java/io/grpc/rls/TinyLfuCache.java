@@ -0,0 +1,700 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.rls;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A TinyLfuCache is a size bounded cache with entry level expiration time, like {@link
+ * LinkedHashLruCache}, that doesn't lock on reads and decides what to evict with the W-TinyLFU
+ * policy.
+ *
+ * <p>Reads look entries up in a {@link ConcurrentHashMap} and record the access in one of several
+ * striped, lossy buffers. The buffers are drained under the lock when the cache is modified, and
+ * drained accesses update the access order and a frequency sketch. Writes and evictions are
+ * serialized by the lock given to the constructor, so the {@link EvictionListener} is still called
+ * serially, with that lock held.
+ *
+ * <p>New entries go into a small admission window. When the cache is full, the least recently
+ * used entry leaving the window competes with the least recently used entry of the main space,
+ * and only the one that was used more often stays. This keeps a scan of one-off keys from pushing
+ * out frequently used entries. The main space is split into a probation segment and a protected
+ * segment holding entries that were used again after entering the main space.
+ */
+@ThreadSafe
+abstract class TinyLfuCache<K, V> implements LruCache<K, V> {
+
+  /** Percentage of the maximum size used by the admission window. */
+  private static final int WINDOW_PERCENT = 1;
+  /** Percentage of the main space used by the protected segment. */
+  private static final int PROTECTED_PERCENT = 80;
+  private static final int READ_BUFFER_SIZE = 16;
+  /** Rough estimate of entry size in bytes, to size the frequency sketch. */
+  private static final int ESTIMATED_ENTRY_SIZE_BYTES = 100;
+  private static final int MAX_SKETCH_ENTRIES = 1 << 17;
+
+  private final Object lock;
+  private final ConcurrentHashMap<K, Node> data;
+  private final List<ReadBuffer> readBuffers;
+  @GuardedBy("lock")
+  private final AccessQueue window = new AccessQueue();
+  @GuardedBy("lock")
+  private final AccessQueue probation = new AccessQueue();
+  @GuardedBy("lock")
+  private final AccessQueue protectedSegment = new AccessQueue();
+  @GuardedBy("lock")
+  private final FrequencySketch sketch;
+  private final PeriodicCleaner periodicCleaner;
+  private final Ticker ticker;
+  @Nullable
+  private final EvictionListener<K, V> evictionListener;
+  private final AtomicLong estimatedSizeBytes = new AtomicLong();
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  @GuardedBy("lock")
+  private long estimatedMaxSizeBytes;
+  @GuardedBy("lock")
+  private long windowMaxSizeBytes;
+  @GuardedBy("lock")
+  private long protectedMaxSizeBytes;
+
+  TinyLfuCache(
+      final long estimatedMaxSizeBytes,
+      @Nullable final EvictionListener<K, V> evictionListener,
+      int cleaningInterval,
+      TimeUnit cleaningIntervalUnit,
+      ScheduledExecutorService ses,
+      final Ticker ticker,
+      Object lock) {
+    checkState(estimatedMaxSizeBytes > 0, "max estimated cache size should be positive");
+    this.lock = checkNotNull(lock, "lock");
+    this.evictionListener = evictionListener;
+    this.ticker = checkNotNull(ticker, "ticker");
+    long expectedEntries = estimatedMaxSizeBytes / ESTIMATED_ENTRY_SIZE_BYTES;
+    this.data = new ConcurrentHashMap<>(
+        // rough estimate or minimum hashmap default
+        (int) Math.max(Math.min(expectedEntries, MAX_SKETCH_ENTRIES), 16));
+    this.sketch = new FrequencySketch((int) Math.min(expectedEntries, MAX_SKETCH_ENTRIES));
+    int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+    List<ReadBuffer> buffers = new ArrayList<>(stripes);
+    for (int i = 0; i < stripes; i++) {
+      buffers.add(new ReadBuffer());
+    }
+    this.readBuffers = Collections.unmodifiableList(buffers);
+    synchronized (lock) {
+      setMaxSize(estimatedMaxSizeBytes);
+    }
+    periodicCleaner = new PeriodicCleaner(ses, cleaningInterval, cleaningIntervalUnit).start();
+  }
+
+  /**
+   * Determines if the entry chosen for eviction should be evicted or kept when the cache size
+   * limit is reached.
+   */
+  @SuppressWarnings("unused")
+  protected boolean shouldInvalidateEldestEntry(K eldestKey, V eldestValue) {
+    return true;
+  }
+
+  /** Determines if the entry is already expired or not. */
+  protected abstract boolean isExpired(K key, V value, long nowNanos);
+
+  /**
+   * Returns estimated size of entry to keep track. If it always returns 1, the max size bytes
+   * behaves like max number of entry (default behavior).
+   */
+  @SuppressWarnings("unused")
+  protected int estimateSizeOf(K key, V value) {
+    return 1;
+  }
+
+  protected long estimatedMaxSizeBytes() {
+    synchronized (lock) {
+      return estimatedMaxSizeBytes;
+    }
+  }
+
+  /** Updates size for given key if entry exists. It is useful if the cache value is mutated. */
+  public void updateEntrySize(K key) {
+    synchronized (lock) {
+      Node node = readInternal(key);
+      if (node == null || node.queue == null) {
+        return;
+      }
+      node.setSize(estimateSizeOf(key, node.value));
+    }
+  }
+
+  /**
+   * Returns estimated cache size bytes. Each entry size is calculated by {@link
+   * #estimateSizeOf(java.lang.Object, java.lang.Object)}.
+   */
+  public long estimatedSizeBytes() {
+    return estimatedSizeBytes.get();
+  }
+
+  /** Returns a snapshot of the hit, miss and eviction counts of {@link #read}. */
+  public final CacheStats stats() {
+    return CacheStats.create(hitCount.sum(), missCount.sum(), evictionCount.sum());
+  }
+
+  @Override
+  @Nullable
+  public final V cache(K key, V value) {
+    checkNotNull(key, "key");
+    checkNotNull(value, "value");
+    int size = estimateSizeOf(key, value);
+    synchronized (lock) {
+      drainReadBuffers();
+      sketch.increment(key);
+      Node existing = data.get(key);
+      if (existing != null) {
+        V existingValue = existing.value;
+        existing.value = value;
+        existing.setSize(size);
+        existing.queue.moveToTail(existing);
+        if (evictionListener != null) {
+          evictionListener.onEviction(key, existingValue, EvictionType.REPLACED);
+        }
+        return existingValue;
+      }
+      Node node = new Node(key, value);
+      data.put(key, node);
+      window.add(node);
+      node.setSize(size);
+      if (estimatedSizeBytes.get() > estimatedMaxSizeBytes) {
+        // first, remove at most 1 expired entry, otherwise evict one entry if allowed
+        if (!cleanupExpiredEntries(1, ticker.read())) {
+          Node victim = selectVictim();
+          if (victim != null) {
+            invalidate(victim, EvictionType.SIZE);
+          }
+        }
+      }
+      balanceWindow();
+      return null;
+    }
+  }
+
+  @Override
+  @Nullable
+  @CheckReturnValue
+  public final V read(K key) {
+    Node node = readInternal(key);
+    if (node == null) {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    readBuffers.get(stripeIndex()).offer(node);
+    return node.value;
+  }
+
+  /**
+   * Returns cached value for given key like {@link #read}, but doesn't record the access nor update
+   * the {@link #stats}.
+   */
+  @Nullable
+  @CheckReturnValue
+  public final V peek(K key) {
+    Node node = readInternal(key);
+    return node == null ? null : node.value;
+  }
+
+  @Nullable
+  @CheckReturnValue
+  private Node readInternal(K key) {
+    checkNotNull(key, "key");
+    Node node = data.get(key);
+    if (node == null || isExpired(key, node.value, ticker.read())) {
+      return null;
+    }
+    return node;
+  }
+
+  @Override
+  @Nullable
+  public final V invalidate(K key) {
+    checkNotNull(key, "key");
+    synchronized (lock) {
+      Node node = data.get(key);
+      if (node == null) {
+        return null;
+      }
+      invalidate(node, EvictionType.EXPLICIT);
+      return node.value;
+    }
+  }
+
+  @GuardedBy("lock")
+  private void invalidate(Node node, EvictionType cause) {
+    if (!data.remove(node.key, node)) {
+      return;
+    }
+    node.queue.remove(node);
+    node.queue = null;
+    estimatedSizeBytes.addAndGet(-1L * node.size);
+    if (cause == EvictionType.SIZE || cause == EvictionType.EXPIRED) {
+      evictionCount.increment();
+    }
+    if (evictionListener != null) {
+      evictionListener.onEviction(node.key, node.value, cause);
+    }
+  }
+
+  @Override
+  public final void invalidateAll() {
+    synchronized (lock) {
+      drainReadBuffers();
+      for (Node node : data.values()) {
+        invalidate(node, EvictionType.EXPLICIT);
+      }
+    }
+  }
+
+  @Override
+  @CheckReturnValue
+  public final boolean hasCacheEntry(K key) {
+    // call readInternal to filter already expired entry in the cache
+    return readInternal(key) != null;
+  }
+
+  /** Returns shallow copied values in the cache. */
+  public final List<V> values() {
+    synchronized (lock) {
+      List<V> list = new ArrayList<>(data.size());
+      for (Node node : data.values()) {
+        list.add(node.value);
+      }
+      return Collections.unmodifiableList(list);
+    }
+  }
+
+  protected long now() {
+    return ticker.read();
+  }
+
+  /**
+   * Cleans up cache if needed to fit into max size bytes by removing expired entries and evicting
+   * entries chosen by the W-TinyLFU policy. Returns TRUE if any unexpired entries were removed.
+   */
+  protected final boolean fitToLimit() {
+    boolean removedAnyUnexpired = false;
+    synchronized (lock) {
+      drainReadBuffers();
+      if (estimatedSizeBytes.get() > estimatedMaxSizeBytes) {
+        cleanupExpiredEntries(Integer.MAX_VALUE, now());
+      }
+      while (estimatedSizeBytes.get() > estimatedMaxSizeBytes) {
+        Node victim = selectVictim();
+        if (victim == null) {
+          break; // Violates some constraint like minimum age so stop our cleanup
+        }
+        invalidate(victim, EvictionType.SIZE);
+        removedAnyUnexpired = true;
+      }
+      balanceWindow();
+    }
+    return removedAnyUnexpired;
+  }
+
+  /**
+   * Resizes cache. If new size is smaller than current estimated size, it will free up space by
+   * removing expired entries and evicting entries chosen by the W-TinyLFU policy.
+   */
+  public final void resize(long newSizeBytes) {
+    synchronized (lock) {
+      setMaxSize(newSizeBytes);
+      fitToLimit();
+    }
+  }
+
+  @GuardedBy("lock")
+  private void setMaxSize(long maxSizeBytes) {
+    estimatedMaxSizeBytes = maxSizeBytes;
+    windowMaxSizeBytes = Math.max(1, maxSizeBytes * WINDOW_PERCENT / 100);
+    protectedMaxSizeBytes = (maxSizeBytes - windowMaxSizeBytes) * PROTECTED_PERCENT / 100;
+  }
+
+  @Override
+  @CheckReturnValue
+  public final int estimatedSize() {
+    return data.size();
+  }
+
+  /**
+   * Returns the entry to evict to make room, or {@code null} if there is none that {@link
+   * #shouldInvalidateEldestEntry} allows to evict.
+   */
+  @Nullable
+  @GuardedBy("lock")
+  private Node selectVictim() {
+    Node candidate = null;
+    if (windowOverflows() || (probation.head == null && protectedSegment.head == null)) {
+      candidate = window.head;
+    }
+    Node victim = probation.head != null ? probation.head : protectedSegment.head;
+    if (candidate == null || victim == null) {
+      Node eldest = candidate != null ? candidate : victim;
+      return eldest != null && canEvict(eldest) ? eldest : null;
+    }
+    // The candidate only enters the main space if it is used more often than the entry it would
+    // replace there.
+    Node first = candidate;
+    Node second = victim;
+    if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+      first = victim;
+      second = candidate;
+    }
+    if (canEvict(first)) {
+      return first;
+    }
+    return canEvict(second) ? second : null;
+  }
+
+  @GuardedBy("lock")
+  private boolean canEvict(Node node) {
+    return shouldInvalidateEldestEntry(node.key, node.value);
+  }
+
+  /**
+   * Returns {@code true} if the window is over its size limit. The most recently added entry
+   * always stays in the window, so it is not evicted before it can be used.
+   */
+  @GuardedBy("lock")
+  private boolean windowOverflows() {
+    return window.sizeBytes > windowMaxSizeBytes && window.head != window.tail;
+  }
+
+  /** Moves the least recently used entries over the window size limit to the main space. */
+  @GuardedBy("lock")
+  private void balanceWindow() {
+    while (windowOverflows()) {
+      Node node = window.head;
+      window.remove(node);
+      probation.add(node);
+    }
+  }
+
+  @GuardedBy("lock")
+  private void drainReadBuffers() {
+    for (ReadBuffer buffer : readBuffers) {
+      buffer.drain();
+    }
+  }
+
+  @GuardedBy("lock")
+  private void onAccess(Node node) {
+    if (node.queue == null) {
+      return; // already removed
+    }
+    sketch.increment(node.key);
+    if (node.queue == probation) {
+      probation.remove(node);
+      protectedSegment.add(node);
+      while (protectedSegment.sizeBytes > protectedMaxSizeBytes) {
+        Node demoted = protectedSegment.head;
+        protectedSegment.remove(demoted);
+        probation.add(demoted);
+      }
+    } else {
+      node.queue.moveToTail(node);
+    }
+  }
+
+  // maxExpiredEntries is by number of entries
+  @GuardedBy("lock")
+  private boolean cleanupExpiredEntries(int maxExpiredEntries, long now) {
+    checkArgument(maxExpiredEntries > 0, "maxExpiredEntries must be positive");
+    boolean removedAny = false;
+    Iterator<Node> iterator = data.values().iterator();
+    while (iterator.hasNext() && maxExpiredEntries > 0) {
+      Node node = iterator.next();
+      if (isExpired(node.key, node.value, now)) {
+        invalidate(node, EvictionType.EXPIRED);
+        removedAny = true;
+        maxExpiredEntries--;
+      }
+    }
+    return removedAny;
+  }
+
+  private int stripeIndex() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    return hash & (readBuffers.size() - 1);
+  }
+
+  @Override
+  public final void close() {
+    synchronized (lock) {
+      periodicCleaner.stop();
+      invalidateAll();
+    }
+  }
+
+  /** Hit, miss and eviction counts of a cache. Evictions exclude explicit removal. */
+  @AutoValue
+  abstract static class CacheStats {
+
+    abstract long hitCount();
+
+    abstract long missCount();
+
+    /** Number of entries evicted due to the size limit or expiration. */
+    abstract long evictionCount();
+
+    static CacheStats create(long hitCount, long missCount, long evictionCount) {
+      return new AutoValue_TinyLfuCache_CacheStats(hitCount, missCount, evictionCount);
+    }
+  }
+
+  /** Periodically cleans up the expired entries. */
+  private final class PeriodicCleaner {
+
+    private final ScheduledExecutorService ses;
+    private final int interval;
+    private final TimeUnit intervalUnit;
+    private ScheduledFuture<?> scheduledFuture;
+
+    PeriodicCleaner(ScheduledExecutorService ses, int interval, TimeUnit intervalUnit) {
+      this.ses = checkNotNull(ses, "ses");
+      checkState(interval > 0, "interval must be positive");
+      this.interval = interval;
+      this.intervalUnit = checkNotNull(intervalUnit, "intervalUnit");
+    }
+
+    PeriodicCleaner start() {
+      checkState(scheduledFuture == null, "cleaning task can be started only once");
+      this.scheduledFuture =
+          ses.scheduleAtFixedRate(new CleaningTask(), interval, interval, intervalUnit);
+      return this;
+    }
+
+    void stop() {
+      if (scheduledFuture != null) {
+        scheduledFuture.cancel(false);
+        scheduledFuture = null;
+      }
+    }
+
+    private class CleaningTask implements Runnable {
+
+      @Override
+      public void run() {
+        synchronized (lock) {
+          drainReadBuffers();
+          cleanupExpiredEntries(Integer.MAX_VALUE, ticker.read());
+        }
+      }
+    }
+  }
+
+  /** A cache entry, linked into the access order of the segment it belongs to. */
+  private final class Node {
+    final K key;
+    volatile V value;
+    volatile int size;
+    // GuardedBy lock; null once removed from the cache
+    @Nullable
+    AccessQueue queue;
+    @Nullable
+    Node prev;
+    @Nullable
+    Node next;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @GuardedBy("lock")
+    void setSize(int newSize) {
+      int delta = newSize - size;
+      size = newSize;
+      queue.sizeBytes += delta;
+      estimatedSizeBytes.addAndGet(delta);
+    }
+  }
+
+  /** Doubly linked list of entries in access order, least recently used first. */
+  private final class AccessQueue {
+    @Nullable
+    Node head;
+    @Nullable
+    Node tail;
+    long sizeBytes;
+
+    void add(Node node) {
+      node.queue = this;
+      node.prev = tail;
+      node.next = null;
+      if (tail == null) {
+        head = node;
+      } else {
+        tail.next = node;
+      }
+      tail = node;
+      sizeBytes += node.size;
+    }
+
+    void remove(Node node) {
+      if (node.prev == null) {
+        head = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        tail = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+      sizeBytes -= node.size;
+    }
+
+    void moveToTail(Node node) {
+      if (node != tail) {
+        remove(node);
+        add(node);
+      }
+    }
+  }
+
+  /**
+   * Buffer of entries read by the threads mapped to it, waiting to be applied to the access order.
+   * Reads are dropped while the buffer is full.
+   */
+  private final class ReadBuffer {
+    final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    final AtomicInteger writeIndex = new AtomicInteger();
+
+    void offer(Node node) {
+      int index = writeIndex.get();
+      if (index < READ_BUFFER_SIZE && writeIndex.compareAndSet(index, index + 1)) {
+        slots.lazySet(index, node);
+      }
+    }
+
+    @GuardedBy("lock")
+    void drain() {
+      int count = Math.min(writeIndex.get(), READ_BUFFER_SIZE);
+      if (count == 0) {
+        return;
+      }
+      for (int i = 0; i < count; i++) {
+        Node node = slots.getAndSet(i, null);
+        if (node != null) {
+          onAccess(node);
+        }
+      }
+      // If more reads were recorded meanwhile, they are drained next time.
+      writeIndex.compareAndSet(count, 0);
+    }
+  }
+
+  /**
+   * A count-min sketch of how often keys were used, with 4 bit counters that are halved
+   * periodically so that the history ages out.
+   */
+  @VisibleForTesting
+  static final class FrequencySketch {
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    // 16 counters per element
+    private final long[] table;
+    private final int counterMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedEntries) {
+      int length = Integer.highestOneBit(Math.max(expectedEntries, 16) * 2 - 1);
+      table = new long[length];
+      counterMask = length * 16 - 1;
+      sampleSize = 10 * Math.max(expectedEntries, 16);
+    }
+
+    /** Returns the estimated number of times the key was used, up to 15. */
+    int frequency(Object key) {
+      int hash = key.hashCode();
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < SEEDS.length; i++) {
+        int index = indexOf(hash, i);
+        int count = (int) ((table[index >>> 4] >>> ((index & 15) << 2)) & 0xfL);
+        frequency = Math.min(frequency, count);
+      }
+      return frequency;
+    }
+
+    /** Records a use of the key. */
+    void increment(Object key) {
+      int hash = key.hashCode();
+      boolean added = false;
+      for (int i = 0; i < SEEDS.length; i++) {
+        int index = indexOf(hash, i);
+        int offset = (index & 15) << 2;
+        long mask = 0xfL << offset;
+        if ((table[index >>> 4] & mask) != mask) {
+          table[index >>> 4] += 1L << offset;
+          added = true;
+        }
+      }
+      if (added && ++additions == sampleSize) {
+        reset();
+      }
+    }
+
+    private void reset() {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      additions /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return (int) h & counterMask;
+    }
+  }
+}
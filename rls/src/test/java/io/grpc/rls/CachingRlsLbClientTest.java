@@ -27,6 +27,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -236,6 +237,77 @@ public class CachingRlsLbClientTest {
     inOrder.verifyNoMoreInteractions();
   }
 
+  @Test
+  public void get_hotEntry_refreshedAheadOfStaleTime() throws Exception {
+    setUpRlsLbClient();
+    RouteLookupRequest routeLookupRequest = RouteLookupRequest.create(ImmutableMap.of(
+        "server", "bigtable.googleapis.com", "service-key", "foo", "method-key", "bar"));
+    rlsServerImpl.setLookupTable(
+        ImmutableMap.of(
+            routeLookupRequest,
+            RouteLookupResponse.create(ImmutableList.of("target"), "header")));
+
+    CachedRouteLookupResponse resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.isPending()).isTrue();
+    fakeClock.forwardTime(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    for (int i = 0; i < CachingRlsLbClient.REFRESH_AHEAD_MIN_ACCESSES; i++) {
+      resp = getInSyncContext(routeLookupRequest);
+      assertThat(resp.hasData()).isTrue();
+    }
+    assertThat(fakeThrottler.getNumUnthrottled()).isEqualTo(1);
+
+    // past the refresh ahead time, but not stale yet
+    long refreshAheadNanos = (long) (ROUTE_LOOKUP_CONFIG.staleAgeInNanos()
+        * CachingRlsLbClient.REFRESH_AHEAD_MAX_FRACTION);
+    fakeClock.forwardNanos(refreshAheadNanos);
+    resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.hasData()).isTrue();
+
+    fakeClock.forwardTime(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    verify(evictionListener)
+        .onEviction(eq(routeLookupRequest), any(CacheEntry.class), eq(EvictionType.REPLACED));
+    assertThat(fakeThrottler.getNumUnthrottled()).isEqualTo(2);
+
+    // the original entry would be stale by now, the refreshed one isn't
+    fakeClock.forwardNanos(ROUTE_LOOKUP_CONFIG.staleAgeInNanos() - refreshAheadNanos);
+    resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.hasData()).isTrue();
+    fakeClock.forwardTime(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(fakeThrottler.getNumUnthrottled()).isEqualTo(2);
+  }
+
+  @Test
+  public void get_hotEntry_refreshAheadFailureKeepsData() throws Exception {
+    setUpRlsLbClient();
+    RouteLookupRequest routeLookupRequest = RouteLookupRequest.create(ImmutableMap.of(
+        "server", "bigtable.googleapis.com", "service-key", "foo", "method-key", "bar"));
+    rlsServerImpl.setLookupTable(
+        ImmutableMap.of(
+            routeLookupRequest,
+            RouteLookupResponse.create(ImmutableList.of("target"), "header")));
+
+    CachedRouteLookupResponse resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.isPending()).isTrue();
+    fakeClock.forwardTime(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    for (int i = 0; i < CachingRlsLbClient.REFRESH_AHEAD_MIN_ACCESSES; i++) {
+      resp = getInSyncContext(routeLookupRequest);
+      assertThat(resp.hasData()).isTrue();
+    }
+
+    rlsServerImpl.setLookupTable(ImmutableMap.<RouteLookupRequest, RouteLookupResponse>of());
+    fakeClock.forwardNanos((long) (ROUTE_LOOKUP_CONFIG.staleAgeInNanos()
+        * CachingRlsLbClient.REFRESH_AHEAD_MAX_FRACTION));
+    resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.hasData()).isTrue();
+    fakeClock.forwardTime(SERVER_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+    assertThat(fakeThrottler.getNumThrottled()).isEqualTo(1);
+
+    resp = getInSyncContext(routeLookupRequest);
+    assertThat(resp.hasData()).isTrue();
+    verify(evictionListener, never())
+        .onEviction(eq(routeLookupRequest), any(CacheEntry.class), any(EvictionType.class));
+  }
+
   @Test
   public void rls_withCustomRlsChannelServiceConfig() throws Exception {
     Map<String, ?> routeLookupChannelServiceConfig =
@@ -0,0 +1,407 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.rls;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.base.Ticker;
+import io.grpc.internal.FakeClock;
+import io.grpc.rls.LruCache.EvictionListener;
+import io.grpc.rls.LruCache.EvictionType;
+import io.grpc.rls.TinyLfuCache.FrequencySketch;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+@RunWith(JUnit4.class)
+public class TinyLfuCacheTest {
+
+  private static final int MAX_SIZE = 5;
+
+  @Rule
+  public final MockitoRule mocks = MockitoJUnit.rule();
+
+  private final FakeClock fakeClock = new FakeClock();
+  private final Ticker ticker = fakeClock.getTicker();
+
+  @Mock
+  private EvictionListener<Integer, Entry> evictionListener;
+  private TinyLfuCache<Integer, Entry> cache;
+
+  @Before
+  public void setUp() {
+    this.cache = new TestCache(MAX_SIZE);
+  }
+
+  @Test
+  public void eviction_size() {
+    for (int i = 1; i <= MAX_SIZE; i++) {
+      cache.cache(i, new Entry("Entry" + i, Long.MAX_VALUE));
+    }
+    cache.cache(MAX_SIZE + 1, new Entry("should kick one", Long.MAX_VALUE));
+
+    verify(evictionListener).onEviction(anyInt(), any(Entry.class), eq(EvictionType.SIZE));
+    assertThat(cache.estimatedSize()).isEqualTo(MAX_SIZE);
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(MAX_SIZE);
+    // the most recently added entry is kept
+    assertThat(cache.hasCacheEntry(MAX_SIZE + 1)).isTrue();
+  }
+
+  @Test
+  public void eviction_scanDoesNotEvictFrequentlyUsedEntries() {
+    for (int i = 1; i <= MAX_SIZE; i++) {
+      cache.cache(i, new Entry("Entry" + i, Long.MAX_VALUE));
+    }
+    for (int round = 0; round < 3; round++) {
+      for (int i = 1; i < MAX_SIZE; i++) {
+        assertThat(cache.read(i)).isNotNull();
+      }
+    }
+
+    for (int i = 100; i < 200; i++) {
+      cache.cache(i, new Entry("OneOff" + i, Long.MAX_VALUE));
+    }
+
+    for (int i = 1; i < MAX_SIZE; i++) {
+      assertThat(cache.hasCacheEntry(i)).isTrue();
+      verify(evictionListener, never())
+          .onEviction(eq(i), any(Entry.class), any(EvictionType.class));
+    }
+    assertThat(cache.hasCacheEntry(199)).isTrue();
+    assertThat(cache.estimatedSize()).isEqualTo(MAX_SIZE);
+  }
+
+  @Test
+  public void eviction_size_respectsShouldInvalidateEldestEntry() {
+    cache = new TestCache(MAX_SIZE) {
+      @Override
+      protected boolean shouldInvalidateEldestEntry(Integer eldestKey, Entry eldestValue) {
+        return !eldestValue.value.startsWith("Pinned");
+      }
+    };
+    for (int i = 1; i <= MAX_SIZE; i++) {
+      cache.cache(i, new Entry("Pinned" + i, Long.MAX_VALUE));
+    }
+    cache.cache(MAX_SIZE + 1, new Entry("Entry", Long.MAX_VALUE));
+
+    verify(evictionListener, never())
+        .onEviction(anyInt(), any(Entry.class), any(EvictionType.class));
+    assertThat(cache.estimatedSize()).isEqualTo(MAX_SIZE + 1);
+  }
+
+  @Test
+  public void size() {
+    Entry entry1 = new Entry("Entry0", ticker.read() + 10);
+    Entry entry2 = new Entry("Entry1", ticker.read() + 20);
+    cache.cache(0, entry1);
+    cache.cache(1, entry2);
+    assertThat(cache.estimatedSize()).isEqualTo(2);
+
+    assertThat(cache.invalidate(0)).isEqualTo(entry1);
+    assertThat(cache.estimatedSize()).isEqualTo(1);
+
+    assertThat(cache.invalidate(1)).isEqualTo(entry2);
+    assertThat(cache.estimatedSize()).isEqualTo(0);
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(0);
+  }
+
+  @Test
+  public void eviction_expire() {
+    Entry toBeEvicted = new Entry("Entry0", ticker.read() + 10);
+    Entry survivor = new Entry("Entry1", ticker.read() + 20);
+    cache.cache(0, toBeEvicted);
+    cache.cache(1, survivor);
+
+    fakeClock.forwardTime(10, TimeUnit.NANOSECONDS);
+    verify(evictionListener).onEviction(0, toBeEvicted, EvictionType.EXPIRED);
+
+    fakeClock.forwardTime(10, TimeUnit.NANOSECONDS);
+    verify(evictionListener).onEviction(1, survivor, EvictionType.EXPIRED);
+  }
+
+  @Test
+  public void eviction_explicit() {
+    Entry toBeEvicted = new Entry("Entry0", ticker.read() + 10);
+    Entry survivor = new Entry("Entry1", ticker.read() + 20);
+    cache.cache(0, toBeEvicted);
+    cache.cache(1, survivor);
+
+    assertThat(cache.invalidate(0)).isEqualTo(toBeEvicted);
+
+    verify(evictionListener).onEviction(0, toBeEvicted, EvictionType.EXPLICIT);
+  }
+
+  @Test
+  public void eviction_replaced() {
+    Entry toBeEvicted = new Entry("Entry0", ticker.read() + 10);
+    Entry survivor = new Entry("Entry1", ticker.read() + 20);
+    cache.cache(0, toBeEvicted);
+    assertThat(cache.cache(0, survivor)).isEqualTo(toBeEvicted);
+
+    verify(evictionListener).onEviction(0, toBeEvicted, EvictionType.REPLACED);
+    assertThat(cache.read(0)).isEqualTo(survivor);
+    assertThat(cache.estimatedSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void eviction_size_shouldEvictAlreadyExpired() {
+    for (int i = 1; i <= MAX_SIZE; i++) {
+      // last two entries are <= current time (already expired)
+      cache.cache(i, new Entry("Entry" + i, ticker.read() + MAX_SIZE - i - 1));
+    }
+    cache.cache(MAX_SIZE + 1, new Entry("should kick an expired entry", Long.MAX_VALUE));
+
+    verify(evictionListener).onEviction(anyInt(), any(Entry.class), eq(EvictionType.EXPIRED));
+    verify(evictionListener, never())
+        .onEviction(anyInt(), any(Entry.class), eq(EvictionType.SIZE));
+    assertThat(cache.estimatedSize()).isEqualTo(MAX_SIZE);
+  }
+
+  @Test
+  public void read_expiredEntry() {
+    cache.cache(1, new Entry("Entry", ticker.read() + 10));
+
+    fakeClock.forwardNanos(9);
+    assertThat(cache.read(1)).isNotNull();
+    fakeClock.forwardNanos(1);
+    assertThat(cache.read(1)).isNull();
+    assertThat(cache.hasCacheEntry(1)).isFalse();
+  }
+
+  @Test
+  public void stats() {
+    cache.cache(1, new Entry("Entry1", ticker.read() + 10));
+    cache.cache(2, new Entry("Entry2", Long.MAX_VALUE));
+
+    assertThat(cache.read(1)).isNotNull();
+    assertThat(cache.read(2)).isNotNull();
+    assertThat(cache.read(3)).isNull();
+    assertThat(cache.peek(2)).isNotNull();
+    assertThat(cache.hasCacheEntry(3)).isFalse();
+    cache.invalidate(2);
+    fakeClock.forwardTime(10, TimeUnit.NANOSECONDS);
+
+    assertThat(cache.stats()).isEqualTo(TinyLfuCache.CacheStats.create(2, 1, 1));
+  }
+
+  @Test
+  public void updateEntrySize() {
+    Entry entry = new Entry("Entry", ticker.read() + 10);
+
+    cache.cache(1, entry);
+
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(1);
+    entry.size = 10;
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(1);
+
+    cache.updateEntrySize(1);
+
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(10);
+
+    cache.updateEntrySize(1);
+
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(10);
+  }
+
+  @Test
+  public void invalidateAll() {
+    Entry entry1 = new Entry("Entry", ticker.read() + 10);
+    Entry entry2 = new Entry("Entry2", ticker.read() + 10);
+
+    cache.cache(1, entry1);
+    cache.cache(2, entry2);
+
+    assertThat(cache.estimatedSize()).isEqualTo(2);
+
+    cache.invalidateAll();
+
+    assertThat(cache.estimatedSize()).isEqualTo(0);
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(0);
+    verify(evictionListener).onEviction(1, entry1, EvictionType.EXPLICIT);
+    verify(evictionListener).onEviction(2, entry2, EvictionType.EXPLICIT);
+  }
+
+  @Test
+  public void resize() {
+    Entry entry1 = new Entry("Entry", ticker.read() + 10);
+    Entry entry2 = new Entry("Entry2", ticker.read() + 10);
+    Entry entry3 = new Entry("Entry3", ticker.read() + 10);
+
+    cache.cache(1, entry1);
+    cache.cache(2, entry2);
+    cache.cache(3, entry3);
+
+    assertThat(cache.estimatedSize()).isEqualTo(3);
+
+    cache.resize(2);
+
+    assertThat(cache.estimatedSize()).isEqualTo(2);
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(2);
+  }
+
+  @Test
+  public void concurrentReadsAndWrites() throws Exception {
+    final int keys = 50;
+    final CountDownLatch done = new CountDownLatch(4);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int offset = t;
+      threads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < 10000; i++) {
+              int key = (i * 7 + offset) % keys;
+              if (i % 10 == 0) {
+                cache.cache(key, new Entry("Entry" + key, Long.MAX_VALUE));
+              } else {
+                Entry entry = cache.read(key);
+                if (entry != null) {
+                  assertThat(entry.value).isEqualTo("Entry" + key);
+                }
+              }
+            }
+          } catch (Throwable e) {
+            failure.set(e);
+          } finally {
+            done.countDown();
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(failure.get()).isNull();
+
+    assertThat(cache.estimatedSize()).isAtMost(MAX_SIZE);
+    assertThat(cache.estimatedSizeBytes()).isEqualTo(cache.estimatedSize());
+    assertThat(cache.values()).hasSize(cache.estimatedSize());
+  }
+
+  @Test
+  public void frequencySketch() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    for (int i = 0; i < 5; i++) {
+      sketch.increment("hot");
+    }
+    sketch.increment("cold");
+
+    assertThat(sketch.frequency("hot")).isEqualTo(5);
+    assertThat(sketch.frequency("cold")).isEqualTo(1);
+    assertThat(sketch.frequency("unknown")).isEqualTo(0);
+
+    for (int i = 0; i < 20; i++) {
+      sketch.increment("hot");
+    }
+    // counters saturate
+    assertThat(sketch.frequency("hot")).isEqualTo(15);
+  }
+
+  @Test
+  public void frequencySketch_agesOut() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 8; i++) {
+      sketch.increment("hot");
+    }
+    // Counters only grow until the sample size is reached, then they are halved.
+    boolean halved = false;
+    int frequency = sketch.frequency("hot");
+    for (int i = 0; i < 1000 && !halved; i++) {
+      sketch.increment(i);
+      int newFrequency = sketch.frequency("hot");
+      halved = newFrequency < frequency;
+      frequency = newFrequency;
+    }
+
+    assertThat(halved).isTrue();
+  }
+
+  private class TestCache extends TinyLfuCache<Integer, Entry> {
+    TestCache(int maxSize) {
+      super(
+          maxSize,
+          evictionListener,
+          10,
+          TimeUnit.NANOSECONDS,
+          fakeClock.getScheduledExecutorService(),
+          fakeClock.getTicker(),
+          new Object());
+    }
+
+    @Override
+    protected boolean isExpired(Integer key, Entry value, long nowNanos) {
+      return value.expireTime <= nowNanos;
+    }
+
+    @Override
+    protected int estimateSizeOf(Integer key, Entry value) {
+      return value.size;
+    }
+  }
+
+  private static final class Entry {
+    String value;
+    long expireTime;
+    int size;
+
+    Entry(String value, long expireTime) {
+      this(value, expireTime, 1);
+    }
+
+    Entry(String value, long expireTime, int size) {
+      this.value = value;
+      this.expireTime = expireTime;
+      this.size = size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Entry entry = (Entry) o;
+      return expireTime == entry.expireTime && Objects.equals(value, entry.value);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(value, expireTime);
+    }
+  }
+}
@@ -24,9 +24,11 @@ import io.grpc.Channel;
 import io.grpc.ClientCall;
 import io.grpc.ClientInterceptor;
 import io.grpc.ClientInterceptors;
+import io.grpc.Drainable;
 import io.grpc.Internal;
 import io.grpc.InternalClientInterceptors;
 import io.grpc.InternalServerInterceptors;
+import io.grpc.KnownLength;
 import io.grpc.ManagedChannel;
 import io.grpc.MethodDescriptor;
 import io.grpc.MethodDescriptor.Marshaller;
@@ -38,6 +40,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import javax.annotation.Nullable;
 
 // TODO(zpencer): rename class to AbstractBinaryLog
@@ -168,11 +171,58 @@ public abstract class BinaryLogProvider extends BinaryLog {
 
     /** Returns the byte array. */
     public static byte[] toByteArray(InputStream in) throws IOException {
+      if (in instanceof KnownLength) {
+        // Marshalled messages usually know their length, and protobuf ones can serialize straight
+        // into the array instead of going through intermediate buffers
+        SizedByteArrayOutputStream out = new SizedByteArrayOutputStream(in.available());
+        if (in instanceof Drainable) {
+          ((Drainable) in).drainTo(out);
+        } else {
+          copy(in, out);
+        }
+        return out.toByteArray();
+      }
       ByteArrayOutputStream out = new ByteArrayOutputStream();
       copy(in, out);
       return out.toByteArray();
     }
 
+    /**
+     * An output stream writing to an array of the expected size, that is returned without copying
+     * if the size was right.
+     */
+    private static final class SizedByteArrayOutputStream extends OutputStream {
+      private byte[] buf;
+      private int count;
+
+      SizedByteArrayOutputStream(int expectedSize) {
+        buf = new byte[expectedSize];
+      }
+
+      @Override
+      public void write(int b) {
+        ensureCapacity(1);
+        buf[count++] = (byte) b;
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+      }
+
+      private void ensureCapacity(int len) {
+        if (buf.length - count < len) {
+          buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + len));
+        }
+      }
+
+      byte[] toByteArray() {
+        return count == buf.length ? buf : Arrays.copyOf(buf, count);
+      }
+    }
+
     /** Copies the data from input stream to output stream. */
     public static long copy(InputStream from, OutputStream to) throws IOException {
       // Copied from guava com.google.common.io.ByteStreams because its API is unstable (beta)
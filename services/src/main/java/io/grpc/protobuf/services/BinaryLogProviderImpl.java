@@ -80,7 +80,8 @@ class BinaryLogProviderImpl extends BinaryLogProvider {
   public ClientInterceptor getClientInterceptor(
       String fullMethodName, CallOptions callOptions) {
     BinlogHelper helperForMethod = factory.getLog(fullMethodName);
-    if (helperForMethod == null) {
+    // Client interceptors are requested per call, so unsampled calls skip marshalling for the log
+    if (helperForMethod == null || !helperForMethod.sampleCall()) {
       return null;
     }
     return helperForMethod.getClientInterceptor(counter.getAndIncrement());
@@ -27,6 +27,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Duration;
+import com.google.protobuf.UnsafeByteOperations;
 import com.google.protobuf.util.Durations;
 import com.google.protobuf.util.Timestamps;
 import io.grpc.Attributes;
@@ -63,6 +64,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
@@ -87,10 +89,25 @@ final class BinlogHelper {
 
   @VisibleForTesting
   final SinkWriter writer;
+  @VisibleForTesting
+  final double samplingRate;
 
   @VisibleForTesting
   BinlogHelper(SinkWriter writer) {
+    this(writer, 1);
+  }
+
+  BinlogHelper(SinkWriter writer, double samplingRate) {
     this.writer = writer;
+    this.samplingRate = samplingRate;
+  }
+
+  /**
+   * Decides whether a call is logged, when the call starts. Calls that are not sampled skip
+   * binary logging entirely.
+   */
+  boolean sampleCall() {
+    return samplingRate >= 1 || ThreadLocalRandom.current().nextDouble() < samplingRate;
   }
 
   // TODO(zpencer): move proto related static helpers into this class
@@ -502,6 +519,9 @@ final class BinlogHelper {
           final ServerCall<ReqT, RespT> call,
           Metadata headers,
           ServerCallHandler<ReqT, RespT> next) {
+        if (!sampleCall()) {
+          return next.startCall(call, headers);
+        }
         final AtomicLong seq = new AtomicLong(1);
         SocketAddress peer = getPeerSocket(call.getAttributes());
         String methodName = call.getMethodDescriptor().getFullMethodName();
@@ -713,16 +733,29 @@ final class BinlogHelper {
      *
      * <p>{@code {h(:\d+)?}, {m(:\d+)?}, {h(:\d+)?,m(:\d+)?}}
      *
-     * <p>If the {@code logConfig} is null, the returned binlog will have a limit of
-     * Integer.MAX_VALUE.
+     * <p>Optionally followed by {@code ;s:<rate>}, or only {@code s:<rate>}, where {@code <rate>}
+     * is the fraction of the calls to log, between 0 and 1. The decision is made once per call.
+     *
+     * <p>If the {@code logConfig} is null, or only has a sampling rate, the returned binlog will
+     * have a limit of Integer.MAX_VALUE.
      */
     @VisibleForTesting
     @Nullable
     static BinlogHelper createBinaryLog(BinaryLogSink sink, @Nullable String logConfig) {
+      double samplingRate = 1;
+      if (logConfig != null) {
+        int lastSeparator = logConfig.lastIndexOf(';');
+        String lastPart = logConfig.substring(lastSeparator + 1);
+        if (lastPart.startsWith("s")) {
+          samplingRate = samplingRate(lastPart.substring(1));
+          logConfig = lastSeparator == -1 ? null : logConfig.substring(0, lastSeparator);
+        }
+      }
       if (logConfig == null) {
         return new BinlogHelper(
             new SinkWriterImpl(
-                sink, TimeProvider.SYSTEM_TIME_PROVIDER, Integer.MAX_VALUE, Integer.MAX_VALUE));
+                sink, TimeProvider.SYSTEM_TIME_PROVIDER, Integer.MAX_VALUE, Integer.MAX_VALUE),
+            samplingRate);
       }
       try {
         final int maxHeaderBytes;
@@ -745,7 +778,8 @@ final class BinlogHelper {
         }
         return new BinlogHelper(
             new SinkWriterImpl(
-                sink, TimeProvider.SYSTEM_TIME_PROVIDER, maxHeaderBytes, maxMsgBytes));
+                sink, TimeProvider.SYSTEM_TIME_PROVIDER, maxHeaderBytes, maxMsgBytes),
+            samplingRate);
       } catch (NumberFormatException e) {
         throw new IllegalArgumentException("Illegal log config pattern");
       }
@@ -774,6 +808,31 @@ final class BinlogHelper {
       return Integer.parseInt(s);
     }
 
+    /** Parses the sampling rate of the form ":0.25". */
+    static double samplingRate(String s) {
+      if (!s.startsWith(":")) {
+        throw new IllegalArgumentException("Illegal log config pattern");
+      }
+      s = s.substring(1);
+      int dot = s.indexOf('.');
+      if (dot == -1) {
+        checkDigits(s);
+      } else {
+        checkDigits(s.substring(0, dot));
+        checkDigits(s.substring(dot + 1));
+      }
+      double rate;
+      try {
+        rate = Double.parseDouble(s);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Illegal log config pattern");
+      }
+      if (rate > 1) {
+        throw new IllegalArgumentException("Illegal log config pattern");
+      }
+      return rate;
+    }
+
     /**
      * Returns true if the input string is a glob of the form: {@code <package-service>/*}.
      */
@@ -873,7 +932,9 @@ final class BinlogHelper {
         .setLength(message.length);
     if (maxMessageBytes > 0) {
       int desiredBytes = Math.min(maxMessageBytes, message.length);
-      msgBuilder.setData(ByteString.copyFrom(message, 0, desiredBytes));
+      // The message was marshalled for the binary log and nothing modifies it, so it can be
+      // referenced instead of copied
+      msgBuilder.setData(UnsafeByteOperations.unsafeWrap(message, 0, desiredBytes));
     }
     return new MaybeTruncated<>(msgBuilder, maxMessageBytes < message.length);
   }
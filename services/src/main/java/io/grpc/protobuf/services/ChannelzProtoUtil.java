@@ -120,7 +120,12 @@ final class ChannelzProtoUtil {
   }
 
   static Server toServer(InternalInstrumented<ServerStats> obj) {
-    ServerStats stats = getFuture(obj.getStats());
+    return toServer(obj, obj.getStats());
+  }
+
+  private static Server toServer(
+      InternalInstrumented<ServerStats> obj, ListenableFuture<ServerStats> statsFuture) {
+    ServerStats stats = getFuture(statsFuture);
     Server.Builder builder = Server
         .newBuilder()
         .setRef(toServerRef(obj))
@@ -339,7 +344,12 @@ final class ChannelzProtoUtil {
   }
 
   static Channel toChannel(InternalInstrumented<ChannelStats> channel) {
-    ChannelStats stats = getFuture(channel.getStats());
+    return toChannel(channel, channel.getStats());
+  }
+
+  private static Channel toChannel(
+      InternalInstrumented<ChannelStats> channel, ListenableFuture<ChannelStats> statsFuture) {
+    ChannelStats stats = getFuture(statsFuture);
     Channel.Builder channelBuilder = Channel
         .newBuilder()
         .setRef(toChannelRef(channel))
@@ -426,8 +436,13 @@ final class ChannelzProtoUtil {
     GetTopChannelsResponse.Builder responseBuilder = GetTopChannelsResponse
         .newBuilder()
         .setEnd(rootChannels.end);
+    // Request all the stats before waiting for any, so that they are collected concurrently
+    List<ListenableFuture<ChannelStats>> stats = new ArrayList<>(rootChannels.channels.size());
     for (InternalInstrumented<ChannelStats> c : rootChannels.channels) {
-      responseBuilder.addChannel(ChannelzProtoUtil.toChannel(c));
+      stats.add(c.getStats());
+    }
+    for (int i = 0; i < stats.size(); i++) {
+      responseBuilder.addChannel(toChannel(rootChannels.channels.get(i), stats.get(i)));
     }
     return responseBuilder.build();
   }
@@ -436,8 +451,12 @@ final class ChannelzProtoUtil {
     GetServersResponse.Builder responseBuilder = GetServersResponse
         .newBuilder()
         .setEnd(servers.end);
+    List<ListenableFuture<ServerStats>> stats = new ArrayList<>(servers.servers.size());
     for (InternalInstrumented<ServerStats> s : servers.servers) {
-      responseBuilder.addServer(ChannelzProtoUtil.toServer(s));
+      stats.add(s.getStats());
+    }
+    for (int i = 0; i < stats.size(); i++) {
+      responseBuilder.addServer(toServer(servers.servers.get(i), stats.get(i)));
     }
     return responseBuilder.build();
   }
@@ -0,0 +1,444 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.protobuf.services;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import io.grpc.ExperimentalApi;
+import io.grpc.internal.GrpcUtil;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link BinaryLogSink} that doesn't make the RPCs wait for disk I/O. {@link #write} hands the
+ * messages to a writer thread through a bounded lock-free ring buffer, and the writer thread
+ * appends them to memory-mapped segment files, using the same delimited format as {@link
+ * MessageLite#writeDelimitedTo}. A segment is truncated to the bytes written when it is full, and
+ * the oldest segments are deleted to keep at most {@link Builder#setMaxSegments} of them.
+ *
+ * <p>If the process exits without closing the sink, the last segment is not truncated and keeps
+ * its full {@link Builder#setSegmentSize size}, zero-filled after the last message written. As a
+ * zero byte is the delimiter of an empty message, readers of such a segment should stop at the
+ * first empty message.
+ *
+ * <p>When the ring buffer is full, the messages are dropped and counted by {@link
+ * #getDroppedMessages}, or if {@link Builder#setDropOnOverflow} is disabled, {@link #write} waits
+ * for the writer thread to catch up.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/4017")
+@ThreadSafe
+public final class MappedFileSink implements BinaryLogSink {
+  private static final Logger logger = Logger.getLogger(MappedFileSink.class.getName());
+  private static final long WRITER_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long PRODUCER_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final File directory;
+  private final String prefix;
+  private final int segmentSize;
+  private final int maxSegments;
+  private final boolean dropOnOverflow;
+
+  // Multi-producer, single-consumer ring. Producers claim a sequence number by advancing tail,
+  // then publish the message in its slot. The writer thread clears the slots it takes.
+  private final AtomicReferenceArray<MessageLite> ring;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+
+  private final AtomicLong writtenMessages = new AtomicLong();
+  private final AtomicLong droppedMessages = new AtomicLong();
+  private final Thread writerThread;
+  private volatile boolean writerParked;
+  private volatile boolean closed;
+  private volatile boolean writerDone;
+
+  @GuardedBy("segments")
+  private final ArrayDeque<File> segments = new ArrayDeque<>();
+  // Only accessed by the writer thread, after the constructor
+  @Nullable
+  private FileChannel channel;
+  @Nullable
+  private MappedByteBuffer buffer;
+  @Nullable
+  private CodedOutputStream out;
+
+  private final Object lock = new Object();
+  @GuardedBy("lock")
+  @Nullable
+  private IOException writeFailure;
+
+  private MappedFileSink(Builder builder) throws IOException {
+    directory = builder.directory;
+    prefix = builder.prefix;
+    segmentSize = builder.segmentSize;
+    maxSegments = builder.maxSegments;
+    dropOnOverflow = builder.dropOnOverflow;
+    int capacity = builder.bufferedMessages == 1
+        ? 1 : Integer.highestOneBit(builder.bufferedMessages - 1) << 1;
+    ring = new AtomicReferenceArray<>(capacity);
+    mask = capacity - 1;
+    // Fail early if the directory can't be written
+    nextSegment();
+    writerThread = GrpcUtil.getThreadFactory("grpc-binlog-writer-%d", true).newThread(
+        new Runnable() {
+          @Override
+          public void run() {
+            writeLoop();
+          }
+        });
+    writerThread.start();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Queues {@code message} to be written. This doesn't block unless the buffer is full and {@link
+   * Builder#setDropOnOverflow} is disabled.
+   */
+  @Override
+  public void write(MessageLite message) {
+    checkNotNull(message, "message");
+    if (closed || writerDone) {
+      logger.log(Level.FINEST, "Attempt to write after MappedFileSink is closed.");
+      droppedMessages.incrementAndGet();
+      return;
+    }
+    long sequence;
+    while (true) {
+      sequence = tail.get();
+      if (sequence - head.get() > mask) {
+        if (dropOnOverflow) {
+          droppedMessages.incrementAndGet();
+          return;
+        }
+        unparkWriter();
+        LockSupport.parkNanos(PRODUCER_BACKOFF_NANOS);
+        if (closed || writerDone) {
+          droppedMessages.incrementAndGet();
+          return;
+        }
+        continue;
+      }
+      if (tail.compareAndSet(sequence, sequence + 1)) {
+        break;
+      }
+    }
+    ring.set((int) sequence & mask, message);
+    if (writerParked) {
+      unparkWriter();
+    }
+  }
+
+  /** Returns the number of messages written to the segment files. */
+  public long getWrittenMessages() {
+    return writtenMessages.get();
+  }
+
+  /**
+   * Returns the number of messages dropped, because the buffer was full, the message was larger
+   * than a segment, writing failed or the sink was closed.
+   */
+  public long getDroppedMessages() {
+    return droppedMessages.get();
+  }
+
+  /** Returns the segment files that were not deleted yet, oldest first. */
+  @VisibleForTesting
+  List<File> getSegments() {
+    synchronized (segments) {
+      return new ArrayList<>(segments);
+    }
+  }
+
+  /**
+   * Writes the buffered messages, then closes the current segment. Messages written after this
+   * are dropped.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    unparkWriter();
+    boolean interrupted = false;
+    while (writerThread.isAlive()) {
+      try {
+        writerThread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    // Messages left by a failed writer, or claimed by producers that raced with close()
+    droppedMessages.addAndGet(tail.get() - head.get());
+    synchronized (lock) {
+      if (writeFailure != null) {
+        throw writeFailure;
+      }
+    }
+  }
+
+  private void unparkWriter() {
+    LockSupport.unpark(writerThread);
+  }
+
+  private void writeLoop() {
+    try {
+      while (true) {
+        MessageLite message = poll();
+        if (message != null) {
+          append(message);
+          continue;
+        }
+        if (closed && head.get() == tail.get()) {
+          break;
+        }
+        writerParked = true;
+        // The producer may have published before seeing writerParked
+        if (ring.get((int) head.get() & mask) == null && !closed) {
+          LockSupport.parkNanos(this, WRITER_IDLE_NANOS);
+        }
+        writerParked = false;
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.SEVERE, "Caught exception while writing binary log", e);
+      synchronized (lock) {
+        writeFailure = e instanceof IOException ? (IOException) e : new IOException(e);
+      }
+    } finally {
+      writerDone = true;
+      try {
+        closeSegment();
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, "Caught exception while closing binary log segment", e);
+      }
+    }
+  }
+
+  /** Takes the next published message, or returns {@code null} if there is none yet. */
+  @Nullable
+  private MessageLite poll() {
+    long sequence = head.get();
+    if (sequence == tail.get()) {
+      return null;
+    }
+    int index = (int) sequence & mask;
+    MessageLite message = ring.get(index);
+    if (message == null) {
+      // Claimed, but not yet published
+      return null;
+    }
+    ring.lazySet(index, null);
+    head.lazySet(sequence + 1);
+    return message;
+  }
+
+  private void append(MessageLite message) throws IOException {
+    int size = message.getSerializedSize();
+    int delimitedSize = CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    if (delimitedSize > segmentSize) {
+      droppedMessages.incrementAndGet();
+      return;
+    }
+    if (out.spaceLeft() < delimitedSize) {
+      closeSegment();
+      nextSegment();
+    }
+    out.writeUInt32NoTag(size);
+    message.writeTo(out);
+    writtenMessages.incrementAndGet();
+  }
+
+  private void nextSegment() throws IOException {
+    File file = File.createTempFile(prefix, "", directory);
+    logger.log(Level.FINE, "Writing binary logs to {0}", file.getAbsolutePath());
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      channel = raf.getChannel();
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    } catch (IOException e) {
+      raf.close();
+      channel = null;
+      throw e;
+    }
+    out = CodedOutputStream.newInstance(buffer);
+    synchronized (segments) {
+      segments.addLast(file);
+      while (segments.size() > maxSegments) {
+        File oldest = segments.removeFirst();
+        if (!oldest.delete()) {
+          logger.log(Level.WARNING, "Unable to delete binary log segment {0}", oldest);
+        }
+      }
+    }
+  }
+
+  /** Truncates the current segment to the bytes written and closes it. */
+  private void closeSegment() throws IOException {
+    if (channel == null) {
+      return;
+    }
+    try {
+      out.flush();
+      buffer.force();
+      int written = segmentSize - out.spaceLeft();
+      out = null;
+      // Windows can't truncate a file while it's still mapped
+      unmap(buffer);
+      buffer = null;
+      channel.truncate(written);
+    } finally {
+      channel.close();
+      channel = null;
+      buffer = null;
+      out = null;
+    }
+  }
+
+  /**
+   * Releases the mapping of {@code buffer} right away, instead of when the buffer is garbage
+   * collected. The buffer must not be used afterwards. Returns {@code false} if the JVM doesn't
+   * allow it.
+   */
+  @VisibleForTesting
+  static boolean unmap(MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner;
+      try {
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      } catch (NoSuchMethodException e) {
+        // Java 8
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+        return true;
+      }
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return true;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      logger.log(Level.FINE, "Unable to unmap binary log segment", e);
+      return false;
+    }
+  }
+
+  /** Builder for {@link MappedFileSink}. */
+  public static final class Builder {
+    private File directory = new File(System.getProperty("java.io.tmpdir"));
+    private String prefix = "BINARY_INFO.";
+    private int segmentSize = 64 * 1024 * 1024;
+    private int maxSegments = 16;
+    private int bufferedMessages = 64 * 1024;
+    private boolean dropOnOverflow = true;
+
+    private Builder() {}
+
+    /** Sets the directory of the segment files. Defaults to the JVM's temp dir. */
+    public Builder setDirectory(File directory) {
+      this.directory = checkNotNull(directory, "directory");
+      return this;
+    }
+
+    /** Sets the prefix of the segment file names. Defaults to {@code BINARY_INFO.}. */
+    public Builder setFilePrefix(String prefix) {
+      checkArgument(checkNotNull(prefix, "prefix").length() >= 3,
+          "prefix must be at least 3 characters");
+      this.prefix = prefix;
+      return this;
+    }
+
+    /**
+     * Sets the size of the segment files, in bytes. Messages larger than a segment are dropped.
+     * Defaults to 64 MiB.
+     */
+    public Builder setSegmentSize(int bytes) {
+      checkArgument(bytes > 0, "bytes must be positive");
+      this.segmentSize = bytes;
+      return this;
+    }
+
+    /**
+     * Sets the number of segment files to keep. The oldest segment is deleted when a new one would
+     * exceed it. Defaults to 16.
+     */
+    public Builder setMaxSegments(int maxSegments) {
+      checkArgument(maxSegments > 0, "maxSegments must be positive");
+      this.maxSegments = maxSegments;
+      return this;
+    }
+
+    /**
+     * Sets how many messages may wait for the writer thread, rounded up to a power of two. This
+     * bounds the memory of the sink, as the messages are already truncated by the binary log
+     * config. Defaults to 65536.
+     */
+    public Builder setBufferedMessages(int bufferedMessages) {
+      checkArgument(bufferedMessages > 0 && bufferedMessages <= 1 << 30,
+          "bufferedMessages must be in (0, 2^30]");
+      this.bufferedMessages = bufferedMessages;
+      return this;
+    }
+
+    /**
+     * Sets whether messages are dropped when the buffer is full. Otherwise {@link #write} waits for
+     * the writer thread, slowing down the RPCs. Defaults to {@code true}.
+     */
+    public Builder setDropOnOverflow(boolean dropOnOverflow) {
+      this.dropOnOverflow = dropOnOverflow;
+      return this;
+    }
+
+    /**
+     * Creates the first segment file and starts the writer thread.
+     *
+     * @throws IOException if the segment file could not be created
+     */
+    public MappedFileSink build() throws IOException {
+      return new MappedFileSink(this);
+    }
+  }
+}
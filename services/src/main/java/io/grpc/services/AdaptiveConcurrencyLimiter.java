@@ -0,0 +1,490 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import io.grpc.Attributes;
+import io.grpc.ExperimentalApi;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerTransportFilter;
+import io.grpc.Status;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Limits the number of calls a server handles concurrently, adapting the limit to the latency of
+ * the calls like the Gradient2 algorithm of Netflix's concurrency-limits library. Calls over the
+ * limit fail with {@code RESOURCE_EXHAUSTED} before any of their messages are deserialized.
+ *
+ * <p>The limit grows while the calls complete about as fast as usual, and shrinks when they take
+ * longer, which is a sign of queueing in the server. Latency is compared per method, so slow
+ * methods don't look like overload.
+ *
+ * <p>The limiter is installed with {@link #newServerInterceptor}. The {@link
+ * #newServerTransportFilter transport filter} is optional: with it, a connection can't use more
+ * than its fair share of the limit while the server is busy, so a single client can't starve the
+ * others.
+ *
+ * <p>The utilization of the limit may be reported as the ORCA application utilization, so that
+ * clients using weighted round robin send fewer calls to an overloaded server.
+ */
+@ExperimentalApi("https://github.com/grpc/grpc-java/issues/9006")
+@ThreadSafe
+public final class AdaptiveConcurrencyLimiter {
+  @VisibleForTesting
+  static final Status LIMIT_EXCEEDED =
+      Status.RESOURCE_EXHAUSTED.withDescription("Server concurrency limit exceeded");
+  /** The calls of methods beyond this are not sampled. */
+  @VisibleForTesting
+  static final int MAX_TRACKED_METHODS = 1000;
+  private static final Attributes.Key<ConnectionState> CONNECTION_STATE_KEY =
+      Attributes.Key.create("io.grpc.services.AdaptiveConcurrencyLimiter.connectionState");
+  /** The number of samples averaged into the long-term latency of a method. */
+  private static final int LONG_WINDOW = 600;
+  /** The long-term latency of a method is the average of this many samples at first. */
+  private static final int WARM_UP_SAMPLES = 10;
+  private static final int MIN_WINDOW_SAMPLES = 10;
+  private static final long MIN_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double rttTolerance;
+  private final double smoothing;
+  @Nullable
+  private final MetricRecorder metricRecorder;
+  private final boolean reportCallUtilization;
+  private final Ticker ticker;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger activeConnections = new AtomicInteger();
+  private final AtomicLong rejectedCalls = new AtomicLong();
+  private final ConcurrentMap<String, MethodStats> methodStats = new ConcurrentHashMap<>();
+  private final MethodStats untrackedMethodStats = new MethodStats();
+  private volatile int limit;
+
+  private final Object lock = new Object();
+  @GuardedBy("lock")
+  private double estimatedLimit;
+  @GuardedBy("lock")
+  private long windowStartNanos;
+  @GuardedBy("lock")
+  private int windowSamples;
+  @GuardedBy("lock")
+  private double windowGradientSum;
+  @GuardedBy("lock")
+  private int windowMaxInFlight;
+
+  private AdaptiveConcurrencyLimiter(Builder builder) {
+    this.minLimit = builder.minLimit;
+    this.maxLimit = builder.maxLimit;
+    this.rttTolerance = builder.rttTolerance;
+    this.smoothing = builder.smoothing;
+    this.metricRecorder = builder.metricRecorder;
+    this.reportCallUtilization = builder.reportCallUtilization;
+    this.ticker = builder.ticker;
+    this.limit = builder.initialLimit;
+    this.estimatedLimit = builder.initialLimit;
+    this.windowStartNanos = ticker.read();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns an interceptor enforcing the limit. It should be the outermost interceptor of the
+   * server, after the ORCA interceptor if the utilization is reported per call, so that rejected
+   * calls cost as little as possible.
+   */
+  public ServerInterceptor newServerInterceptor() {
+    return new LimitingInterceptor();
+  }
+
+  /**
+   * Returns a transport filter that enforces fair sharing of the limit among the connections.
+   */
+  public ServerTransportFilter newServerTransportFilter() {
+    return new ConnectionFilter();
+  }
+
+  /** Returns the current limit on the concurrent calls. */
+  public int getLimit() {
+    return limit;
+  }
+
+  /** Returns the number of calls being handled. */
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  /** Returns the number of calls rejected because of the limit. */
+  public long getRejectedCalls() {
+    return rejectedCalls.get();
+  }
+
+  private boolean tryAcquire(@Nullable ConnectionState connection) {
+    int currentLimit = limit;
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= currentLimit) {
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    if (connection != null && !connection.tryAcquire(current + 1, currentLimit)) {
+      inFlight.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  private void release(@Nullable ConnectionState connection) {
+    if (connection != null) {
+      connection.release();
+    }
+    inFlight.decrementAndGet();
+    if (metricRecorder != null) {
+      metricRecorder.setApplicationUtilizationMetric(getUtilization());
+    }
+  }
+
+  private double getUtilization() {
+    return (double) inFlight.get() / limit;
+  }
+
+  private MethodStats getMethodStats(String fullMethodName) {
+    MethodStats stats = methodStats.get(fullMethodName);
+    if (stats != null) {
+      return stats;
+    }
+    if (methodStats.size() >= MAX_TRACKED_METHODS) {
+      return untrackedMethodStats;
+    }
+    stats = new MethodStats();
+    MethodStats existing = methodStats.putIfAbsent(fullMethodName, stats);
+    return existing != null ? existing : stats;
+  }
+
+  /**
+   * Records the latency of a call that completed successfully, and updates the limit at the end
+   * of each sampling window.
+   */
+  private void onSample(MethodStats stats, long rttNanos, int inFlightAtStart) {
+    if (stats == untrackedMethodStats) {
+      return;
+    }
+    long now = ticker.read();
+    rttNanos = Math.max(rttNanos, 1);
+    synchronized (lock) {
+      double gradient = stats.addSample(rttNanos, rttTolerance);
+      windowGradientSum += gradient;
+      windowSamples++;
+      windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+      if (windowSamples < MIN_WINDOW_SAMPLES || now - windowStartNanos < MIN_WINDOW_NANOS) {
+        return;
+      }
+      double averageGradient = windowGradientSum / windowSamples;
+      int maxInFlight = windowMaxInFlight;
+      windowStartNanos = now;
+      windowSamples = 0;
+      windowGradientSum = 0;
+      windowMaxInFlight = 0;
+
+      // Don't grow the limit while the calls don't use it, as their latency says nothing about it
+      if (averageGradient >= 1 && maxInFlight < estimatedLimit / 2) {
+        return;
+      }
+      double queueSize = Math.sqrt(estimatedLimit);
+      double newLimit = estimatedLimit * averageGradient + queueSize;
+      newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+      estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+      limit = (int) estimatedLimit;
+    }
+    if (metricRecorder != null) {
+      metricRecorder.setApplicationUtilizationMetric(getUtilization());
+    }
+  }
+
+  /** Latency statistics of a method. */
+  private final class MethodStats {
+    @GuardedBy("AdaptiveConcurrencyLimiter.this.lock")
+    private double longRttNanos;
+    @GuardedBy("AdaptiveConcurrencyLimiter.this.lock")
+    private int samples;
+
+    /**
+     * Adds the latency of a call to the long-term average, and returns the gradient of the limit
+     * this latency suggests, which is in [0.5, 1]. It is 1 unless the call was slower than usual.
+     */
+    @GuardedBy("AdaptiveConcurrencyLimiter.this.lock")
+    double addSample(long rttNanos, double rttTolerance) {
+      if (samples < WARM_UP_SAMPLES) {
+        samples++;
+        longRttNanos += (rttNanos - longRttNanos) / samples;
+      } else {
+        longRttNanos += (rttNanos - longRttNanos) * 2 / (LONG_WINDOW + 1);
+      }
+      // Let the long-term latency drift down quickly after a long period of overload
+      if (longRttNanos / rttNanos > 2) {
+        longRttNanos *= 0.95;
+      }
+      return Math.max(0.5, Math.min(1, rttTolerance * longRttNanos / rttNanos));
+    }
+  }
+
+  /** The calls of a connection, with the transport filter. */
+  private final class ConnectionState {
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Returns whether the connection may start one more call, given the calls of the server
+     * including it. A connection may only exceed its fair share while the server isn't busy.
+     */
+    boolean tryAcquire(int serverInFlight, int serverLimit) {
+      if (inFlight.getAndIncrement() == 0) {
+        activeConnections.incrementAndGet();
+      }
+      int connections = activeConnections.get();
+      if (connections > 1 && serverInFlight > serverLimit / 2) {
+        int fairShare = Math.max(1, (serverLimit + connections - 1) / connections);
+        if (inFlight.get() > fairShare) {
+          release();
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void release() {
+      if (inFlight.decrementAndGet() == 0) {
+        activeConnections.decrementAndGet();
+      }
+    }
+  }
+
+  private final class ConnectionFilter extends ServerTransportFilter {
+    @Override
+    public Attributes transportReady(Attributes transportAttrs) {
+      return transportAttrs.toBuilder()
+          .set(CONNECTION_STATE_KEY, new ConnectionState())
+          .build();
+    }
+  }
+
+  private final class LimitingInterceptor implements ServerInterceptor {
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+        ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+      ConnectionState connection = call.getAttributes().get(CONNECTION_STATE_KEY);
+      if (!tryAcquire(connection)) {
+        rejectedCalls.incrementAndGet();
+        call.close(LIMIT_EXCEEDED, new Metadata());
+        return new ServerCall.Listener<ReqT>() {};
+      }
+      CallTracker tracker = new CallTracker(
+          getMethodStats(call.getMethodDescriptor().getFullMethodName()), connection);
+      ServerCall.Listener<ReqT> listener;
+      try {
+        listener = next.startCall(new TrackingServerCall<>(call, tracker), headers);
+      } catch (RuntimeException e) {
+        tracker.onFinished(false);
+        throw e;
+      }
+      return new TrackingServerCallListener<>(listener, tracker);
+    }
+  }
+
+  /** Measures the latency of a call, and releases its share of the limit once it finishes. */
+  private final class CallTracker {
+    private final MethodStats stats;
+    @Nullable
+    private final ConnectionState connection;
+    private final long startNanos = ticker.read();
+    private final int inFlightAtStart = inFlight.get();
+    private volatile long closeNanos;
+    private boolean finished;
+
+    CallTracker(MethodStats stats, @Nullable ConnectionState connection) {
+      this.stats = stats;
+      this.connection = connection;
+    }
+
+    void onClose(Status status) {
+      if (status.isOk()) {
+        closeNanos = ticker.read();
+      }
+      if (reportCallUtilization) {
+        CallMetricRecorder.getCurrent().recordApplicationUtilizationMetric(getUtilization());
+      }
+    }
+
+    void onFinished(boolean completed) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      release(connection);
+      long closeNanos = this.closeNanos;
+      if (completed && closeNanos != 0) {
+        onSample(stats, closeNanos - startNanos, inFlightAtStart);
+      }
+    }
+  }
+
+  private static final class TrackingServerCall<ReqT, RespT>
+      extends SimpleForwardingServerCall<ReqT, RespT> {
+    private final CallTracker tracker;
+
+    TrackingServerCall(ServerCall<ReqT, RespT> delegate, CallTracker tracker) {
+      super(delegate);
+      this.tracker = tracker;
+    }
+
+    @Override
+    public void close(Status status, Metadata trailers) {
+      tracker.onClose(status);
+      super.close(status, trailers);
+    }
+  }
+
+  private static final class TrackingServerCallListener<ReqT>
+      extends SimpleForwardingServerCallListener<ReqT> {
+    private final CallTracker tracker;
+
+    TrackingServerCallListener(ServerCall.Listener<ReqT> delegate, CallTracker tracker) {
+      super(delegate);
+      this.tracker = tracker;
+    }
+
+    @Override
+    public void onComplete() {
+      tracker.onFinished(true);
+      super.onComplete();
+    }
+
+    @Override
+    public void onCancel() {
+      tracker.onFinished(false);
+      super.onCancel();
+    }
+  }
+
+  /** Builder for {@link AdaptiveConcurrencyLimiter}. */
+  public static final class Builder {
+    private int initialLimit = 20;
+    private int minLimit = 10;
+    private int maxLimit = 1000;
+    private double rttTolerance = 1.5;
+    private double smoothing = 0.2;
+    @Nullable
+    private MetricRecorder metricRecorder;
+    private boolean reportCallUtilization;
+    private Ticker ticker = Ticker.systemTicker();
+
+    private Builder() {}
+
+    /** Sets the limit before any latency was measured. The default is 20. */
+    public Builder setInitialLimit(int initialLimit) {
+      checkArgument(initialLimit > 0, "initialLimit must be positive");
+      this.initialLimit = initialLimit;
+      return this;
+    }
+
+    /** Sets the lowest the limit may get. The default is 10. */
+    public Builder setMinLimit(int minLimit) {
+      checkArgument(minLimit > 0, "minLimit must be positive");
+      this.minLimit = minLimit;
+      return this;
+    }
+
+    /** Sets the highest the limit may get. The default is 1000. */
+    public Builder setMaxLimit(int maxLimit) {
+      checkArgument(maxLimit > 0, "maxLimit must be positive");
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    /**
+     * Sets how much slower than usual the calls may get before the limit shrinks, as a ratio. The
+     * default is 1.5.
+     */
+    public Builder setRttTolerance(double rttTolerance) {
+      checkArgument(rttTolerance >= 1, "rttTolerance must be at least 1");
+      this.rttTolerance = rttTolerance;
+      return this;
+    }
+
+    /**
+     * Sets how much of a new estimate is applied to the limit at once, in (0, 1]. The default is
+     * 0.2.
+     */
+    public Builder setSmoothing(double smoothing) {
+      checkArgument(smoothing > 0 && smoothing <= 1, "smoothing must be in (0, 1]");
+      this.smoothing = smoothing;
+      return this;
+    }
+
+    /**
+     * Reports the utilization of the limit, the calls being handled divided by the limit, as the
+     * application utilization of {@code metricRecorder} for out-of-band ORCA reports.
+     */
+    public Builder setMetricRecorder(MetricRecorder metricRecorder) {
+      this.metricRecorder = checkNotNull(metricRecorder, "metricRecorder");
+      return this;
+    }
+
+    /**
+     * Reports the utilization of the limit as the application utilization of the {@link
+     * CallMetricRecorder} of each call, for per-call ORCA reports. This overrides any application
+     * utilization recorded by the service. Disabled by default.
+     */
+    public Builder setReportCallUtilization(boolean reportCallUtilization) {
+      this.reportCallUtilization = reportCallUtilization;
+      return this;
+    }
+
+    @VisibleForTesting
+    Builder setTicker(Ticker ticker) {
+      this.ticker = checkNotNull(ticker, "ticker");
+      return this;
+    }
+
+    /** Builds the limiter. */
+    public AdaptiveConcurrencyLimiter build() {
+      checkArgument(minLimit <= maxLimit, "minLimit must not exceed maxLimit");
+      checkArgument(
+          initialLimit >= minLimit && initialLimit <= maxLimit,
+          "initialLimit must be between minLimit and maxLimit");
+      return new AdaptiveConcurrencyLimiter(this);
+    }
+  }
+}
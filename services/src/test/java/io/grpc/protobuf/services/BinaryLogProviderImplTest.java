@@ -16,6 +16,7 @@
 
 package io.grpc.protobuf.services;
 
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -45,6 +46,14 @@ public class BinaryLogProviderImplTest {
     assertNull(binlog.getClientInterceptor("package.service/method", CallOptions.DEFAULT));
   }
 
+  @Test
+  public void unsampledClientCallNotIntercepted() throws Exception {
+    BinaryLogSink sink = mock(BinaryLogSink.class);
+    BinaryLogProviderImpl binlog = new BinaryLogProviderImpl(sink, "*{s:0}");
+    assertNull(binlog.getClientInterceptor("package.service/method", CallOptions.DEFAULT));
+    assertNotNull(binlog.getServerInterceptor("package.service/method"));
+  }
+
   @Test
   public void closeTest() throws Exception {
     BinaryLogSink sink = mock(BinaryLogSink.class);
@@ -27,10 +27,12 @@ import io.grpc.CallOptions;
 import io.grpc.Channel;
 import io.grpc.ClientCall;
 import io.grpc.ClientInterceptor;
+import io.grpc.Drainable;
 import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
 import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
 import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
 import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.KnownLength;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.MethodDescriptor.Marshaller;
@@ -44,6 +46,7 @@ import io.grpc.internal.NoopServerCall;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -93,6 +96,27 @@ public class BinaryLogProviderTest {
     }
   };
 
+  @Test
+  public void byteArrayMarshaller_drainsKnownLengthStream() throws Exception {
+    final byte[] bytes = "hello world".getBytes(UTF_8);
+    class DrainableStream extends ByteArrayInputStream implements KnownLength, Drainable {
+      DrainableStream() {
+        super(bytes);
+      }
+
+      @Override
+      public int drainTo(OutputStream target) throws IOException {
+        int length = available();
+        target.write(bytes, pos, length);
+        pos = count;
+        return length;
+      }
+    }
+
+    assertThat(BinaryLogProvider.BYTEARRAY_MARSHALLER.parse(new DrainableStream()))
+        .isEqualTo(bytes);
+  }
+
   @Test
   public void wrapChannel_methodDescriptor() throws Exception {
     final AtomicReference<MethodDescriptor<?, ?>> methodRef =
@@ -239,6 +239,36 @@ public final class BinlogHelperTest {
         makeOptions("h:256;m"));
   }
 
+  @Test
+  public void createLogFromOptionString_samplingRate() throws Exception {
+    assertThat(makeOptions(null).samplingRate).isEqualTo(1.0);
+    assertThat(makeOptions("h;m").samplingRate).isEqualTo(1.0);
+    BinlogHelper log = makeOptions("h:256;m:256;s:0.25");
+    assertSameLimits(BOTH_256, log);
+    assertThat(log.samplingRate).isEqualTo(0.25);
+    log = makeOptions("m:256;s:1");
+    assertSameLimits(MSG_256, log);
+    assertThat(log.samplingRate).isEqualTo(1.0);
+    log = makeOptions("s:0");
+    assertSameLimits(BOTH_FULL, log);
+    assertThat(log.samplingRate).isEqualTo(0.0);
+    assertThat(log.sampleCall()).isFalse();
+    assertThat(makeLog("p.s/m{h;s:.5}", "p.s/m").samplingRate).isEqualTo(0.5);
+  }
+
+  @Test
+  public void createLogFromOptionString_malformedSamplingRate() throws Exception {
+    assertIllegalPatternDetected("s");
+    assertIllegalPatternDetected("s:");
+    assertIllegalPatternDetected("s:.");
+    assertIllegalPatternDetected("s:-1");
+    assertIllegalPatternDetected("s:1.5");
+    assertIllegalPatternDetected("s:1e-3");
+    assertIllegalPatternDetected("h;s");
+    // The sampling rate comes last
+    assertIllegalPatternDetected("s:0.5;h");
+  }
+
   private void assertIllegalPatternDetected(String perSvcOrMethodConfig) {
     try {
       FactoryImpl.createBinaryLog(sink, perSvcOrMethodConfig);
@@ -926,6 +956,42 @@ public final class BinlogHelperTest {
         getPeerSocket(Attributes.newBuilder().set(Grpc.TRANSPORT_ATTR_REMOTE_ADDR, peer).build()));
   }
 
+  @Test
+  public void serverInterceptor_unsampledCallNotLogged() {
+    final MethodDescriptor<byte[], byte[]> method =
+        MethodDescriptor.<byte[], byte[]>newBuilder()
+            .setType(MethodType.UNKNOWN)
+            .setFullMethodName("service/method")
+            .setRequestMarshaller(BYTEARRAY_MARSHALLER)
+            .setResponseMarshaller(BYTEARRAY_MARSHALLER)
+            .build();
+    final ServerCall<byte[], byte[]> noopServerCall = new NoopServerCall<byte[], byte[]>() {
+      @Override
+      public MethodDescriptor<byte[], byte[]> getMethodDescriptor() {
+        return method;
+      }
+    };
+    final ServerCall.Listener<byte[]> listener = new ServerCall.Listener<byte[]>() {};
+    final AtomicReference<ServerCall<byte[], byte[]>> startedCall = new AtomicReference<>();
+    ServerCallHandler<byte[], byte[]> handler = new ServerCallHandler<byte[], byte[]>() {
+      @Override
+      public ServerCall.Listener<byte[]> startCall(
+          ServerCall<byte[], byte[]> call,
+          Metadata headers) {
+        startedCall.set(call);
+        return listener;
+      }
+    };
+
+    ServerCall.Listener<byte[]> interceptedListener =
+        new BinlogHelper(mockSinkWriter, /*samplingRate=*/ 0)
+            .getServerInterceptor(CALL_ID)
+            .interceptCall(noopServerCall, new Metadata(), handler);
+    assertSame(noopServerCall, startedCall.get());
+    assertSame(listener, interceptedListener);
+    verifyNoMoreInteractions(mockSinkWriter);
+  }
+
   @Test
   public void serverDeadlineLogged() {
     final MethodDescriptor<byte[], byte[]> method =
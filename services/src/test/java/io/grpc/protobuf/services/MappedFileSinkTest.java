@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.protobuf.services;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.protobuf.ByteString;
+import io.grpc.binarylog.v1.GrpcLogEntry;
+import io.grpc.binarylog.v1.Message;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MappedFileSink}. */
+@RunWith(JUnit4.class)
+public class MappedFileSinkTest {
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private MappedFileSink.Builder newBuilder() {
+    return MappedFileSink.newBuilder().setDirectory(tempFolder.getRoot());
+  }
+
+  @Test
+  public void readMyWrite() throws Exception {
+    MappedFileSink sink = newBuilder().build();
+    GrpcLogEntry e1 = GrpcLogEntry.newBuilder().setCallId(1234).build();
+    GrpcLogEntry e2 = GrpcLogEntry.newBuilder().setCallId(5678).build();
+    sink.write(e1);
+    sink.write(e2);
+    sink.close();
+
+    assertThat(sink.getSegments()).hasSize(1);
+    assertThat(readAll(sink.getSegments())).containsExactly(e1, e2).inOrder();
+    assertThat(sink.getWrittenMessages()).isEqualTo(2);
+    assertThat(sink.getDroppedMessages()).isEqualTo(0);
+  }
+
+  @Test
+  public void rotatesAndDeletesOldestSegments() throws Exception {
+    MappedFileSink sink = newBuilder()
+        .setSegmentSize(100)
+        .setMaxSegments(2)
+        .setDropOnOverflow(false)
+        .build();
+    List<GrpcLogEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      GrpcLogEntry entry =
+          GrpcLogEntry.newBuilder().setCallId(i).setSequenceIdWithinCall(i).build();
+      entries.add(entry);
+      sink.write(entry);
+    }
+    sink.close();
+
+    List<File> segments = sink.getSegments();
+    assertThat(segments).hasSize(2);
+    assertThat(tempFolder.getRoot().listFiles()).hasLength(2);
+    List<GrpcLogEntry> read = readAll(segments);
+    assertThat(segments.get(0).length()).isAtMost(100);
+    // The segments that are left hold the most recent entries
+    assertThat(read).isNotEmpty();
+    assertThat(read).isEqualTo(entries.subList(entries.size() - read.size(), entries.size()));
+    assertThat(sink.getWrittenMessages()).isEqualTo(50);
+  }
+
+  @Test
+  public void blockingWhenFull_writesEverything() throws Exception {
+    MappedFileSink sink = newBuilder()
+        .setBufferedMessages(2)
+        .setDropOnOverflow(false)
+        .build();
+    for (int i = 0; i < 1000; i++) {
+      sink.write(GrpcLogEntry.newBuilder().setCallId(i).build());
+    }
+    sink.close();
+
+    assertThat(sink.getWrittenMessages()).isEqualTo(1000);
+    assertThat(sink.getDroppedMessages()).isEqualTo(0);
+    assertThat(readAll(sink.getSegments())).hasSize(1000);
+  }
+
+  @Test
+  public void droppingWhenFull_countsEveryMessage() throws Exception {
+    MappedFileSink sink = newBuilder().setBufferedMessages(1).build();
+    for (int i = 0; i < 1000; i++) {
+      sink.write(GrpcLogEntry.newBuilder().setCallId(i).build());
+    }
+    sink.close();
+
+    assertThat(sink.getWrittenMessages() + sink.getDroppedMessages()).isEqualTo(1000);
+    assertThat(readAll(sink.getSegments())).hasSize((int) sink.getWrittenMessages());
+  }
+
+  @Test
+  public void messageLargerThanSegmentDropped() throws Exception {
+    MappedFileSink sink = newBuilder().setSegmentSize(100).build();
+    sink.write(GrpcLogEntry.newBuilder()
+        .setMessage(Message.newBuilder().setData(ByteString.copyFrom(new byte[100])))
+        .build());
+    GrpcLogEntry small = GrpcLogEntry.newBuilder().setCallId(1).build();
+    sink.write(small);
+    sink.close();
+
+    assertThat(sink.getDroppedMessages()).isEqualTo(1);
+    assertThat(readAll(sink.getSegments())).containsExactly(small);
+  }
+
+  @Test
+  public void writeAfterCloseIsDropped() throws IOException {
+    MappedFileSink sink = newBuilder().build();
+    sink.close();
+    sink.write(GrpcLogEntry.newBuilder().setCallId(1234).build());
+
+    assertThat(sink.getDroppedMessages()).isEqualTo(1);
+    assertThat(sink.getSegments().get(0).length()).isEqualTo(0);
+  }
+
+  @Test
+  public void unmap() throws IOException {
+    File file = tempFolder.newFile();
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 100);
+      assertThat(MappedFileSink.unmap(buffer)).isTrue();
+      raf.getChannel().truncate(0);
+    } finally {
+      raf.close();
+    }
+    assertThat(file.length()).isEqualTo(0);
+  }
+
+  private static List<GrpcLogEntry> readAll(List<File> segments) throws IOException {
+    List<GrpcLogEntry> entries = new ArrayList<>();
+    for (File segment : segments) {
+      DataInputStream input = new DataInputStream(new FileInputStream(segment));
+      try {
+        GrpcLogEntry entry;
+        while ((entry = GrpcLogEntry.parseDelimitedFrom(input)) != null) {
+          entries.add(entry);
+        }
+      } finally {
+        input.close();
+      }
+    }
+    return entries;
+  }
+}
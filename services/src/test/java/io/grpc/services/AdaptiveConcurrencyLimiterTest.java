@@ -0,0 +1,309 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.services;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.grpc.Attributes;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerTransportFilter;
+import io.grpc.Status;
+import io.grpc.internal.FakeClock;
+import io.grpc.testing.TestMethodDescriptors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+/** Unit tests for {@link AdaptiveConcurrencyLimiter}. */
+@RunWith(JUnit4.class)
+public class AdaptiveConcurrencyLimiterTest {
+  private static final MethodDescriptor<Void, Void> FAST_METHOD =
+      TestMethodDescriptors.voidMethod().toBuilder().setFullMethodName("service/fast").build();
+  private static final MethodDescriptor<Void, Void> SLOW_METHOD =
+      TestMethodDescriptors.voidMethod().toBuilder().setFullMethodName("service/slow").build();
+
+  @Rule
+  public final MockitoRule mocks = MockitoJUnit.rule();
+
+  @Mock
+  private ServerCall.Listener<Void> nextListener;
+
+  private final FakeClock fakeClock = new FakeClock();
+  private ServerCall<Void, Void> lastStartedCall;
+  private RuntimeException startCallException;
+  private final ServerCallHandler<Void, Void> next = new ServerCallHandler<Void, Void>() {
+    @Override
+    public ServerCall.Listener<Void> startCall(ServerCall<Void, Void> call, Metadata headers) {
+      if (startCallException != null) {
+        throw startCallException;
+      }
+      lastStartedCall = call;
+      return nextListener;
+    }
+  };
+
+  private AdaptiveConcurrencyLimiter limiter;
+  private ServerInterceptor interceptor;
+
+  private void createLimiter(AdaptiveConcurrencyLimiter.Builder builder) {
+    limiter = builder.setTicker(fakeClock.getTicker()).build();
+    interceptor = limiter.newServerInterceptor();
+  }
+
+  @Test
+  public void rejectsCallsOverLimit() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(2).setMinLimit(1));
+
+    Call call1 = startCall(FAST_METHOD, Attributes.EMPTY);
+    startCall(FAST_METHOD, Attributes.EMPTY);
+    assertThat(limiter.getInFlight()).isEqualTo(2);
+
+    Call rejected = startCall(FAST_METHOD, Attributes.EMPTY);
+    verify(rejected.serverCall).close(same(AdaptiveConcurrencyLimiter.LIMIT_EXCEEDED),
+        any(Metadata.class));
+    assertThat(rejected.startedCall).isNull();
+    assertThat(limiter.getRejectedCalls()).isEqualTo(1);
+
+    call1.finish(Status.OK);
+    assertThat(limiter.getInFlight()).isEqualTo(1);
+    Call call3 = startCall(FAST_METHOD, Attributes.EMPTY);
+    verify(call3.serverCall, never()).close(any(Status.class), any(Metadata.class));
+  }
+
+  @Test
+  public void cancelledCallReleasesLimit() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(1).setMinLimit(1));
+
+    Call call = startCall(FAST_METHOD, Attributes.EMPTY);
+    call.listener.onCancel();
+    verify(nextListener).onCancel();
+    assertThat(limiter.getInFlight()).isEqualTo(0);
+  }
+
+  @Test
+  public void startCallThrows_releasesLimit() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(1).setMinLimit(1));
+    startCallException = new IllegalStateException();
+
+    try {
+      startCall(FAST_METHOD, Attributes.EMPTY);
+    } catch (IllegalStateException expected) {
+      // expected
+    }
+    assertThat(limiter.getInFlight()).isEqualTo(0);
+  }
+
+  @Test
+  public void limitGrowsWhileLatencyIsStable() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(20));
+
+    for (int i = 0; i < 10; i++) {
+      runBatch(FAST_METHOD, limiter.getLimit(), 10);
+    }
+    assertThat(limiter.getLimit()).isGreaterThan(20);
+  }
+
+  @Test
+  public void limitDoesNotGrowWhenUnused() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(20));
+
+    for (int i = 0; i < 10; i++) {
+      runBatch(FAST_METHOD, 5, 10);
+    }
+    assertThat(limiter.getLimit()).isEqualTo(20);
+  }
+
+  @Test
+  public void limitShrinksWhenLatencyGrows() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(100));
+
+    runBatch(FAST_METHOD, 50, 10);
+    int limit = limiter.getLimit();
+    for (int i = 0; i < 5; i++) {
+      runBatch(FAST_METHOD, 50, 100);
+    }
+    assertThat(limiter.getLimit()).isLessThan(limit);
+    assertThat(limiter.getLimit()).isAtLeast(10);
+  }
+
+  @Test
+  public void latencyComparedPerMethod() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(40));
+
+    for (int i = 0; i < 10; i++) {
+      List<Call> calls = new ArrayList<>();
+      for (int j = 0; j < 20; j++) {
+        calls.add(startCall(FAST_METHOD, Attributes.EMPTY));
+      }
+      fakeClock.forwardTime(10, TimeUnit.MILLISECONDS);
+      finishAll(calls);
+      for (int j = 0; j < 20; j++) {
+        calls.add(startCall(SLOW_METHOD, Attributes.EMPTY));
+      }
+      fakeClock.forwardTime(100, TimeUnit.MILLISECONDS);
+      finishAll(calls);
+    }
+    // The slow method is always slow, which is no sign of overload
+    assertThat(limiter.getLimit()).isAtLeast(40);
+  }
+
+  @Test
+  public void failedCallsNotSampled() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(20));
+
+    runBatch(FAST_METHOD, 20, 10);
+    int limit = limiter.getLimit();
+    for (int i = 0; i < 5; i++) {
+      List<Call> calls = new ArrayList<>();
+      for (int j = 0; j < 20; j++) {
+        calls.add(startCall(FAST_METHOD, Attributes.EMPTY));
+      }
+      fakeClock.forwardTime(1, TimeUnit.SECONDS);
+      for (Call call : calls) {
+        call.finish(Status.DEADLINE_EXCEEDED);
+      }
+    }
+    assertThat(limiter.getLimit()).isEqualTo(limit);
+  }
+
+  @Test
+  public void untrackedMethodsNotSampled() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(20));
+    for (int i = 0; i < AdaptiveConcurrencyLimiter.MAX_TRACKED_METHODS; i++) {
+      startCall(FAST_METHOD.toBuilder().setFullMethodName("service/method" + i).build(),
+          Attributes.EMPTY).finish(Status.OK);
+    }
+
+    int limit = limiter.getLimit();
+    for (int i = 0; i < 10; i++) {
+      runBatch(SLOW_METHOD, limiter.getLimit(), 10);
+    }
+    assertThat(limiter.getLimit()).isEqualTo(limit);
+  }
+
+  @Test
+  public void connectionsShareLimitWhenBusy() {
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder().setInitialLimit(4).setMinLimit(1));
+    ServerTransportFilter filter = limiter.newServerTransportFilter();
+    Attributes connection1 = filter.transportReady(Attributes.EMPTY);
+    Attributes connection2 = filter.transportReady(Attributes.EMPTY);
+
+    // A single connection may use the whole limit
+    List<Call> calls = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      calls.add(startCall(FAST_METHOD, connection1));
+      verify(calls.get(i).serverCall, never()).close(any(Status.class), any(Metadata.class));
+    }
+    finishAll(calls);
+
+    calls.add(startCall(FAST_METHOD, connection2));
+    calls.add(startCall(FAST_METHOD, connection1));
+    calls.add(startCall(FAST_METHOD, connection1));
+    Call overFairShare = startCall(FAST_METHOD, connection1);
+    verify(overFairShare.serverCall).close(same(AdaptiveConcurrencyLimiter.LIMIT_EXCEEDED),
+        any(Metadata.class));
+
+    Call withinFairShare = startCall(FAST_METHOD, connection2);
+    verify(withinFairShare.serverCall, never()).close(any(Status.class), any(Metadata.class));
+    assertThat(limiter.getInFlight()).isEqualTo(4);
+  }
+
+  @Test
+  public void reportsUtilizationToMetricRecorder() {
+    MetricRecorder metricRecorder = MetricRecorder.newInstance();
+    createLimiter(AdaptiveConcurrencyLimiter.newBuilder()
+        .setInitialLimit(10)
+        .setMetricRecorder(metricRecorder));
+
+    Call call = startCall(FAST_METHOD, Attributes.EMPTY);
+    for (int i = 0; i < 4; i++) {
+      startCall(FAST_METHOD, Attributes.EMPTY);
+    }
+    call.finish(Status.OK);
+
+    assertThat(InternalMetricRecorder.getMetricReport(metricRecorder).getApplicationUtilization())
+        .isWithin(1e-9).of(0.4);
+  }
+
+  private void runBatch(MethodDescriptor<Void, Void> method, int calls, long latencyMillis) {
+    List<Call> started = new ArrayList<>();
+    for (int i = 0; i < calls; i++) {
+      started.add(startCall(method, Attributes.EMPTY));
+    }
+    fakeClock.forwardTime(latencyMillis, TimeUnit.MILLISECONDS);
+    finishAll(started);
+    fakeClock.forwardTime(100, TimeUnit.MILLISECONDS);
+  }
+
+  private static void finishAll(List<Call> calls) {
+    for (Call call : calls) {
+      call.finish(Status.OK);
+    }
+    calls.clear();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Call startCall(MethodDescriptor<Void, Void> method, Attributes attributes) {
+    ServerCall<Void, Void> serverCall = mock(ServerCall.class);
+    when(serverCall.getMethodDescriptor()).thenReturn(method);
+    when(serverCall.getAttributes()).thenReturn(attributes);
+    lastStartedCall = null;
+    ServerCall.Listener<Void> listener =
+        interceptor.interceptCall(serverCall, new Metadata(), next);
+    return new Call(serverCall, lastStartedCall, listener);
+  }
+
+  private static final class Call {
+    final ServerCall<Void, Void> serverCall;
+    /** The call passed to the next handler, or {@code null} if rejected. */
+    final ServerCall<Void, Void> startedCall;
+    final ServerCall.Listener<Void> listener;
+
+    Call(ServerCall<Void, Void> serverCall, ServerCall<Void, Void> startedCall,
+        ServerCall.Listener<Void> listener) {
+      this.serverCall = serverCall;
+      this.startedCall = startedCall;
+      this.listener = listener;
+    }
+
+    void finish(Status status) {
+      startedCall.close(status, new Metadata());
+      if (status.isOk()) {
+        listener.onComplete();
+      } else {
+        listener.onCancel();
+      }
+    }
+  }
+}
@@ -61,6 +61,12 @@ public final class ClientCalls {
       !Strings.isNullOrEmpty(System.getenv("GRPC_CLIENT_CALL_REJECT_RUNNABLE"))
           && Boolean.parseBoolean(System.getenv("GRPC_CLIENT_CALL_REJECT_RUNNABLE"));
 
+  // The exceptions for failed calls are created on the callback threads, or rethrown from
+  // blocking calls, so their stack traces rarely help. Applications failing many calls on purpose
+  // may skip them.
+  private static final boolean STACKLESS_EXCEPTIONS =
+      Boolean.parseBoolean(System.getenv("GRPC_CLIENT_CALL_STACKLESS_EXCEPTIONS"));
+
   // Prevent instantiation
   private ClientCalls() {}
 
@@ -262,10 +268,10 @@ public final class ClientCalls {
       // If we have an embedded status, use it and replace the cause
       if (cause instanceof StatusException) {
         StatusException se = (StatusException) cause;
-        return new StatusRuntimeException(se.getStatus(), se.getTrailers());
+        return toException(se.getStatus(), se.getTrailers());
       } else if (cause instanceof StatusRuntimeException) {
         StatusRuntimeException se = (StatusRuntimeException) cause;
-        return new StatusRuntimeException(se.getStatus(), se.getTrailers());
+        return toException(se.getStatus(), se.getTrailers());
       }
       cause = cause.getCause();
     }
@@ -273,6 +279,23 @@ public final class ClientCalls {
         .asRuntimeException();
   }
 
+  /**
+   * Returns the exception for a failed call, without a stack trace if {@link
+   * #STACKLESS_EXCEPTIONS} is set.
+   */
+  private static StatusRuntimeException toException(Status status, @Nullable Metadata trailers) {
+    return toException(status, trailers, STACKLESS_EXCEPTIONS);
+  }
+
+  @VisibleForTesting
+  static StatusRuntimeException toException(
+      Status status, @Nullable Metadata trailers, boolean stackless) {
+    if (stackless) {
+      return StatusRuntimeException.withoutStackTrace(status, trailers);
+    }
+    return status.asRuntimeException(trailers);
+  }
+
   /**
    * Cancels a call, and throws the exception.
    *
@@ -478,7 +501,7 @@ public final class ClientCalls {
       if (status.isOk()) {
         observer.onCompleted();
       } else {
-        observer.onError(status.asRuntimeException(trailers));
+        observer.onError(toException(status, trailers));
       }
     }
 
@@ -535,7 +558,7 @@ public final class ClientCalls {
         }
         responseFuture.set(value);
       } else {
-        responseFuture.setException(status.asRuntimeException(trailers));
+        responseFuture.setException(toException(status, trailers));
       }
     }
 
@@ -626,9 +649,9 @@ public final class ClientCalls {
         last = waitForNext();
       }
       if (last instanceof StatusRuntimeException) {
-        // Rethrow the exception with a new stacktrace.
+        // Rethrow the exception with a new stacktrace, unless stack traces are skipped.
         StatusRuntimeException e = (StatusRuntimeException) last;
-        throw e.getStatus().asRuntimeException(e.getTrailers());
+        throw toException(e.getStatus(), e.getTrailers());
       }
       return last != this;
     }
@@ -678,7 +701,7 @@ public final class ClientCalls {
         if (status.isOk()) {
           buffer.add(BlockingResponseStream.this);
         } else {
-          buffer.add(status.asRuntimeException(trailers));
+          buffer.add(toException(status, trailers));
         }
         done = true;
       }
@@ -26,6 +26,7 @@ import io.grpc.MethodDescriptor;
 import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 
 /**
  * Utility functions for adapting {@link ServerCallHandler}s to application service implementation,
@@ -38,6 +39,11 @@ public final class ServerCalls {
   @VisibleForTesting
   static final String MISSING_REQUEST = "Half-closed without a request";
 
+  // Servers cancelled by many clients, or serving unimplemented methods on purpose, may skip the
+  // stack traces of the exceptions created for those calls.
+  private static final boolean STACKLESS_EXCEPTIONS =
+      Boolean.parseBoolean(System.getenv("GRPC_SERVER_CALL_STACKLESS_EXCEPTIONS"));
+
   private ServerCalls() {
   }
 
@@ -286,9 +292,7 @@ public final class ServerCalls {
         }
         if (!halfClosed) {
           requestObserver.onError(
-              Status.CANCELLED
-                  .withDescription("client cancelled")
-                  .asRuntimeException());
+              toException(Status.CANCELLED.withDescription("client cancelled")));
         }
       }
 
@@ -360,10 +364,9 @@ public final class ServerCalls {
     public void onNext(RespT response) {
       if (cancelled) {
         if (serverStreamingOrBidi) {
-          throw Status.CANCELLED
+          throw toException(Status.CANCELLED
               .withDescription("call already cancelled. "
-                  + "Use ServerCallStreamObserver.setOnCancelHandler() to disable this exception")
-              .asRuntimeException();
+                  + "Use ServerCallStreamObserver.setOnCancelHandler() to disable this exception"));
         } else {
           // We choose not to throw for unary responses. The exception is intended to stop servers
           // from continuing processing, but for unary responses there is no further processing
@@ -457,10 +460,25 @@ public final class ServerCalls {
       MethodDescriptor<?, ?> methodDescriptor, StreamObserver<?> responseObserver) {
     checkNotNull(methodDescriptor, "methodDescriptor");
     checkNotNull(responseObserver, "responseObserver");
-    responseObserver.onError(Status.UNIMPLEMENTED
+    responseObserver.onError(toException(Status.UNIMPLEMENTED
         .withDescription(String.format("Method %s is unimplemented",
-            methodDescriptor.getFullMethodName()))
-        .asRuntimeException());
+            methodDescriptor.getFullMethodName()))));
+  }
+
+  /**
+   * Returns the exception for a status, without a stack trace if {@link #STACKLESS_EXCEPTIONS} is
+   * set.
+   */
+  private static StatusRuntimeException toException(Status status) {
+    return toException(status, STACKLESS_EXCEPTIONS);
+  }
+
+  @VisibleForTesting
+  static StatusRuntimeException toException(Status status, boolean stackless) {
+    if (stackless) {
+      return StatusRuntimeException.withoutStackTrace(status, null);
+    }
+    return status.asRuntimeException();
   }
 
   /**
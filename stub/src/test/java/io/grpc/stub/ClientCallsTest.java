@@ -163,6 +163,22 @@ public class ClientCallsTest {
     }
   }
 
+  @Test
+  public void toException_stackless() {
+    Status status = Status.NOT_FOUND.withDescription("Unique status");
+    Metadata trailers = new Metadata();
+
+    StatusRuntimeException e = ClientCalls.toException(status, trailers, true);
+    assertSame(status, e.getStatus());
+    assertSame(trailers, e.getTrailers());
+    assertThat(e.getStackTrace()).isEmpty();
+
+    e = ClientCalls.toException(status, trailers, false);
+    assertSame(status, e.getStatus());
+    assertSame(trailers, e.getTrailers());
+    assertThat(e.getStackTrace()).isNotEmpty();
+  }
+
   @Test
   public void blockingUnaryCall2_success() throws Exception {
     Integer req = 2;
@@ -199,6 +199,18 @@ public class ServerCallsTest {
     callObserver.get().onCompleted();
   }
 
+  @Test
+  public void toException_stackless() {
+    Status status = Status.CANCELLED.withDescription("client cancelled");
+    StatusRuntimeException e = ServerCalls.toException(status, true);
+    assertThat(e.getStatus()).isSameInstanceAs(status);
+    assertThat(e.getStackTrace()).isEmpty();
+
+    e = ServerCalls.toException(status, false);
+    assertThat(e.getStatus()).isSameInstanceAs(status);
+    assertThat(e.getStackTrace()).isNotEmpty();
+  }
+
   @Test
   public void onCloseHandlerCalledIfSetInStreamingClientCall() throws Exception {
     final AtomicBoolean onCloseHandlerCalled = new AtomicBoolean();
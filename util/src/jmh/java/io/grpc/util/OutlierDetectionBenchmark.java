@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.util;
+
+import io.grpc.ChannelLogger;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.internal.ServiceConfigUtil.PolicySelection;
+import io.grpc.util.OutlierDetectionLoadBalancer.AddressTracker;
+import io.grpc.util.OutlierDetectionLoadBalancer.AddressTrackerMap;
+import io.grpc.util.OutlierDetectionLoadBalancer.OutlierDetectionLoadBalancerConfig;
+import io.grpc.util.OutlierDetectionLoadBalancer.OutlierDetectionLoadBalancerConfig.FailurePercentageEjection;
+import io.grpc.util.OutlierDetectionLoadBalancer.OutlierDetectionLoadBalancerConfig.SuccessRateEjection;
+import io.grpc.util.OutlierDetectionLoadBalancer.OutlierEjectionAlgorithm;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmark for {@link OutlierDetectionLoadBalancer}: counting call results, as done by the
+ * stream tracer of every call, and the detection pass run at every interval.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class OutlierDetectionBenchmark {
+
+  @Param({"1000", "10000"})
+  public int addressCount;
+
+  private AddressTrackerMap trackerMap;
+  private AddressTracker[] trackers;
+  private List<OutlierEjectionAlgorithm> algorithms;
+
+  /**
+   * Setup.
+   */
+  @Setup
+  public void setUp() {
+    // Nothing is enforced, so that every run evaluates the same counts.
+    OutlierDetectionLoadBalancerConfig config = new OutlierDetectionLoadBalancerConfig.Builder()
+        .setSuccessRateEjection(
+            new SuccessRateEjection.Builder().setEnforcementPercentage(0).build())
+        .setFailurePercentageEjection(
+            new FailurePercentageEjection.Builder().setEnforcementPercentage(0).build())
+        .setChildPolicy(new PolicySelection(
+            LoadBalancerRegistry.getDefaultRegistry().getProvider("pick_first"), null))
+        .build();
+    trackerMap = new AddressTrackerMap();
+    List<SocketAddress> addresses = new ArrayList<>(addressCount);
+    for (int i = 0; i < addressCount; i++) {
+      addresses.add(InetSocketAddress.createUnresolved("server" + i, 443));
+    }
+    trackerMap.putNewTrackers(config, addresses);
+    trackers = new AddressTracker[addressCount];
+    Random random = new Random(1);
+    for (int i = 0; i < addressCount; i++) {
+      trackers[i] = trackerMap.get(addresses.get(i));
+      for (int call = 0; call < 200; call++) {
+        trackers[i].incrementCallCount(random.nextInt(100) != 0);
+      }
+    }
+    trackerMap.swapCounters();
+    algorithms = OutlierEjectionAlgorithm.forConfig(config, new NoopChannelLogger());
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    int index = new Random().nextInt(1 << 16);
+  }
+
+  /**
+   * Counts the result of a call, from several threads picking addresses of the same channel.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Threads(4)
+  public void incrementCallCount(ThreadState state) {
+    int index = state.index++;
+    trackers[index % addressCount].incrementCallCount((index & 63) != 0);
+  }
+
+  /**
+   * Runs the enabled ejection algorithms over all the addresses.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void ejectOutliers() {
+    for (OutlierEjectionAlgorithm algorithm : algorithms) {
+      algorithm.ejectOutliers(trackerMap, 0);
+    }
+  }
+
+  private static final class NoopChannelLogger extends ChannelLogger {
+    @Override
+    public void log(ChannelLogLevel level, String message) {}
+
+    @Override
+    public void log(ChannelLogLevel level, String messageFormat, Object... args) {}
+  }
+}
@@ -51,7 +51,8 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import javax.annotation.Nullable;
 
 /**
@@ -170,10 +171,13 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
 
     OutlierDetectionLoadBalancerConfig config;
     ChannelLogger logger;
+    // Built once per config, so that each run doesn't allocate them again.
+    private final List<OutlierEjectionAlgorithm> algorithms;
 
     DetectionTimer(OutlierDetectionLoadBalancerConfig config, ChannelLogger logger) {
       this.config = config;
       this.logger = logger;
+      this.algorithms = OutlierEjectionAlgorithm.forConfig(config, logger);
     }
 
     @Override
@@ -182,7 +186,7 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
 
       trackerMap.swapCounters();
 
-      for (OutlierEjectionAlgorithm algo : OutlierEjectionAlgorithm.forConfig(config, logger)) {
+      for (OutlierEjectionAlgorithm algo : algorithms) {
         algo.ejectOutliers(trackerMap, detectionTimerStartNanos);
       }
 
@@ -454,16 +458,14 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
   static class AddressTracker {
 
     private OutlierDetectionLoadBalancerConfig config;
-    // Marked as volatile to assure that when the inactive counter is swapped in as the new active
-    // one, all threads see the change and don't hold on to a reference to the now inactive counter.
-    private volatile CallCounter activeCallCounter = new CallCounter();
-    private CallCounter inactiveCallCounter = new CallCounter();
+    private final CallCounter callCounter;
     private Long ejectionTimeNanos;
     private int ejectionTimeMultiplier;
     private final Set<OutlierDetectionSubchannel> subchannels = new HashSet<>();
 
-    AddressTracker(OutlierDetectionLoadBalancerConfig config) {
+    AddressTracker(OutlierDetectionLoadBalancerConfig config, AtomicInteger interval) {
       this.config = config;
+      this.callCounter = new CallCounter(interval);
     }
 
     void setConfig(OutlierDetectionLoadBalancerConfig config) {
@@ -506,33 +508,35 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
         return;
       }
 
-      if (success) {
-        activeCallCounter.successCount.getAndIncrement();
-      } else {
-        activeCallCounter.failureCount.getAndIncrement();
-      }
+      callCounter.increment(success);
     }
 
     @VisibleForTesting
     long activeVolume() {
-      return activeCallCounter.successCount.get() + activeCallCounter.failureCount.get();
+      return callCounter.volume(callCounter.activeBucket());
     }
 
     long inactiveVolume() {
-      return inactiveCallCounter.successCount.get() + inactiveCallCounter.failureCount.get();
+      return callCounter.volume(callCounter.inactiveBucket());
     }
 
     double successRate() {
-      return ((double) inactiveCallCounter.successCount.get()) / inactiveVolume();
+      int bucket = callCounter.inactiveBucket();
+      return ((double) callCounter.successCount(bucket)) / callCounter.volume(bucket);
     }
 
     double failureRate() {
-      return ((double)inactiveCallCounter.failureCount.get()) / inactiveVolume();
+      int bucket = callCounter.inactiveBucket();
+      return ((double) callCounter.failureCount(bucket)) / callCounter.volume(bucket);
     }
 
     void resetCallCounters() {
-      activeCallCounter.reset();
-      inactiveCallCounter.reset();
+      callCounter.reset();
+    }
+
+    /** Clears the counts of the last interval, once they have been evaluated. */
+    void clearInactiveCallCounter() {
+      callCounter.clear(callCounter.inactiveBucket());
     }
 
     void decrementEjectionTimeMultiplier() {
@@ -544,20 +548,6 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
       ejectionTimeMultiplier = 0;
     }
 
-    /**
-     * Swaps the active and inactive counters.
-     *
-     * <p>Note that this method is not thread safe as the swap is not done atomically. This is
-     * expected to only be called from the timer that is scheduled at a fixed delay, assuring that
-     * only one timer is active at a time.
-     */
-    void swapCounters() {
-      inactiveCallCounter.reset();
-      CallCounter tempCounter = activeCallCounter;
-      activeCallCounter = inactiveCallCounter;
-      inactiveCallCounter = tempCounter;
-    }
-
     void ejectSubchannels(long ejectionTimeNanos) {
       this.ejectionTimeNanos = ejectionTimeNanos;
       ejectionTimeMultiplier++;
@@ -594,14 +584,57 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
       return currentTimeNanos > maxEjectionTimeNanos;
     }
 
-    /** Tracks both successful and failed call counts. */
-    private static class CallCounter {
-      AtomicLong successCount = new AtomicLong();
-      AtomicLong failureCount = new AtomicLong();
+    /**
+     * Tracks both successful and failed call counts, in a ring of buckets with one bucket per
+     * detection interval. The bucket calls are counted in is picked by the interval index shared by
+     * all the trackers, so the detection timer moves every tracker to a new bucket by incrementing
+     * it once. The bucket of the interval that ended is cleared after it's evaluated, before it's
+     * reused.
+     */
+    private static final class CallCounter {
+      private static final int BUCKETS = 2;
+
+      private final AtomicInteger interval;
+      // Success count followed by failure count for each bucket.
+      private final AtomicLongArray counts = new AtomicLongArray(BUCKETS * 2);
+
+      CallCounter(AtomicInteger interval) {
+        this.interval = interval;
+      }
+
+      void increment(boolean success) {
+        counts.getAndIncrement(activeBucket() * 2 + (success ? 0 : 1));
+      }
+
+      int activeBucket() {
+        return interval.get() & (BUCKETS - 1);
+      }
+
+      int inactiveBucket() {
+        return (interval.get() - 1) & (BUCKETS - 1);
+      }
+
+      long successCount(int bucket) {
+        return counts.get(bucket * 2);
+      }
+
+      long failureCount(int bucket) {
+        return counts.get(bucket * 2 + 1);
+      }
+
+      long volume(int bucket) {
+        return successCount(bucket) + failureCount(bucket);
+      }
+
+      void clear(int bucket) {
+        counts.set(bucket * 2, 0);
+        counts.set(bucket * 2 + 1, 0);
+      }
 
       void reset() {
-        successCount.set(0);
-        failureCount.set(0);
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+          clear(bucket);
+        }
       }
     }
 
@@ -618,6 +651,8 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
    */
   static class AddressTrackerMap extends ForwardingMap<SocketAddress, AddressTracker> {
     private final Map<SocketAddress, AddressTracker> trackerMap;
+    // Index of the current detection interval, shared by the call counters of all the trackers.
+    private final AtomicInteger interval = new AtomicInteger();
 
     AddressTrackerMap() {
       trackerMap = new HashMap<>();
@@ -639,7 +674,7 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
         Collection<SocketAddress> addresses) {
       for (SocketAddress address : addresses) {
         if (!trackerMap.containsKey(address)) {
-          trackerMap.put(address, new AddressTracker(config));
+          trackerMap.put(address, new AddressTracker(config, interval));
         }
       }
     }
@@ -664,20 +699,25 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
       }
     }
 
-    /** Swaps the active and inactive counters for each tracker. */
+    /**
+     * Makes the counters of the interval that just ended inactive and starts counting the next
+     * interval, for all the trackers at once.
+     *
+     * <p>This is expected to only be called from the timer that is scheduled at a fixed delay,
+     * assuring that only one timer is active at a time.
+     */
     void swapCounters() {
-      for (AddressTracker tracker : trackerMap.values()) {
-        tracker.swapCounters();
-      }
+      interval.incrementAndGet();
     }
 
     /**
      * At the end of a timer run we need to decrement the ejection time multiplier for trackers
      * that don't have ejected subchannels and uneject ones that have spent the maximum ejection
-     * time allowed.
+     * time allowed. The inactive counters are cleared too, so they are ready to be swapped in.
      */
     void maybeUnejectOutliers(Long detectionTimerStartNanos) {
       for (AddressTracker tracker : trackerMap.values()) {
+        tracker.clearInactiveCallCounter();
         if (!tracker.subchannelsEjected()) {
           tracker.decrementEjectionTimeMultiplier();
         }
@@ -693,18 +733,25 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
      * How many percent of the addresses have been ejected.
      */
     double ejectionPercentage() {
-      if (trackerMap.isEmpty()) {
+      return ejectionPercentage(ejectedCount(), trackerMap.size());
+    }
+
+    static double ejectionPercentage(int ejectedAddresses, int totalAddresses) {
+      if (totalAddresses == 0) {
         return 0;
       }
-      int totalAddresses = 0;
+      return ((double) ejectedAddresses / totalAddresses) * 100;
+    }
+
+    /** How many addresses have been ejected. */
+    int ejectedCount() {
       int ejectedAddresses = 0;
       for (AddressTracker tracker : trackerMap.values()) {
-        totalAddresses++;
         if (tracker.subchannelsEjected()) {
           ejectedAddresses++;
         }
       }
-      return ((double)ejectedAddresses / totalAddresses) * 100;
+      return ejectedAddresses;
     }
   }
 
@@ -743,6 +790,8 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
 
     private final ChannelLogger logger;
 
+    private final Random random = new Random();
+
     SuccessRateOutlierEjectionAlgorithm(OutlierDetectionLoadBalancerConfig config,
                                         ChannelLogger logger) {
       checkArgument(config.successRateEjection != null, "success rate ejection config is null");
@@ -752,33 +801,60 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
 
     @Override
     public void ejectOutliers(AddressTrackerMap trackerMap, long ejectionTimeNanos) {
-
       // Only consider addresses that have the minimum request volume specified in the config.
-      List<AddressTracker> trackersWithVolume = trackersWithVolume(trackerMap,
-          config.successRateEjection.requestVolume);
+      // The trackers are walked a few times instead of being copied, so that a run doesn't
+      // allocate in proportion to the number of addresses.
+      int requestVolume = config.successRateEjection.requestVolume;
+      int trackersWithVolume = 0;
+      double successRateSum = 0;
+      double minSuccessRate = Double.MAX_VALUE;
+      double maxSuccessRate = 0;
+      for (AddressTracker tracker : trackerMap.values()) {
+        if (tracker.inactiveVolume() >= requestVolume) {
+          double successRate = tracker.successRate();
+          trackersWithVolume++;
+          successRateSum += successRate;
+          minSuccessRate = Math.min(minSuccessRate, successRate);
+          maxSuccessRate = Math.max(maxSuccessRate, successRate);
+        }
+      }
       // If we don't have enough addresses with significant volume then there's nothing to do.
-      if (trackersWithVolume.size() < config.successRateEjection.minimumHosts
-          || trackersWithVolume.size() == 0) {
+      if (trackersWithVolume < config.successRateEjection.minimumHosts
+          || trackersWithVolume == 0) {
+        return;
+      }
+      // Without any spread there are no outliers. Rounding could otherwise put the mean, and so
+      // the required success rate, above the success rate all the addresses share.
+      if (minSuccessRate == maxSuccessRate) {
         return;
       }
 
       // Calculate mean and standard deviation of the fractions of successful calls.
-      List<Double> successRates = new ArrayList<>();
-      for (AddressTracker tracker : trackersWithVolume) {
-        successRates.add(tracker.successRate());
+      double mean = successRateSum / trackersWithVolume;
+      double squaredDifferenceSum = 0;
+      for (AddressTracker tracker : trackerMap.values()) {
+        if (tracker.inactiveVolume() >= requestVolume) {
+          double difference = tracker.successRate() - mean;
+          squaredDifferenceSum += difference * difference;
+        }
       }
-      double mean = mean(successRates);
-      double stdev = standardDeviation(successRates, mean);
+      double stdev = Math.sqrt(squaredDifferenceSum / trackersWithVolume);
 
       double requiredSuccessRate =
           mean - stdev * (config.successRateEjection.stdevFactor / 1000f);
 
-      for (AddressTracker tracker : trackersWithVolume) {
+      int ejectedAddresses = trackerMap.ejectedCount();
+      int totalAddresses = trackerMap.size();
+      for (AddressTracker tracker : trackerMap.values()) {
+        if (tracker.inactiveVolume() < requestVolume) {
+          continue;
+        }
         // If we are above or equal to the max ejection percentage, don't eject any more. This will
         // allow the total ejections to go one above the max, but at the same time it assures at
         // least one ejection, which the spec calls for. This behavior matches what Envoy proxy
         // does.
-        if (trackerMap.ejectionPercentage() >= config.maxEjectionPercent) {
+        if (AddressTrackerMap.ejectionPercentage(ejectedAddresses, totalAddresses)
+            >= config.maxEjectionPercent) {
           return;
         }
 
@@ -790,36 +866,15 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
                           + "requiredSuccessRate={4}",
                   tracker, tracker.successRate(),  mean, stdev, requiredSuccessRate);
           // Only eject some addresses based on the enforcement percentage.
-          if (new Random().nextInt(100) < config.successRateEjection.enforcementPercentage) {
+          if (random.nextInt(100) < config.successRateEjection.enforcementPercentage) {
+            if (!tracker.subchannelsEjected()) {
+              ejectedAddresses++;
+            }
             tracker.ejectSubchannels(ejectionTimeNanos);
           }
         }
       }
     }
-
-    /** Calculates the mean of the given values. */
-    @VisibleForTesting
-    static double mean(Collection<Double> values) {
-      double totalValue = 0;
-      for (double value : values) {
-        totalValue += value;
-      }
-
-      return totalValue / values.size();
-    }
-
-    /** Calculates the standard deviation for the given values and their mean. */
-    @VisibleForTesting
-    static double standardDeviation(Collection<Double> values, double mean) {
-      double squaredDifferenceSum = 0;
-      for (double value : values) {
-        double difference = value - mean;
-        squaredDifferenceSum += difference * difference;
-      }
-      double variance = squaredDifferenceSum / values.size();
-
-      return Math.sqrt(variance);
-    }
   }
 
   static class FailurePercentageOutlierEjectionAlgorithm implements OutlierEjectionAlgorithm {
@@ -828,6 +883,8 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
 
     private final ChannelLogger logger;
 
+    private final Random random = new Random();
+
     FailurePercentageOutlierEjectionAlgorithm(OutlierDetectionLoadBalancerConfig config,
                                               ChannelLogger logger) {
       this.config = config;
@@ -836,38 +893,47 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
 
     @Override
     public void ejectOutliers(AddressTrackerMap trackerMap, long ejectionTimeNanos) {
-
       // Only consider addresses that have the minimum request volume specified in the config.
-      List<AddressTracker> trackersWithVolume = trackersWithVolume(trackerMap,
-          config.failurePercentageEjection.requestVolume);
+      int requestVolume = config.failurePercentageEjection.requestVolume;
+      int trackersWithVolume = 0;
+      for (AddressTracker tracker : trackerMap.values()) {
+        if (tracker.inactiveVolume() >= requestVolume) {
+          trackersWithVolume++;
+        }
+      }
       // If we don't have enough addresses with significant volume then there's nothing to do.
-      if (trackersWithVolume.size() < config.failurePercentageEjection.minimumHosts
-          || trackersWithVolume.size() == 0) {
+      if (trackersWithVolume < config.failurePercentageEjection.minimumHosts
+          || trackersWithVolume == 0) {
         return;
       }
 
-      // If this address does not have enough volume to be considered, skip to the next one.
-      for (AddressTracker tracker : trackersWithVolume) {
+      double maxFailureRate = ((double)config.failurePercentageEjection.threshold) / 100;
+      int ejectedAddresses = trackerMap.ejectedCount();
+      int totalAddresses = trackerMap.size();
+      for (AddressTracker tracker : trackerMap.values()) {
+        // If this address does not have enough volume to be considered, skip to the next one.
+        if (tracker.inactiveVolume() < requestVolume) {
+          continue;
+        }
         // If we are above or equal to the max ejection percentage, don't eject any more. This will
         // allow the total ejections to go one above the max, but at the same time it assures at
         // least one ejection, which the spec calls for. This behavior matches what Envoy proxy
         // does.
-        if (trackerMap.ejectionPercentage() >= config.maxEjectionPercent) {
+        if (AddressTrackerMap.ejectionPercentage(ejectedAddresses, totalAddresses)
+            >= config.maxEjectionPercent) {
           return;
         }
 
-        if (tracker.inactiveVolume() < config.failurePercentageEjection.requestVolume) {
-          continue;
-        }
-
         // If the failure rate is above the threshold, we should eject...
-        double maxFailureRate = ((double)config.failurePercentageEjection.threshold) / 100;
         if (tracker.failureRate() > maxFailureRate) {
           logger.log(ChannelLogLevel.DEBUG,
                   "FailurePercentage algorithm detected outlier: {0}, failureRate={1}",
                   tracker, tracker.failureRate());
           // ...but only enforce this based on the enforcement percentage.
-          if (new Random().nextInt(100) < config.failurePercentageEjection.enforcementPercentage) {
+          if (random.nextInt(100) < config.failurePercentageEjection.enforcementPercentage) {
+            if (!tracker.subchannelsEjected()) {
+              ejectedAddresses++;
+            }
             tracker.ejectSubchannels(ejectionTimeNanos);
           }
         }
@@ -875,18 +941,6 @@ public final class OutlierDetectionLoadBalancer extends LoadBalancer {
     }
   }
 
-  /** Returns only the trackers that have the minimum configured volume to be considered. */
-  private static List<AddressTracker> trackersWithVolume(AddressTrackerMap trackerMap,
-      int volume) {
-    List<AddressTracker> trackersWithVolume = new ArrayList<>();
-    for (AddressTracker tracker : trackerMap.values()) {
-      if (tracker.inactiveVolume() >= volume) {
-        trackersWithVolume.add(tracker);
-      }
-    }
-    return trackersWithVolume;
-  }
-
   /** Counts how many addresses are in a given address group. */
   private static boolean hasSingleAddress(List<EquivalentAddressGroup> addressGroups) {
     int addressCount = 0;
@@ -55,6 +55,7 @@ import io.grpc.internal.FakeClock.ScheduledTask;
 import io.grpc.internal.ServiceConfigUtil.PolicySelection;
 import io.grpc.internal.TestUtils.StandardLoadBalancerProvider;
 import io.grpc.util.OutlierDetectionLoadBalancer.AddressTracker;
+import io.grpc.util.OutlierDetectionLoadBalancer.AddressTrackerMap;
 import io.grpc.util.OutlierDetectionLoadBalancer.OutlierDetectionLoadBalancerConfig;
 import io.grpc.util.OutlierDetectionLoadBalancer.OutlierDetectionLoadBalancerConfig.FailurePercentageEjection;
 import io.grpc.util.OutlierDetectionLoadBalancer.OutlierDetectionLoadBalancerConfig.SuccessRateEjection;
@@ -64,6 +65,7 @@ import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -1103,13 +1105,103 @@ public class OutlierDetectionLoadBalancerTest {
   }
 
   @Test
-  public void mathChecksOut() {
-    ImmutableList<Double> values = ImmutableList.of(600d, 470d, 170d, 430d, 300d);
-    double mean = SuccessRateOutlierEjectionAlgorithm.mean(values);
-    double stdev = SuccessRateOutlierEjectionAlgorithm.standardDeviation(values, mean);
+  public void callCounters_swappedForAllTrackersAtOnce() {
+    OutlierDetectionLoadBalancerConfig config = new OutlierDetectionLoadBalancerConfig.Builder()
+        .setSuccessRateEjection(new SuccessRateEjection.Builder().build())
+        .setChildPolicy(new PolicySelection(mockChildLbProvider, null)).build();
+    AddressTrackerMap trackerMap = new AddressTrackerMap();
+    SocketAddress address1 = new FakeSocketAddress("1");
+    SocketAddress address2 = new FakeSocketAddress("2");
+    trackerMap.putNewTrackers(config, ImmutableList.of(address1, address2));
+    AddressTracker tracker1 = trackerMap.get(address1);
+    AddressTracker tracker2 = trackerMap.get(address2);
+
+    tracker1.incrementCallCount(true);
+    tracker1.incrementCallCount(false);
+    tracker2.incrementCallCount(false);
+    trackerMap.swapCounters();
+    tracker1.incrementCallCount(true);
+
+    assertThat(tracker1.activeVolume()).isEqualTo(1);
+    assertThat(tracker1.inactiveVolume()).isEqualTo(2);
+    assertThat(tracker1.successRate()).isEqualTo(0.5);
+    assertThat(tracker2.activeVolume()).isEqualTo(0);
+    assertThat(tracker2.failureRate()).isEqualTo(1);
+
+    // Counts are cleared once evaluated, so the next interval starts from zero.
+    trackerMap.maybeUnejectOutliers(0L);
+    trackerMap.swapCounters();
+    assertThat(tracker1.activeVolume()).isEqualTo(0);
+    assertThat(tracker1.inactiveVolume()).isEqualTo(1);
+    assertThat(tracker2.inactiveVolume()).isEqualTo(0);
+  }
+
+  @Test
+  public void successRateEjection_requiredRateFromMeanAndStdev() {
+    // The mean success rate is 0.394 and the standard deviation 0.1473.
+    AddressTrackerMap trackerMap = buildSuccessRateTrackers(600, 470, 170, 430, 300);
+    // A factor of 1.9 requires a success rate of 0.114.
+    new SuccessRateOutlierEjectionAlgorithm(
+        buildSuccessRateConfig(1900), mock(ChannelLogger.class)).ejectOutliers(trackerMap, 0L);
+    assertThat(ejectedTrackers(trackerMap)).isEmpty();
+
+    // A factor of 1 requires a success rate of 0.2467.
+    new SuccessRateOutlierEjectionAlgorithm(
+        buildSuccessRateConfig(1000), mock(ChannelLogger.class)).ejectOutliers(trackerMap, 0L);
+    assertThat(ejectedTrackers(trackerMap)).containsExactly("FakeSocketAddress-2");
+  }
+
+  @Test
+  public void successRateEjection_equalSuccessRates_noneEjected() {
+    // Summing the rates rounds the mean up, above the rate all addresses share.
+    AddressTrackerMap trackerMap = buildSuccessRateTrackers(100, 100, 100);
+    new SuccessRateOutlierEjectionAlgorithm(
+        buildSuccessRateConfig(0), mock(ChannelLogger.class)).ejectOutliers(trackerMap, 0L);
+
+    assertThat(ejectedTrackers(trackerMap)).isEmpty();
+  }
+
+  private OutlierDetectionLoadBalancerConfig buildSuccessRateConfig(int stdevFactor) {
+    return new OutlierDetectionLoadBalancerConfig.Builder()
+        .setMaxEjectionPercent(100)
+        .setSuccessRateEjection(
+            new SuccessRateEjection.Builder()
+                .setStdevFactor(stdevFactor)
+                .setEnforcementPercentage(100)
+                .setMinimumHosts(3)
+                .setRequestVolume(10).build())
+        .setChildPolicy(new PolicySelection(mockChildLbProvider, null)).build();
+  }
+
+  /**
+   * Returns trackers for addresses named by their index, that each saw 1000 calls in the last
+   * interval with the given number of successes.
+   */
+  private AddressTrackerMap buildSuccessRateTrackers(int... successes) {
+    AddressTrackerMap trackerMap = new AddressTrackerMap();
+    List<SocketAddress> addresses = new ArrayList<>();
+    for (int i = 0; i < successes.length; i++) {
+      addresses.add(new FakeSocketAddress(String.valueOf(i)));
+    }
+    trackerMap.putNewTrackers(buildSuccessRateConfig(1000), addresses);
+    for (int i = 0; i < successes.length; i++) {
+      AddressTracker tracker = trackerMap.get(addresses.get(i));
+      for (int call = 0; call < 1000; call++) {
+        tracker.incrementCallCount(call < successes[i]);
+      }
+    }
+    trackerMap.swapCounters();
+    return trackerMap;
+  }
 
-    assertThat(mean).isEqualTo(394);
-    assertThat(stdev).isEqualTo(147.32277488562318);
+  private static Set<String> ejectedTrackers(AddressTrackerMap trackerMap) {
+    Set<String> ejected = new HashSet<>();
+    for (Entry<SocketAddress, AddressTracker> entry : trackerMap.entrySet()) {
+      if (entry.getValue().subchannelsEjected()) {
+        ejected.add(entry.getKey().toString());
+      }
+    }
+    return ejected;
   }
 
   private static class FakeSocketAddress extends SocketAddress {
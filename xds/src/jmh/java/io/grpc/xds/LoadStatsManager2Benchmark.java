@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableMap;
+import io.grpc.Status;
+import io.grpc.xds.LoadStatsManager2.ClusterLocalityStats;
+import io.grpc.xds.Stats.ClusterStats;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for recording RPC completions into {@link LoadStatsManager2} with LRS enabled, while
+ * a load report snapshot is taken concurrently.
+ */
+@State(Scope.Group)
+public class LoadStatsManager2Benchmark {
+
+  private static final Map<String, Double> NAMED_METRICS =
+      ImmutableMap.of("named1", 0.5, "named2", 12.0);
+
+  private LoadStatsManager2 loadStatsManager;
+  private ClusterLocalityStats localityStats;
+
+  /**
+   * Setup.
+   */
+  @Setup
+  public void setUp() {
+    loadStatsManager = new LoadStatsManager2(Stopwatch::createUnstarted);
+    localityStats = loadStatsManager.getClusterLocalityStats(
+        "cluster", "eds-service", Locality.create("region", "zone", "subzone"));
+  }
+
+  /**
+   * Records a complete RPC, including per-call backend metrics.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Group("lrs")
+  @GroupThreads(7)
+  public void recordCall() {
+    localityStats.recordCallStarted();
+    localityStats.recordBackendLoadMetricStats(NAMED_METRICS);
+    localityStats.recordCallFinished(Status.OK);
+  }
+
+  /**
+   * Takes the snapshot that {@link LoadReportClient} takes each load reporting interval.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Group("lrs")
+  @GroupThreads(1)
+  public List<ClusterStats> snapshot() {
+    return loadStatsManager.getAllClusterStatsReports();
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import io.grpc.xds.WeightedRoundRobinLoadBalancer.StaticStrideScheduler;
+import io.grpc.xds.WeightedRoundRobinLoadBalancer.StripedSequence;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Benchmark for concurrent picks from the {@link StaticStrideScheduler} used by
+ * {@link WeightedRoundRobinLoadBalancer}, comparing a single shared sequence counter against a
+ * striped one.
+ */
+@State(Scope.Benchmark)
+public class WeightedRoundRobinPickBenchmark {
+
+  @Param({"10", "100"})
+  public int backendCount;
+
+  /** Number of sequence stripes; 0 means one per available processor. */
+  @Param({"1", "0"})
+  public int stripeCount;
+
+  private StaticStrideScheduler scheduler;
+
+  /**
+   * Setup.
+   */
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    float[] weights = new float[backendCount];
+    for (int i = 0; i < backendCount; i++) {
+      weights[i] = 1 + random.nextInt(100);
+    }
+    int stripes = stripeCount == 0 ? StripedSequence.defaultStripeCount() : stripeCount;
+    scheduler = new StaticStrideScheduler(weights, new StripedSequence(stripes, random));
+  }
+
+  /**
+   * Picks from all available processors at once.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Threads(Threads.MAX)
+  public int pick() {
+    return scheduler.pick();
+  }
+}
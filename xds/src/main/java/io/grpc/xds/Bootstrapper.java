@@ -62,10 +62,16 @@ public abstract class Bootstrapper {
 
     abstract boolean ignoreResourceDeletion();
 
+    /**
+     * Whether to use the incremental (delta) variant of the xDS protocol instead of State of the
+     * World.
+     */
+    abstract boolean useDeltaProtocol();
+
     @VisibleForTesting
     static ServerInfo create(
         String target, ChannelCredentials channelCredentials) {
-      return new AutoValue_Bootstrapper_ServerInfo(target, channelCredentials, false);
+      return new AutoValue_Bootstrapper_ServerInfo(target, channelCredentials, false, false);
     }
 
     @VisibleForTesting
@@ -73,7 +79,14 @@ public abstract class Bootstrapper {
         String target, ChannelCredentials channelCredentials,
         boolean ignoreResourceDeletion) {
       return new AutoValue_Bootstrapper_ServerInfo(target, channelCredentials,
-          ignoreResourceDeletion);
+          ignoreResourceDeletion, false);
+    }
+
+    static ServerInfo create(
+        String target, ChannelCredentials channelCredentials,
+        boolean ignoreResourceDeletion, boolean useDeltaProtocol) {
+      return new AutoValue_Bootstrapper_ServerInfo(target, channelCredentials,
+          ignoreResourceDeletion, useDeltaProtocol);
     }
   }
 
@@ -198,6 +211,13 @@ public abstract class Bootstrapper {
      */
     abstract ImmutableMap<String, AuthorityInfo> authorities();
 
+    /**
+     * Directory in which the last accepted xDS resources are cached, so that they can be used
+     * before the management server responds after a restart. Caching is disabled if unset.
+     */
+    @Nullable
+    abstract String resourceCacheDirectory();
+
     @VisibleForTesting
     static Builder builder() {
       return new AutoValue_Bootstrapper_BootstrapInfo.Builder()
@@ -223,6 +243,8 @@ public abstract class Bootstrapper {
 
       abstract Builder authorities(Map<String, AuthorityInfo> authorities);
 
+      abstract Builder resourceCacheDirectory(@Nullable String resourceCacheDirectory);
+
       abstract BootstrapInfo build();
     }
   }
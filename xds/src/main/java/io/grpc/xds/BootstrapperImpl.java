@@ -69,6 +69,9 @@ class BootstrapperImpl extends Bootstrapper {
 
   // Server features.
   private static final String SERVER_FEATURE_IGNORE_RESOURCE_DELETION = "ignore_resource_deletion";
+  // Use the incremental xDS protocol (DeltaAggregatedResources) with this server.
+  @VisibleForTesting
+  static final String SERVER_FEATURE_DELTA_XDS = "delta_xds";
 
   private final XdsLogger logger;
   private FileReader reader = LocalFileReader.INSTANCE;
@@ -207,6 +210,10 @@ class BootstrapperImpl extends Bootstrapper {
         XdsLogLevel.INFO, "server_listener_resource_name_template: {0}", grpcServerResourceId);
     builder.serverListenerResourceNameTemplate(grpcServerResourceId);
 
+    String resourceCacheDirectory = JsonUtil.getString(rawData, "resource_cache_directory");
+    logger.log(XdsLogLevel.INFO, "resource_cache_directory: {0}", resourceCacheDirectory);
+    builder.resourceCacheDirectory(resourceCacheDirectory);
+
     if (!enableFederation) {
       return builder.build();
     }
@@ -281,13 +288,15 @@ class BootstrapperImpl extends Bootstrapper {
       }
 
       boolean ignoreResourceDeletion = false;
+      boolean useDeltaProtocol = false;
       List<String> serverFeatures = JsonUtil.getListOfStrings(serverConfig, "server_features");
       if (serverFeatures != null) {
         logger.log(XdsLogLevel.INFO, "Server features: {0}", serverFeatures);
         ignoreResourceDeletion = serverFeatures.contains(SERVER_FEATURE_IGNORE_RESOURCE_DELETION);
+        useDeltaProtocol = serverFeatures.contains(SERVER_FEATURE_DELTA_XDS);
       }
-      servers.add(
-          ServerInfo.create(serverUri, channelCredentials, ignoreResourceDeletion));
+      servers.add(ServerInfo.create(
+          serverUri, channelCredentials, ignoreResourceDeletion, useDeltaProtocol));
     }
     return servers.build();
   }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Counts the outstanding requests to a cluster for circuit breaking. A counter is shared by all
+ * the channels in the process sending requests to the same cluster:eds_service_name.
+ *
+ * <p>Requests start and finish on many threads at once, so the count is striped. Each thread
+ * updates one of several cells, each on its own cache line, and a cell only moves its count to
+ * the shared total once it reaches {@link #BATCH} requests either way. The total is thus off by
+ * less than {@link #maxError()}. Checking the limit only reads the total while the count is far
+ * from the limit, and adds up the cells for an exact count when it's close.
+ */
+@ThreadSafe
+final class CallCounter {
+  @VisibleForTesting
+  static final int BATCH = 16;
+  // Longs per cell, so that no two cells share a cache line.
+  private static final int PADDING = 8;
+  private static final int CELLS = cellCount(Runtime.getRuntime().availableProcessors());
+
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLongArray cells = new AtomicLongArray(CELLS * PADDING);
+  private final LongAdder dropped = new LongAdder();
+  private volatile long maxConcurrentRequests =
+      ClusterImplLoadBalancer.DEFAULT_PER_CLUSTER_MAX_CONCURRENT_REQUESTS;
+
+  /** Records a request being started. */
+  void increment() {
+    add(1);
+  }
+
+  /** Records a request being finished. */
+  void decrement() {
+    add(-1);
+  }
+
+  private void add(long delta) {
+    int index = cellIndex();
+    while (true) {
+      long value = cells.get(index);
+      long next = value + delta;
+      if (next > -BATCH && next < BATCH) {
+        if (cells.compareAndSet(index, value, next)) {
+          return;
+        }
+        continue;
+      }
+      // Move the count to the total before clearing the cell, so that a concurrent exact count
+      // may count it twice, but never miss it.
+      total.addAndGet(next);
+      if (cells.compareAndSet(index, value, 0)) {
+        return;
+      }
+      total.addAndGet(-next);
+    }
+  }
+
+  /**
+   * Returns {@code true} if fewer than {@code limit} requests are outstanding. Like any check
+   * followed by an increment, this may let a few concurrent requests over the limit.
+   */
+  boolean isBelow(long limit) {
+    long approximate = total.get();
+    long maxError = maxError();
+    if (approximate + maxError < limit) {
+      return true;
+    }
+    if (approximate - maxError >= limit) {
+      return false;
+    }
+    return get() < limit;
+  }
+
+  /** Returns the number of outstanding requests. */
+  long get() {
+    long sum = total.get();
+    for (int i = 0; i < CELLS; i++) {
+      sum += cells.get(i * PADDING);
+    }
+    return sum;
+  }
+
+  /** Records a request being dropped because the limit was reached. */
+  void recordDropped() {
+    dropped.increment();
+  }
+
+  long getDropped() {
+    return dropped.sum();
+  }
+
+  /**
+   * Sets the limit most recently configured for the cluster. This is only reported in stats, each
+   * channel checks its own limit.
+   */
+  void setMaxConcurrentRequests(long maxConcurrentRequests) {
+    this.maxConcurrentRequests = maxConcurrentRequests;
+  }
+
+  long getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  @VisibleForTesting
+  static long maxError() {
+    return (long) CELLS * (BATCH - 1);
+  }
+
+  private static int cellIndex() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    return (hash & (CELLS - 1)) * PADDING;
+  }
+
+  @VisibleForTesting
+  static int cellCount(int processors) {
+    int cells = 1;
+    while (cells < processors && cells < 64) {
+      cells <<= 1;
+    }
+    return cells;
+  }
+}
@@ -52,7 +52,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 
 /**
@@ -170,7 +169,7 @@ final class ClusterImplLoadBalancer extends LoadBalancer {
    * or requests to endpoints in the cluster.
    */
   private final class ClusterImplLbHelper extends ForwardingLoadBalancerHelper {
-    private final AtomicLong inFlights;
+    private final CallCounter inFlights;
     private ConnectivityState currentState = ConnectivityState.IDLE;
     private SubchannelPicker currentPicker = LoadBalancer.EMPTY_PICKER;
     private List<DropOverload> dropPolicies = Collections.emptyList();
@@ -180,7 +179,7 @@ final class ClusterImplLoadBalancer extends LoadBalancer {
     @Nullable
     private final ServerInfo lrsServerInfo;
 
-    private ClusterImplLbHelper(AtomicLong inFlights, @Nullable ServerInfo lrsServerInfo) {
+    private ClusterImplLbHelper(CallCounter inFlights, @Nullable ServerInfo lrsServerInfo) {
       this.inFlights = checkNotNull(inFlights, "inFlights");
       this.lrsServerInfo = lrsServerInfo;
     }
@@ -269,6 +268,7 @@ final class ClusterImplLoadBalancer extends LoadBalancer {
           maxConcurrentRequests != null
               ? maxConcurrentRequests
               : DEFAULT_PER_CLUSTER_MAX_CONCURRENT_REQUESTS;
+      inFlights.setMaxConcurrentRequests(this.maxConcurrentRequests);
       updateBalancingState(currentState, currentPicker);
     }
 
@@ -318,7 +318,8 @@ final class ClusterImplLoadBalancer extends LoadBalancer {
         final PickResult result = delegate.pickSubchannel(args);
         if (result.getStatus().isOk() && result.getSubchannel() != null) {
           if (enableCircuitBreaking) {
-            if (inFlights.get() >= maxConcurrentRequests) {
+            if (!inFlights.isBelow(maxConcurrentRequests)) {
+              inFlights.recordDropped();
               if (dropStats != null) {
                 dropStats.recordDroppedRequest();
               }
@@ -349,12 +350,12 @@ final class ClusterImplLoadBalancer extends LoadBalancer {
   private static final class CountingStreamTracerFactory extends
       ClientStreamTracer.Factory {
     private ClusterLocalityStats stats;
-    private final AtomicLong inFlights;
+    private final CallCounter inFlights;
     @Nullable
     private final ClientStreamTracer.Factory delegate;
 
     private CountingStreamTracerFactory(
-        ClusterLocalityStats stats, AtomicLong inFlights,
+        ClusterLocalityStats stats, CallCounter inFlights,
         @Nullable ClientStreamTracer.Factory delegate) {
       this.stats = checkNotNull(stats, "stats");
       this.inFlights = checkNotNull(inFlights, "inFlights");
@@ -364,13 +365,13 @@ final class ClusterImplLoadBalancer extends LoadBalancer {
     @Override
     public ClientStreamTracer newClientStreamTracer(StreamInfo info, Metadata headers) {
       stats.recordCallStarted();
-      inFlights.incrementAndGet();
+      inFlights.increment();
       if (delegate == null) {
         return new ClientStreamTracer() {
           @Override
           public void streamClosed(Status status) {
             stats.recordCallFinished(status);
-            inFlights.decrementAndGet();
+            inFlights.decrement();
           }
         };
       }
@@ -384,7 +385,7 @@ final class ClusterImplLoadBalancer extends LoadBalancer {
         @Override
         public void streamClosed(Status status) {
           stats.recordCallFinished(status);
-          inFlights.decrementAndGet();
+          inFlights.decrement();
           delegate().streamClosed(status);
         }
       };
@@ -26,8 +26,11 @@ import com.google.common.base.Supplier;
 import com.google.protobuf.Any;
 import com.google.rpc.Code;
 import io.envoyproxy.envoy.service.discovery.v3.AggregatedDiscoveryServiceGrpc;
+import io.envoyproxy.envoy.service.discovery.v3.DeltaDiscoveryRequest;
+import io.envoyproxy.envoy.service.discovery.v3.DeltaDiscoveryResponse;
 import io.envoyproxy.envoy.service.discovery.v3.DiscoveryRequest;
 import io.envoyproxy.envoy.service.discovery.v3.DiscoveryResponse;
+import io.envoyproxy.envoy.service.discovery.v3.Resource;
 import io.grpc.Channel;
 import io.grpc.Context;
 import io.grpc.InternalLogId;
@@ -45,12 +48,15 @@ import io.grpc.xds.XdsClient.ResourceStore;
 import io.grpc.xds.XdsClient.XdsResponseHandler;
 import io.grpc.xds.XdsClientImpl.XdsChannelFactory;
 import io.grpc.xds.XdsLogger.XdsLogLevel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -81,6 +87,13 @@ final class ControlPlaneClient {
   // A version_info is used to update management server with client's most recent knowledge of
   // resources.
   private final Map<XdsResourceType<?>, String> versions = new HashMap<>();
+  // Last successfully applied version of each resource, only tracked with the incremental (delta)
+  // protocol. Survives stream restarts so that the new stream can tell the management server
+  // which resources it already has, in initial_resource_versions.
+  private final Map<XdsResourceType<?>, Map<String, String>> resourceVersions = new HashMap<>();
+  // Responses that have been received but not ACKed/NACKed yet, in the order they were received.
+  // XdsClientImpl may parse a response asynchronously, but applies the responses in this order.
+  private final Queue<ReceivedResponse> unprocessedResponses = new ArrayDeque<>();
 
   private boolean shutdown;
   @Nullable
@@ -161,6 +174,10 @@ final class ControlPlaneClient {
       startRpcStream();
     }
     Collection<String> resources = resourceStore.getSubscribedResources(serverInfo, resourceType);
+    if (resources == null && serverInfo.useDeltaProtocol()) {
+      // Delta streams have to tell the server explicitly about dropped subscriptions.
+      resources = Collections.emptyList();
+    }
     if (resources != null) {
       adsStream.sendDiscoveryRequest(resourceType, resources);
     }
@@ -173,13 +190,17 @@ final class ControlPlaneClient {
   // Must be synchronized.
   void ackResponse(XdsResourceType<?> type, String versionInfo, String nonce) {
     versions.put(type, versionInfo);
+    AbstractAdsStream stream = takeReceivingStream(type, nonce);
+    if (stream == null) {
+      return;
+    }
     logger.log(XdsLogLevel.INFO, "Sending ACK for {0} update, nonce: {1}, current version: {2}",
         type.typeName(), nonce, versionInfo);
     Collection<String> resources = resourceStore.getSubscribedResources(serverInfo, type);
     if (resources == null) {
       resources = Collections.emptyList();
     }
-    adsStream.sendDiscoveryRequest(type, versionInfo, resources, nonce, null);
+    stream.sendResponseRequest(type, versionInfo, resources, nonce, null);
   }
 
   /**
@@ -189,13 +210,41 @@ final class ControlPlaneClient {
   // Must be synchronized.
   void nackResponse(XdsResourceType<?> type, String nonce, String errorDetail) {
     String versionInfo = versions.getOrDefault(type, "");
+    AbstractAdsStream stream = takeReceivingStream(type, nonce);
+    if (stream == null) {
+      return;
+    }
     logger.log(XdsLogLevel.INFO, "Sending NACK for {0} update, nonce: {1}, current version: {2}",
         type.typeName(), nonce, versionInfo);
     Collection<String> resources = resourceStore.getSubscribedResources(serverInfo, type);
     if (resources == null) {
       resources = Collections.emptyList();
     }
-    adsStream.sendDiscoveryRequest(type, versionInfo, resources, nonce, errorDetail);
+    stream.sendResponseRequest(type, versionInfo, resources, nonce, errorDetail);
+  }
+
+  /**
+   * Returns the stream the response with the given nonce was received on, or {@code null} if that
+   * stream has been closed since, in which case the response must not be ACKed/NACKed.
+   */
+  // Must be synchronized.
+  @Nullable
+  private AbstractAdsStream takeReceivingStream(XdsResourceType<?> type, String nonce) {
+    ReceivedResponse response;
+    // Responses are processed in order. Any response ahead of this one was never processed, for
+    // example because parsing it failed, and will not be.
+    while ((response = unprocessedResponses.poll()) != null) {
+      if (response.type == type && response.nonce.equals(nonce)) {
+        if (response.stream != adsStream) {
+          logger.log(XdsLogLevel.DEBUG,
+              "Not responding to {0} response {1}, its stream has been closed",
+              type.typeName(), nonce);
+          return null;
+        }
+        return response.stream;
+      }
+    }
+    return null;
   }
 
   /**
@@ -234,7 +283,7 @@ final class ControlPlaneClient {
   // Must be synchronized.
   private void startRpcStream() {
     checkState(adsStream == null, "Previous adsStream has not been cleared yet");
-    adsStream = new AdsStreamV3();
+    adsStream = serverInfo.useDeltaProtocol() ? new DeltaAdsStreamV3() : new AdsStreamV3();
     Context prevContext = context.attach();
     try {
       adsStream.start();
@@ -274,12 +323,13 @@ final class ControlPlaneClient {
   private abstract class AbstractAdsStream {
     private boolean responseReceived;
     private boolean closed;
-    // Response nonce for the most recently received discovery responses of each resource type.
+    // Response nonce for the most recently processed discovery responses of each resource type.
     // Client initiated requests start response nonce with empty string.
     // Nonce in each response is echoed back in the following ACK/NACK request. It is
     // used for management server to identify which response the client is ACKing/NACking.
     // To avoid confusion, client-initiated requests will always use the nonce in
-    // most recently received responses of each resource type.
+    // most recently ACKed/NACKed responses of each resource type. The nonce of a response that
+    // is still being parsed must not be sent, as the management server would take it as an ACK.
     private final Map<XdsResourceType<?>, String> respNonces = new HashMap<>();
 
     abstract void start();
@@ -306,6 +356,15 @@ final class ControlPlaneClient {
           respNonces.getOrDefault(type, ""), null);
     }
 
+    /**
+     * Sends the ACK/NACK for a response received on this stream.
+     */
+    final void sendResponseRequest(XdsResourceType<?> type, String versionInfo,
+        Collection<String> resources, String nonce, @Nullable String errorDetail) {
+      respNonces.put(type, nonce);
+      sendDiscoveryRequest(type, versionInfo, resources, nonce, errorDetail);
+    }
+
     final void handleRpcResponse(XdsResourceType<?> type, String versionInfo, List<Any> resources,
                                  String nonce) {
       checkNotNull(type, "type");
@@ -313,10 +372,23 @@ final class ControlPlaneClient {
         return;
       }
       responseReceived = true;
-      respNonces.put(type, nonce);
+      unprocessedResponses.add(new ReceivedResponse(this, type, nonce));
       xdsResponseHandler.handleResourceResponse(type, serverInfo, versionInfo, resources, nonce);
     }
 
+    final void handleDeltaRpcResponse(XdsResourceType<?> type, String systemVersionInfo,
+                                      List<Any> resources, List<String> removedResources,
+                                      String nonce) {
+      checkNotNull(type, "type");
+      if (closed) {
+        return;
+      }
+      responseReceived = true;
+      unprocessedResponses.add(new ReceivedResponse(this, type, nonce));
+      xdsResponseHandler.handleDeltaResourceResponse(
+          type, serverInfo, systemVersionInfo, resources, removedResources, nonce);
+    }
+
     final void handleRpcError(Throwable t) {
       handleRpcStreamClosed(Status.fromThrowable(t));
     }
@@ -472,4 +544,224 @@ final class ControlPlaneClient {
       requestWriter.onError(error);
     }
   }
+
+  /**
+   * ADS stream speaking the incremental variant of the xDS protocol. Only changes to the
+   * subscription are sent to the management server, and responses only carry the resources that
+   * were added, changed or removed.
+   */
+  private final class DeltaAdsStreamV3 extends AbstractAdsStream {
+    private StreamObserver<DeltaDiscoveryRequest> requestWriter;
+    private boolean nodeSent;
+    // Resource names subscribed to on this stream, for each resource type.
+    private final Map<XdsResourceType<?>, Set<String>> subscribed = new HashMap<>();
+    // Nonce of the most recent response of each resource type that has been ACKed/NACKed.
+    private final Map<XdsResourceType<?>, String> ackedNonces = new HashMap<>();
+    // Resource versions carried by the responses of each resource type that have not been
+    // ACKed/NACKed yet, by nonce. Applied to resourceVersions once the response is ACKed.
+    private final Map<XdsResourceType<?>, Map<String, PendingVersions>> pendingVersions =
+        new HashMap<>();
+
+    @Override
+    public boolean isReady() {
+      return requestWriter != null && ((ClientCallStreamObserver<?>) requestWriter).isReady();
+    }
+
+    @Override
+    void start() {
+      AggregatedDiscoveryServiceGrpc.AggregatedDiscoveryServiceStub stub =
+          AggregatedDiscoveryServiceGrpc.newStub(channel);
+
+      final class DeltaAdsClientResponseObserver
+          implements ClientResponseObserver<DeltaDiscoveryRequest, DeltaDiscoveryResponse> {
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<DeltaDiscoveryRequest> requestStream) {
+          requestStream.setOnReadyHandler(ControlPlaneClient.this::readyHandler);
+        }
+
+        @Override
+        public void onNext(final DeltaDiscoveryResponse response) {
+          syncContext.execute(new Runnable() {
+            @Override
+            public void run() {
+              XdsResourceType<?> type = fromTypeUrl(response.getTypeUrl());
+              if (logger.isLoggable(XdsLogLevel.DEBUG)) {
+                logger.log(
+                    XdsLogLevel.DEBUG, "Received {0} delta response:\n{1}", type,
+                    MessagePrinter.print(response));
+              }
+              if (type == null) {
+                logger.log(
+                    XdsLogLevel.WARNING,
+                    "Ignore an unknown type of DeltaDiscoveryResponse: {0}",
+                    response.getTypeUrl());
+                return;
+              }
+              handleResponse(type, response);
+            }
+          });
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+          syncContext.execute(new Runnable() {
+            @Override
+            public void run() {
+              handleRpcError(t);
+            }
+          });
+        }
+
+        @Override
+        public void onCompleted() {
+          syncContext.execute(new Runnable() {
+            @Override
+            public void run() {
+              handleRpcCompleted();
+            }
+          });
+        }
+      }
+
+      requestWriter = stub.deltaAggregatedResources(new DeltaAdsClientResponseObserver());
+    }
+
+    private void handleResponse(XdsResourceType<?> type, DeltaDiscoveryResponse response) {
+      Map<String, String> knownVersions =
+          resourceVersions.getOrDefault(type, Collections.<String, String>emptyMap());
+      Map<String, String> newVersions = new HashMap<>();
+      List<Any> changedResources = new ArrayList<>(response.getResourcesCount());
+      for (Resource resource : response.getResourcesList()) {
+        if (!resource.hasResource()) {
+          continue;
+        }
+        String version = resource.getVersion();
+        newVersions.put(resource.getName(), version);
+        // Resources the client already has at this version need not be parsed again.
+        if (!version.isEmpty() && version.equals(knownVersions.get(resource.getName()))) {
+          continue;
+        }
+        changedResources.add(resource.getResource());
+      }
+      Map<String, PendingVersions> typePendingVersions = pendingVersions.get(type);
+      if (typePendingVersions == null) {
+        typePendingVersions = new HashMap<>();
+        pendingVersions.put(type, typePendingVersions);
+      }
+      typePendingVersions.put(
+          response.getNonce(),
+          new PendingVersions(newVersions, response.getRemovedResourcesList()));
+      handleDeltaRpcResponse(type, response.getSystemVersionInfo(), changedResources,
+          response.getRemovedResourcesList(), response.getNonce());
+    }
+
+    @Override
+    void sendDiscoveryRequest(XdsResourceType<?> type, String versionInfo,
+                              Collection<String> resources, String nonce,
+                              @Nullable String errorDetail) {
+      checkState(requestWriter != null, "ADS stream has not been started");
+      boolean isResponse = !nonce.isEmpty() && !nonce.equals(ackedNonces.get(type));
+      Set<String> current = subscribed.get(type);
+      boolean initial = current == null;
+      if (initial) {
+        current = Collections.emptySet();
+      }
+      List<String> toSubscribe = new ArrayList<>();
+      for (String resource : resources) {
+        if (!current.contains(resource)) {
+          toSubscribe.add(resource);
+        }
+      }
+      List<String> toUnsubscribe = new ArrayList<>();
+      for (String resource : current) {
+        if (!resources.contains(resource)) {
+          toUnsubscribe.add(resource);
+        }
+      }
+      if (!isResponse && toSubscribe.isEmpty() && toUnsubscribe.isEmpty()) {
+        // Nothing changed in the subscription, and an empty initial request would be a wildcard
+        // subscription.
+        return;
+      }
+
+      DeltaDiscoveryRequest.Builder builder =
+          DeltaDiscoveryRequest.newBuilder()
+              .setTypeUrl(type.typeUrl())
+              .addAllResourceNamesSubscribe(toSubscribe)
+              .addAllResourceNamesUnsubscribe(toUnsubscribe);
+      if (!nodeSent) {
+        builder.setNode(bootstrapNode.toEnvoyProtoNode());
+        nodeSent = true;
+      }
+      Map<String, String> knownVersions = resourceVersions.get(type);
+      if (isResponse) {
+        builder.setResponseNonce(nonce);
+        ackedNonces.put(type, nonce);
+        Map<String, PendingVersions> typePendingVersions = pendingVersions.get(type);
+        PendingVersions pending =
+            typePendingVersions == null ? null : typePendingVersions.remove(nonce);
+        if (errorDetail != null) {
+          com.google.rpc.Status error =
+              com.google.rpc.Status.newBuilder()
+                  .setCode(Code.INVALID_ARGUMENT_VALUE)
+                  .setMessage(errorDetail)
+                  .build();
+          builder.setErrorDetail(error);
+        } else if (pending != null) {
+          if (knownVersions == null) {
+            knownVersions = new HashMap<>();
+            resourceVersions.put(type, knownVersions);
+          }
+          knownVersions.putAll(pending.versions);
+          knownVersions.keySet().removeAll(pending.removed);
+        }
+      }
+      if (knownVersions != null) {
+        if (initial) {
+          for (Map.Entry<String, String> entry : knownVersions.entrySet()) {
+            if (resources.contains(entry.getKey())) {
+              builder.putInitialResourceVersions(entry.getKey(), entry.getValue());
+            }
+          }
+        }
+        knownVersions.keySet().removeAll(toUnsubscribe);
+      }
+      subscribed.put(type, new HashSet<>(resources));
+
+      DeltaDiscoveryRequest request = builder.build();
+      requestWriter.onNext(request);
+      if (logger.isLoggable(XdsLogLevel.DEBUG)) {
+        logger.log(
+            XdsLogLevel.DEBUG, "Sent DeltaDiscoveryRequest\n{0}", MessagePrinter.print(request));
+      }
+    }
+
+    @Override
+    void sendError(Exception error) {
+      requestWriter.onError(error);
+    }
+  }
+
+  private static final class ReceivedResponse {
+    final AbstractAdsStream stream;
+    final XdsResourceType<?> type;
+    final String nonce;
+
+    ReceivedResponse(AbstractAdsStream stream, XdsResourceType<?> type, String nonce) {
+      this.stream = stream;
+      this.type = type;
+      this.nonce = nonce;
+    }
+  }
+
+  private static final class PendingVersions {
+    final Map<String, String> versions;
+    final List<String> removed;
+
+    PendingVersions(Map<String, String> versions, List<String> removed) {
+      this.versions = versions;
+      this.removed = removed;
+    }
+  }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import com.google.auto.value.AutoValue;
+import io.grpc.Internal;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Accessor for the circuit breaking counters shared by the xDS channels of this process.
+ */
+@Internal
+public final class InternalCircuitBreakerStats {
+  // Prevent instantiation
+  private InternalCircuitBreakerStats() {}
+
+  /** Returns the outstanding request counts of the clusters currently in use. */
+  public static List<CallCounterStats> getCallCounterStats() {
+    return SharedCallCounterMap.getInstance().getStats();
+  }
+
+  /** Outstanding requests of a cluster:eds_service_name. */
+  @AutoValue
+  public abstract static class CallCounterStats {
+
+    public abstract String cluster();
+
+    @Nullable
+    public abstract String edsServiceName();
+
+    /** Requests currently outstanding, across all the channels. */
+    public abstract long inFlightRequests();
+
+    /** The most recently configured limit of outstanding requests. */
+    public abstract long maxConcurrentRequests();
+
+    /** Requests dropped so far because the limit was reached. */
+    public abstract long droppedRequests();
+
+    /** How many more requests may be started before the limit is reached. */
+    public final long headroom() {
+      return Math.max(0, maxConcurrentRequests() - inFlightRequests());
+    }
+
+    static CallCounterStats create(String cluster, @Nullable String edsServiceName,
+        long inFlightRequests, long maxConcurrentRequests, long droppedRequests) {
+      return new AutoValue_InternalCircuitBreakerStats_CallCounterStats(cluster, edsServiceName,
+          inFlightRequests, maxConcurrentRequests, droppedRequests);
+    }
+  }
+}
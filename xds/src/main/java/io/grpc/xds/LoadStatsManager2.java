@@ -38,6 +38,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -311,6 +313,11 @@ final class LoadStatsManager2 {
 
   /**
    * Recorder for client loads. One instance per locality (in cluster with edsService).
+   *
+   * <p>Recording happens on the RPC path from many threads at once, so all counters are striped
+   * {@link LongAdder}s that are never reset. Each snapshot reports the difference from the totals
+   * included in the previous snapshot, which avoids losing calls that complete while a snapshot
+   * is being taken, and never blocks the recording threads.
    */
   @ThreadSafe
   final class ClusterLocalityStats {
@@ -319,11 +326,12 @@ final class LoadStatsManager2 {
     private final String edsServiceName;
     private final Locality locality;
     private final Stopwatch stopwatch;
-    private final AtomicLong callsInProgress = new AtomicLong();
-    private final AtomicLong callsSucceeded = new AtomicLong();
-    private final AtomicLong callsFailed = new AtomicLong();
-    private final AtomicLong callsIssued = new AtomicLong();
-    private Map<String, BackendLoadMetricStats> loadMetricStatsMap = new HashMap<>();
+    private final LongAdder callsInProgress = new LongAdder();
+    private final CumulativeCounter callsSucceeded = new CumulativeCounter();
+    private final CumulativeCounter callsFailed = new CumulativeCounter();
+    private final CumulativeCounter callsIssued = new CumulativeCounter();
+    private final ConcurrentMap<String, BackendLoadMetricCounter> loadMetricStats =
+        new ConcurrentHashMap<>();
 
     private ClusterLocalityStats(
         String clusterName, @Nullable String edsServiceName, Locality locality,
@@ -339,37 +347,36 @@ final class LoadStatsManager2 {
      * Records a request being issued.
      */
     void recordCallStarted() {
-      callsIssued.getAndIncrement();
-      callsInProgress.getAndIncrement();
+      callsIssued.increment();
+      callsInProgress.increment();
     }
 
     /**
      * Records a request finished with the given status.
      */
     void recordCallFinished(Status status) {
-      callsInProgress.getAndDecrement();
+      callsInProgress.decrement();
       if (status.isOk()) {
-        callsSucceeded.getAndIncrement();
+        callsSucceeded.increment();
       } else {
-        callsFailed.getAndIncrement();
+        callsFailed.increment();
       }
     }
 
     /**
      * Records all custom named backend load metric stats for per-call load reporting. For each
-     * metric key {@code name}, creates a new {@link BackendLoadMetricStats} with a finished
-     * requests counter of 1 and the {@code value} if the key is not present in the map. Otherwise,
-     * increments the finished requests counter and adds the {@code value} to the existing
-     * {@link BackendLoadMetricStats}.
+     * metric key {@code name}, increments the finished requests counter and adds the {@code value}
+     * to the totals reported for that name in the next snapshot.
      */
-    synchronized void recordBackendLoadMetricStats(Map<String, Double> namedMetrics) {
-      namedMetrics.forEach((name, value) -> {
-        if (!loadMetricStatsMap.containsKey(name)) {
-          loadMetricStatsMap.put(name, new BackendLoadMetricStats(1, value));
-        } else {
-          loadMetricStatsMap.get(name).addMetricValueAndIncrementRequestsFinished(value);
+    void recordBackendLoadMetricStats(Map<String, Double> namedMetrics) {
+      for (Map.Entry<String, Double> entry : namedMetrics.entrySet()) {
+        BackendLoadMetricCounter counter = loadMetricStats.get(entry.getKey());
+        if (counter == null) {
+          counter = loadMetricStats.computeIfAbsent(
+              entry.getKey(), name -> new BackendLoadMetricCounter());
         }
-      });
+        counter.record(entry.getValue());
+      }
     }
 
     /**
@@ -383,16 +390,75 @@ final class LoadStatsManager2 {
           clusterName, edsServiceName, locality);
     }
 
+    // Always called with the LoadStatsManager2 lock held, which serializes snapshots.
     private ClusterLocalityStatsSnapshot snapshot() {
       long duration = stopwatch.elapsed(TimeUnit.NANOSECONDS);
       stopwatch.reset().start();
-      Map<String, BackendLoadMetricStats> loadMetricStatsMapCopy;
-      synchronized (this) {
-        loadMetricStatsMapCopy = Collections.unmodifiableMap(loadMetricStatsMap);
-        loadMetricStatsMap = new HashMap<>();
+      Map<String, BackendLoadMetricStats> loadMetricStatsMap = Collections.emptyMap();
+      for (Map.Entry<String, BackendLoadMetricCounter> entry : loadMetricStats.entrySet()) {
+        BackendLoadMetricStats stats = entry.getValue().snapshot();
+        if (stats == null) {
+          continue;
+        }
+        if (loadMetricStatsMap.isEmpty()) {
+          loadMetricStatsMap = new HashMap<>();
+        }
+        loadMetricStatsMap.put(entry.getKey(), stats);
+      }
+      return new ClusterLocalityStatsSnapshot(callsSucceeded.snapshot(), callsInProgress.sum(),
+          callsFailed.snapshot(), callsIssued.snapshot(), duration, loadMetricStatsMap);
+    }
+  }
+
+  /**
+   * A monotonic striped counter that reports the increments since its previous snapshot.
+   * Increments may come from any thread, while snapshots must be serialized by the caller.
+   */
+  private static final class CumulativeCounter {
+    private final LongAdder total = new LongAdder();
+    private long reported;
+
+    void increment() {
+      total.increment();
+    }
+
+    long snapshot() {
+      long current = total.sum();
+      long delta = current - reported;
+      reported = current;
+      return delta;
+    }
+  }
+
+  /**
+   * Accumulates a single named backend metric in the same way as {@link CumulativeCounter}.
+   */
+  private static final class BackendLoadMetricCounter {
+    private final LongAdder requestsFinished = new LongAdder();
+    private final DoubleAdder totalMetricValue = new DoubleAdder();
+    private long reportedRequestsFinished;
+    private double reportedTotalMetricValue;
+
+    void record(double value) {
+      // Add the value first, so that a concurrent snapshot never reports a request without its
+      // value. At worst the value shows up one snapshot ahead of its request count.
+      totalMetricValue.add(value);
+      requestsFinished.increment();
+    }
+
+    /** Returns the stats since the previous snapshot, or {@code null} if there are none. */
+    @Nullable
+    BackendLoadMetricStats snapshot() {
+      long requests = requestsFinished.sum();
+      if (requests == reportedRequestsFinished) {
+        return null;
       }
-      return new ClusterLocalityStatsSnapshot(callsSucceeded.getAndSet(0), callsInProgress.get(),
-          callsFailed.getAndSet(0), callsIssued.getAndSet(0), duration, loadMetricStatsMapCopy);
+      double total = totalMetricValue.sum();
+      BackendLoadMetricStats stats = new BackendLoadMetricStats(
+          requests - reportedRequestsFinished, total - reportedTotalMetricValue);
+      reportedRequestsFinished = requests;
+      reportedTotalMetricValue = total;
+      return stats;
     }
   }
 
@@ -19,30 +19,35 @@ package io.grpc.xds;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.grpc.xds.InternalCircuitBreakerStats.CallCounterStats;
 import io.grpc.xds.XdsNameResolverProvider.CallCounterProvider;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
- * The global map for holding circuit breaker atomic counters.
+ * The global map for holding circuit breaker counters.
+ *
+ * <p>Counters are looked up without locking. A counter is only held weakly, so it goes away when
+ * no channel uses its cluster anymore.
  */
 @ThreadSafe
 final class SharedCallCounterMap implements CallCounterProvider {
 
-  private final ReferenceQueue<AtomicLong> refQueue = new ReferenceQueue<>();
-  private final Map<String, Map<String, CounterReference>> counters;
+  private final ReferenceQueue<CallCounter> refQueue = new ReferenceQueue<>();
+  private final ConcurrentMap<CounterKey, CounterReference> counters;
 
   private SharedCallCounterMap() {
-    this(new HashMap<String, Map<String, CounterReference>>());
+    this(new ConcurrentHashMap<CounterKey, CounterReference>());
   }
 
   @VisibleForTesting
-  SharedCallCounterMap(Map<String, Map<String, CounterReference>> counters) {
+  SharedCallCounterMap(ConcurrentMap<CounterKey, CounterReference> counters) {
     this.counters = checkNotNull(counters, "counters");
   }
 
@@ -51,56 +56,84 @@ final class SharedCallCounterMap implements CallCounterProvider {
   }
 
   @Override
-  public synchronized AtomicLong getOrCreate(String cluster, @Nullable String edsServiceName) {
-    Map<String, CounterReference> clusterCounters = counters.get(cluster);
-    if (clusterCounters == null) {
-      clusterCounters = new HashMap<>();
-      counters.put(cluster, clusterCounters);
-    }
-    CounterReference ref = clusterCounters.get(edsServiceName);
-    AtomicLong counter = null;
-    if (ref != null) {
-      counter = ref.get();
-      if (counter == null) {
-        ref.enqueue();
+  public CallCounter getOrCreate(String cluster, @Nullable String edsServiceName) {
+    cleanQueue();
+    CounterKey key = new CounterKey(cluster, edsServiceName);
+    while (true) {
+      CounterReference ref = counters.get(key);
+      if (ref != null) {
+        CallCounter counter = ref.get();
+        if (counter != null) {
+          return counter;
+        }
+      }
+      CallCounter counter = new CallCounter();
+      CounterReference newRef = new CounterReference(counter, refQueue, key);
+      // Replace a cleared reference only if no other thread has replaced it first.
+      boolean installed = ref == null
+          ? counters.putIfAbsent(key, newRef) == null
+          : counters.replace(key, ref, newRef);
+      if (installed) {
+        return counter;
       }
     }
-    if (counter == null) {
-      counter = new AtomicLong();
-      ref = new CounterReference(counter, refQueue, cluster, edsServiceName);
-      clusterCounters.put(edsServiceName, ref);
+  }
+
+  /** Returns the current value of each counter still in use. */
+  ImmutableList<CallCounterStats> getStats() {
+    ImmutableList.Builder<CallCounterStats> stats = ImmutableList.builder();
+    for (CounterReference ref : counters.values()) {
+      CallCounter counter = ref.get();
+      if (counter != null) {
+        stats.add(CallCounterStats.create(ref.key.cluster, ref.key.edsServiceName,
+            counter.get(), counter.getMaxConcurrentRequests(), counter.getDropped()));
+      }
     }
-    cleanQueue();
-    return counter;
+    return stats.build();
   }
 
   @VisibleForTesting
   void cleanQueue() {
     CounterReference ref;
     while ((ref = (CounterReference) refQueue.poll()) != null) {
-      Map<String, CounterReference> clusterCounter = counters.get(ref.cluster);
-      if (clusterCounter.get(ref.edsServiceName) != ref) {
-        continue;
-      }
-      clusterCounter.remove(ref.edsServiceName);
-      if (clusterCounter.isEmpty()) {
-        counters.remove(ref.cluster);
-      }
+      counters.remove(ref.key, ref);
     }
   }
 
   @VisibleForTesting
-  static final class CounterReference extends WeakReference<AtomicLong> {
+  static final class CounterKey {
     private final String cluster;
     @Nullable
     private final String edsServiceName;
 
-    CounterReference(AtomicLong counter, ReferenceQueue<AtomicLong> refQueue, String cluster,
-        @Nullable String edsServiceName) {
-      super(counter, refQueue);
-      this.cluster = cluster;
+    CounterKey(String cluster, @Nullable String edsServiceName) {
+      this.cluster = checkNotNull(cluster, "cluster");
       this.edsServiceName = edsServiceName;
     }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof CounterKey)) {
+        return false;
+      }
+      CounterKey that = (CounterKey) o;
+      return cluster.equals(that.cluster) && Objects.equals(edsServiceName, that.edsServiceName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(cluster, edsServiceName);
+    }
+  }
+
+  @VisibleForTesting
+  static final class CounterReference extends WeakReference<CallCounter> {
+    private final CounterKey key;
+
+    CounterReference(CallCounter counter, ReferenceQueue<CallCounter> refQueue, CounterKey key) {
+      super(counter, refQueue);
+      this.key = key;
+    }
   }
 
   private static final class SharedCallCounterMapHolder {
@@ -43,6 +43,7 @@ import io.grpc.xds.orca.OrcaOobUtil;
 import io.grpc.xds.orca.OrcaOobUtil.OrcaOobReportListener;
 import io.grpc.xds.orca.OrcaPerRequestUtil;
 import io.grpc.xds.orca.OrcaPerRequestUtil.OrcaPerRequestReportListener;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,7 +53,7 @@ import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -70,7 +71,7 @@ final class WeightedRoundRobinLoadBalancer extends RoundRobinLoadBalancer {
   private final ScheduledExecutorService timeService;
   private ScheduledHandle weightUpdateTimer;
   private final Runnable updateWeightTask;
-  private final AtomicInteger sequence;
+  private final StripedSequence sequence;
   private final long infTime;
   private final Ticker ticker;
 
@@ -86,7 +87,7 @@ final class WeightedRoundRobinLoadBalancer extends RoundRobinLoadBalancer {
     this.syncContext = checkNotNull(helper.getSynchronizationContext(), "syncContext");
     this.timeService = checkNotNull(helper.getScheduledExecutorService(), "timeService");
     this.updateWeightTask = new UpdateWeightTask();
-    this.sequence = new AtomicInteger(random.nextInt());
+    this.sequence = new StripedSequence(StripedSequence.defaultStripeCount(), random);
     log.log(Level.FINE, "weighted_round_robin LB created");
   }
 
@@ -323,6 +324,8 @@ final class WeightedRoundRobinLoadBalancer extends RoundRobinLoadBalancer {
     private final boolean enableOobLoadReport;
     private final float errorUtilizationPenalty;
     private volatile StaticStrideScheduler scheduler;
+    // Only accessed from updateWeight(), which runs in the SynchronizationContext.
+    private float[] lastWeights;
 
     WeightedRoundRobinPicker(List<ChildLbState> children, boolean enableOobLoadReport,
         float errorUtilizationPenalty) {
@@ -363,6 +366,11 @@ final class WeightedRoundRobinLoadBalancer extends RoundRobinLoadBalancer {
         double newWeight = ((WeightedChildLbState)children.get(i)).getWeight();
         newWeights[i] = newWeight > 0 ? (float) newWeight : 0.0f;
       }
+      if (scheduler != null && Arrays.equals(newWeights, lastWeights)) {
+        // Weights unchanged since the last tick; the scaled weights would be identical.
+        return;
+      }
+      this.lastWeights = newWeights;
       this.scheduler = new StaticStrideScheduler(newWeights, sequence);
     }
 
@@ -418,7 +426,7 @@ final class WeightedRoundRobinLoadBalancer extends RoundRobinLoadBalancer {
   @VisibleForTesting
   static final class StaticStrideScheduler {
     private final short[] scaledWeights;
-    private final AtomicInteger sequence;
+    private final StripedSequence sequence;
     private static final int K_MAX_WEIGHT = 0xFFFF;
 
     // Assuming the mean of all known weights is M, StaticStrideScheduler will clamp
@@ -439,7 +447,7 @@ final class WeightedRoundRobinLoadBalancer extends RoundRobinLoadBalancer {
     private static final double K_MAX_RATIO = 10;
     private static final double K_MIN_RATIO = 0.1;
 
-    StaticStrideScheduler(float[] weights, AtomicInteger sequence) {
+    StaticStrideScheduler(float[] weights, StripedSequence sequence) {
       checkArgument(weights.length >= 1, "Couldn't build scheduler: requires at least one weight");
       int numChannels = weights.length;
       int numWeightedChannels = 0;
@@ -486,7 +494,10 @@ final class WeightedRoundRobinLoadBalancer extends RoundRobinLoadBalancer {
       this.sequence = sequence;
     }
 
-    /** Returns the next sequence number and atomically increases sequence with wraparound. */
+    /**
+     * Returns the next sequence number of the calling thread's stripe and atomically increases it
+     * with wraparound.
+     */
     private long nextSequence() {
       return Integer.toUnsignedLong(sequence.getAndIncrement());
     }
@@ -500,7 +511,8 @@ final class WeightedRoundRobinLoadBalancer extends RoundRobinLoadBalancer {
      * Each element in the conceptual array is a boolean indicating whether the backend at
      * this index should be picked now. If false, the counter is incremented again,
      * and the new element is checked. An atomically incremented counter keeps track of our
-     * backend and generation through modular arithmetic within the pick() method.
+     * backend and generation through modular arithmetic within the pick() method. The counter
+     * is striped (see {@link StripedSequence}); each stripe walks this array on its own.
      * <p>
      * Modular arithmetic allows us to evenly distribute picks and skips between
      * generations based on W(backend).
@@ -536,6 +548,69 @@ final class WeightedRoundRobinLoadBalancer extends RoundRobinLoadBalancer {
     }
   }
 
+  /*
+   * Sequence counter for the StaticStrideScheduler, striped across cache lines so that pickers
+   * running concurrently on different cores don't all increment the same contended counter.
+   * <p>
+   * Each thread is mapped to one stripe. A stripe is a complete sequence of its own, so it walks
+   * the scheduler's pick array exactly like a single shared counter would, and the weighted
+   * distribution holds per stripe and therefore also in aggregate. Stripes start spread evenly
+   * over the counter's range so that they are not in lockstep with each other.
+   */
+  @VisibleForTesting
+  static final class StripedSequence {
+    // Spread the cells 64 bytes (16 ints) apart to keep each on its own cache line.
+    private static final int CELL_SPACING = 16;
+    private static final int MAX_STRIPES = 64;
+
+    private final AtomicIntegerArray cells;
+    private final int mask;
+
+    /** Creates a sequence with a single stripe, starting at {@code initialValue}. */
+    StripedSequence(int initialValue) {
+      this.cells = new AtomicIntegerArray(1);
+      this.cells.set(0, initialValue);
+      this.mask = 0;
+    }
+
+    StripedSequence(int stripeCount, Random random) {
+      checkArgument(stripeCount > 0 && Integer.bitCount(stripeCount) == 1,
+          "stripeCount must be a power of two: %s", stripeCount);
+      this.cells = new AtomicIntegerArray(stripeCount * CELL_SPACING);
+      this.mask = stripeCount - 1;
+      int start = random.nextInt();
+      int stride = (int) ((1L << 32) / stripeCount);
+      for (int i = 0; i < stripeCount; i++) {
+        cells.set(i * CELL_SPACING, start + i * stride);
+      }
+    }
+
+    /** One stripe per available processor, rounded up to a power of two. */
+    static int defaultStripeCount() {
+      int cpus = Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES);
+      return cpus <= 1 ? 1 : Integer.highestOneBit(cpus - 1) << 1;
+    }
+
+    int getAndIncrement() {
+      return cells.getAndIncrement(stripeIndex());
+    }
+
+    @VisibleForTesting
+    int get() {
+      return cells.get(stripeIndex());
+    }
+
+    private int stripeIndex() {
+      if (mask == 0) {
+        return 0;
+      }
+      long id = Thread.currentThread().getId();
+      // Fibonacci hashing, so that sequentially allocated thread ids spread across the stripes.
+      int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+      return ((hash >>> 16) & mask) * CELL_SPACING;
+    }
+  }
+
   static final class WeightedRoundRobinLoadBalancerConfig {
     final long blackoutPeriodNanos;
     final long weightExpirationPeriodNanos;
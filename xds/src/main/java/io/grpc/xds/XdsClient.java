@@ -359,6 +359,15 @@ abstract class XdsClient {
         XdsResourceType<?> resourceType, ServerInfo serverInfo, String versionInfo,
         List<Any> resources, String nonce);
 
+    /**
+     * Called when an incremental (delta) xds response is received. Only added or changed
+     * resources are included in {@code resources}, and {@code removedResources} names the
+     * resources the server no longer has.
+     */
+    void handleDeltaResourceResponse(
+        XdsResourceType<?> resourceType, ServerInfo serverInfo, String systemVersionInfo,
+        List<Any> resources, List<String> removedResources, String nonce);
+
     /** Called when the ADS stream is closed passively. */
     // Must be synchronized.
     void handleStreamClosed(Status error);
@@ -41,6 +41,10 @@ import io.grpc.Status;
 import io.grpc.SynchronizationContext;
 import io.grpc.SynchronizationContext.ScheduledHandle;
 import io.grpc.internal.BackoffPolicy;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.ObjectPool;
+import io.grpc.internal.SharedResourceHolder;
+import io.grpc.internal.SharedResourcePool;
 import io.grpc.internal.TimeProvider;
 import io.grpc.xds.Bootstrapper.AuthorityInfo;
 import io.grpc.xds.Bootstrapper.ServerInfo;
@@ -50,7 +54,10 @@ import io.grpc.xds.XdsClient.ResourceStore;
 import io.grpc.xds.XdsClient.TimerLaunch;
 import io.grpc.xds.XdsClient.XdsResponseHandler;
 import io.grpc.xds.XdsLogger.XdsLogLevel;
+import io.grpc.xds.XdsResourceType.CachedResource;
 import java.net.URI;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -58,7 +65,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -78,6 +91,47 @@ final class XdsClientImpl extends XdsClient
   // Longest time to wait, since the subscription to some resource, for concluding its absence.
   @VisibleForTesting
   static final int INITIAL_RESOURCE_FETCH_TIMEOUT_SEC = 15;
+  // Responses with at least this many resources are parsed in parallel, off the
+  // SynchronizationContext.
+  @VisibleForTesting
+  static final int PARALLEL_PARSE_THRESHOLD = 64;
+  private static final SharedResourceHolder.Resource<ForkJoinPool> PARSE_POOL =
+      new SharedResourceHolder.Resource<ForkJoinPool>() {
+        @Override
+        public ForkJoinPool create() {
+          return new ForkJoinPool(Math.min(4, Runtime.getRuntime().availableProcessors()));
+        }
+
+        @Override
+        public void close(ForkJoinPool instance) {
+          instance.shutdown();
+        }
+
+        @Override
+        public String toString() {
+          return "xds-parse-pool";
+        }
+      };
+  // Reads and writes the resource cache, which may block on disk I/O.
+  private static final SharedResourceHolder.Resource<ExecutorService> RESOURCE_CACHE_EXECUTOR =
+      new SharedResourceHolder.Resource<ExecutorService>() {
+        @Override
+        public ExecutorService create() {
+          return Executors.newSingleThreadExecutor(
+              GrpcUtil.getThreadFactory("grpc-xds-resource-cache-%d", true));
+        }
+
+        @Override
+        public void close(ExecutorService instance) {
+          // Lets pending writes to the resource cache finish.
+          instance.shutdown();
+        }
+
+        @Override
+        public String toString() {
+          return "grpc-xds-resource-cache";
+        }
+      };
   private final SynchronizationContext syncContext = new SynchronizationContext(
       new Thread.UncaughtExceptionHandler() {
         @Override
@@ -110,6 +164,22 @@ final class XdsClientImpl extends XdsClient
   private final TlsContextManager tlsContextManager;
   private final InternalLogId logId;
   private final XdsLogger logger;
+  private final ObjectPool<ForkJoinPool> parsePoolPool;
+  @Nullable
+  private ForkJoinPool parsePool;
+  // Responses received while a large response is being parsed, to be handled in order once it
+  // has been applied.
+  private final Queue<Runnable> queuedResponses = new ArrayDeque<>();
+  private boolean parsing;
+  @Nullable
+  private final XdsResourceCache resourceCache;
+  private final ObjectPool<? extends Executor> resourceCacheExecutorPool;
+  @Nullable
+  private Executor resourceCacheExecutor;
+  // Resources read from the resource cache, by type and name. Loaded off the
+  // SynchronizationContext on the first subscription to each type.
+  private final Map<XdsResourceType<?>, Map<String, Any>> preloadedResources = new HashMap<>();
+  private final Set<XdsResourceType<?>> preloadingTypes = new HashSet<>();
   private volatile boolean isShutdown;
 
   XdsClientImpl(
@@ -121,6 +191,27 @@ final class XdsClientImpl extends XdsClient
       Supplier<Stopwatch> stopwatchSupplier,
       TimeProvider timeProvider,
       TlsContextManager tlsContextManager) {
+    this(xdsChannelFactory, bootstrapInfo, context, timeService, backoffPolicyProvider,
+        stopwatchSupplier, timeProvider, tlsContextManager,
+        SharedResourcePool.forResource(PARSE_POOL),
+        SharedResourcePool.forResource(RESOURCE_CACHE_EXECUTOR));
+  }
+
+  @VisibleForTesting
+  XdsClientImpl(
+      XdsChannelFactory xdsChannelFactory,
+      Bootstrapper.BootstrapInfo bootstrapInfo,
+      Context context,
+      ScheduledExecutorService timeService,
+      BackoffPolicy.Provider backoffPolicyProvider,
+      Supplier<Stopwatch> stopwatchSupplier,
+      TimeProvider timeProvider,
+      TlsContextManager tlsContextManager,
+      ObjectPool<ForkJoinPool> parsePoolPool,
+      ObjectPool<? extends Executor> resourceCacheExecutorPool) {
+    this.parsePoolPool = checkNotNull(parsePoolPool, "parsePoolPool");
+    this.resourceCacheExecutorPool =
+        checkNotNull(resourceCacheExecutorPool, "resourceCacheExecutorPool");
     this.xdsChannelFactory = xdsChannelFactory;
     this.bootstrapInfo = bootstrapInfo;
     this.context = context;
@@ -132,6 +223,14 @@ final class XdsClientImpl extends XdsClient
     logId = InternalLogId.allocate("xds-client", null);
     logger = XdsLogger.withLogId(logId);
     logger.log(XdsLogLevel.INFO, "Created");
+    String resourceCacheDirectory = bootstrapInfo.resourceCacheDirectory();
+    if (resourceCacheDirectory != null) {
+      resourceCacheExecutor = resourceCacheExecutorPool.getObject();
+      resourceCache =
+          new XdsResourceCache(Paths.get(resourceCacheDirectory), resourceCacheExecutor);
+    } else {
+      resourceCache = null;
+    }
     if (LOG_XDS_NODE_ID) {
       classLogger.log(Level.INFO, "xDS node ID: {0}", bootstrapInfo.node().getId());
     }
@@ -169,16 +268,98 @@ final class XdsClientImpl extends XdsClient
       List<Any> resources, String nonce) {
     checkNotNull(xdsResourceType, "xdsResourceType");
     syncContext.throwIfNotInThisSynchronizationContext();
+    parseAndHandleResponse(xdsResourceType, serverInfo, versionInfo, resources, null, nonce);
+  }
+
+  @Override
+  public void handleDeltaResourceResponse(
+      XdsResourceType<?> xdsResourceType, ServerInfo serverInfo, String systemVersionInfo,
+      List<Any> resources, List<String> removedResources, String nonce) {
+    checkNotNull(xdsResourceType, "xdsResourceType");
+    syncContext.throwIfNotInThisSynchronizationContext();
+    parseAndHandleResponse(xdsResourceType, serverInfo, systemVersionInfo, resources,
+        ImmutableSet.copyOf(removedResources), nonce);
+  }
+
+  /**
+   * Parses the resources of a response and applies them. Large responses are parsed in parallel
+   * in the parse pool, and applied back in the SynchronizationContext; responses received
+   * meanwhile are queued so that responses are always applied in the order received.
+   */
+  private <T extends ResourceUpdate> void parseAndHandleResponse(
+      final XdsResourceType<T> xdsResourceType, final ServerInfo serverInfo,
+      final String versionInfo, final List<Any> resources,
+      @Nullable final Set<String> removedResources, final String nonce) {
+    if (parsing) {
+      queuedResponses.add(new Runnable() {
+        @Override
+        public void run() {
+          parseAndHandleResponse(
+              xdsResourceType, serverInfo, versionInfo, resources, removedResources, nonce);
+        }
+      });
+      return;
+    }
+    final XdsResourceType.Args args = newArgs(xdsResourceType, serverInfo, versionInfo, nonce);
+    if (resources.size() < PARALLEL_PARSE_THRESHOLD) {
+      handleResourceUpdate(args, xdsResourceType.parse(args, resources), removedResources,
+          xdsResourceType);
+      return;
+    }
+    if (parsePool == null) {
+      parsePool = parsePoolPool.getObject();
+    }
+    parsing = true;
+    final ForkJoinTask<ValidatedResourceUpdate<T>> parseTask =
+        xdsResourceType.parseTask(args, resources);
+    parsePool.execute(new Runnable() {
+      @Override
+      public void run() {
+        parseTask.quietlyInvoke();
+        syncContext.execute(new Runnable() {
+          @Override
+          public void run() {
+            parsing = false;
+            try {
+              if (!isShutdown) {
+                // Rethrows parsing failures here, like for responses parsed in place.
+                handleResourceUpdate(args, parseTask.join(), removedResources, xdsResourceType);
+              }
+            } finally {
+              Runnable queued;
+              while (!parsing && (queued = queuedResponses.poll()) != null) {
+                queued.run();
+              }
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private XdsResourceType.Args newArgs(
+      XdsResourceType<?> xdsResourceType, ServerInfo serverInfo, String versionInfo,
+      String nonce) {
+    Map<String, ResourceSubscriber<? extends ResourceUpdate>> subscribers =
+        resourceSubscribers.getOrDefault(xdsResourceType, Collections.emptyMap());
     Set<String> toParseResourceNames = null;
     if (!(xdsResourceType == XdsListenerResource.getInstance()
         || xdsResourceType == XdsRouteConfigureResource.getInstance())
         && resourceSubscribers.containsKey(xdsResourceType)) {
-      toParseResourceNames = resourceSubscribers.get(xdsResourceType).keySet();
+      // Copied, as the response may be parsed outside the SynchronizationContext.
+      toParseResourceNames = ImmutableSet.copyOf(subscribers.keySet());
     }
-    XdsResourceType.Args args = new XdsResourceType.Args(serverInfo, versionInfo, nonce,
+    Map<Any, CachedResource> cachedResources = new HashMap<>();
+    for (ResourceSubscriber<? extends ResourceUpdate> subscriber : subscribers.values()) {
+      if (subscriber.data != null && serverInfo.equals(subscriber.serverInfo)
+          && subscriber.metadata.getRawResource() != null) {
+        cachedResources.put(subscriber.metadata.getRawResource(),
+            new CachedResource(subscriber.resource, subscriber.data));
+      }
+    }
+    return new XdsResourceType.Args(serverInfo, versionInfo, nonce,
         bootstrapInfo, filterRegistry, loadBalancerRegistry, tlsContextManager,
-        toParseResourceNames);
-    handleResourceUpdate(args, resources, xdsResourceType);
+        toParseResourceNames, cachedResources);
   }
 
   @Override
@@ -225,6 +406,13 @@ final class XdsClientImpl extends XdsClient
               lrsClient.stopLoadReporting();
             }
             cleanUpResourceTimers();
+            queuedResponses.clear();
+            if (parsePool != null) {
+              parsePool = parsePoolPool.returnObject(parsePool);
+            }
+            if (resourceCacheExecutor != null) {
+              resourceCacheExecutor = resourceCacheExecutorPool.returnObject(resourceCacheExecutor);
+            }
           }
         });
   }
@@ -304,6 +492,9 @@ final class XdsClientImpl extends XdsClient
           logger.log(XdsLogLevel.INFO, "Subscribe {0} resource {1}", type, resourceName);
           subscriber = new ResourceSubscriber<>(type, resourceName);
           resourceSubscribers.get(type).put(resourceName, subscriber);
+          if (resourceCache != null && subscriber.serverInfo != null) {
+            preloadFromCache(subscriber);
+          }
           if (subscriber.xdsChannel != null) {
             subscriber.xdsChannel.adjustResourceSubscription(type);
           }
@@ -419,11 +610,91 @@ final class XdsClientImpl extends XdsClient
     }
   }
 
+  /**
+   * Gives the subscriber the cached copy of its resource, if any, until the management server
+   * confirms or replaces it. The cached resources of a type are read on the resource cache
+   * executor, and given to the subscribers of the type once read.
+   */
+  private <T extends ResourceUpdate> void preloadFromCache(ResourceSubscriber<T> subscriber) {
+    Map<String, Any> resources = preloadedResources.get(subscriber.type);
+    if (resources != null) {
+      useCachedResource(subscriber, resources);
+      return;
+    }
+    final XdsResourceType<T> type = subscriber.type;
+    if (isShutdown || !preloadingTypes.add(type)) {
+      return;
+    }
+    resourceCacheExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        final Map<String, Any> loaded = resourceCache.load(type);
+        syncContext.execute(new Runnable() {
+          @Override
+          public void run() {
+            onCachedResourcesLoaded(type, loaded);
+          }
+        });
+      }
+    });
+  }
+
+  private void onCachedResourcesLoaded(XdsResourceType<?> type, Map<String, Any> resources) {
+    preloadingTypes.remove(type);
+    if (isShutdown) {
+      return;
+    }
+    preloadedResources.put(type, resources);
+    Map<String, ResourceSubscriber<? extends ResourceUpdate>> subscribers =
+        resourceSubscribers.getOrDefault(type, Collections.emptyMap());
+    for (ResourceSubscriber<? extends ResourceUpdate> subscriber : subscribers.values()) {
+      if (subscriber.serverInfo != null) {
+        useCachedResource(subscriber, resources);
+      }
+    }
+  }
+
+  private <T extends ResourceUpdate> void useCachedResource(
+      ResourceSubscriber<T> subscriber, Map<String, Any> resources) {
+    Any resource = resources.get(subscriber.resource);
+    // The management server may have responded while the cache was being read
+    if (resource == null || subscriber.hasResult()) {
+      return;
+    }
+    XdsResourceType.Args args = new XdsResourceType.Args(subscriber.serverInfo, "", "",
+        bootstrapInfo, filterRegistry, loadBalancerRegistry, tlsContextManager, null);
+    ValidatedResourceUpdate<T> result =
+        subscriber.type.parse(args, Collections.singletonList(resource));
+    ParsedResource<T> parsedResource = result.parsedResources.get(subscriber.resource);
+    if (parsedResource != null) {
+      subscriber.onCachedData(parsedResource);
+    } else {
+      logger.log(XdsLogLevel.WARNING, "Ignoring cached {0} resource {1}: {2}",
+          subscriber.type, subscriber.resource, result.errors);
+    }
+  }
+
+  private void storeInCache(XdsResourceType<?> xdsResourceType, String versionInfo,
+      Map<String, ResourceSubscriber<? extends ResourceUpdate>> subscribers) {
+    Map<String, Any> acceptedResources = new HashMap<>();
+    for (ResourceSubscriber<? extends ResourceUpdate> subscriber : subscribers.values()) {
+      if (subscriber.data != null && !subscriber.cached
+          && subscriber.metadata.getRawResource() != null) {
+        acceptedResources.put(subscriber.resource, subscriber.metadata.getRawResource());
+      }
+    }
+    resourceCache.store(xdsResourceType, versionInfo, acceptedResources);
+  }
+
+  /**
+   * Applies a parsed response to the subscribers of the given type. {@code removedResources} is
+   * {@code null} for State of the World responses, and lists the resources the server removed
+   * for incremental (delta) responses.
+   */
   @SuppressWarnings("unchecked")
-  private <T extends ResourceUpdate> void handleResourceUpdate(XdsResourceType.Args args,
-                                                               List<Any> resources,
-                                                               XdsResourceType<T> xdsResourceType) {
-    ValidatedResourceUpdate<T> result = xdsResourceType.parse(args, resources);
+  private <T extends ResourceUpdate> void handleResourceUpdate(
+      XdsResourceType.Args args, ValidatedResourceUpdate<T> result,
+      @Nullable Set<String> removedResources, XdsResourceType<T> xdsResourceType) {
     logger.log(XdsLogger.XdsLogLevel.INFO,
         "Received {0} Response version {1} nonce {2}. Parsed resources: {3}",
          xdsResourceType.typeName(), args.versionInfo, args.nonce, result.unpackedResources);
@@ -461,6 +732,13 @@ final class XdsClientImpl extends XdsClient
         subscriber.onRejected(args.versionInfo, updateTime, errorDetail);
       }
 
+      // Delta responses name the removed resources explicitly, whatever the resource type.
+      if (removedResources != null && removedResources.contains(resourceName)
+          && subscriber.serverInfo.equals(args.serverInfo)) {
+        subscriber.onAbsent();
+        continue;
+      }
+
       // Nothing else to do for incremental ADS resources.
       if (!xdsResourceType.isFullStateOfTheWorld()) {
         continue;
@@ -478,11 +756,16 @@ final class XdsClientImpl extends XdsClient
 
       // For State of the World services, notify watchers when their watched resource is missing
       // from the ADS update. Note that we can only do this if the resource update is coming from
-      // the same xDS server that the ResourceSubscriber is subscribed to.
-      if (subscriber.serverInfo.equals(args.serverInfo)) {
+      // the same xDS server that the ResourceSubscriber is subscribed to. Delta responses leave
+      // out unchanged resources, so missing does not mean absent there.
+      if (removedResources == null && subscriber.serverInfo.equals(args.serverInfo)) {
         subscriber.onAbsent();
       }
     }
+
+    if (resourceCache != null) {
+      storeInCache(xdsResourceType, args.versionInfo, subscribedResources);
+    }
   }
 
   /**
@@ -495,6 +778,9 @@ final class XdsClientImpl extends XdsClient
     private final String resource;
     private final Set<ResourceWatcher<T>> watchers = new HashSet<>();
     @Nullable private T data;
+    // Whether data was loaded from the resource cache and is not confirmed by the management
+    // server yet.
+    private boolean cached;
     private boolean absent;
     // Tracks whether the deletion has been ignored per bootstrap server feature.
     // See https://github.com/grpc/proposal/blob/master/A53-xds-ignore-resource-deletion.md
@@ -573,7 +859,7 @@ final class XdsClientImpl extends XdsClient
     }
 
     void restartTimer() {
-      if (data != null || absent) {  // resource already resolved
+      if ((data != null && !cached) || absent) {  // resource already resolved
         return;
       }
       if (!xdsChannel.isReady()) { // When channel becomes ready, it will trigger a restartTimer
@@ -642,6 +928,7 @@ final class XdsClientImpl extends XdsClient
           .newResourceMetadataAcked(parsedResource.getRawResource(), version, updateTime);
       ResourceUpdate oldData = this.data;
       this.data = parsedResource.getResourceUpdate();
+      cached = false;
       absent = false;
       if (resourceDeletionIgnored) {
         logger.log(XdsLogLevel.FORCE_INFO, "xds server {0}: server returned new version "
@@ -656,6 +943,15 @@ final class XdsClientImpl extends XdsClient
       }
     }
 
+    void onCachedData(ParsedResource<T> parsedResource) {
+      logger.log(XdsLogLevel.INFO, "Using cached {0} resource {1}", type, resource);
+      data = parsedResource.getResourceUpdate();
+      cached = true;
+      for (ResourceWatcher<T> watcher : watchers) {
+        notifyWatcher(watcher, data);
+      }
+    }
+
     void onAbsent() {
       if (respTimer != null && respTimer.isPending()) {  // too early to conclude absence
         return;
@@ -665,7 +961,8 @@ final class XdsClientImpl extends XdsClient
       // and the resource is reusable.
       boolean ignoreResourceDeletionEnabled =
           serverInfo != null && serverInfo.ignoreResourceDeletion();
-      if (ignoreResourceDeletionEnabled && type.isFullStateOfTheWorld() && data != null) {
+      if (ignoreResourceDeletionEnabled && type.isFullStateOfTheWorld() && data != null
+          && !cached) {
         if (!resourceDeletionIgnored) {
           logger.log(XdsLogLevel.FORCE_WARNING,
               "xds server {0}: ignoring deletion for resource type {1} name {2}}",
@@ -678,6 +975,7 @@ final class XdsClientImpl extends XdsClient
       logger.log(XdsLogLevel.INFO, "Conclude {0} resource {1} not exist", type, resource);
       if (!absent) {
         data = null;
+        cached = false;
         absent = true;
         metadata = ResourceMetadata.newResourceMetadataDoesNotExist();
         for (ResourceWatcher<T> watcher : watchers) {
@@ -29,7 +29,6 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 
 /**
@@ -122,6 +121,6 @@ public final class XdsNameResolverProvider extends NameResolverProvider {
    * Provides the counter for aggregating outstanding requests per cluster:eds_service_name.
    */
   interface CallCounterProvider {
-    AtomicLong getOrCreate(String cluster, @Nullable String edsServiceName);
+    CallCounter getOrCreate(String cluster, @Nullable String edsServiceName);
   }
 }
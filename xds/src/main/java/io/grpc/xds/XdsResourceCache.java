@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.Any;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.envoyproxy.envoy.service.discovery.v3.DiscoveryResponse;
+import io.envoyproxy.envoy.service.discovery.v3.Resource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A local, on-disk copy of the last accepted xDS resources of each type, so that a restarted
+ * client can serve traffic before the management server responds, or while it is unreachable.
+ *
+ * <p>Each resource type is stored in its own file as a {@link DiscoveryResponse} stamped with the
+ * version of the response the resources were last accepted from. Each resource is wrapped in a
+ * {@link Resource} carrying its name. Files are replaced atomically, so a crash while writing
+ * leaves the previous copy in place.
+ */
+final class XdsResourceCache {
+  private static final Logger logger = Logger.getLogger(XdsResourceCache.class.getName());
+  private static final String FILE_SUFFIX = ".pb";
+
+  private final Path directory;
+  private final Executor writeExecutor;
+  // Latest snapshot of each resource type not written yet. Snapshots stored while a write is
+  // pending replace the pending one, so a burst of updates results in a single write.
+  private final ConcurrentMap<XdsResourceType<?>, Snapshot> pendingWrites =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates a cache in the given directory, writing with {@code writeExecutor}, which should
+   * allow blocking file I/O.
+   */
+  XdsResourceCache(Path directory, Executor writeExecutor) {
+    this.directory = checkNotNull(directory, "directory");
+    this.writeExecutor = checkNotNull(writeExecutor, "writeExecutor");
+  }
+
+  /**
+   * Returns the cached resources of the given type, by name. Returns an empty map if nothing
+   * was cached, or the cached copy can't be read.
+   */
+  Map<String, Any> load(XdsResourceType<?> type) {
+    byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(fileOf(type));
+    } catch (NoSuchFileException e) {
+      return ImmutableMap.of();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Failed to read cached " + type.typeName() + " resources", e);
+      return ImmutableMap.of();
+    }
+    try {
+      DiscoveryResponse response = DiscoveryResponse.parseFrom(bytes);
+      if (!response.getTypeUrl().equals(type.typeUrl())) {
+        logger.log(Level.WARNING, "Ignoring cached {0} resources of type {1}",
+            new Object[] {type.typeName(), response.getTypeUrl()});
+        return ImmutableMap.of();
+      }
+      ImmutableMap.Builder<String, Any> resources = ImmutableMap.builder();
+      for (Any any : response.getResourcesList()) {
+        Resource resource = any.unpack(Resource.class);
+        resources.put(resource.getName(), resource.getResource());
+      }
+      return resources.buildKeepingLast();
+    } catch (InvalidProtocolBufferException e) {
+      logger.log(Level.WARNING, "Ignoring corrupted cached " + type.typeName() + " resources", e);
+      return ImmutableMap.of();
+    }
+  }
+
+  /**
+   * Replaces the cached resources of the given type, asynchronously.
+   *
+   * @param version version of the response the resources were last accepted from
+   * @param resources the accepted resources, by name
+   */
+  void store(final XdsResourceType<?> type, String version, Map<String, Any> resources) {
+    Snapshot snapshot = new Snapshot(version, ImmutableMap.copyOf(resources));
+    if (pendingWrites.put(type, snapshot) == null) {
+      writeExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          write(type);
+        }
+      });
+    }
+  }
+
+  private void write(XdsResourceType<?> type) {
+    Snapshot snapshot = pendingWrites.remove(type);
+    if (snapshot == null) {
+      return;
+    }
+    DiscoveryResponse.Builder response = DiscoveryResponse.newBuilder()
+        .setTypeUrl(type.typeUrl())
+        .setVersionInfo(snapshot.version);
+    for (Map.Entry<String, Any> entry : snapshot.resources.entrySet()) {
+      response.addResources(Any.pack(
+          Resource.newBuilder().setName(entry.getKey()).setResource(entry.getValue()).build()));
+    }
+    Path tempFile = null;
+    try {
+      Files.createDirectories(directory);
+      tempFile = Files.createTempFile(directory, type.typeName(), ".tmp");
+      Files.write(tempFile, response.build().toByteArray());
+      Files.move(tempFile, fileOf(type),
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      tempFile = null;
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Failed to cache " + type.typeName() + " resources", e);
+    } finally {
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+          logger.log(Level.FINE, "Failed to delete " + tempFile, e);
+        }
+      }
+    }
+  }
+
+  @VisibleForTesting
+  Path fileOf(XdsResourceType<?> type) {
+    return directory.resolve(type.typeName() + FILE_SUFFIX);
+  }
+
+  private static final class Snapshot {
+    final String version;
+    final ImmutableMap<String, Any> resources;
+
+    Snapshot(String version, ImmutableMap<String, Any> resources) {
+      this.version = version;
+      this.resources = resources;
+    }
+  }
+}
@@ -31,11 +31,13 @@ import com.google.protobuf.Message;
 import io.envoyproxy.envoy.service.discovery.v3.Resource;
 import io.grpc.LoadBalancerRegistry;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RecursiveTask;
 import javax.annotation.Nullable;
 
 abstract class XdsResourceType<T extends ResourceUpdate> {
@@ -67,6 +69,10 @@ abstract class XdsResourceType<T extends ResourceUpdate> {
   static final String TYPE_URL_TYPED_STRUCT =
       "type.googleapis.com/xds.type.v3.TypedStruct";
 
+  // Number of resources a ParseTask parses itself rather than forking.
+  @VisibleForTesting
+  static final int PARSE_CHUNK_SIZE = 16;
+
   @Nullable
   abstract String extractResourceName(Message unpackedResource);
 
@@ -96,6 +102,9 @@ abstract class XdsResourceType<T extends ResourceUpdate> {
     // unrequested resources.
     // Only resources in the set needs to be parsed. Null means parse everything.
     final @Nullable Set<String> subscribedResources;
+    // Resources the client has already accepted, by their serialized form. A resource whose
+    // bytes are unchanged is not parsed and validated again.
+    final Map<Any, CachedResource> cachedResources;
 
     public Args(ServerInfo serverInfo, String versionInfo, String nonce,
                 Bootstrapper.BootstrapInfo bootstrapInfo,
@@ -103,6 +112,17 @@ abstract class XdsResourceType<T extends ResourceUpdate> {
                 LoadBalancerRegistry loadBalancerRegistry,
                 TlsContextManager tlsContextManager,
                 @Nullable Set<String> subscribedResources) {
+      this(serverInfo, versionInfo, nonce, bootstrapInfo, filterRegistry, loadBalancerRegistry,
+          tlsContextManager, subscribedResources, Collections.<Any, CachedResource>emptyMap());
+    }
+
+    public Args(ServerInfo serverInfo, String versionInfo, String nonce,
+                Bootstrapper.BootstrapInfo bootstrapInfo,
+                FilterRegistry filterRegistry,
+                LoadBalancerRegistry loadBalancerRegistry,
+                TlsContextManager tlsContextManager,
+                @Nullable Set<String> subscribedResources,
+                Map<Any, CachedResource> cachedResources) {
       this.serverInfo = serverInfo;
       this.versionInfo = versionInfo;
       this.nonce = nonce;
@@ -111,55 +131,123 @@ abstract class XdsResourceType<T extends ResourceUpdate> {
       this.loadBalancerRegistry = loadBalancerRegistry;
       this.tlsContextManager = tlsContextManager;
       this.subscribedResources = subscribedResources;
+      this.cachedResources = checkNotNull(cachedResources, "cachedResources");
     }
   }
 
-  ValidatedResourceUpdate<T> parse(Args args, List<Any> resources) {
-    Map<String, ParsedResource<T>> parsedResources = new HashMap<>(resources.size());
-    Set<String> unpackedResources = new HashSet<>(resources.size());
-    Set<String> invalidResources = new HashSet<>();
-    List<String> errors = new ArrayList<>();
+  /** A previously accepted resource, reused when the same bytes are received again. */
+  static final class CachedResource {
+    final String name;
+    final ResourceUpdate resourceUpdate;
 
+    CachedResource(String name, ResourceUpdate resourceUpdate) {
+      this.name = checkNotNull(name, "name");
+      this.resourceUpdate = checkNotNull(resourceUpdate, "resourceUpdate");
+    }
+  }
+
+  ValidatedResourceUpdate<T> parse(Args args, List<Any> resources) {
+    ValidatedResourceUpdate<T> result = ValidatedResourceUpdate.empty(resources.size());
     for (int i = 0; i < resources.size(); i++) {
-      Any resource = resources.get(i);
-
-      Message unpackedMessage;
-      try {
-        resource = maybeUnwrapResources(resource);
-        unpackedMessage = unpackCompatibleType(resource, unpackedClassName(), typeUrl(), null);
-      } catch (InvalidProtocolBufferException e) {
-        errors.add(String.format("%s response Resource index %d - can't decode %s: %s",
-                typeName(), i, unpackedClassName().getSimpleName(), e.getMessage()));
-        continue;
-      }
-      String name = extractResourceName(unpackedMessage);
-      if (name == null || !isResourceNameValid(name, resource.getTypeUrl())) {
-        errors.add(
-            "Unsupported resource name: " + name + " for type: " + typeName());
-        continue;
-      }
-      String cname = canonifyResourceName(name);
-      if (args.subscribedResources != null && !args.subscribedResources.contains(name)) {
-        continue;
-      }
-      unpackedResources.add(cname);
-
-      T resourceUpdate;
-      try {
-        resourceUpdate = doParse(args, unpackedMessage);
-      } catch (XdsClientImpl.ResourceInvalidException e) {
-        errors.add(String.format("%s response %s '%s' validation error: %s",
-                typeName(), unpackedClassName().getSimpleName(), cname, e.getMessage()));
-        invalidResources.add(cname);
-        continue;
+      parseResource(args, i, resources.get(i), result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns a task that parses the resources like {@link #parse}, forking subtasks so that
+   * resources are parsed in parallel when run in a {@link java.util.concurrent.ForkJoinPool}.
+   */
+  RecursiveTask<ValidatedResourceUpdate<T>> parseTask(Args args, List<Any> resources) {
+    return new ParseTask(args, resources, 0, resources.size());
+  }
+
+  @SuppressWarnings("unchecked")
+  private void parseResource(
+      Args args, int index, Any resource, ValidatedResourceUpdate<T> result) {
+    Message unpackedMessage;
+    try {
+      resource = maybeUnwrapResources(resource);
+      CachedResource cached = args.cachedResources.get(resource);
+      if (cached != null) {
+        // Same bytes as the resource already accepted, which was subscribed to.
+        result.unpackedResources.add(cached.name);
+        result.parsedResources.put(
+            cached.name, new ParsedResource<T>((T) cached.resourceUpdate, resource));
+        return;
       }
+      unpackedMessage = unpackCompatibleType(resource, unpackedClassName(), typeUrl(), null);
+    } catch (InvalidProtocolBufferException e) {
+      result.errors.add(String.format("%s response Resource index %d - can't decode %s: %s",
+              typeName(), index, unpackedClassName().getSimpleName(), e.getMessage()));
+      return;
+    }
+    String name = extractResourceName(unpackedMessage);
+    if (name == null || !isResourceNameValid(name, resource.getTypeUrl())) {
+      result.errors.add(
+          "Unsupported resource name: " + name + " for type: " + typeName());
+      return;
+    }
+    String cname = canonifyResourceName(name);
+    if (args.subscribedResources != null && !args.subscribedResources.contains(name)) {
+      return;
+    }
+    result.unpackedResources.add(cname);
+
+    T resourceUpdate;
+    try {
+      resourceUpdate = doParse(args, unpackedMessage);
+    } catch (XdsClientImpl.ResourceInvalidException e) {
+      result.errors.add(String.format("%s response %s '%s' validation error: %s",
+              typeName(), unpackedClassName().getSimpleName(), cname, e.getMessage()));
+      result.invalidResources.add(cname);
+      return;
+    }
+
+    // Resource parsed successfully.
+    result.parsedResources.put(cname, new ParsedResource<T>(resourceUpdate, resource));
+  }
 
-      // Resource parsed successfully.
-      parsedResources.put(cname, new ParsedResource<T>(resourceUpdate, resource));
+  /**
+   * Parses the resources in {@code [start, end)}, splitting the range in half until it is at
+   * most {@link #PARSE_CHUNK_SIZE} long. Results are merged in resource order, so they are the
+   * same as parsing serially.
+   */
+  private final class ParseTask extends RecursiveTask<ValidatedResourceUpdate<T>> {
+    private static final long serialVersionUID = 0L;
+
+    private final Args args;
+    private final List<Any> resources;
+    private final int start;
+    private final int end;
+
+    ParseTask(Args args, List<Any> resources, int start, int end) {
+      this.args = args;
+      this.resources = resources;
+      this.start = start;
+      this.end = end;
     }
-    return new ValidatedResourceUpdate<T>(parsedResources, unpackedResources, invalidResources,
-        errors);
 
+    @Override
+    protected ValidatedResourceUpdate<T> compute() {
+      if (end - start <= PARSE_CHUNK_SIZE) {
+        ValidatedResourceUpdate<T> result = ValidatedResourceUpdate.empty(end - start);
+        for (int i = start; i < end; i++) {
+          parseResource(args, i, resources.get(i), result);
+        }
+        return result;
+      }
+      int mid = (start + end) >>> 1;
+      ParseTask first = new ParseTask(args, resources, start, mid);
+      first.fork();
+      ValidatedResourceUpdate<T> second = new ParseTask(args, resources, mid, end).compute();
+      ValidatedResourceUpdate<T> result = first.join();
+      result.parsedResources.putAll(second.parsedResources);
+      result.unpackedResources.addAll(second.unpackedResources);
+      result.invalidResources.addAll(second.invalidResources);
+      result.errors.addAll(second.errors);
+      return result;
+    }
   }
 
   abstract T doParse(Args args, Message unpackedMessage) throws ResourceInvalidException;
@@ -229,6 +317,11 @@ abstract class XdsResourceType<T extends ResourceUpdate> {
       this.invalidResources = invalidResources;
       this.errors = errors;
     }
+
+    static <T extends ResourceUpdate> ValidatedResourceUpdate<T> empty(int expectedSize) {
+      return new ValidatedResourceUpdate<T>(new HashMap<String, ParsedResource<T>>(expectedSize),
+          new HashSet<String>(expectedSize), new HashSet<String>(), new ArrayList<String>());
+    }
   }
 
   private static boolean getFlag(String envVarName, boolean enableByDefault) {
@@ -559,6 +559,18 @@ public class BootstrapperImplTest {
     assertThat(info.serverListenerResourceNameTemplate()).isEqualTo("grpc/serverx=%s");
   }
 
+  @Test
+  public void parseBootstrap_resourceCacheDirectory() throws XdsInitializationException {
+    String rawData = "{\n"
+            + "  \"xds_servers\": [],\n"
+            + "  \"resource_cache_directory\": \"/var/cache/grpc-xds\"\n"
+            + "}";
+
+    bootstrapper.setFileReader(createFileReader(BOOTSTRAP_FILE_PATH, rawData));
+    BootstrapInfo info = bootstrapper.bootstrap();
+    assertThat(info.resourceCacheDirectory()).isEqualTo("/var/cache/grpc-xds");
+  }
+
   @Test
   public void useV2ProtocolByDefault() throws XdsInitializationException {
     String rawData = "{\n"
@@ -649,6 +661,27 @@ public class BootstrapperImplTest {
     assertThat(serverInfo.ignoreResourceDeletion()).isTrue();
   }
 
+  @Test
+  public void serverFeatureDeltaXds() throws XdsInitializationException {
+    String rawData = "{\n"
+        + "  \"xds_servers\": [\n"
+        + "    {\n"
+        + "      \"server_uri\": \"" + SERVER_URI + "\",\n"
+        + "      \"channel_creds\": [\n"
+        + "        {\"type\": \"insecure\"}\n"
+        + "      ],\n"
+        + "      \"server_features\": [\"xds_v3\", \"delta_xds\"]\n"
+        + "    }\n"
+        + "  ]\n"
+        + "}";
+
+    bootstrapper.setFileReader(createFileReader(BOOTSTRAP_FILE_PATH, rawData));
+    BootstrapInfo info = bootstrapper.bootstrap();
+    ServerInfo serverInfo = Iterables.getOnlyElement(info.servers());
+    assertThat(serverInfo.useDeltaProtocol()).isTrue();
+    assertThat(serverInfo.ignoreResourceDeletion()).isFalse();
+  }
+
   @Test
   public void notFound() {
     BootstrapperImpl.bootstrapPathFromEnvVar = null;
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link CallCounter}.
+ */
+@RunWith(JUnit4.class)
+public class CallCounterTest {
+
+  private final CallCounter counter = new CallCounter();
+
+  @Test
+  public void countsExactly() {
+    for (int i = 0; i < 3 * CallCounter.BATCH; i++) {
+      counter.increment();
+    }
+    assertThat(counter.get()).isEqualTo(3 * CallCounter.BATCH);
+    for (int i = 0; i < CallCounter.BATCH + 1; i++) {
+      counter.decrement();
+    }
+    assertThat(counter.get()).isEqualTo(2 * CallCounter.BATCH - 1);
+  }
+
+  @Test
+  public void isBelow_exactNearLimit() {
+    for (int i = 0; i < 100; i++) {
+      assertThat(counter.isBelow(100)).isTrue();
+      counter.increment();
+    }
+    assertThat(counter.isBelow(100)).isFalse();
+    assertThat(counter.isBelow(101)).isTrue();
+    counter.decrement();
+    assertThat(counter.isBelow(100)).isTrue();
+  }
+
+  @Test
+  public void isBelow_farFromLimit() {
+    long count = CallCounter.maxError() * 3;
+    for (long i = 0; i < count; i++) {
+      counter.increment();
+    }
+    assertThat(counter.isBelow(Long.MAX_VALUE / 2)).isTrue();
+    assertThat(counter.isBelow(1)).isFalse();
+    assertThat(counter.isBelow(count)).isFalse();
+    assertThat(counter.isBelow(count + 1)).isTrue();
+  }
+
+  @Test
+  public void concurrentUpdates() throws Exception {
+    final int threadCount = 8;
+    final int callsPerThread = 10_000;
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+          for (int i = 0; i < callsPerThread; i++) {
+            counter.increment();
+          }
+          for (int i = 0; i < callsPerThread / 2; i++) {
+            counter.decrement();
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(counter.get()).isEqualTo(threadCount * callsPerThread / 2);
+  }
+
+  @Test
+  public void cellCount() {
+    assertThat(CallCounter.cellCount(1)).isEqualTo(1);
+    assertThat(CallCounter.cellCount(6)).isEqualTo(8);
+    assertThat(CallCounter.cellCount(256)).isEqualTo(64);
+  }
+}
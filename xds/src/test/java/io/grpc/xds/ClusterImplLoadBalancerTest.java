@@ -70,7 +70,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.junit.After;
@@ -132,8 +131,8 @@ public class ClusterImplLoadBalancerTest {
   };
   private final CallCounterProvider callCounterProvider = new CallCounterProvider() {
     @Override
-    public AtomicLong getOrCreate(String cluster, @Nullable String edsServiceName) {
-      return new AtomicLong();
+    public CallCounter getOrCreate(String cluster, @Nullable String edsServiceName) {
+      return new CallCounter();
     }
   };
   private final Helper helper = new FakeLbHelper();
@@ -27,8 +27,10 @@ import io.grpc.xds.LoadStatsManager2.ClusterLocalityStats;
 import io.grpc.xds.Stats.ClusterStats;
 import io.grpc.xds.Stats.DroppedRequests;
 import io.grpc.xds.Stats.UpstreamLocalityStats;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import org.junit.Test;
@@ -300,6 +302,62 @@ public class LoadStatsManager2Test {
     assertThat(loadStatsManager.getClusterStatsReports(CLUSTER_NAME1)).isEmpty();
   }
 
+  @Test
+  public void loadCounterConcurrentRecordingAndSnapshots() throws Exception {
+    final ClusterLocalityStats counter = loadStatsManager.getClusterLocalityStats(
+        CLUSTER_NAME1, EDS_SERVICE_NAME1, LOCALITY1);
+    final int numThreads = 4;
+    final int callsPerThread = 10000;
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+          for (int i = 0; i < callsPerThread; i++) {
+            counter.recordCallStarted();
+            counter.recordBackendLoadMetricStats(ImmutableMap.of("named1", 1.0));
+            counter.recordCallFinished(i % 2 == 0 ? Status.OK : Status.UNAVAILABLE);
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    long issued = 0;
+    long succeeded = 0;
+    long failed = 0;
+    long requestsWithMetric = 0;
+    start.countDown();
+    boolean running = true;
+    while (running) {
+      running = false;
+      for (Thread thread : threads) {
+        running |= thread.isAlive();
+      }
+      // Snapshot while the recording threads are running, then once more after they finished.
+      UpstreamLocalityStats localityStats = Iterables.getOnlyElement(Iterables.getOnlyElement(
+          loadStatsManager.getClusterStatsReports(CLUSTER_NAME1)).upstreamLocalityStatsList());
+      issued += localityStats.totalIssuedRequests();
+      succeeded += localityStats.totalSuccessfulRequests();
+      failed += localityStats.totalErrorRequests();
+      if (localityStats.loadMetricStatsMap().containsKey("named1")) {
+        requestsWithMetric +=
+            localityStats.loadMetricStatsMap().get("named1").numRequestsFinishedWithMetric();
+      }
+    }
+    long total = (long) numThreads * callsPerThread;
+    assertThat(issued).isEqualTo(total);
+    assertThat(succeeded).isEqualTo(total / 2);
+    assertThat(failed).isEqualTo(total / 2);
+    assertThat(requestsWithMetric).isEqualTo(total);
+  }
+
   @Nullable
   private static ClusterStats findClusterStats(
       List<ClusterStats> statsList, String cluster, @Nullable String edsServiceName) {
@@ -18,12 +18,14 @@ package io.grpc.xds;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.collect.Iterables;
 import com.google.common.testing.GcFinalization;
 import com.google.common.testing.GcFinalization.FinalizationPredicate;
+import io.grpc.xds.InternalCircuitBreakerStats.CallCounterStats;
+import io.grpc.xds.SharedCallCounterMap.CounterKey;
 import io.grpc.xds.SharedCallCounterMap.CounterReference;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -37,21 +39,23 @@ public class SharedCallCounterMapTest {
   private static final String CLUSTER = "cluster-foo.googleapis.com";
   private static final String EDS_SERVICE_NAME = null;
 
-  private final Map<String, Map<String, CounterReference>> counters = new HashMap<>();
+  private static final CounterKey KEY = new CounterKey(CLUSTER, EDS_SERVICE_NAME);
+
+  private final ConcurrentMap<CounterKey, CounterReference> counters = new ConcurrentHashMap<>();
   private final SharedCallCounterMap map = new SharedCallCounterMap(counters);
 
   @Test
   public void sharedCounterInstance() {
-    AtomicLong counter1 = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
-    AtomicLong counter2 = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
+    CallCounter counter1 = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
+    CallCounter counter2 = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
     assertThat(counter2).isSameInstanceAs(counter1);
   }
 
   @Test
   public void autoCleanUp() {
     @SuppressWarnings("UnusedVariable")
-    AtomicLong counter = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
-    final CounterReference ref = counters.get(CLUSTER).get(EDS_SERVICE_NAME);
+    CallCounter counter = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
+    final CounterReference ref = counters.get(KEY);
     counter = null;
     GcFinalization.awaitDone(new FinalizationPredicate() {
       @Override
@@ -66,8 +70,8 @@ public class SharedCallCounterMapTest {
   @Test
   public void gcAndRecreate() {
     @SuppressWarnings("UnusedVariable") // assign to null for GC only
-    AtomicLong counter = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
-    final CounterReference ref = counters.get(CLUSTER).get(EDS_SERVICE_NAME);
+    CallCounter counter = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
+    final CounterReference ref = counters.get(KEY);
     assertThat(counter.get()).isEqualTo(0);
     counter = null;
     GcFinalization.awaitDone(new FinalizationPredicate() {
@@ -77,7 +81,33 @@ public class SharedCallCounterMapTest {
       }
     });
     map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
-    assertThat(counters.get(CLUSTER)).isNotNull();
-    assertThat(counters.get(CLUSTER).get(EDS_SERVICE_NAME)).isNotNull();
+    assertThat(counters.get(KEY)).isNotNull();
+    assertThat(counters.get(KEY)).isNotSameInstanceAs(ref);
+  }
+
+  @Test
+  public void countersOfDifferentEdsServiceNames() {
+    CallCounter counter1 = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
+    CallCounter counter2 = map.getOrCreate(CLUSTER, "eds-service-bar");
+    assertThat(counter2).isNotSameInstanceAs(counter1);
+    assertThat(map.getOrCreate(CLUSTER, "eds-service-bar")).isSameInstanceAs(counter2);
+  }
+
+  @Test
+  public void stats() {
+    CallCounter counter = map.getOrCreate(CLUSTER, EDS_SERVICE_NAME);
+    counter.setMaxConcurrentRequests(10);
+    counter.increment();
+    counter.increment();
+    counter.recordDropped();
+
+    CallCounterStats stats = Iterables.getOnlyElement(map.getStats());
+    assertThat(stats.cluster()).isEqualTo(CLUSTER);
+    assertThat(stats.edsServiceName()).isNull();
+    assertThat(stats.inFlightRequests()).isEqualTo(2);
+    assertThat(stats.maxConcurrentRequests()).isEqualTo(10);
+    assertThat(stats.droppedRequests()).isEqualTo(1);
+    assertThat(stats.headroom()).isEqualTo(8);
+    assertThat(counter.get()).isEqualTo(2);
   }
 }
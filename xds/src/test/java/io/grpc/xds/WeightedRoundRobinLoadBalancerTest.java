@@ -17,6 +17,7 @@
 package io.grpc.xds;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.AdditionalAnswers.delegatesTo;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
@@ -54,10 +55,12 @@ import io.grpc.services.MetricReport;
 import io.grpc.util.AbstractTestHelper;
 import io.grpc.util.MultiChildLoadBalancer.ChildLbState;
 import io.grpc.xds.WeightedRoundRobinLoadBalancer.StaticStrideScheduler;
+import io.grpc.xds.WeightedRoundRobinLoadBalancer.StripedSequence;
 import io.grpc.xds.WeightedRoundRobinLoadBalancer.WeightedChildLbState;
 import io.grpc.xds.WeightedRoundRobinLoadBalancer.WeightedRoundRobinLoadBalancerConfig;
 import io.grpc.xds.WeightedRoundRobinLoadBalancer.WeightedRoundRobinPicker;
 import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -842,7 +845,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void emptyWeights() {
     float[] weights = {};
     Random random = new Random(0);
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(random.nextInt()));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(random.nextInt()));
     sss.pick();
   }
 
@@ -850,7 +853,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void testPicksEqualsWeights() {
     float[] weights = {1.0f, 2.0f, 3.0f};
     Random random = new Random(0);
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(random.nextInt()));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(random.nextInt()));
     int[] expectedPicks = new int[] {1, 2, 3};
     int[] picks = new int[3];
     for (int i = 0; i < 6; i++) {
@@ -863,7 +866,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void testContainsZeroWeightUseMean() {
     float[] weights = {3.0f, 0.0f, 1.0f};
     Random random = new Random(0);
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(random.nextInt()));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(random.nextInt()));
     int[] expectedPicks = new int[] {3, 2, 1};
     int[] picks = new int[3];
     for (int i = 0; i < 6; i++) {
@@ -876,7 +879,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void testContainsNegativeWeightUseMean() {
     float[] weights = {3.0f, -1.0f, 1.0f};
     Random random = new Random(0);
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(random.nextInt()));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(random.nextInt()));
     int[] expectedPicks = new int[] {3, 2, 1};
     int[] picks = new int[3];
     for (int i = 0; i < 6; i++) {
@@ -889,7 +892,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void testAllSameWeights() {
     float[] weights = {1.0f, 1.0f, 1.0f};
     Random random = new Random(0);
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(random.nextInt()));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(random.nextInt()));
     int[] expectedPicks = new int[] {2, 2, 2};
     int[] picks = new int[3];
     for (int i = 0; i < 6; i++) {
@@ -902,7 +905,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void testAllZeroWeightsIsRoundRobin() {
     float[] weights = {0.0f, 0.0f, 0.0f};
     Random random = new Random(0);
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(random.nextInt()));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(random.nextInt()));
     int[] expectedPicks = new int[] {2, 2, 2};
     int[] picks = new int[3];
     for (int i = 0; i < 6; i++) {
@@ -915,7 +918,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void testAllInvalidWeightsIsRoundRobin() {
     float[] weights = {-3.1f, -0.0f, 0.0f};
     Random random = new Random(0);
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(random.nextInt()));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(random.nextInt()));
     int[] expectedPicks = new int[] {2, 2, 2};
     int[] picks = new int[3];
     for (int i = 0; i < 6; i++) {
@@ -928,7 +931,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void testTwoWeights() {
     float[] weights = {1.43f, 2.119f};
     Random random = new Random(0);
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(random.nextInt()));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(random.nextInt()));
     double totalWeight = 1.43 + 2.119;
     Map<Integer, Integer> pickCount = new HashMap<>();
     for (int i = 0; i < 1000; i++) {
@@ -945,7 +948,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void testManyWeights() {
     float[] weights = {1.3f, 2.5f, 3.23f, 4.11f, 7.001f};
     Random random = new Random(0);
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(random.nextInt()));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(random.nextInt()));
     double totalWeight = 1.3 + 2.5 + 3.23 + 4.11 + 7.001;
     Map<Integer, Integer> pickCount = new HashMap<>();
     for (int i = 0; i < 1000; i++) {
@@ -962,7 +965,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   public void testMaxClamped() {
     float[] weights = {81f, 1f, 1f, 1f, 1f, 1f, 1f, 1f,
         1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f, 1f};
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(0));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(0));
     int[] picks = new int[weights.length];
 
     // max gets clamped to mean*maxRatio = 50 for this set of weights. So if we
@@ -977,7 +980,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   @Test
   public void testMinClamped() {
     float[] weights = {100f, 1e-10f};
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(0));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(0));
     int[] picks = new int[weights.length];
 
     // We pick 201 elements and ensure that the second channel (with epsilon
@@ -994,7 +997,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   @Test
   public void testDeterministicPicks() {
     float[] weights = {2.0f, 3.0f, 6.0f};
-    AtomicInteger sequence = new AtomicInteger(0);
+    StripedSequence sequence = new StripedSequence(0);
     VerifyingScheduler sss = new VerifyingScheduler(weights, sequence);
     assertThat(sequence.get()).isEqualTo(0);
     assertThat(sss.pick()).isEqualTo(1);
@@ -1014,7 +1017,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   @Test
   public void testImmediateWraparound() {
     float[] weights = {1.0f, 2.0f, 3.0f, 4.0f, 5.0f};
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(-1));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(-1));
     double totalWeight = 15;
     Map<Integer, Integer> pickCount = new HashMap<>();
     for (int i = 0; i < 1000; i++) {
@@ -1030,7 +1033,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   @Test
   public void testWraparound() {
     float[] weights = {1.0f, 2.0f, 3.0f, 4.0f, 5.0f};
-    VerifyingScheduler sss = new VerifyingScheduler(weights, new AtomicInteger(-500));
+    VerifyingScheduler sss = new VerifyingScheduler(weights, new StripedSequence(-500));
     double totalWeight = 15;
     Map<Integer, Integer> pickCount = new HashMap<>();
     for (int i = 0; i < 1000; i++) {
@@ -1046,7 +1049,7 @@ public class WeightedRoundRobinLoadBalancerTest {
   @Test
   public void testDeterministicWraparound() {
     float[] weights = {2.0f, 3.0f, 6.0f};
-    AtomicInteger sequence = new AtomicInteger(-1);
+    StripedSequence sequence = new StripedSequence(-1);
     VerifyingScheduler sss = new VerifyingScheduler(weights, sequence);
     assertThat(sequence.get()).isEqualTo(-1);
     assertThat(sss.pick()).isEqualTo(1);
@@ -1063,12 +1066,61 @@ public class WeightedRoundRobinLoadBalancerTest {
     assertThat(sequence.get()).isEqualTo(9);
   }
 
+  @Test
+  public void testStripedSequence_concurrentPicksKeepWeights() throws Exception {
+    float[] weights = {1.0f, 2.0f, 3.0f, 4.0f, 5.0f};
+    StaticStrideScheduler sss =
+        new StaticStrideScheduler(weights, new StripedSequence(4, new Random()));
+    int numThreads = 8;
+    int picksPerThread = 15000;
+    AtomicInteger[] pickCount = new AtomicInteger[weights.length];
+    for (int i = 0; i < pickCount.length; i++) {
+      pickCount[i] = new AtomicInteger();
+    }
+    CyclicBarrier barrier = new CyclicBarrier(numThreads);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < numThreads; t++) {
+      Thread thread = new Thread(() -> {
+        try {
+          barrier.await();
+        } catch (Exception e) {
+          throw new AssertionError(e);
+        }
+        for (int i = 0; i < picksPerThread; i++) {
+          pickCount[sss.pick()].incrementAndGet();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    double totalWeight = 15;
+    double totalPicks = numThreads * picksPerThread;
+    for (int i = 0; i < weights.length; i++) {
+      assertThat(Math.abs(pickCount[i].get() / totalPicks - weights[i] / totalWeight))
+          .isLessThan(0.01);
+    }
+  }
+
+  @Test
+  public void testStripedSequence_stripeCountMustBePowerOfTwo() {
+    try {
+      new StripedSequence(3, new Random());
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      assertThat(expected).hasMessageThat().contains("power of two");
+    }
+    assertThat(Integer.bitCount(StripedSequence.defaultStripeCount())).isEqualTo(1);
+  }
+
   private static final class VerifyingScheduler {
     private final StaticStrideScheduler delegate;
     private final int max;
-    private final AtomicInteger sequence;
+    private final StripedSequence sequence;
 
-    public VerifyingScheduler(float[] weights, AtomicInteger sequence) {
+    public VerifyingScheduler(float[] weights, StripedSequence sequence) {
       this.delegate = new StaticStrideScheduler(weights, sequence);
       this.max = weights.length;
       this.sequence = sequence;
@@ -136,14 +136,19 @@ import io.grpc.xds.VirtualHost.Route.RouteMatch.PathMatcher;
 import io.grpc.xds.WeightedRoundRobinLoadBalancer.WeightedRoundRobinLoadBalancerConfig;
 import io.grpc.xds.XdsClientImpl.ResourceInvalidException;
 import io.grpc.xds.XdsClusterResource.CdsUpdate;
+import io.grpc.xds.XdsEndpointResource.EdsUpdate;
+import io.grpc.xds.XdsResourceType.CachedResource;
 import io.grpc.xds.XdsResourceType.StructOrError;
+import io.grpc.xds.XdsResourceType.ValidatedResourceUpdate;
 import io.grpc.xds.internal.Matchers;
 import io.grpc.xds.internal.Matchers.FractionMatcher;
 import io.grpc.xds.internal.Matchers.HeaderMatcher;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -2890,6 +2895,63 @@ public class XdsClientImplDataTest {
     assertThat(XdsClient.percentEncodePath(ipv6)).isEqualTo("%5B::1%5D:8080");
   }
 
+  @Test
+  public void parseResources_unchangedBytesNotParsedAgain() {
+    Any invalid = Any.newBuilder()
+        .setTypeUrl(XdsEndpointResource.getInstance().typeUrl())
+        .setValue(ByteString.copyFromUtf8("not a ClusterLoadAssignment"))
+        .build();
+    EdsUpdate cachedUpdate = new EdsUpdate("cluster-foo.googleapis.com",
+        Collections.<io.grpc.xds.Locality, LocalityLbEndpoints>emptyMap(),
+        Collections.<Endpoints.DropOverload>emptyList());
+    XdsResourceType.Args args = new XdsResourceType.Args(LRS_SERVER_INFO, "1", "0000", null, null,
+        null, null, null,
+        ImmutableMap.of(invalid, new CachedResource("cluster-foo.googleapis.com", cachedUpdate)));
+
+    ValidatedResourceUpdate<EdsUpdate> result =
+        XdsEndpointResource.getInstance().parse(args, Collections.singletonList(invalid));
+    assertThat(result.errors).isEmpty();
+    assertThat(result.unpackedResources).containsExactly("cluster-foo.googleapis.com");
+    assertThat(result.parsedResources.get("cluster-foo.googleapis.com").getResourceUpdate())
+        .isSameInstanceAs(cachedUpdate);
+  }
+
+  @Test
+  public void parseResources_parallelSameAsSerial() {
+    List<Any> resources = new ArrayList<>();
+    for (int i = 0; i < 5 * XdsResourceType.PARSE_CHUNK_SIZE; i++) {
+      io.envoyproxy.envoy.config.endpoint.v3.ClusterLoadAssignment.Builder builder =
+          io.envoyproxy.envoy.config.endpoint.v3.ClusterLoadAssignment.newBuilder()
+              .setClusterName("cluster-" + i + ".googleapis.com");
+      if (i % 7 == 0) {
+        // Negative priorities are invalid.
+        builder.addEndpoints(
+            io.envoyproxy.envoy.config.endpoint.v3.LocalityLbEndpoints.newBuilder()
+                .setLocality(Locality.newBuilder().setRegion("region"))
+                .setLoadBalancingWeight(UInt32Value.of(1))
+                .setPriority(-1));
+      }
+      resources.add(Any.pack(builder.build()));
+    }
+    XdsResourceType.Args args = new XdsResourceType.Args(
+        LRS_SERVER_INFO, "1", "0000", null, null, null, null, null);
+
+    ValidatedResourceUpdate<EdsUpdate> serial =
+        XdsEndpointResource.getInstance().parse(args, resources);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ValidatedResourceUpdate<EdsUpdate> parallel;
+    try {
+      parallel = pool.invoke(XdsEndpointResource.getInstance().parseTask(args, resources));
+    } finally {
+      pool.shutdown();
+    }
+    assertThat(serial.invalidResources).isNotEmpty();
+    assertThat(parallel.parsedResources.keySet()).isEqualTo(serial.parsedResources.keySet());
+    assertThat(parallel.unpackedResources).isEqualTo(serial.unpackedResources);
+    assertThat(parallel.invalidResources).isEqualTo(serial.invalidResources);
+    assertThat(parallel.errors).containsExactlyElementsIn(serial.errors).inOrder();
+  }
+
   private static Filter buildHttpConnectionManagerFilter(HttpFilter... httpFilters) {
     return Filter.newBuilder()
         .setName("envoy.http_connection_manager")
@@ -23,6 +23,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -64,6 +65,7 @@ import io.grpc.internal.BackoffPolicy;
 import io.grpc.internal.FakeClock;
 import io.grpc.internal.FakeClock.ScheduledTask;
 import io.grpc.internal.FakeClock.TaskFilter;
+import io.grpc.internal.FixedObjectPool;
 import io.grpc.internal.JsonUtil;
 import io.grpc.internal.ServiceConfigUtil;
 import io.grpc.internal.ServiceConfigUtil.LbConfig;
@@ -96,14 +98,20 @@ import io.grpc.xds.XdsEndpointResource.EdsUpdate;
 import io.grpc.xds.XdsListenerResource.LdsUpdate;
 import io.grpc.xds.XdsRouteConfigureResource.RdsUpdate;
 import io.grpc.xds.internal.security.CommonTlsContextTestsUtil;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -113,6 +121,7 @@ import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.ArgumentCaptor;
@@ -199,6 +208,8 @@ public abstract class XdsClientImplTestBase {
   public final GrpcCleanupRule cleanupRule = new GrpcCleanupRule();
   @Rule
   public final MockitoRule mocks = MockitoJUnit.rule();
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
 
   private final FakeClock fakeClock = new FakeClock();
   protected final BlockingDeque<DiscoveryRpcCall> resourceDiscoveryCalls =
@@ -210,6 +221,19 @@ public abstract class XdsClientImplTestBase {
   protected final AtomicBoolean adsEnded = new AtomicBoolean(true);
   protected final AtomicBoolean lrsEnded = new AtomicBoolean(true);
   private final MessageFactory mf = createMessageFactory();
+  // Parses of large responses are held back here while holdParses is set.
+  private final Queue<Runnable> heldParses = new ConcurrentLinkedQueue<>();
+  private volatile boolean holdParses;
+  private final ForkJoinPool parsePool = new ForkJoinPool(2) {
+    @Override
+    public void execute(Runnable task) {
+      if (holdParses) {
+        heldParses.add(task);
+      } else {
+        super.execute(task);
+      }
+    }
+  };
 
   private static final long TIME_INCREMENT = TimeUnit.SECONDS.toNanos(1);
   /** Fake time provider increments time TIME_INCREMENT each call. */
@@ -285,6 +309,7 @@ public abstract class XdsClientImplTestBase {
   private ManagedChannel channel;
   private ManagedChannel channelForCustomAuthority;
   private ManagedChannel channelForEmptyAuthority;
+  private XdsChannelFactory xdsChannelFactory;
   private XdsClientImpl xdsClient;
   private boolean originalEnableLeastRequest;
   private boolean originalEnableFederation;
@@ -314,7 +339,7 @@ public abstract class XdsClientImplTestBase {
         .start());
     channel =
         cleanupRule.register(InProcessChannelBuilder.forName(serverName).directExecutor().build());
-    XdsChannelFactory xdsChannelFactory = new XdsChannelFactory() {
+    xdsChannelFactory = new XdsChannelFactory() {
       @Override
       ManagedChannel create(ServerInfo serverInfo) {
         if (serverInfo.target().equals(SERVER_URI)) {
@@ -358,16 +383,7 @@ public abstract class XdsClientImplTestBase {
             .certProviders(ImmutableMap.of("cert-instance-name",
                 CertificateProviderInfo.create("file-watcher", ImmutableMap.<String, Object>of())))
             .build();
-    xdsClient =
-        new XdsClientImpl(
-            xdsChannelFactory,
-            bootstrapInfo,
-            Context.ROOT,
-            fakeClock.getScheduledExecutorService(),
-            backoffPolicyProvider,
-            fakeClock.getStopwatchSupplier(),
-            timeProvider,
-            tlsContextManager);
+    xdsClient = newXdsClient(bootstrapInfo);
 
     assertThat(resourceDiscoveryCalls).isEmpty();
     assertThat(loadReportCalls).isEmpty();
@@ -378,12 +394,67 @@ public abstract class XdsClientImplTestBase {
     XdsResourceType.enableLeastRequest = originalEnableLeastRequest;
     BootstrapperImpl.enableFederation = originalEnableFederation;
     xdsClient.shutdown();
+    parsePool.shutdown();
     channel.shutdown();  // channel not owned by XdsClient
     assertThat(adsEnded.get()).isTrue();
     assertThat(lrsEnded.get()).isTrue();
     assertThat(fakeClock.getPendingTasks()).isEmpty();
   }
 
+  private XdsClientImpl newXdsClient(BootstrapInfo bootstrapInfo) {
+    return newXdsClient(bootstrapInfo, MoreExecutors.directExecutor());
+  }
+
+  private XdsClientImpl newXdsClient(
+      BootstrapInfo bootstrapInfo, Executor resourceCacheExecutor) {
+    return new XdsClientImpl(
+        xdsChannelFactory,
+        bootstrapInfo,
+        Context.ROOT,
+        fakeClock.getScheduledExecutorService(),
+        backoffPolicyProvider,
+        fakeClock.getStopwatchSupplier(),
+        timeProvider,
+        tlsContextManager,
+        new FixedObjectPool<>(parsePool),
+        new FixedObjectPool<>(resourceCacheExecutor));
+  }
+
+  /**
+   * Replaces the client under test with one that talks the incremental (delta) variant of the
+   * xDS protocol to the same management server.
+   */
+  private void useDeltaXdsClient() {
+    xdsClient.shutdown();
+    ServerInfo deltaServerInfo =
+        ServerInfo.create(SERVER_URI, CHANNEL_CREDENTIALS, ignoreResourceDeletion(), true);
+    xdsClient = newXdsClient(
+        BootstrapInfo.builder()
+            .servers(Collections.singletonList(deltaServerInfo))
+            .node(NODE)
+            .build());
+  }
+
+  /**
+   * Replaces the client under test with one that keeps a copy of accepted resources in the given
+   * directory.
+   */
+  private void useXdsClientWithResourceCache(File cacheDirectory) {
+    useXdsClientWithResourceCache(cacheDirectory, MoreExecutors.directExecutor());
+  }
+
+  private void useXdsClientWithResourceCache(
+      File cacheDirectory, Executor resourceCacheExecutor) {
+    xdsClient.shutdown();
+    xdsClient = newXdsClient(
+        BootstrapInfo.builder()
+            .servers(Collections.singletonList(xdsServerInfo))
+            .node(NODE)
+            .resourceCacheDirectory(cacheDirectory.getPath())
+            .build(),
+        resourceCacheExecutor);
+  }
+
   protected abstract boolean useProtocolV3();
 
   /** Whether ignore_resource_deletion server feature is enabled for the given test. */
@@ -2755,6 +2826,296 @@ public abstract class XdsClientImplTestBase {
     verifySubscribedResourcesMetadataSizes(0, 2, 0, 0);
   }
 
+  @Test
+  public void cdsResponseWithManyResources_parsedInParallelAndAppliedInOrder() {
+    List<String> clusterNames = new ArrayList<>();
+    List<Any> clusters = new ArrayList<>();
+    for (int i = 0; i < XdsClientImpl.PARALLEL_PARSE_THRESHOLD; i++) {
+      String clusterName = "cluster-" + i + ".googleapis.com";
+      clusterNames.add(clusterName);
+      clusters.add(Any.pack(mf.buildEdsCluster(clusterName, null, "round_robin", null, null, false,
+          null, "envoy.transport_sockets.tls", null, null)));
+      xdsClient.watchXdsResource(XdsClusterResource.getInstance(), clusterName, cdsResourceWatcher);
+    }
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+    call.sendResponse(CDS, clusters, VERSION_1, "0000");
+    // Received while the first response may still be parsed.
+    List<Any> updatedClusters = new ArrayList<>(clusters);
+    updatedClusters.set(0, Any.pack(mf.buildLogicalDnsCluster(clusterNames.get(0),
+        "dns-service-bar.googleapis.com", 443, "round_robin", null, null, false, null, null)));
+    call.sendResponse(CDS, updatedClusters, VERSION_2, "0001");
+
+    verify(cdsResourceWatcher, timeout(5000).times(clusters.size() + 1))
+        .onChanged(cdsUpdateCaptor.capture());
+    call.verifyRequest(CDS, clusterNames, VERSION_1, "0000", NODE);
+    call.verifyRequest(CDS, clusterNames, VERSION_2, "0001", NODE);
+    CdsUpdate lastUpdate = Iterables.getLast(cdsUpdateCaptor.getAllValues());
+    assertThat(lastUpdate.clusterName()).isEqualTo(clusterNames.get(0));
+    assertThat(lastUpdate.clusterType()).isEqualTo(ClusterType.LOGICAL_DNS);
+  }
+
+  @Test
+  public void cdsResponseParsedAfterStreamRestart_notAcked() {
+    DiscoveryRpcCall call = startResourceWatcher(XdsClusterResource.getInstance(), CDS_RESOURCE,
+        cdsResourceWatcher);
+    holdParses = true;
+    call.sendResponse(CDS, buildManyClusters(), VERSION_1, "0000");
+    call.sendError(Status.UNAVAILABLE.asException());
+    fakeClock.forwardNanos(10L);
+    call = resourceDiscoveryCalls.poll();
+    call.verifyRequest(CDS, CDS_RESOURCE, "", "", NODE);
+
+    heldParses.remove().run();
+    verify(cdsResourceWatcher).onChanged(cdsUpdateCaptor.capture());
+    assertThat(cdsUpdateCaptor.getValue().clusterName()).isEqualTo(CDS_RESOURCE);
+    // The response was received on the previous stream, so the new stream does not ACK it.
+    call.verifyNoMoreRequest();
+  }
+
+  @Test
+  public void cdsSubscriptionChangedWhileParsing_unprocessedNonceNotSent() {
+    DiscoveryRpcCall call = startResourceWatcher(XdsClusterResource.getInstance(), CDS_RESOURCE,
+        cdsResourceWatcher);
+    holdParses = true;
+    List<Any> clusters = buildManyClusters();
+    call.sendResponse(CDS, clusters, VERSION_1, "0000");
+    String otherCluster = "cluster-0.googleapis.com";
+    xdsClient.watchXdsResource(XdsClusterResource.getInstance(), otherCluster, cdsResourceWatcher);
+    // Sending nonce 0000 before the response is processed would ACK it.
+    call.verifyRequest(CDS, ImmutableList.of(CDS_RESOURCE, otherCluster), "", "", NODE);
+
+    heldParses.remove().run();
+    call.verifyRequest(CDS, ImmutableList.of(CDS_RESOURCE, otherCluster), VERSION_1, "0000", NODE);
+    call.verifyNoMoreRequest();
+  }
+
+  @Test
+  public void deltaSubscribeAndAck() {
+    useDeltaXdsClient();
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+    call.verifyDeltaRequest(EDS, ImmutableList.of(EDS_RESOURCE), ImmutableList.<String>of(),
+        ImmutableMap.<String, String>of(), "", NODE);
+
+    call.sendDeltaResponse(EDS, ImmutableMap.of(EDS_RESOURCE, testClusterLoadAssignment),
+        VERSION_1, ImmutableList.<String>of(), "0000");
+    verify(edsResourceWatcher).onChanged(edsUpdateCaptor.capture());
+    validateGoldenClusterLoadAssignment(edsUpdateCaptor.getValue());
+    verifyResourceMetadataAcked(EDS, EDS_RESOURCE, testClusterLoadAssignment, VERSION_1,
+        TIME_INCREMENT);
+    // Only the first request carries the node.
+    call.verifyDeltaRequest(EDS, ImmutableList.<String>of(), ImmutableList.<String>of(),
+        ImmutableMap.<String, String>of(), "0000", null);
+    call.verifyNoMoreRequest();
+  }
+
+  @Test
+  public void deltaInvalidResource_nack() {
+    useDeltaXdsClient();
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+
+    call.sendDeltaResponse(EDS, ImmutableMap.of(EDS_RESOURCE, FAILING_ANY), VERSION_1,
+        ImmutableList.<String>of(), "0000");
+    call.verifyDeltaRequestNack(EDS, "0000", ImmutableList.of(
+        "EDS response Resource index 0 - can't decode ClusterLoadAssignment: "));
+    verify(edsResourceWatcher, never()).onChanged(any(EdsUpdate.class));
+  }
+
+  @Test
+  public void deltaUnchangedResourceVersion_notParsedAgain() {
+    useDeltaXdsClient();
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+    call.sendDeltaResponse(EDS, ImmutableMap.of(EDS_RESOURCE, testClusterLoadAssignment),
+        VERSION_1, ImmutableList.<String>of(), "0000");
+
+    // Would be NACKed if parsed.
+    call.sendDeltaResponse(EDS, ImmutableMap.of(EDS_RESOURCE, FAILING_ANY), VERSION_1,
+        ImmutableList.<String>of(), "0001");
+    call.verifyDeltaRequest(EDS, ImmutableList.<String>of(), ImmutableList.<String>of(),
+        ImmutableMap.<String, String>of(), "0001", null);
+    verify(edsResourceWatcher).onChanged(any(EdsUpdate.class));
+  }
+
+  @Test
+  public void deltaRemovedResource_notifiesDoesNotExist() {
+    useDeltaXdsClient();
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+    call.sendDeltaResponse(EDS, ImmutableMap.of(EDS_RESOURCE, testClusterLoadAssignment),
+        VERSION_1, ImmutableList.<String>of(), "0000");
+
+    // Resources left out of a delta response are unchanged, not absent.
+    call.sendDeltaResponse(EDS, ImmutableMap.<String, Any>of(), VERSION_2,
+        ImmutableList.<String>of(), "0001");
+    verify(edsResourceWatcher, never()).onResourceDoesNotExist(EDS_RESOURCE);
+
+    call.sendDeltaResponse(EDS, ImmutableMap.<String, Any>of(), VERSION_3,
+        ImmutableList.of(EDS_RESOURCE), "0002");
+    verify(edsResourceWatcher).onResourceDoesNotExist(EDS_RESOURCE);
+  }
+
+  @Test
+  public void deltaStreamRestart_sendsInitialResourceVersions() {
+    useDeltaXdsClient();
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+    call.sendDeltaResponse(EDS, ImmutableMap.of(EDS_RESOURCE, testClusterLoadAssignment),
+        VERSION_1, ImmutableList.<String>of(), "0000");
+
+    call.sendError(Status.UNAVAILABLE.asException());
+    fakeClock.forwardNanos(10L);
+    call = resourceDiscoveryCalls.poll();
+    call.verifyDeltaRequest(EDS, ImmutableList.of(EDS_RESOURCE), ImmutableList.<String>of(),
+        ImmutableMap.of(EDS_RESOURCE, VERSION_1), "", NODE);
+  }
+
+  @Test
+  public void deltaCancelWatch_unsubscribes() {
+    useDeltaXdsClient();
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+    call.sendDeltaResponse(EDS, ImmutableMap.of(EDS_RESOURCE, testClusterLoadAssignment),
+        VERSION_1, ImmutableList.<String>of(), "0000");
+
+    xdsClient.cancelXdsResourceWatch(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    call.verifyDeltaRequest(EDS, ImmutableList.<String>of(), ImmutableList.of(EDS_RESOURCE),
+        ImmutableMap.<String, String>of(), "", null);
+
+    // Subscribing again after the unsubscribe must not claim the old version.
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    call.verifyDeltaRequest(EDS, ImmutableList.of(EDS_RESOURCE), ImmutableList.<String>of(),
+        ImmutableMap.<String, String>of(), "", null);
+  }
+
+  @Test
+  public void deltaNackAfterSubscriptionChange_versionsNotCommitted() {
+    useDeltaXdsClient();
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+    call.sendDeltaResponse(EDS, ImmutableMap.of(EDS_RESOURCE, testClusterLoadAssignment),
+        VERSION_1, ImmutableList.<String>of(), "0000");
+
+    // A large response with an invalid resource, held back in the parse pool.
+    Map<String, Any> resources = new LinkedHashMap<>();
+    resources.put(EDS_RESOURCE, FAILING_ANY);
+    for (int i = 0; resources.size() < XdsClientImpl.PARALLEL_PARSE_THRESHOLD; i++) {
+      String name = "cluster-" + i + ".googleapis.com";
+      resources.put(name, Any.pack(mf.buildClusterLoadAssignment(name,
+          ImmutableList.of(lbEndpointHealthy), ImmutableList.<Message>of())));
+    }
+    holdParses = true;
+    call.sendDeltaResponse(EDS, resources, VERSION_2, ImmutableList.<String>of(), "0001");
+    String otherResource = "cluster-0.googleapis.com";
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), otherResource,
+        edsResourceWatcher);
+    // The subscription change must not ACK the response still being parsed.
+    call.verifyDeltaRequest(EDS, ImmutableList.of(otherResource), ImmutableList.<String>of(),
+        ImmutableMap.<String, String>of(), "", null);
+
+    heldParses.remove().run();
+    call.verifyDeltaRequestNack(EDS, "0001", ImmutableList.of(
+        "EDS response Resource index 0 - can't decode ClusterLoadAssignment: "));
+
+    // The NACKed versions are not claimed on the next stream.
+    call.sendError(Status.UNAVAILABLE.asException());
+    fakeClock.forwardNanos(10L);
+    call = resourceDiscoveryCalls.poll();
+    call.verifyDeltaRequest(EDS, ImmutableList.of(EDS_RESOURCE, otherResource),
+        ImmutableList.<String>of(), ImmutableMap.of(EDS_RESOURCE, VERSION_1), "", NODE);
+  }
+
+  @Test
+  public void resourceCache_servesCachedResourceUntilServerResponds() throws Exception {
+    File cacheDirectory = tempFolder.newFolder();
+    XdsResourceCache cache =
+        new XdsResourceCache(cacheDirectory.toPath(), MoreExecutors.directExecutor());
+    cache.store(EDS, VERSION_1, ImmutableMap.of(EDS_RESOURCE, testClusterLoadAssignment));
+    useXdsClientWithResourceCache(cacheDirectory);
+
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    verify(edsResourceWatcher).onChanged(edsUpdateCaptor.capture());
+    validateGoldenClusterLoadAssignment(edsUpdateCaptor.getValue());
+
+    // The management server replaces the cached copy.
+    Any update = Any.pack(mf.buildClusterLoadAssignment(EDS_RESOURCE,
+        ImmutableList.of(lbEndpointHealthy), ImmutableList.<Message>of()));
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+    call.sendResponse(EDS, update, VERSION_2, "0000");
+    verify(edsResourceWatcher, times(2)).onChanged(edsUpdateCaptor.capture());
+    assertThat(edsUpdateCaptor.getValue().dropPolicies).isEmpty();
+    fakeClock.forwardTime(XdsClientImpl.INITIAL_RESOURCE_FETCH_TIMEOUT_SEC, TimeUnit.SECONDS);
+    verify(edsResourceWatcher, never()).onResourceDoesNotExist(EDS_RESOURCE);
+
+    // Accepted resources are written back to the cache.
+    assertThat(cache.load(EDS)).containsExactly(EDS_RESOURCE, update);
+  }
+
+  @Test
+  public void resourceCache_serverRespondsBeforeCacheIsRead() throws Exception {
+    File cacheDirectory = tempFolder.newFolder();
+    new XdsResourceCache(cacheDirectory.toPath(), MoreExecutors.directExecutor())
+        .store(EDS, VERSION_1, ImmutableMap.of(EDS_RESOURCE, testClusterLoadAssignment));
+    FakeClock cacheClock = new FakeClock();
+    useXdsClientWithResourceCache(cacheDirectory, cacheClock.getScheduledExecutorService());
+
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    // The cache is read off the SynchronizationContext.
+    verify(edsResourceWatcher, never()).onChanged(any(EdsUpdate.class));
+    Any update = Any.pack(mf.buildClusterLoadAssignment(EDS_RESOURCE,
+        ImmutableList.of(lbEndpointHealthy), ImmutableList.<Message>of()));
+    DiscoveryRpcCall call = resourceDiscoveryCalls.poll();
+    call.sendResponse(EDS, update, VERSION_2, "0000");
+    verify(edsResourceWatcher).onChanged(edsUpdateCaptor.capture());
+    assertThat(edsUpdateCaptor.getValue().dropPolicies).isEmpty();
+
+    // The cached copy, read late, doesn't replace the management server's.
+    assertThat(cacheClock.runDueTasks()).isAtLeast(1);
+    verify(edsResourceWatcher).onChanged(any(EdsUpdate.class));
+  }
+
+  @Test
+  public void resourceCache_cachedResourceNotConfirmed() throws Exception {
+    File cacheDirectory = tempFolder.newFolder();
+    new XdsResourceCache(cacheDirectory.toPath(), MoreExecutors.directExecutor())
+        .store(EDS, VERSION_1, ImmutableMap.of(EDS_RESOURCE, testClusterLoadAssignment));
+    useXdsClientWithResourceCache(cacheDirectory);
+
+    xdsClient.watchXdsResource(XdsEndpointResource.getInstance(), EDS_RESOURCE,
+        edsResourceWatcher);
+    verify(edsResourceWatcher).onChanged(any(EdsUpdate.class));
+
+    // The cached copy is dropped if the management server doesn't send the resource in time.
+    fakeClock.forwardTime(XdsClientImpl.INITIAL_RESOURCE_FETCH_TIMEOUT_SEC, TimeUnit.SECONDS);
+    verify(edsResourceWatcher).onResourceDoesNotExist(EDS_RESOURCE);
+  }
+
+  /**
+   * Returns enough clusters, including {@link #CDS_RESOURCE}, for the response to be parsed in
+   * the parse pool.
+   */
+  private List<Any> buildManyClusters() {
+    List<Any> clusters = new ArrayList<>();
+    clusters.add(testClusterRoundRobin);
+    for (int i = 0; clusters.size() < XdsClientImpl.PARALLEL_PARSE_THRESHOLD; i++) {
+      clusters.add(Any.pack(mf.buildEdsCluster("cluster-" + i + ".googleapis.com", null,
+          "round_robin", null, null, false, null, "envoy.transport_sockets.tls", null, null)));
+    }
+    return clusters;
+  }
+
   @Test
   public void edsResourceNotFound() {
     DiscoveryRpcCall call = startResourceWatcher(XdsEndpointResource.getInstance(), EDS_RESOURCE,
@@ -3698,6 +4059,21 @@ public abstract class XdsClientImplTestBase {
       verifyRequestNack(type, ImmutableList.of(resource), versionInfo, nonce, node, errorMessages);
     }
 
+    /**
+     * Verifies a request on an incremental (delta) xDS stream. {@code node} is {@code null} if
+     * the request must not carry the node.
+     */
+    protected void verifyDeltaRequest(
+        XdsResourceType<?> type, List<String> subscribe, List<String> unsubscribe,
+        Map<String, String> initialResourceVersions, String nonce, @Nullable Node node) {
+      throw new UnsupportedOperationException();
+    }
+
+    protected void verifyDeltaRequestNack(
+        XdsResourceType<?> type, String nonce, List<String> errorMessages) {
+      throw new UnsupportedOperationException();
+    }
+
     protected void verifyNoMoreRequest() {
       throw new UnsupportedOperationException();
     }
@@ -3712,6 +4088,16 @@ public abstract class XdsClientImplTestBase {
       sendResponse(type, ImmutableList.of(resource), versionInfo, nonce);
     }
 
+    /**
+     * Sends a response on an incremental (delta) xDS stream, with all {@code resources} at the
+     * given version.
+     */
+    protected void sendDeltaResponse(
+        XdsResourceType<?> type, Map<String, Any> resources, String version,
+        List<String> removedResources, String nonce) {
+      throw new UnsupportedOperationException();
+    }
+
     protected void sendError(Throwable t) {
       throw new UnsupportedOperationException();
     }
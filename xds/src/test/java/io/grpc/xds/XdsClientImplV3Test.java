@@ -85,6 +85,8 @@ import io.envoyproxy.envoy.extensions.transport_sockets.tls.v3.CertificateValida
 import io.envoyproxy.envoy.extensions.transport_sockets.tls.v3.CommonTlsContext;
 import io.envoyproxy.envoy.extensions.transport_sockets.tls.v3.UpstreamTlsContext;
 import io.envoyproxy.envoy.service.discovery.v3.AggregatedDiscoveryServiceGrpc.AggregatedDiscoveryServiceImplBase;
+import io.envoyproxy.envoy.service.discovery.v3.DeltaDiscoveryRequest;
+import io.envoyproxy.envoy.service.discovery.v3.DeltaDiscoveryResponse;
 import io.envoyproxy.envoy.service.discovery.v3.DiscoveryRequest;
 import io.envoyproxy.envoy.service.discovery.v3.DiscoveryResponse;
 import io.envoyproxy.envoy.service.discovery.v3.Resource;
@@ -151,6 +153,25 @@ public class XdsClientImplV3Test extends XdsClientImplTestBase {
             }, MoreExecutors.directExecutor());
         return requestObserver;
       }
+
+      @Override
+      public StreamObserver<DeltaDiscoveryRequest> deltaAggregatedResources(
+          final StreamObserver<DeltaDiscoveryResponse> responseObserver) {
+        assertThat(adsEnded.get()).isTrue();  // ensure previous call was ended
+        adsEnded.set(false);
+        @SuppressWarnings("unchecked")
+        StreamObserver<DeltaDiscoveryRequest> requestObserver = mock(StreamObserver.class);
+        DiscoveryRpcCall call = new DeltaDiscoveryRpcCallV3(requestObserver, responseObserver);
+        resourceDiscoveryCalls.offer(call);
+        Context.current().addListener(
+            new CancellationListener() {
+              @Override
+              public void cancelled(Context context) {
+                adsEnded.set(true);
+              }
+            }, MoreExecutors.directExecutor());
+        return requestObserver;
+      }
     };
   }
 
@@ -249,6 +270,71 @@ public class XdsClientImplV3Test extends XdsClientImplTestBase {
     }
   }
 
+  private static class DeltaDiscoveryRpcCallV3 extends DiscoveryRpcCall {
+    StreamObserver<DeltaDiscoveryRequest> requestObserver;
+    StreamObserver<DeltaDiscoveryResponse> responseObserver;
+
+    private DeltaDiscoveryRpcCallV3(StreamObserver<DeltaDiscoveryRequest> requestObserver,
+        StreamObserver<DeltaDiscoveryResponse> responseObserver) {
+      this.requestObserver = requestObserver;
+      this.responseObserver = responseObserver;
+    }
+
+    @Override
+    protected void verifyDeltaRequest(
+        XdsResourceType<?> type, List<String> subscribe, List<String> unsubscribe,
+        Map<String, String> initialResourceVersions, String nonce,
+        @Nullable EnvoyProtoData.Node node) {
+      verify(requestObserver, Mockito.timeout(2000)).onNext(argThat(
+          new DeltaDiscoveryRequestMatcher(node != null ? node.toEnvoyProtoNode() : null,
+              type.typeUrl(), subscribe, unsubscribe, initialResourceVersions, nonce, null,
+              null)));
+    }
+
+    @Override
+    protected void verifyDeltaRequestNack(
+        XdsResourceType<?> type, String nonce, List<String> errorMessages) {
+      verify(requestObserver, Mockito.timeout(2000)).onNext(argThat(
+          new DeltaDiscoveryRequestMatcher(null, type.typeUrl(), ImmutableList.<String>of(),
+              ImmutableList.<String>of(), Collections.<String, String>emptyMap(), nonce,
+              Code.INVALID_ARGUMENT_VALUE, errorMessages)));
+    }
+
+    @Override
+    protected void verifyNoMoreRequest() {
+      verifyNoMoreInteractions(requestObserver);
+    }
+
+    @Override
+    protected void sendDeltaResponse(
+        XdsResourceType<?> type, Map<String, Any> resources, String version,
+        List<String> removedResources, String nonce) {
+      DeltaDiscoveryResponse.Builder response =
+          DeltaDiscoveryResponse.newBuilder()
+              .setSystemVersionInfo(version)
+              .addAllRemovedResources(removedResources)
+              .setTypeUrl(type.typeUrl())
+              .setNonce(nonce);
+      for (Map.Entry<String, Any> resource : resources.entrySet()) {
+        response.addResources(Resource.newBuilder()
+            .setName(resource.getKey())
+            .setVersion(version)
+            .setResource(resource.getValue()));
+      }
+      responseObserver.onNext(response.build());
+    }
+
+    @Override
+    protected void sendError(Throwable t) {
+      responseObserver.onError(t);
+    }
+
+    @Override
+    protected void sendCompleted() {
+      responseObserver.onCompleted();
+    }
+  }
+
   private static class LrsRpcCallV3 extends LrsRpcCall {
     private final StreamObserver<LoadStatsRequest> requestObserver;
     private final StreamObserver<LoadStatsResponse> responseObserver;
@@ -863,6 +949,57 @@ public class XdsClientImplV3Test extends XdsClientImplTestBase {
     }
   }
 
+  private static class DeltaDiscoveryRequestMatcher
+      implements ArgumentMatcher<DeltaDiscoveryRequest> {
+    @Nullable private final Node node;
+    private final String typeUrl;
+    private final Set<String> subscribe;
+    private final Set<String> unsubscribe;
+    private final Map<String, String> initialResourceVersions;
+    private final String responseNonce;
+    @Nullable private final Integer errorCode;
+    private final List<String> errorMessages;
+
+    private DeltaDiscoveryRequestMatcher(
+        @Nullable Node node, String typeUrl, List<String> subscribe, List<String> unsubscribe,
+        Map<String, String> initialResourceVersions, String responseNonce,
+        @Nullable Integer errorCode, @Nullable List<String> errorMessages) {
+      this.node = node;
+      this.typeUrl = typeUrl;
+      this.subscribe = new HashSet<>(subscribe);
+      this.unsubscribe = new HashSet<>(unsubscribe);
+      this.initialResourceVersions = initialResourceVersions;
+      this.responseNonce = responseNonce;
+      this.errorCode = errorCode;
+      this.errorMessages = errorMessages != null ? errorMessages : ImmutableList.<String>of();
+    }
+
+    @Override
+    public boolean matches(DeltaDiscoveryRequest argument) {
+      if (!typeUrl.equals(argument.getTypeUrl())) {
+        return false;
+      }
+      if (!responseNonce.equals(argument.getResponseNonce())) {
+        return false;
+      }
+      if (!subscribe.equals(new HashSet<>(argument.getResourceNamesSubscribeList()))
+          || !unsubscribe.equals(new HashSet<>(argument.getResourceNamesUnsubscribeList()))) {
+        return false;
+      }
+      if (!initialResourceVersions.equals(argument.getInitialResourceVersionsMap())) {
+        return false;
+      }
+      if (errorCode == null && argument.hasErrorDetail()) {
+        return false;
+      }
+      if (errorCode != null
+          && !matchErrorDetail(argument.getErrorDetail(), errorCode, errorMessages)) {
+        return false;
+      }
+      return node != null ? node.equals(argument.getNode()) : !argument.hasNode();
+    }
+  }
+
   /**
    * Matches a {@link LoadStatsRequest} containing a collection of {@link ClusterStats} with
    * the same list of clusterName:clusterServiceName pair.
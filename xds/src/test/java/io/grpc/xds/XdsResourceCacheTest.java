@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 The gRPC Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.grpc.xds;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.Any;
+import com.google.protobuf.UInt32Value;
+import io.envoyproxy.envoy.config.core.v3.Address;
+import io.envoyproxy.envoy.config.core.v3.HealthStatus;
+import io.envoyproxy.envoy.config.core.v3.Locality;
+import io.envoyproxy.envoy.config.core.v3.SocketAddress;
+import io.envoyproxy.envoy.config.endpoint.v3.ClusterLoadAssignment;
+import io.envoyproxy.envoy.config.endpoint.v3.Endpoint;
+import io.envoyproxy.envoy.config.endpoint.v3.LbEndpoint;
+import io.envoyproxy.envoy.config.endpoint.v3.LocalityLbEndpoints;
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@link XdsResourceCache}. Its use by {@link XdsClientImpl} is tested in
+ * {@link XdsClientImplTestBase}.
+ */
+@RunWith(JUnit4.class)
+public class XdsResourceCacheTest {
+  private static final String EDS_RESOURCE = "cluster-load-assignment.googleapis.com";
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File cacheDirectory;
+  private XdsResourceCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    cacheDirectory = tempFolder.newFolder();
+    cache = new XdsResourceCache(cacheDirectory.toPath(), MoreExecutors.directExecutor());
+  }
+
+  @Test
+  public void storeAndLoad() {
+    Any resource = buildClusterLoadAssignment("192.168.0.1");
+    cache.store(XdsEndpointResource.getInstance(), "1", ImmutableMap.of(EDS_RESOURCE, resource));
+
+    assertThat(cache.load(XdsEndpointResource.getInstance()))
+        .containsExactly(EDS_RESOURCE, resource);
+    assertThat(cache.load(XdsClusterResource.getInstance())).isEmpty();
+    assertThat(cacheDirectory.list()).asList().containsExactly("EDS.pb");
+  }
+
+  @Test
+  public void load_corruptedFile() throws Exception {
+    Files.write(cache.fileOf(XdsEndpointResource.getInstance()), new byte[] {1, 2, 3});
+
+    assertThat(cache.load(XdsEndpointResource.getInstance())).isEmpty();
+  }
+
+  @Test
+  public void load_wrongType() throws Exception {
+    cache.store(XdsEndpointResource.getInstance(), "1",
+        ImmutableMap.of(EDS_RESOURCE, buildClusterLoadAssignment("192.168.0.1")));
+    Files.move(cache.fileOf(XdsEndpointResource.getInstance()),
+        cache.fileOf(XdsClusterResource.getInstance()));
+
+    assertThat(cache.load(XdsClusterResource.getInstance())).isEmpty();
+  }
+
+  private static Any buildClusterLoadAssignment(String address) {
+    LbEndpoint endpoint =
+        LbEndpoint.newBuilder()
+            .setEndpoint(Endpoint.newBuilder().setAddress(Address.newBuilder().setSocketAddress(
+                SocketAddress.newBuilder().setAddress(address).setPortValue(8080))))
+            .setHealthStatus(HealthStatus.HEALTHY)
+            .build();
+    return Any.pack(
+        ClusterLoadAssignment.newBuilder()
+            .setClusterName(EDS_RESOURCE)
+            .addEndpoints(LocalityLbEndpoints.newBuilder()
+                .setLocality(
+                    Locality.newBuilder().setRegion("region").setZone("zone").setSubZone("sub"))
+                .setLoadBalancingWeight(UInt32Value.of(1))
+                .setPriority(0)
+                .addLbEndpoints(endpoint))
+            .build());
+  }
+}